@@ -0,0 +1,35 @@
+package org.akcome.commons.benchmarks;
+
+/**
+ * 基准测试用的从实体
+ * @author peng_wang
+ */
+public class BenchmarkItem {
+	private String sku;
+	private int quantity;
+	private double price;
+
+	public String getSku() {
+		return sku;
+	}
+
+	public void setSku(String sku) {
+		this.sku = sku;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	public double getPrice() {
+		return price;
+	}
+
+	public void setPrice(double price) {
+		this.price = price;
+	}
+}
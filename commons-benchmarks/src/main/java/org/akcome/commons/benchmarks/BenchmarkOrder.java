@@ -0,0 +1,95 @@
+package org.akcome.commons.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的主实体
+ * @author peng_wang
+ */
+public class BenchmarkOrder {
+	private long id;
+	private String orderNo;
+	private String customerName;
+	private double amount;
+	private int status;
+	private String createTime;
+	private List<BenchmarkItem> items = new ArrayList<BenchmarkItem>();
+
+	/**
+	 * 构造一个含<code>itemCount</code>条明细的样例订单
+	 */
+	public static BenchmarkOrder sample(int itemCount) {
+		BenchmarkOrder order = new BenchmarkOrder();
+		order.setId(10086L);
+		order.setOrderNo("AK2015112500001");
+		order.setCustomerName("张三<script>");
+		order.setAmount(12345.67);
+		order.setStatus(2);
+		order.setCreateTime("2015-11-25 10:30:00");
+		for (int i = 0; i < itemCount; i++) {
+			BenchmarkItem item = new BenchmarkItem();
+			item.setSku("SKU-" + i);
+			item.setQuantity(i + 1);
+			item.setPrice(9.9 * (i + 1));
+			order.getItems().add(item);
+		}
+		return order;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getOrderNo() {
+		return orderNo;
+	}
+
+	public void setOrderNo(String orderNo) {
+		this.orderNo = orderNo;
+	}
+
+	public String getCustomerName() {
+		return customerName;
+	}
+
+	public void setCustomerName(String customerName) {
+		this.customerName = customerName;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public void setAmount(double amount) {
+		this.amount = amount;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public String getCreateTime() {
+		return createTime;
+	}
+
+	public void setCreateTime(String createTime) {
+		this.createTime = createTime;
+	}
+
+	public List<BenchmarkItem> getItems() {
+		return items;
+	}
+
+	public void setItems(List<BenchmarkItem> items) {
+		this.items = items;
+	}
+}
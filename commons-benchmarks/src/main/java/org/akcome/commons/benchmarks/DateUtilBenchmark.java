@@ -0,0 +1,61 @@
+package org.akcome.commons.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.akcome.commons.transformation.date.DateStyle;
+import org.akcome.commons.transformation.date.DateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DateUtil的解析与格式化
+ * @see <code>stringToDate</code>需先推断日期格式,<code>stringToDateWithStyle</code>直接按指定格式解析
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateUtilBenchmark {
+	@Param({ "2015-11-25 10:30:00", "2015/11/25", "2015年11月25日 10:30", "10:30:00" })
+	public String date;
+
+	private Date value;
+
+	@Setup
+	public void setup() {
+		value = DateUtil.StringToDate("2015-11-25 10:30:00", DateStyle.YYYY_MM_DD_HH_MM_SS);
+	}
+
+	@Benchmark
+	public Date stringToDate() {
+		return DateUtil.StringToDate(date);
+	}
+
+	@Benchmark
+	public Date stringToDateWithStyle() {
+		return DateUtil.StringToDate("2015-11-25 10:30:00", DateStyle.YYYY_MM_DD_HH_MM_SS);
+	}
+
+	@Benchmark
+	public String dateToString() {
+		return DateUtil.DateToString(value, DateStyle.YYYY_MM_DD_HH_MM_SS);
+	}
+
+	@Benchmark
+	public String stringToString() {
+		return DateUtil.StringToString(date, DateStyle.YYYY_MM_DD);
+	}
+}
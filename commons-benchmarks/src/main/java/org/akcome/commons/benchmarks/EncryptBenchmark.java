@@ -0,0 +1,69 @@
+package org.akcome.commons.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.akcome.commons.encrypt.base64.Base64Util;
+import org.akcome.commons.encrypt.des.DesUtil;
+import org.akcome.commons.encrypt.md5.Md5Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base64Util、Md5Util与DesUtil
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncryptBenchmark {
+	/** 明文长度(字符数) */
+	@Param({ "32", "1024" })
+	public int length;
+
+	private String plainText;
+	private String encoded;
+	private DesUtil desUtil;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		plainText = sb.toString();
+		encoded = Base64Util.encode(plainText);
+		desUtil = new DesUtil();
+	}
+
+	@Benchmark
+	public String base64Encode() {
+		return Base64Util.encode(plainText);
+	}
+
+	@Benchmark
+	public String base64Decode() {
+		return Base64Util.decode(encoded);
+	}
+
+	@Benchmark
+	public String md5() {
+		return Md5Util.encryption(plainText);
+	}
+
+	@Benchmark
+	public String desEncrypt() throws Exception {
+		return desUtil.encrypt(plainText);
+	}
+}
@@ -0,0 +1,77 @@
+package org.akcome.commons.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.akcome.commons.transformation.json.JsonLibEngine;
+import org.akcome.commons.transformation.json.JsonUtils;
+import org.akcome.commons.transformation.json.StreamingJsonEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JsonUtils的序列化与反序列化
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonUtilsBenchmark {
+	/** 订单明细条数 */
+	@Param({ "1", "100" })
+	public int itemCount;
+
+	/** JSON引擎 */
+	@Param({ "streaming", "json-lib" })
+	public String engine;
+
+	private BenchmarkOrder order;
+	private String orderJson;
+	private String itemJson;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream(65536);
+
+	@Setup
+	public void setup() {
+		JsonUtils.setEngine("json-lib".equals(engine) ? new JsonLibEngine() : new StreamingJsonEngine());
+		order = BenchmarkOrder.sample(itemCount);
+		// toJSONString(Object)的结果为数组形式,取其中的对象
+		String json = JsonUtils.toJSONString(order);
+		orderJson = json.substring(1, json.length() - 1);
+		String items = JsonUtils.toJSONString(order.getItems());
+		itemJson = items.substring(1, items.indexOf('}') + 1);
+	}
+
+	@Benchmark
+	public String toJSONString() {
+		return JsonUtils.toJSONString(order);
+	}
+
+	@Benchmark
+	public int writeJSONString() {
+		out.reset();
+		JsonUtils.writeJSONString(order, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public BenchmarkItem toBean() {
+		return JsonUtils.toBean(itemJson, BenchmarkItem.class);
+	}
+
+	@Benchmark
+	public BenchmarkOrder toBeanWithDetail() {
+		return JsonUtils.toBean(orderJson, BenchmarkOrder.class, "items", BenchmarkItem.class);
+	}
+}
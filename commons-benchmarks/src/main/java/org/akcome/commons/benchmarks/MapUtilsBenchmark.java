@@ -0,0 +1,62 @@
+package org.akcome.commons.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.akcome.commons.transformation.bean.MapUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * MapUtils的Map与JavaBean互转
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapUtilsBenchmark {
+	private BenchmarkItem item;
+	private Map<String, String> map;
+	private Map<String, String> underlineMap;
+
+	@Setup
+	public void setup() {
+		item = BenchmarkOrder.sample(1).getItems().get(0);
+		map = new HashMap<String, String>();
+		map.put("sku", "SKU-1");
+		map.put("quantity", "3");
+		map.put("price", "29.7");
+		underlineMap = new HashMap<String, String>();
+		underlineMap.put("order_no", "AK2015112500001");
+		underlineMap.put("customer_name", "张三");
+		underlineMap.put("amount", "12345.67");
+		underlineMap.put("create_time", "2015-11-25 10:30:00");
+	}
+
+	@Benchmark
+	public BenchmarkItem toObject() throws Exception {
+		return MapUtils.toObject(BenchmarkItem.class, map);
+	}
+
+	@Benchmark
+	public BenchmarkOrder toObjectCamelCase() throws Exception {
+		return MapUtils.toObject(BenchmarkOrder.class, underlineMap, true);
+	}
+
+	@Benchmark
+	public Map<String, String> toMap() throws Exception {
+		return MapUtils.toMap(item);
+	}
+}
@@ -0,0 +1,80 @@
+package org.akcome.commons.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.akcome.commons.transformation.string.StringUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StringUtil的填充与截取
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringUtilBenchmark {
+	public String orderNo = "AK2015112500001";
+	public String xml = "<root><code>0000</code><msg>交易成功</msg><amount>12345.67</amount></root>";
+	public String path = "/data/upload/2015/11/25/contract-10086.pdf";
+
+	@Benchmark
+	public String leftPadChar() {
+		return StringUtil.leftPad(orderNo, 32, '0');
+	}
+
+	@Benchmark
+	public String leftPadString() {
+		return StringUtil.leftPad(orderNo, 32, "ab");
+	}
+
+	@Benchmark
+	public String rightPadChar() {
+		return StringUtil.rightPad(orderNo, 32, ' ');
+	}
+
+	@Benchmark
+	public String center() {
+		return StringUtil.center(orderNo, 32, '*');
+	}
+
+	@Benchmark
+	public String substringBetween() {
+		return StringUtil.substringBetween(xml, "<msg>", "</msg>");
+	}
+
+	@Benchmark
+	public String[] substringsBetween() {
+		return StringUtil.substringsBetween(xml, "<", ">");
+	}
+
+	@Benchmark
+	public String substringAfterLast() {
+		return StringUtil.substringAfterLast(path, "/");
+	}
+
+	@Benchmark
+	public String substringBefore() {
+		return StringUtil.substringBefore(path, ".");
+	}
+
+	@Benchmark
+	public String left() {
+		return StringUtil.left(orderNo, 8);
+	}
+
+	@Benchmark
+	public String right() {
+		return StringUtil.right(orderNo, 8);
+	}
+}
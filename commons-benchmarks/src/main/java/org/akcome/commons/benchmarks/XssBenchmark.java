@@ -0,0 +1,112 @@
+package org.akcome.commons.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.akcome.commons.web.filter.XssHttpServletRequestWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * XssHttpServletRequestWrapper的参数与请求头编码
+ * @see 被包装的请求由动态代理模拟,只实现参数与请求头的读取
+ * @author peng_wang
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XssBenchmark {
+	private HttpServletRequest rawRequest;
+	private XssHttpServletRequestWrapper request;
+
+	@Setup
+	public void setup() {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("orderNo", "AK2015112500001");
+		parameters.put("remark", "<script>alert('xss')</script>&#x27;");
+		parameters.put("keyword", "普通的中文检索关键字,没有需要转义的字符");
+		Map<String, String> headers = new HashMap<String, String>();
+		headers.put("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
+		rawRequest = stubRequest(parameters, headers);
+		request = new XssHttpServletRequestWrapper(rawRequest);
+	}
+
+	@Benchmark
+	public String cleanParameter() {
+		return request.getParameter("orderNo");
+	}
+
+	@Benchmark
+	public String dirtyParameter() {
+		return request.getParameter("remark");
+	}
+
+	@Benchmark
+	public String chineseParameter() {
+		return request.getParameter("keyword");
+	}
+
+	/**
+	 * 每个请求新建包装并读取全部参数,包含参数过滤的一次性开销
+	 */
+	@Benchmark
+	public Map<String, String[]> parameterMapPerRequest() {
+		return new XssHttpServletRequestWrapper(rawRequest).getParameterMap();
+	}
+
+	@Benchmark
+	public String header() {
+		return request.getHeader("User-Agent");
+	}
+
+	/**
+	 * 构造只支持参数与请求头读取的HttpServletRequest
+	 */
+	static HttpServletRequest stubRequest(final Map<String, String> parameters, final Map<String, String> headers) {
+		return (HttpServletRequest) Proxy.newProxyInstance(XssBenchmark.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if ("getParameter".equals(name)) {
+							return parameters.get(args[0]);
+						}
+						if ("getParameterValues".equals(name)) {
+							String value = parameters.get(args[0]);
+							return value == null ? null : new String[] { value };
+						}
+						if ("getParameterNames".equals(name)) {
+							return Collections.enumeration(parameters.keySet());
+						}
+						if ("getParameterMap".equals(name)) {
+							Map<String, String[]> map = new HashMap<String, String[]>();
+							for (Map.Entry<String, String> entry : parameters.entrySet()) {
+								map.put(entry.getKey(), new String[] { entry.getValue() });
+							}
+							return map;
+						}
+						if ("getHeader".equals(name)) {
+							return headers.get(args[0]);
+						}
+						throw new UnsupportedOperationException(name);
+					}
+				});
+	}
+}
@@ -0,0 +1,15 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+
+/**
+ * 目标主机的并发请求数已达上限,请求未发送
+ * @author peng_wang
+ */
+public class BulkheadFullException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadFullException(String host) {
+		super("主机[" + host + "]的并发请求数已达上限,请求被拒绝");
+	}
+}
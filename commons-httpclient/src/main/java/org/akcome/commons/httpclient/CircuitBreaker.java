@@ -0,0 +1,139 @@
+package org.akcome.commons.httpclient;
+
+/**
+ * 单个主机的熔断器
+ * @see 关闭状态下统计最近<code>slidingWindowSize</code>次调用,失败率或慢调用率达到阈值时打开
+ * @see 打开状态下所有调用立即失败,<code>openDurationMillis</code>后进入半开状态
+ * @see 半开状态下只放行<code>halfOpenPermittedCalls</code>次试探调用,全部成功则关闭,任一失败则重新打开
+ * @author peng_wang
+ */
+public class CircuitBreaker {
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final CircuitBreakerConfig config;
+	/** 最近调用的结果,环形缓冲区 */
+	private final byte[] outcomes;
+	private static final byte SUCCESS = 0;
+	private static final byte FAILURE = 1;
+	private static final byte SLOW = 2;
+
+	private State state = State.CLOSED;
+	private int position;
+	private int calls;
+	private int failures;
+	private int slowCalls;
+	private long openedAt;
+	private int halfOpenIssued;
+	private int halfOpenSucceeded;
+
+	public CircuitBreaker(CircuitBreakerConfig config) {
+		this.config = config;
+		this.outcomes = new byte[config.getSlidingWindowSize()];
+	}
+
+	/**
+	 * 申请一次调用许可
+	 * @return 熔断器打开或半开状态下试探调用已满时返回false
+	 */
+	public synchronized boolean tryAcquirePermission() {
+		if (state == State.OPEN) {
+			if (System.currentTimeMillis() - openedAt < config.getOpenDurationMillis()) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			halfOpenIssued = 0;
+			halfOpenSucceeded = 0;
+		}
+		if (state == State.HALF_OPEN) {
+			if (halfOpenIssued >= config.getHalfOpenPermittedCalls()) {
+				return false;
+			}
+			halfOpenIssued++;
+		}
+		return true;
+	}
+
+	/**
+	 * 记录一次成功调用
+	 * @param durationMillis 调用耗时毫秒数
+	 */
+	public void onSuccess(long durationMillis) {
+		record(false, durationMillis);
+	}
+
+	/**
+	 * 记录一次失败调用
+	 * @param durationMillis 调用耗时毫秒数
+	 */
+	public void onError(long durationMillis) {
+		record(true, durationMillis);
+	}
+
+	private synchronized void record(boolean failed, long durationMillis) {
+		boolean slow = durationMillis >= config.getSlowCallDurationMillis();
+		if (state == State.HALF_OPEN) {
+			if (failed || slow) {
+				open();
+			} else if (++halfOpenSucceeded >= config.getHalfOpenPermittedCalls()) {
+				close();
+			}
+			return;
+		}
+		if (state == State.OPEN) {
+			// 打开前已放行的调用,结果不再计入
+			return;
+		}
+		byte outcome = (byte) ((failed ? FAILURE : SUCCESS) | (slow ? SLOW : SUCCESS));
+		if (calls == outcomes.length) {
+			byte evicted = outcomes[position];
+			if ((evicted & FAILURE) != 0) {
+				failures--;
+			}
+			if ((evicted & SLOW) != 0) {
+				slowCalls--;
+			}
+		} else {
+			calls++;
+		}
+		outcomes[position] = outcome;
+		position = (position + 1) % outcomes.length;
+		if (failed) {
+			failures++;
+		}
+		if (slow) {
+			slowCalls++;
+		}
+		if (calls >= config.getMinimumCalls()
+				&& (failures * 100 >= config.getFailureRateThreshold() * calls
+						|| slowCalls * 100 >= config.getSlowCallRateThreshold() * calls)) {
+			open();
+		}
+	}
+
+	private void open() {
+		state = State.OPEN;
+		openedAt = System.currentTimeMillis();
+		resetWindow();
+	}
+
+	private void close() {
+		state = State.CLOSED;
+		resetWindow();
+	}
+
+	private void resetWindow() {
+		position = 0;
+		calls = 0;
+		failures = 0;
+		slowCalls = 0;
+	}
+
+	/**
+	 * 当前状态,打开时间已过但尚未有新调用时仍返回OPEN
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+}
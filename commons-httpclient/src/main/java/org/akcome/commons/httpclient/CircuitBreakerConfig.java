@@ -0,0 +1,78 @@
+package org.akcome.commons.httpclient;
+
+/**
+ * 按主机熔断的配置参数
+ * @author peng_wang
+ */
+public class CircuitBreakerConfig {
+	/** 失败率阈值(百分比),达到后熔断器打开 */
+	private int failureRateThreshold = 50;
+	/** 慢调用率阈值(百分比),达到后熔断器打开 */
+	private int slowCallRateThreshold = 100;
+	/** 耗时超过该毫秒数的调用视为慢调用 */
+	private long slowCallDurationMillis = 10000;
+	/** 统计失败率时使用的最近调用次数 */
+	private int slidingWindowSize = 50;
+	/** 最近调用次数达到该值后才计算失败率 */
+	private int minimumCalls = 20;
+	/** 熔断器打开后保持打开的毫秒数,之后进入半开状态 */
+	private long openDurationMillis = 30000;
+	/** 半开状态下允许通过的试探调用次数,全部成功后熔断器关闭 */
+	private int halfOpenPermittedCalls = 5;
+
+	public int getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	public void setFailureRateThreshold(int failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	public int getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	public long getSlowCallDurationMillis() {
+		return slowCallDurationMillis;
+	}
+
+	public void setSlowCallDurationMillis(long slowCallDurationMillis) {
+		this.slowCallDurationMillis = slowCallDurationMillis;
+	}
+
+	public int getSlidingWindowSize() {
+		return slidingWindowSize;
+	}
+
+	public void setSlidingWindowSize(int slidingWindowSize) {
+		this.slidingWindowSize = slidingWindowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	public void setMinimumCalls(int minimumCalls) {
+		this.minimumCalls = minimumCalls;
+	}
+
+	public long getOpenDurationMillis() {
+		return openDurationMillis;
+	}
+
+	public void setOpenDurationMillis(long openDurationMillis) {
+		this.openDurationMillis = openDurationMillis;
+	}
+
+	public int getHalfOpenPermittedCalls() {
+		return halfOpenPermittedCalls;
+	}
+
+	public void setHalfOpenPermittedCalls(int halfOpenPermittedCalls) {
+		this.halfOpenPermittedCalls = halfOpenPermittedCalls;
+	}
+}
@@ -0,0 +1,15 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+
+/**
+ * 目标主机的熔断器处于打开状态,请求未发送
+ * @author peng_wang
+ */
+public class CircuitBreakerOpenException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	public CircuitBreakerOpenException(String host) {
+		super("主机[" + host + "]的熔断器已打开,请求被拒绝");
+	}
+}
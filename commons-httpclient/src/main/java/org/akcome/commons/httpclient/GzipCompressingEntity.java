@@ -0,0 +1,53 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.message.BasicHeader;
+
+/**
+ * 以gzip压缩发送的请求实体
+ * @see 发送时边读取原实体边压缩,不在内存中保存压缩结果;压缩后长度未知,以chunked方式发送
+ * @see 原实体可重复读取时本实体也可重复发送
+ * @author peng_wang
+ */
+public class GzipCompressingEntity extends HttpEntityWrapper {
+	private static final Header CONTENT_ENCODING = new BasicHeader("Content-Encoding", "gzip");
+
+	public GzipCompressingEntity(HttpEntity entity) {
+		super(entity);
+	}
+
+	@Override
+	public Header getContentEncoding() {
+		return CONTENT_ENCODING;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public boolean isChunked() {
+		return true;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		throw new UnsupportedOperationException("压缩实体只能通过writeTo写出");
+	}
+
+	@Override
+	public void writeTo(OutputStream out) throws IOException {
+		GZIPOutputStream gzip = new GZIPOutputStream(out, HttpClientEngine.CHUNK_SIZE);
+		wrappedEntity.writeTo(gzip);
+		// finish而非close,底层输出流由HttpClient负责关闭
+		gzip.finish();
+	}
+}
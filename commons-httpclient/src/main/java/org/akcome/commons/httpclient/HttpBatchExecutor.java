@@ -0,0 +1,245 @@
+package org.akcome.commons.httpclient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量并发发送HTTP请求
+ * @see 所有请求共享同一个<code>HttpClientEngine</code>的连接池与异步线程池并行执行
+ * @see 同一主机同时在途的请求数不超过<code>maxInFlightPerHost</code>,其余请求按提交顺序排队,前一个请求结束后立即发送下一个
+ * @see 全部主机同时在途的请求数不超过<code>maxInFlight</code>,默认为引擎的异步线程数;
+ *      异步线程池已满(如与其他异步请求共用)时请求放回所在主机队列的队首稍后重新提交,不会因线程池拒绝而失败
+ * @see 批量总耗时约等于各主机排队后最慢的请求耗时,而不是所有请求耗时之和
+ * @author peng_wang
+ */
+public class HttpBatchExecutor {
+	/** 线程池已满且本批没有在途请求时,重新提交前等待的毫秒数 */
+	static final long RESUBMIT_DELAY_MILLIS = 10;
+
+	private final HttpClientEngine engine;
+	private final int maxInFlightPerHost;
+	private final int maxInFlight;
+
+	/**
+	 * 使用默认引擎,每个主机的在途请求数上限为连接池每路由最大连接数
+	 */
+	public HttpBatchExecutor() {
+		this(HttpClientEngine.getDefault());
+	}
+
+	public HttpBatchExecutor(HttpClientEngine engine) {
+		this(engine, engine.getConfig().getMaxPerRoute());
+	}
+
+	/**
+	 * 全部主机的在途请求数上限为引擎的异步线程数
+	 * @param engine             发送请求的引擎
+	 * @param maxInFlightPerHost 每个主机同时在途的最大请求数
+	 */
+	public HttpBatchExecutor(HttpClientEngine engine, int maxInFlightPerHost) {
+		this(engine, maxInFlightPerHost, engine.getConfig().getAsyncThreads());
+	}
+
+	/**
+	 * @param engine             发送请求的引擎
+	 * @param maxInFlightPerHost 每个主机同时在途的最大请求数
+	 * @param maxInFlight        全部主机同时在途的最大请求数,超过引擎异步线程数的部分在线程池队列中等待
+	 */
+	public HttpBatchExecutor(HttpClientEngine engine, int maxInFlightPerHost, int maxInFlight) {
+		if (maxInFlightPerHost <= 0) {
+			throw new IllegalArgumentException("maxInFlightPerHost必须大于0");
+		}
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight必须大于0");
+		}
+		this.engine = engine;
+		this.maxInFlightPerHost = maxInFlightPerHost;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * 批量发送请求并等待全部结束
+	 * @param requests 请求列表
+	 * @return 与<code>requests</code>顺序一一对应的结果
+	 */
+	public List<HttpBatchResult> execute(List<HttpBatchRequest> requests) throws InterruptedException {
+		try {
+			return executeAsync(requests).get();
+		} catch (ExecutionException e) {
+			// 单个请求的异常记录在结果中,整体Future不会异常结束
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * 批量发送请求,立即返回
+	 * @param requests 请求列表
+	 * @return 全部请求结束后完成的Future,结果与<code>requests</code>顺序一一对应
+	 */
+	public CompletableFuture<List<HttpBatchResult>> executeAsync(List<HttpBatchRequest> requests) {
+		Map<String, HostQueue> hostQueues = new LinkedHashMap<String, HostQueue>();
+		for (int i = 0; i < requests.size(); i++) {
+			HttpBatchRequest request = requests.get(i);
+			String hostKey = request.getHostKey();
+			HostQueue hostQueue = hostQueues.get(hostKey);
+			if (hostQueue == null) {
+				hostQueue = new HostQueue();
+				hostQueues.put(hostKey, hostQueue);
+			}
+			hostQueue.pending.add(new Task(i, request, hostQueue));
+		}
+		Batch batch = new Batch(requests.size(), new ArrayList<HostQueue>(hostQueues.values()));
+		if (requests.isEmpty()) {
+			batch.future.complete(new ArrayList<HttpBatchResult>());
+			return batch.future;
+		}
+		dispatch(batch);
+		return batch.future;
+	}
+
+	/**
+	 * 在全局与每个主机的在途上限内发送排队的请求
+	 * @see 同步结束的请求(如引擎已关闭)在循环中处理,避免回调递归过深
+	 * @see 线程池拒绝的请求放回队首后停止发送,由本批下一个结束的请求继续发送;本批没有在途请求时延迟后重新发送
+	 */
+	private void dispatch(final Batch batch) {
+		Task task;
+		while ((task = batch.next()) != null) {
+			final Task current = task;
+			final long start = System.nanoTime();
+			CompletableFuture<String> future;
+			try {
+				future = engine.executeAsync(current.request.createRequest(), current.request.getDecodeCharset(), null);
+			} catch (Exception e) {
+				future = new CompletableFuture<String>();
+				future.completeExceptionally(e);
+			}
+			if (!future.isDone()) {
+				future.whenComplete((responseContent, ex) -> {
+					batch.complete(current, responseContent, ex, start);
+					dispatch(batch);
+				});
+				continue;
+			}
+			String responseContent = null;
+			Throwable ex = null;
+			try {
+				responseContent = future.join();
+			} catch (CompletionException e) {
+				ex = e.getCause();
+			}
+			if (ex instanceof RejectedExecutionException && !engine.isShutdown()) {
+				if (batch.requeue(current)) {
+					ResubmitTimer.EXECUTOR.schedule(() -> dispatch(batch), RESUBMIT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				return;
+			}
+			batch.complete(current, responseContent, ex, start);
+		}
+	}
+
+	private static class Task {
+		final int index;
+		final HttpBatchRequest request;
+		final HostQueue hostQueue;
+
+		Task(int index, HttpBatchRequest request, HostQueue hostQueue) {
+			this.index = index;
+			this.request = request;
+			this.hostQueue = hostQueue;
+		}
+	}
+
+	/**
+	 * 同一主机的排队请求,由所在Batch加锁访问
+	 */
+	private static class HostQueue {
+		final Deque<Task> pending = new ArrayDeque<Task>();
+		int inFlight;
+	}
+
+	/**
+	 * 一次批量发送的排队状态与结果汇总
+	 */
+	private class Batch {
+		final CompletableFuture<List<HttpBatchResult>> future = new CompletableFuture<List<HttpBatchResult>>();
+		final HttpBatchResult[] results;
+		final AtomicInteger remaining;
+		private final List<HostQueue> hostQueues;
+		/** 下次从哪个主机开始查找,使各主机轮流发送 */
+		private int cursor;
+		private int inFlight;
+
+		Batch(int size, List<HostQueue> hostQueues) {
+			this.results = new HttpBatchResult[size];
+			this.remaining = new AtomicInteger(size);
+			this.hostQueues = hostQueues;
+		}
+
+		/**
+		 * 取出下一个可以发送的请求并计入在途数
+		 * @return 已达在途上限或没有排队的请求时返回null
+		 */
+		synchronized Task next() {
+			if (inFlight >= maxInFlight) {
+				return null;
+			}
+			for (int i = 0; i < hostQueues.size(); i++) {
+				HostQueue hostQueue = hostQueues.get((cursor + i) % hostQueues.size());
+				if (hostQueue.inFlight < maxInFlightPerHost && !hostQueue.pending.isEmpty()) {
+					cursor = (cursor + i + 1) % hostQueues.size();
+					hostQueue.inFlight++;
+					inFlight++;
+					return hostQueue.pending.poll();
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * 将线程池拒绝的请求放回所在主机队列的队首
+		 * @return 本批已没有在途请求,需要延迟后重新发送时返回true
+		 */
+		synchronized boolean requeue(Task task) {
+			task.hostQueue.inFlight--;
+			inFlight--;
+			task.hostQueue.pending.addFirst(task);
+			return inFlight == 0;
+		}
+
+		void complete(Task task, String responseContent, Throwable ex, long start) {
+			long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+			if (ex instanceof CompletionException && ex.getCause() != null) {
+				ex = ex.getCause();
+			}
+			results[task.index] = new HttpBatchResult(task.request, ex == null ? responseContent : null, ex, elapsedMillis);
+			synchronized (this) {
+				task.hostQueue.inFlight--;
+				inFlight--;
+			}
+			if (remaining.decrementAndGet() == 0) {
+				future.complete(new ArrayList<HttpBatchResult>(Arrays.asList(results)));
+			}
+		}
+	}
+
+	/**
+	 * 线程池已满时延迟重新发送的定时线程,首次需要时创建
+	 */
+	private static class ResubmitTimer {
+		static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1,
+				new HttpClientEngine.DaemonThreadFactory("HttpBatchExecutor-resubmit-"));
+	}
+}
@@ -0,0 +1,106 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * 批量发送时的单个请求
+ * @see 通过<code>get</code>/<code>post</code>静态方法创建,请求对象在真正发送时才构造
+ * @author peng_wang
+ */
+public class HttpBatchRequest {
+	private final String reqURL;
+	private final boolean post;
+	private final Map<String, String> params;
+	private final String sendData;
+	private final boolean isEncoder;
+	private final String encodeCharset;
+	private final String decodeCharset;
+
+	private HttpBatchRequest(String reqURL, boolean post, Map<String, String> params, String sendData,
+			boolean isEncoder, String encodeCharset, String decodeCharset) {
+		this.reqURL = reqURL;
+		this.post = post;
+		this.params = params;
+		this.sendData = sendData;
+		this.isEncoder = isEncoder;
+		this.encodeCharset = encodeCharset;
+		this.decodeCharset = decodeCharset;
+	}
+
+	/**
+	 * HTTP_GET请求
+	 * @param reqURL        请求地址(含参数)
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 */
+	public static HttpBatchRequest get(String reqURL, String decodeCharset) {
+		return new HttpBatchRequest(reqURL, false, null, null, false, null, decodeCharset);
+	}
+
+	/**
+	 * HTTP_POST表单请求
+	 * @param reqURL        请求地址
+	 * @param params        请求参数
+	 * @param encodeCharset 编码字符集,其为null时默认采用UTF-8编码
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 */
+	public static HttpBatchRequest post(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset) {
+		return new HttpBatchRequest(reqURL, true, params, null, false, encodeCharset, decodeCharset);
+	}
+
+	/**
+	 * HTTP_POST请求,参数含义同<code>HttpClientUtil.sendPostRequest(String,String,boolean,String,String)</code>
+	 */
+	public static HttpBatchRequest post(String reqURL, String sendData, boolean isEncoder, String encodeCharset, String decodeCharset) {
+		return new HttpBatchRequest(reqURL, true, null, sendData, isEncoder, encodeCharset, decodeCharset);
+	}
+
+	/**
+	 * 构造实际发送的请求
+	 */
+	HttpUriRequest createRequest() throws IOException {
+		if (!post) {
+			return new HttpGet(reqURL);
+		}
+		if (params != null) {
+			return HttpClientEngine.createPost(reqURL, params, encodeCharset);
+		}
+		return HttpClientEngine.createPost(reqURL, sendData, isEncoder, encodeCharset);
+	}
+
+	/**
+	 * 请求地址中的协议、主机名与端口,用于按主机限制并发,地址非法时返回请求地址本身
+	 */
+	String getHostKey() {
+		try {
+			URI uri = URI.create(reqURL);
+			return uri.getHost() == null ? reqURL : HttpClientEngine.hostKey(uri.getScheme(), uri.getHost(), uri.getPort());
+		} catch (IllegalArgumentException e) {
+			return reqURL;
+		}
+	}
+
+	public String getReqURL() {
+		return reqURL;
+	}
+
+	public Map<String, String> getParams() {
+		return params;
+	}
+
+	public String getSendData() {
+		return sendData;
+	}
+
+	public String getDecodeCharset() {
+		return decodeCharset;
+	}
+
+	public boolean isPost() {
+		return post;
+	}
+}
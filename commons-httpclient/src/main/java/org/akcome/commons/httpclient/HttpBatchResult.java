@@ -0,0 +1,51 @@
+package org.akcome.commons.httpclient;
+
+/**
+ * 批量发送时单个请求的结果
+ * @author peng_wang
+ */
+public class HttpBatchResult {
+	private final HttpBatchRequest request;
+	private final String responseContent;
+	private final Throwable exception;
+	private final long elapsedMillis;
+
+	HttpBatchResult(HttpBatchRequest request, String responseContent, Throwable exception, long elapsedMillis) {
+		this.request = request;
+		this.responseContent = responseContent;
+		this.exception = exception;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * 请求是否成功完成(未发生通信异常)
+	 */
+	public boolean isSuccess() {
+		return exception == null;
+	}
+
+	public HttpBatchRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * 远程主机响应正文,请求失败时为null
+	 */
+	public String getResponseContent() {
+		return responseContent;
+	}
+
+	/**
+	 * 通信过程中发生的异常,请求成功时为null
+	 */
+	public Throwable getException() {
+		return exception;
+	}
+
+	/**
+	 * 请求从开始发送到结束的耗时毫秒数,不含按主机限流的排队时间
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+}
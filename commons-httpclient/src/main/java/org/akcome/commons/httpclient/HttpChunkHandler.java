@@ -0,0 +1,18 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+
+/**
+ * 分块处理响应正文的回调
+ * @see 响应正文以固定大小的块依次传入,缓冲区在调用结束后会被复用,实现类不应持有其引用
+ * @author peng_wang
+ */
+public interface HttpChunkHandler {
+	/**
+	 * 处理一块响应正文
+	 * @param buffer 缓冲区
+	 * @param offset 本块在缓冲区中的起始位置
+	 * @param length 本块的字节数
+	 */
+	void handle(byte[] buffer, int offset, int length) throws IOException;
+}
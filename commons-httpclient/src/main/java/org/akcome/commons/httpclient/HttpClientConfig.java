@@ -0,0 +1,193 @@
+package org.akcome.commons.httpclient;
+
+/**
+ * HttpClientEngine的配置参数
+ * @see 连接池参数均在创建<code>HttpClientEngine</code>时读取,之后修改本对象不会影响已创建的引擎
+ * @author peng_wang
+ */
+public class HttpClientConfig {
+	/** 连接池最大连接数 */
+	private int maxTotal = 200;
+	/** 每个路由(目标主机)的最大连接数 */
+	private int maxPerRoute = 20;
+	/** 服务端未返回Keep-Alive头时,连接保持存活的默认毫秒数 */
+	private long keepAliveMillis = 30000;
+	/** 连接空闲超过该毫秒数后被回收 */
+	private long idleTimeoutMillis = 30000;
+	/** 后台回收线程的执行间隔毫秒数 */
+	private long evictIntervalMillis = 5000;
+	/** 连接的最大存活毫秒数,小于等于0表示不限制 */
+	private long connectionTimeToLiveMillis = -1;
+	/** 异步请求线程池的线程数 */
+	private int asyncThreads = 32;
+	/** 异步请求线程池的等待队列长度,队列满时新的异步请求直接以异常结束 */
+	private int asyncQueueCapacity = 1000;
+	/** 请求的超时与重试策略 */
+	private HttpRequestPolicy requestPolicy = new HttpRequestPolicy();
+	/** 按主机熔断的配置,为null时不熔断 */
+	private CircuitBreakerConfig circuitBreakerConfig;
+	/** 每个主机同时进行的最大请求数(隔离舱),小于等于0表示不限制 */
+	private int maxConcurrentPerHost = 0;
+	/** 主机并发数已满时等待许可的毫秒数,0表示立即失败 */
+	private long bulkheadWaitMillis = 0;
+	/** https(443端口)使用的SSL配置,为null时使用HttpClient默认值 */
+	private SslConfig sslConfig;
+	/** 请求指标的收集器,为null时不收集 */
+	private HttpMetrics metrics;
+	/** 是否发送Accept-Encoding: gzip,deflate并自动解压响应正文 */
+	private boolean compressionEnabled = false;
+	/** 请求正文字节数达到该值时以gzip压缩发送,小于0表示不压缩;服务端须支持Content-Encoding: gzip的请求 */
+	private long requestCompressionThreshold = -1;
+
+	/**
+	 * 复制全部配置,请求策略、熔断配置、SSL配置及指标收集器与原配置共用同一对象
+	 */
+	public HttpClientConfig copy() {
+		HttpClientConfig copy = new HttpClientConfig();
+		copy.maxTotal = maxTotal;
+		copy.maxPerRoute = maxPerRoute;
+		copy.keepAliveMillis = keepAliveMillis;
+		copy.idleTimeoutMillis = idleTimeoutMillis;
+		copy.evictIntervalMillis = evictIntervalMillis;
+		copy.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+		copy.asyncThreads = asyncThreads;
+		copy.asyncQueueCapacity = asyncQueueCapacity;
+		copy.requestPolicy = requestPolicy;
+		copy.circuitBreakerConfig = circuitBreakerConfig;
+		copy.maxConcurrentPerHost = maxConcurrentPerHost;
+		copy.bulkheadWaitMillis = bulkheadWaitMillis;
+		copy.sslConfig = sslConfig;
+		copy.metrics = metrics;
+		copy.compressionEnabled = compressionEnabled;
+		copy.requestCompressionThreshold = requestCompressionThreshold;
+		return copy;
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public void setMaxTotal(int maxTotal) {
+		this.maxTotal = maxTotal;
+	}
+
+	public int getMaxPerRoute() {
+		return maxPerRoute;
+	}
+
+	public void setMaxPerRoute(int maxPerRoute) {
+		this.maxPerRoute = maxPerRoute;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	public long getEvictIntervalMillis() {
+		return evictIntervalMillis;
+	}
+
+	public void setEvictIntervalMillis(long evictIntervalMillis) {
+		this.evictIntervalMillis = evictIntervalMillis;
+	}
+
+	public long getConnectionTimeToLiveMillis() {
+		return connectionTimeToLiveMillis;
+	}
+
+	public void setConnectionTimeToLiveMillis(long connectionTimeToLiveMillis) {
+		this.connectionTimeToLiveMillis = connectionTimeToLiveMillis;
+	}
+
+	public int getAsyncThreads() {
+		return asyncThreads;
+	}
+
+	public void setAsyncThreads(int asyncThreads) {
+		this.asyncThreads = asyncThreads;
+	}
+
+	public int getAsyncQueueCapacity() {
+		return asyncQueueCapacity;
+	}
+
+	public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+		this.asyncQueueCapacity = asyncQueueCapacity;
+	}
+
+	public HttpRequestPolicy getRequestPolicy() {
+		return requestPolicy;
+	}
+
+	public void setRequestPolicy(HttpRequestPolicy requestPolicy) {
+		this.requestPolicy = requestPolicy;
+	}
+
+	public CircuitBreakerConfig getCircuitBreakerConfig() {
+		return circuitBreakerConfig;
+	}
+
+	public void setCircuitBreakerConfig(CircuitBreakerConfig circuitBreakerConfig) {
+		this.circuitBreakerConfig = circuitBreakerConfig;
+	}
+
+	public int getMaxConcurrentPerHost() {
+		return maxConcurrentPerHost;
+	}
+
+	public void setMaxConcurrentPerHost(int maxConcurrentPerHost) {
+		this.maxConcurrentPerHost = maxConcurrentPerHost;
+	}
+
+	public long getBulkheadWaitMillis() {
+		return bulkheadWaitMillis;
+	}
+
+	public void setBulkheadWaitMillis(long bulkheadWaitMillis) {
+		this.bulkheadWaitMillis = bulkheadWaitMillis;
+	}
+
+	public SslConfig getSslConfig() {
+		return sslConfig;
+	}
+
+	public void setSslConfig(SslConfig sslConfig) {
+		this.sslConfig = sslConfig;
+	}
+
+	public HttpMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setMetrics(HttpMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	public long getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+
+	public void setRequestCompressionThreshold(long requestCompressionThreshold) {
+		this.requestCompressionThreshold = requestCompressionThreshold;
+	}
+}
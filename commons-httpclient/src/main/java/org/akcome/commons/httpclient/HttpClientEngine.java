@@ -0,0 +1,914 @@
+package org.akcome.commons.httpclient;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.protocol.RequestAcceptEncoding;
+import org.apache.http.client.protocol.ResponseContentEncoding;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * 基于连接池的HttpClient引擎
+ * @see 同一个引擎实例在多线程间共享,连接在请求结束后归还连接池,避免每次请求都重新进行TCP/TLS握手
+ * @see 后台守护线程定期回收过期及空闲的连接
+ * @see 请求的超时与重试由<code>HttpClientConfig.getRequestPolicy()</code>控制
+ * @see 配置了熔断或每主机并发上限时,按目标主机熔断与隔离,故障主机的请求快速失败而不占用线程
+ * @see 配置了<code>HttpMetrics</code>时,按主机与HTTP方法记录每次请求的延迟、字节数及连接池等待时间
+ * @see 启用压缩时协商gzip/deflate编码,响应正文在读取时边读边解压;超过阈值的请求正文以gzip压缩发送
+ * @see 流式方法按固定大小的块读取响应正文,内存占用与响应大小无关
+ * @see 异步方法在有界线程池中执行请求,返回<code>CompletableFuture</code>,调用线程不被阻塞
+ * @see <code>HttpClientUtil</code>的静态方法均委托给<code>getDefault()</code>返回的默认引擎
+ * @author peng_wang
+ */
+public class HttpClientEngine {
+	/** 流式读取响应正文时每块的字节数 */
+	static final int CHUNK_SIZE = 8192;
+
+	private static volatile HttpClientEngine defaultEngine;
+
+	private final HttpClientConfig config;
+	private final PoolingClientConnectionManager connectionManager;
+	private final DefaultHttpClient httpClient;
+	private final IdleConnectionEvictor evictor;
+	private final ExecutorService asyncExecutor;
+	private final HttpMetrics metrics;
+	private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+	private final ConcurrentMap<String, Semaphore> bulkheads = new ConcurrentHashMap<String, Semaphore>();
+
+	public HttpClientEngine() {
+		this(new HttpClientConfig());
+	}
+
+	public HttpClientEngine(HttpClientConfig config) {
+		this.config = config;
+		this.metrics = config.getMetrics();
+		SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
+		if (config.getSslConfig() != null) {
+			schemeRegistry.register(new Scheme("https", 443, config.getSslConfig().getSocketFactory()));
+		}
+		this.connectionManager = metrics == null
+				? new PoolingClientConnectionManager(schemeRegistry, config.getConnectionTimeToLiveMillis(), TimeUnit.MILLISECONDS)
+				: new MeteredConnectionManager(schemeRegistry, config.getConnectionTimeToLiveMillis(), metrics);
+		this.connectionManager.setMaxTotal(config.getMaxTotal());
+		this.connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+		this.httpClient = new DefaultHttpClient(connectionManager);
+		this.httpClient.setKeepAliveStrategy(new DefaultKeepAliveStrategy(config.getKeepAliveMillis()));
+		// 重试由HttpRequestPolicy负责,关闭HttpClient自带的重试
+		this.httpClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+		if (config.isCompressionEnabled()) {
+			this.httpClient.addRequestInterceptor(new RequestAcceptEncoding());
+			this.httpClient.addResponseInterceptor(new ResponseContentEncoding());
+		}
+		this.evictor = new IdleConnectionEvictor(connectionManager, config.getIdleTimeoutMillis(),
+				config.getEvictIntervalMillis());
+		this.evictor.start();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(config.getAsyncThreads(), config.getAsyncThreads(),
+				60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(config.getAsyncQueueCapacity()),
+				new DaemonThreadFactory("HttpClientEngine-async-"));
+		executor.allowCoreThreadTimeOut(true);
+		this.asyncExecutor = executor;
+	}
+
+	/**
+	 * 获取默认引擎,首次调用时以默认配置创建
+	 */
+	public static HttpClientEngine getDefault() {
+		HttpClientEngine engine = defaultEngine;
+		if (engine == null) {
+			synchronized (HttpClientEngine.class) {
+				if (defaultEngine == null) {
+					defaultEngine = new HttpClientEngine();
+				}
+				engine = defaultEngine;
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * 替换默认引擎,<code>HttpClientUtil</code>的静态方法随之使用新引擎
+	 * @see 用于为<code>HttpClientUtil</code>启用压缩、指标等配置;原引擎不会被关闭
+	 */
+	public static void setDefault(HttpClientEngine engine) {
+		synchronized (HttpClientEngine.class) {
+			defaultEngine = engine;
+		}
+	}
+
+	/**
+	 * 发送HTTP_GET请求
+	 * @param reqURL        请求地址(含参数)
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @return 远程主机响应正文
+	 */
+	public String get(String reqURL, String decodeCharset) throws IOException {
+		return execute(new HttpGet(reqURL), decodeCharset);
+	}
+
+	/**
+	 * 发送HTTP_POST请求
+	 * @see 当<code>isEncoder=true</code>时,其会自动对<code>sendData</code>中的特殊字符进行<code>URLEncoder.encode(string,encodeCharset)</code>
+	 * @param reqURL        请求地址
+	 * @param sendData      请求参数,形如param11=value11&param22=value22
+	 * @param isEncoder     请求数据是否需要encodeCharset编码,true为需要
+	 * @param encodeCharset 编码字符集,其为null时默认采用UTF-8编码
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @return 远程主机响应正文
+	 */
+	public String post(String reqURL, String sendData, boolean isEncoder, String encodeCharset, String decodeCharset) throws IOException {
+		return execute(createPost(reqURL, sendData, isEncoder, encodeCharset), decodeCharset);
+	}
+
+	/**
+	 * 发送HTTP_POST请求
+	 * @see 该方法会自动对<code>params</code>中的特殊字符进行<code>URLEncoder.encode(string,encodeCharset)</code>
+	 * @param reqURL        请求地址
+	 * @param params        请求参数
+	 * @param encodeCharset 编码字符集,其为null时默认采用UTF-8编码
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @return 远程主机响应正文
+	 */
+	public String post(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset) throws IOException {
+		return execute(createPost(reqURL, params, encodeCharset), decodeCharset);
+	}
+
+	/**
+	 * 执行请求并以字符串形式读取响应正文
+	 * @see 按配置的<code>HttpRequestPolicy</code>设置超时并重试
+	 * @see 正常结束时响应正文被完全读取,连接归还连接池;发生异常时中止请求,连接被关闭
+	 * @param request       请求
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @return 远程主机响应正文,无响应实体时返回null
+	 */
+	public String execute(HttpUriRequest request, String decodeCharset) throws IOException {
+		return execute(request, decodeCharset, config.getRequestPolicy());
+	}
+
+	/**
+	 * 按指定的策略执行请求并以字符串形式读取响应正文
+	 * @param request       请求
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @param policy        超时与重试策略
+	 * @return 远程主机响应正文,无响应实体时返回null
+	 */
+	public String execute(HttpUriRequest request, String decodeCharset, HttpRequestPolicy policy) throws IOException {
+		return execute(request, policy, null, new StringReader(decodeCharset));
+	}
+
+	/**
+	 * 按策略执行请求,由<code>reader</code>读取响应实体
+	 * @param owner 异步请求的Future,其结束(被取消)后不再重试;同步请求为null
+	 */
+	private <T> T execute(final HttpUriRequest request, HttpRequestPolicy policy, final CompletableFuture<?> owner,
+			final EntityReader<T> reader) throws IOException {
+		final CountingEntity sent = metrics == null ? null : countRequestEntity(request);
+		compressRequestEntity(request);
+		final boolean idempotent = HttpRequestPolicy.isIdempotent(request.getMethod());
+		return policy.execute(new HttpRequestPolicy.RetryCondition() {
+			public boolean canRetry(IOException e) {
+				return (owner == null || !owner.isDone()) && reader.canRetry() && isRepeatable(request)
+						&& HttpRequestPolicy.isRetriable(e, idempotent);
+			}
+		}, new HttpRequestPolicy.Attempt<T>() {
+			public T run(int connectTimeout, int socketTimeout, long poolWaitTimeout) throws IOException {
+				HttpParams params = request.getParams();
+				HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+				HttpConnectionParams.setSoTimeout(params, socketTimeout);
+				params.setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, poolWaitTimeout);
+				String host = hostKey(request);
+				if (sent != null) {
+					sent.count = 0;
+				}
+				Semaphore bulkhead = acquireBulkhead(host);
+				try {
+					CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+					if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+						throw new CircuitBreakerOpenException(host);
+					}
+					long start = System.nanoTime();
+					boolean failed = true;
+					CountingEntity counting = null;
+					try {
+						HttpResponse response = httpClient.execute(request);
+						int statusCode = response.getStatusLine().getStatusCode();
+						HttpEntity entity = response.getEntity();
+						if (metrics != null && entity != null) {
+							entity = counting = new CountingEntity(entity);
+						}
+						T result = reader.read(entity);
+						failed = statusCode >= 500;
+						return result;
+					} catch (IOException e) {
+						HttpClientEngine.abort(request);
+						throw e;
+					} catch (RuntimeException e) {
+						HttpClientEngine.abort(request);
+						throw e;
+					} finally {
+						long elapsedNanos = System.nanoTime() - start;
+						if (circuitBreaker != null) {
+							if (failed) {
+								circuitBreaker.onError(elapsedNanos / 1000000L);
+							} else {
+								circuitBreaker.onSuccess(elapsedNanos / 1000000L);
+							}
+						}
+						if (metrics != null) {
+							metrics.recordRequest(host, request.getMethod(), elapsedNanos, sent == null ? 0 : sent.count,
+									counting == null ? 0 : counting.count, failed);
+						}
+					}
+				} finally {
+					if (bulkhead != null) {
+						bulkhead.release();
+					}
+				}
+			}
+
+			public void abort() {
+				request.abort();
+			}
+		});
+	}
+
+	/**
+	 * 请求正文达到压缩阈值时改为以gzip压缩发送
+	 * @see 已指定Content-Encoding或长度未知的请求正文不压缩
+	 */
+	private void compressRequestEntity(HttpUriRequest request) {
+		long threshold = config.getRequestCompressionThreshold();
+		if (threshold < 0 || !(request instanceof HttpEntityEnclosingRequest)) {
+			return;
+		}
+		HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+		HttpEntity entity = enclosing.getEntity();
+		if (entity == null || entity.getContentEncoding() != null || entity.getContentLength() < 0
+				|| entity.getContentLength() < threshold) {
+			return;
+		}
+		enclosing.setEntity(new GzipCompressingEntity(entity));
+	}
+
+	/**
+	 * 请求目标主机的标识(协议://主机名:端口)
+	 */
+	static String hostKey(HttpUriRequest request) {
+		URI uri = request.getURI();
+		return hostKey(uri.getScheme(), uri.getHost(), uri.getPort());
+	}
+
+	/**
+	 * 目标主机的标识(协议://主机名:端口),未指定端口时按协议取默认端口,http为80,https为443
+	 * @see 熔断、隔离舱及指标均按此标识区分主机,http://h/与http://h:80/为同一主机,与https://h/不同
+	 */
+	static String hostKey(String scheme, String host, int port) {
+		String name = scheme == null ? "http" : scheme.toLowerCase();
+		if (port < 0) {
+			if ("http".equals(name)) {
+				port = 80;
+			} else if ("https".equals(name)) {
+				port = 443;
+			}
+		}
+		return name + "://" + host + ":" + port;
+	}
+
+	/**
+	 * 以统计已写出字节数的实体包装请求正文
+	 * @see 在压缩前包装,统计的是压缩前的字节数,与响应正文的统计口径一致;长度未知的请求正文同样可以统计
+	 * @return 无请求正文时返回null
+	 */
+	private static CountingEntity countRequestEntity(HttpUriRequest request) {
+		if (!(request instanceof HttpEntityEnclosingRequest)) {
+			return null;
+		}
+		HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+		if (enclosing.getEntity() == null) {
+			return null;
+		}
+		CountingEntity counting = new CountingEntity(enclosing.getEntity());
+		enclosing.setEntity(counting);
+		return counting;
+	}
+
+	/**
+	 * 获取目标主机的并发许可
+	 * @return 未限制每主机并发数时返回null
+	 * @throws BulkheadFullException 在<code>bulkheadWaitMillis</code>内未获取到许可
+	 */
+	private Semaphore acquireBulkhead(String host) throws IOException {
+		if (config.getMaxConcurrentPerHost() <= 0) {
+			return null;
+		}
+		Semaphore bulkhead = bulkheads.get(host);
+		if (bulkhead == null) {
+			Semaphore created = new Semaphore(config.getMaxConcurrentPerHost());
+			bulkhead = bulkheads.putIfAbsent(host, created);
+			if (bulkhead == null) {
+				bulkhead = created;
+			}
+		}
+		boolean acquired;
+		try {
+			acquired = config.getBulkheadWaitMillis() > 0
+					? bulkhead.tryAcquire(config.getBulkheadWaitMillis(), TimeUnit.MILLISECONDS)
+					: bulkhead.tryAcquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("等待主机[" + host + "]的并发许可时线程被中断");
+		}
+		if (!acquired) {
+			throw new BulkheadFullException(host);
+		}
+		return bulkhead;
+	}
+
+	/**
+	 * 获取目标主机的熔断器
+	 * @return 未启用熔断时返回null
+	 */
+	private CircuitBreaker getCircuitBreaker(String host) {
+		if (config.getCircuitBreakerConfig() == null) {
+			return null;
+		}
+		CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+		if (circuitBreaker == null) {
+			CircuitBreaker created = new CircuitBreaker(config.getCircuitBreakerConfig());
+			circuitBreaker = circuitBreakers.putIfAbsent(host, created);
+			if (circuitBreaker == null) {
+				circuitBreaker = created;
+			}
+		}
+		return circuitBreaker;
+	}
+
+	/**
+	 * 获取各主机熔断器的当前状态
+	 * @return 协议://主机名:端口 -> 熔断器状态
+	 */
+	public Map<String, CircuitBreaker.State> getCircuitBreakerStates() {
+		Map<String, CircuitBreaker.State> states = new TreeMap<String, CircuitBreaker.State>();
+		for (Map.Entry<String, CircuitBreaker> entry : circuitBreakers.entrySet()) {
+			states.put(entry.getKey(), entry.getValue().getState());
+		}
+		return states;
+	}
+
+	/**
+	 * 中止请求并关闭连接,之后请求对象可重新发送
+	 */
+	private static void abort(HttpUriRequest request) {
+		request.abort();
+		if (request instanceof HttpRequestBase) {
+			((HttpRequestBase) request).reset();
+		}
+	}
+
+	/**
+	 * 请求能否重新发送:请求对象可重置且请求实体可重复读取
+	 */
+	private static boolean isRepeatable(HttpUriRequest request) {
+		if (!(request instanceof HttpRequestBase)) {
+			return false;
+		}
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+			return entity == null || entity.isRepeatable();
+		}
+		return true;
+	}
+
+	/**
+	 * 执行请求并将响应正文分块交给<code>handler</code>处理
+	 * @see 响应正文不会整体读入内存,每次只占用一个固定大小的缓冲区
+	 * @see 已有响应正文交给<code>handler</code>后发生的异常不再重试
+	 * @param request 请求
+	 * @param handler 响应正文处理器
+	 * @return 响应正文的字节数,无响应实体时返回0
+	 */
+	public long stream(HttpUriRequest request, HttpChunkHandler handler) throws IOException {
+		return execute(request, config.getRequestPolicy(), null, new ChunkReader(handler));
+	}
+
+	/**
+	 * 执行请求并将响应正文写入<code>out</code>,<code>out</code>不会被关闭
+	 * @return 响应正文的字节数
+	 */
+	public long stream(HttpUriRequest request, final OutputStream out) throws IOException {
+		return stream(request, new HttpChunkHandler() {
+			public void handle(byte[] buffer, int offset, int length) throws IOException {
+				out.write(buffer, offset, length);
+			}
+		});
+	}
+
+	/**
+	 * 执行请求并将响应正文写入文件,文件已存在时被覆盖
+	 * @return 响应正文的字节数
+	 */
+	public long stream(HttpUriRequest request, Path target) throws IOException {
+		OutputStream out = Files.newOutputStream(target);
+		try {
+			return stream(request, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * 按固定大小的块读取输入流直到结束
+	 * @return 读取的字节数
+	 */
+	static long copy(InputStream in, HttpChunkHandler handler) throws IOException {
+		byte[] buffer = new byte[CHUNK_SIZE];
+		long total = 0;
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			handler.handle(buffer, 0, n);
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * 异步发送HTTP_GET请求
+	 * @see 参数含义同<code>get(String,String)</code>
+	 */
+	public CompletableFuture<String> getAsync(String reqURL, String decodeCharset) {
+		try {
+			return executeAsync(new HttpGet(reqURL), decodeCharset, null);
+		} catch (RuntimeException e) {
+			return failedFuture(e);
+		}
+	}
+
+	/**
+	 * 异步发送HTTP_POST请求
+	 * @see 参数含义同<code>post(String,String,boolean,String,String)</code>
+	 */
+	public CompletableFuture<String> postAsync(String reqURL, String sendData, boolean isEncoder, String encodeCharset, String decodeCharset) {
+		try {
+			return executeAsync(createPost(reqURL, sendData, isEncoder, encodeCharset), decodeCharset, null);
+		} catch (Exception e) {
+			return failedFuture(e);
+		}
+	}
+
+	/**
+	 * 异步发送HTTP_POST请求
+	 * @see 参数含义同<code>post(String,Map,String,String)</code>
+	 */
+	public CompletableFuture<String> postAsync(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset) {
+		try {
+			return executeAsync(createPost(reqURL, params, encodeCharset), decodeCharset, null);
+		} catch (Exception e) {
+			return failedFuture(e);
+		}
+	}
+
+	/**
+	 * 在异步线程池中执行请求
+	 * @see 线程池队列已满或引擎已关闭时返回的Future以<code>RejectedExecutionException</code>异常结束
+	 * @see 取消返回的Future会中止正在进行的请求
+	 * @param request       请求
+	 * @param decodeCharset 解码字符集,其为null时默认采用UTF-8解码
+	 * @param callback      请求结束时的回调,可以为null
+	 * @return 响应正文的Future
+	 */
+	public CompletableFuture<String> executeAsync(final HttpUriRequest request, final String decodeCharset,
+			final FutureCallback<String> callback) {
+		final CompletableFuture<String> future = new CompletableFuture<String>();
+		future.whenComplete((result, ex) -> {
+			if (future.isCancelled()) {
+				request.abort();
+				if (callback != null) {
+					callback.cancelled();
+				}
+			} else if (callback != null) {
+				if (ex == null) {
+					callback.completed(result);
+				} else {
+					callback.failed(ex instanceof Exception ? (Exception) ex : new RuntimeException(ex));
+				}
+			}
+		});
+		try {
+			asyncExecutor.execute(new AsyncTask<String>(future) {
+				@Override
+				String call() throws IOException {
+					return execute(request, config.getRequestPolicy(), future, new StringReader(decodeCharset));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(e);
+		return future;
+	}
+
+	/**
+	 * 构造表单形式的HTTP_POST请求
+	 */
+	static HttpPost createPost(String reqURL, String sendData, boolean isEncoder, String encodeCharset) throws IOException {
+		HttpPost httpPost = new HttpPost(reqURL);
+		httpPost.setHeader(HTTP.CONTENT_TYPE, "application/x-www-form-urlencoded");
+		if (isEncoder) {
+			List<NameValuePair> formParams = new ArrayList<NameValuePair>();
+			for (String str : sendData.split("&")) {
+				formParams.add(new BasicNameValuePair(str.substring(0, str.indexOf("=")), str.substring(str.indexOf("=") + 1)));
+			}
+			httpPost.setEntity(new StringEntity(URLEncodedUtils.format(formParams, encodeCharset == null ? "UTF-8" : encodeCharset)));
+		} else {
+			httpPost.setEntity(new StringEntity(sendData));
+		}
+		return httpPost;
+	}
+
+	/**
+	 * 构造表单形式的HTTP_POST请求
+	 */
+	static HttpPost createPost(String reqURL, Map<String, String> params, String encodeCharset) throws IOException {
+		HttpPost httpPost = new HttpPost(reqURL);
+		List<NameValuePair> formParams = new ArrayList<NameValuePair>();
+		for (Map.Entry<String, String> entry : params.entrySet()) {
+			formParams.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+		}
+		httpPost.setEntity(new UrlEncodedFormEntity(formParams, encodeCharset == null ? "UTF-8" : encodeCharset));
+		return httpPost;
+	}
+
+	/**
+	 * 获取底层的HttpClient,用于发送本类未封装的请求
+	 * @see 调用方需自行消费响应实体,否则连接不会归还连接池
+	 */
+	public HttpClient getHttpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * 获取连接池的统计信息(已租用/空闲/等待/最大连接数)
+	 */
+	public PoolStats getPoolStats() {
+		return connectionManager.getTotalStats();
+	}
+
+	public HttpClientConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * 获取配置的指标收集器
+	 * @return 未配置时返回null
+	 */
+	public HttpMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * 是否已关闭
+	 */
+	public boolean isShutdown() {
+		return asyncExecutor.isShutdown();
+	}
+
+	/**
+	 * 关闭引擎,停止回收线程与异步线程池并关闭连接池中的所有连接
+	 * @see 不等待异步请求结束:队列中尚未执行的请求不再执行,其Future立即以<code>RejectedExecutionException</code>异常结束;
+	 *      正在执行的请求随连接关闭以异常结束
+	 */
+	public void shutdown() {
+		evictor.shutdown();
+		for (Runnable task : asyncExecutor.shutdownNow()) {
+			if (task instanceof AsyncTask) {
+				((AsyncTask<?>) task).future.completeExceptionally(new RejectedExecutionException("HttpClientEngine已关闭"));
+			}
+		}
+		connectionManager.shutdown();
+	}
+
+	/**
+	 * 异步线程池中的任务,结果写入Future;关闭引擎时据此结束尚未执行的任务的Future
+	 */
+	private abstract static class AsyncTask<T> implements Runnable {
+		final CompletableFuture<T> future;
+
+		AsyncTask(CompletableFuture<T> future) {
+			this.future = future;
+		}
+
+		public void run() {
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				future.complete(call());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+		abstract T call() throws IOException;
+	}
+
+	/**
+	 * 读取响应实体
+	 */
+	private interface EntityReader<T> {
+		/**
+		 * @param entity 响应实体,可能为null
+		 */
+		T read(HttpEntity entity) throws IOException;
+
+		/**
+		 * 读取失败后能否重新发送请求
+		 */
+		boolean canRetry();
+	}
+
+	/**
+	 * 将响应正文整体读取为字符串
+	 */
+	private static class StringReader implements EntityReader<String> {
+		private final String decodeCharset;
+
+		StringReader(String decodeCharset) {
+			this.decodeCharset = decodeCharset;
+		}
+
+		public String read(HttpEntity entity) throws IOException {
+			String responseContent = null;
+			if (null != entity) {
+				responseContent = EntityUtils.toString(entity, decodeCharset == null ? "UTF-8" : decodeCharset);
+				EntityUtils.consume(entity);
+			}
+			return responseContent;
+		}
+
+		public boolean canRetry() {
+			return true;
+		}
+	}
+
+	/**
+	 * 将响应正文分块交给HttpChunkHandler
+	 */
+	private static class ChunkReader implements EntityReader<Long> {
+		private final HttpChunkHandler handler;
+		private long delivered;
+
+		ChunkReader(HttpChunkHandler handler) {
+			this.handler = handler;
+		}
+
+		public Long read(HttpEntity entity) throws IOException {
+			if (null == entity) {
+				return 0L;
+			}
+			InputStream in = entity.getContent();
+			try {
+				return copy(in, new HttpChunkHandler() {
+					public void handle(byte[] buffer, int offset, int length) throws IOException {
+						delivered += length;
+						handler.handle(buffer, offset, length);
+					}
+				});
+			} finally {
+				in.close();
+			}
+		}
+
+		public boolean canRetry() {
+			return delivered == 0;
+		}
+	}
+
+	/**
+	 * 统计已读取字节数的响应实体,或已写出字节数的请求实体
+	 */
+	private static class CountingEntity extends HttpEntityWrapper {
+		long count;
+
+		CountingEntity(HttpEntity entity) {
+			super(entity);
+		}
+
+		@Override
+		public InputStream getContent() throws IOException {
+			return new FilterInputStream(wrappedEntity.getContent()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						count++;
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					if (n > 0) {
+						count += n;
+					}
+					return n;
+				}
+
+				@Override
+				public long skip(long n) throws IOException {
+					long skipped = super.skip(n);
+					count += skipped;
+					return skipped;
+				}
+			};
+		}
+
+		@Override
+		public void writeTo(OutputStream out) throws IOException {
+			wrappedEntity.writeTo(new FilterOutputStream(out) {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					count++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					count += len;
+				}
+			});
+		}
+	}
+
+	/**
+	 * 创建带名称前缀的守护线程
+	 */
+	static class DaemonThreadFactory implements ThreadFactory {
+		private final AtomicInteger index = new AtomicInteger();
+		private final String prefix;
+
+		DaemonThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, prefix + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * 优先使用服务端Keep-Alive头中的timeout,未返回时使用配置的默认值
+	 */
+	private static class DefaultKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+		private final ConnectionKeepAliveStrategy delegate = new DefaultConnectionKeepAliveStrategy();
+		private final long keepAliveMillis;
+
+		DefaultKeepAliveStrategy(long keepAliveMillis) {
+			this.keepAliveMillis = keepAliveMillis;
+		}
+
+		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+			long duration = delegate.getKeepAliveDuration(response, context);
+			return duration > 0 ? duration : keepAliveMillis;
+		}
+	}
+
+	/**
+	 * 记录从连接池获取连接的等待时间
+	 */
+	private static class MeteredConnectionManager extends PoolingClientConnectionManager {
+		private final HttpMetrics metrics;
+
+		MeteredConnectionManager(SchemeRegistry schemeRegistry, long timeToLiveMillis, HttpMetrics metrics) {
+			super(schemeRegistry, timeToLiveMillis, TimeUnit.MILLISECONDS);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+			final ClientConnectionRequest delegate = super.requestConnection(route, state);
+			HttpHost target = route.getTargetHost();
+			final String host = hostKey(target.getSchemeName(), target.getHostName(), target.getPort());
+			return new ClientConnectionRequest() {
+				public ManagedClientConnection getConnection(long timeout, TimeUnit tunit)
+						throws InterruptedException, ConnectionPoolTimeoutException {
+					long start = System.nanoTime();
+					try {
+						return delegate.getConnection(timeout, tunit);
+					} finally {
+						metrics.recordLeaseWait(host, System.nanoTime() - start);
+					}
+				}
+
+				public void abortRequest() {
+					delegate.abortRequest();
+				}
+			};
+		}
+	}
+
+	/**
+	 * 定期关闭过期及空闲连接的守护线程
+	 */
+	private static class IdleConnectionEvictor extends Thread {
+		private final PoolingClientConnectionManager connectionManager;
+		private final long idleTimeoutMillis;
+		private final long evictIntervalMillis;
+		private volatile boolean shutdown;
+
+		IdleConnectionEvictor(PoolingClientConnectionManager connectionManager, long idleTimeoutMillis, long evictIntervalMillis) {
+			super("HttpClientEngine-evictor");
+			setDaemon(true);
+			this.connectionManager = connectionManager;
+			this.idleTimeoutMillis = idleTimeoutMillis;
+			this.evictIntervalMillis = evictIntervalMillis;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!shutdown) {
+					synchronized (this) {
+						wait(evictIntervalMillis);
+					}
+					connectionManager.closeExpiredConnections();
+					if (idleTimeoutMillis > 0) {
+						connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+					}
+				}
+			} catch (InterruptedException e) {
+				// 结束回收
+			}
+		}
+
+		void shutdown() {
+			shutdown = true;
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+}
@@ -1,40 +1,24 @@
 package org.akcome.commons.httpclient;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.security.cert.CertificateException;
-import java.security.cert.X509Certificate;
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
-
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
-import org.apache.http.NameValuePair;
 import org.apache.http.ParseException;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.protocol.HTTP;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.concurrent.FutureCallback;
 
 /**
  * 封装了一些采用HttpClient发送HTTP请求的方法
  * @see 本工具所采用的是HttpComponents-Client-4.2.1
+ * @see 基于HttpClient的方法均委托给共享的<code>HttpClientEngine</code>,连接由连接池复用
  * @create  2015-11-25
  * @author peng_wang
  * @version v1.3
@@ -44,35 +28,22 @@ public class HttpClientUtil {
      
 	    /**
 	     * 发送HTTP_GET请求
-	     * @see 该方法会自动关闭连接,释放资源
+	     * @see 该方法使用默认引擎的连接池,请求结束后连接归还连接池
 	     * @param requestURL    请求地址(含参数)
 	     * @param decodeCharset 解码字符集,解析响应数据时用之,其为null时默认采用UTF-8解码
 	     * @return 远程主机响应正文
 	     * @throws ClientProtocolException 
 	     */
 	    public static String sendGetRequest(String reqURL, String decodeCharset) throws ClientProtocolException{
-	        long responseLength = 0;       //响应长度
-	        String responseContent = null; //响应内容
-	        HttpClient httpClient = new DefaultHttpClient(); //创建默认的httpClient实例
-	        HttpGet httpGet = new HttpGet(reqURL);           //创建org.apache.http.client.methods.HttpGet
 	        try{
-	            HttpResponse response = httpClient.execute(httpGet); //执行GET请求
-	            HttpEntity entity = response.getEntity();            //获取响应实体
-	            if(null != entity){
-	                responseLength = entity.getContentLength();
-	                responseContent = EntityUtils.toString(entity, decodeCharset==null ? "UTF-8" : decodeCharset);
-	                EntityUtils.consume(entity); //Consume response content
-	            }
+	            return HttpClientEngine.getDefault().get(reqURL, decodeCharset);
 	        }catch(ClientProtocolException e){
 	        	 throw new ClientProtocolException("该异常通常是协议错误导致,比如构造HttpGet对象时传入的协议不对(将'http'写成'htp')或者服务器端返回的内容不符合HTTP协议要求等,堆栈信息如下", e);  
 	        }catch(ParseException e){
 	        	 throw new ClientProtocolException(e.getMessage(), e);
 	        }catch(IOException e){
 	        	throw new ClientProtocolException("该异常通常是网络原因引起的,如HTTP服务器未启动等,堆栈信息如下", e);
-	        }finally{
-	            httpClient.getConnectionManager().shutdown(); //关闭连接,释放资源
 	        }
-	        return responseContent;
 	    }
 	     
 	     
@@ -91,7 +62,7 @@ public class HttpClientUtil {
 	     
 	    /**
 	     * 发送HTTP_POST请求
-	     * @see 该方法会自动关闭连接,释放资源
+	     * @see 该方法使用默认引擎的连接池,请求结束后连接归还连接池
 	     * @see 当<code>isEncoder=true</code>时,其会自动对<code>sendData</code>中的[中文][|][ ]等特殊字符进行<code>URLEncoder.encode(string,encodeCharset)</code>
 	     * @param reqURL        请求地址
 	     * @param sendData      请求参数,若有多个参数则应拼接成param11=value11¶m22=value22¶m33=value33的形式后,传入该参数中
@@ -102,41 +73,17 @@ public class HttpClientUtil {
 	     * @throws Exception 
 	     */
 	    public static String sendPostRequest(String reqURL, String sendData, boolean isEncoder, String encodeCharset, String decodeCharset) throws Exception{
-	        String responseContent = null;
-	        HttpClient httpClient = new DefaultHttpClient();
-	         
-	        HttpPost httpPost = new HttpPost(reqURL);
-	        //httpPost.setHeader(HTTP.CONTENT_TYPE, "application/x-www-form-urlencoded; charset=UTF-8");
-	        httpPost.setHeader(HTTP.CONTENT_TYPE, "application/x-www-form-urlencoded");
 	        try{
-	            if(isEncoder){
-	                List<NameValuePair> formParams = new ArrayList<NameValuePair>();
-	                for(String str : sendData.split("&")){
-	                    formParams.add(new BasicNameValuePair(str.substring(0,str.indexOf("=")), str.substring(str.indexOf("=")+1)));
-	                }
-	                httpPost.setEntity(new StringEntity(URLEncodedUtils.format(formParams, encodeCharset==null ? "UTF-8" : encodeCharset)));
-	            }else{
-	                httpPost.setEntity(new StringEntity(sendData));
-	            }
-	             
-	            HttpResponse response = httpClient.execute(httpPost);
-	            HttpEntity entity = response.getEntity();
-	            if (null != entity) {
-	                responseContent = EntityUtils.toString(entity, decodeCharset==null ? "UTF-8" : decodeCharset);
-	                EntityUtils.consume(entity);
-	            }
+	            return HttpClientEngine.getDefault().post(reqURL, sendData, isEncoder, encodeCharset, decodeCharset);
 	        }catch(Exception e){
 	        	throw new Exception("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e); 
-	        }finally{
-	            httpClient.getConnectionManager().shutdown();
 	        }
-	        return responseContent;
 	    }
 	     
 	     
 	    /**
 	     * 发送HTTP_POST请求
-	     * @see 该方法会自动关闭连接,释放资源
+	     * @see 该方法使用默认引擎的连接池,请求结束后连接归还连接池
 	     * @see 该方法会自动对<code>params</code>中的[中文][|][ ]等特殊字符进行<code>URLEncoder.encode(string,encodeCharset)</code>
 	     * @param reqURL        请求地址
 	     * @param params        请求参数
@@ -146,29 +93,11 @@ public class HttpClientUtil {
 	     * @throws Exception 
 	     */
 	    public static String sendPostRequest(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset) throws Exception{
-	        String responseContent = null;
-	        HttpClient httpClient = new DefaultHttpClient();
-	         
-	        HttpPost httpPost = new HttpPost(reqURL);
-	        List<NameValuePair> formParams = new ArrayList<NameValuePair>(); //创建参数队列
-	        for(Map.Entry<String,String> entry : params.entrySet()){
-	            formParams.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
-	        }
 	        try{
-	            httpPost.setEntity(new UrlEncodedFormEntity(formParams, encodeCharset==null ? "UTF-8" : encodeCharset));
-	             
-	            HttpResponse response = httpClient.execute(httpPost);
-	            HttpEntity entity = response.getEntity();
-	            if (null != entity) {
-	                responseContent = EntityUtils.toString(entity, decodeCharset==null ? "UTF-8" : decodeCharset);
-	                EntityUtils.consume(entity);
-	            }
+	            return HttpClientEngine.getDefault().post(reqURL, params, encodeCharset, decodeCharset);
 	        }catch(Exception e){
 	        	throw new Exception("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e); 
-	        }finally{
-	            httpClient.getConnectionManager().shutdown();
 	        }
-	        return responseContent;
 	    }
 	     
 	     
@@ -186,7 +115,9 @@ public class HttpClientUtil {
 	     
 	    /**
 	     * 发送HTTPS_POST请求
-	     * @see 该方法会自动关闭连接,释放资源
+	     * @see 该方法使用信任所有证书(<code>SslConfig.trustAll()</code>)的共享引擎,SSLContext只在首次调用时创建,TLS会话在调用间复用
+	     * @see 该引擎复制默认引擎的配置,请求策略、熔断、指标及压缩等设置同样生效
+	     * @see 需要校验服务端证书时,使用配置了<code>SslConfig</code>的<code>HttpClientEngine</code>发送请求
 	     * @see 该方法会自动对<code>params</code>中的[中文][|][ ]等特殊字符进行<code>URLEncoder.encode(string,encodeCharset)</code>
 	     * @param reqURL        请求地址
 	     * @param params        请求参数
@@ -196,45 +127,166 @@ public class HttpClientUtil {
 	     * @throws Exception 
 	     */
 	    public static String sendPostSSLRequest(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset) throws Exception{
-	        String responseContent = "";
-	        HttpClient httpClient = new DefaultHttpClient();
-	        X509TrustManager xtm = new X509TrustManager(){
-	            public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {}
-	            public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {}
-	            public X509Certificate[] getAcceptedIssuers() {return null;}
-	        };
 	        try {
-	            SSLContext ctx = SSLContext.getInstance("TLS");
-	            ctx.init(null, new TrustManager[]{xtm}, null);
-	            SSLSocketFactory socketFactory = new SSLSocketFactory(ctx);
-	            httpClient.getConnectionManager().getSchemeRegistry().register(new Scheme("https", 443, socketFactory));
-	             
-	            HttpPost httpPost = new HttpPost(reqURL);
-	            List<NameValuePair> formParams = new ArrayList<NameValuePair>();
-	            for(Map.Entry<String,String> entry : params.entrySet()){
-	                formParams.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
-	            }
-	            httpPost.setEntity(new UrlEncodedFormEntity(formParams, encodeCharset==null ? "UTF-8" : encodeCharset));
-	             
-	            HttpResponse response = httpClient.execute(httpPost);
-	            HttpEntity entity = response.getEntity();
-	            if (null != entity) {
-	                responseContent = EntityUtils.toString(entity, decodeCharset==null ? "UTF-8" : decodeCharset);
-	                EntityUtils.consume(entity);
-	            }
+	            String responseContent = TrustAllEngineHolder.getEngine().post(reqURL, params, encodeCharset, decodeCharset);
+	            return responseContent == null ? "" : responseContent;
 	        } catch (Exception e) {
 	        	throw new Exception("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e); 
-	        } finally {
-	            httpClient.getConnectionManager().shutdown();
 	        }
-	        return responseContent;
+	    }
+	     
+	     
+	    /**
+	     * 发送HTTP_GET请求,响应正文写入<code>out</code>
+	     * @see 响应正文按固定大小的块写出,不会整体读入内存,适用于大文件下载;<code>out</code>不会被关闭
+	     * @param reqURL 请求地址(含参数)
+	     * @param out    响应正文的输出流
+	     * @return 响应正文的字节数
+	     * @throws ClientProtocolException 
+	     */
+	    public static long sendGetRequestToStream(String reqURL, OutputStream out) throws ClientProtocolException{
+	        try{
+	            return HttpClientEngine.getDefault().stream(new HttpGet(reqURL), out);
+	        }catch(IOException e){
+	        	throw new ClientProtocolException("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e);
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 发送HTTP_GET请求,响应正文保存到文件
+	     * @see 文件已存在时被覆盖
+	     * @param reqURL 请求地址(含参数)
+	     * @param target 保存响应正文的文件
+	     * @return 响应正文的字节数
+	     * @throws ClientProtocolException 
+	     */
+	    public static long sendGetRequestToFile(String reqURL, Path target) throws ClientProtocolException{
+	        try{
+	            return HttpClientEngine.getDefault().stream(new HttpGet(reqURL), target);
+	        }catch(IOException e){
+	        	throw new ClientProtocolException("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e);
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 发送HTTP_GET请求,响应正文分块交给<code>handler</code>处理
+	     * @param reqURL  请求地址(含参数)
+	     * @param handler 响应正文处理器
+	     * @return 响应正文的字节数
+	     * @throws ClientProtocolException 
+	     */
+	    public static long sendGetRequestToHandler(String reqURL, HttpChunkHandler handler) throws ClientProtocolException{
+	        try{
+	            return HttpClientEngine.getDefault().stream(new HttpGet(reqURL), handler);
+	        }catch(IOException e){
+	        	throw new ClientProtocolException("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e);
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 发送HTTP_POST请求,响应正文写入<code>out</code>
+	     * @see 参数含义同<code>sendPostRequest(String,Map,String,String)</code>;<code>out</code>不会被关闭
+	     * @param out 响应正文的输出流
+	     * @return 响应正文的字节数
+	     * @throws Exception 
+	     */
+	    public static long sendPostRequestToStream(String reqURL, Map<String, String> params, String encodeCharset, OutputStream out) throws Exception{
+	        try{
+	            return HttpClientEngine.getDefault().stream(HttpClientEngine.createPost(reqURL, params, encodeCharset), out);
+	        }catch(Exception e){
+	        	throw new Exception("与[" + reqURL + "]通信过程中发生异常,堆栈信息如下", e); 
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 异步发送HTTP_GET请求
+	     * @see 请求在默认引擎的有界线程池中执行,调用线程立即返回
+	     * @param reqURL        请求地址(含参数)
+	     * @param decodeCharset 解码字符集,解析响应数据时用之,其为null时默认采用UTF-8解码
+	     * @return 远程主机响应正文的Future,通信异常时以异常结束
+	     */
+	    public static CompletableFuture<String> sendGetRequestAsync(String reqURL, String decodeCharset){
+	        return HttpClientEngine.getDefault().getAsync(reqURL, decodeCharset);
+	    }
+	     
+	     
+	    /**
+	     * 异步发送HTTP_POST请求
+	     * @see 参数含义同<code>sendPostRequest(String,String,boolean,String,String)</code>
+	     * @return 远程主机响应正文的Future,通信异常时以异常结束
+	     */
+	    public static CompletableFuture<String> sendPostRequestAsync(String reqURL, String sendData, boolean isEncoder, String encodeCharset, String decodeCharset){
+	        return HttpClientEngine.getDefault().postAsync(reqURL, sendData, isEncoder, encodeCharset, decodeCharset);
+	    }
+	     
+	     
+	    /**
+	     * 异步发送HTTP_POST请求
+	     * @see 参数含义同<code>sendPostRequest(String,Map,String,String)</code>
+	     * @return 远程主机响应正文的Future,通信异常时以异常结束
+	     */
+	    public static CompletableFuture<String> sendPostRequestAsync(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset){
+	        return HttpClientEngine.getDefault().postAsync(reqURL, params, encodeCharset, decodeCharset);
+	    }
+	     
+	     
+	    /**
+	     * 异步发送HTTP_POST请求,请求结束时回调<code>callback</code>
+	     * @see 参数含义同<code>sendPostRequest(String,Map,String,String)</code>
+	     * @return 远程主机响应正文的Future,通信异常时以异常结束
+	     */
+	    public static CompletableFuture<String> sendPostRequestAsync(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset, FutureCallback<String> callback){
+	        try{
+	            return HttpClientEngine.getDefault().executeAsync(HttpClientEngine.createPost(reqURL, params, encodeCharset), decodeCharset, callback);
+	        }catch(Exception e){
+	            CompletableFuture<String> future = new CompletableFuture<String>();
+	            future.completeExceptionally(e);
+	            if(callback != null){
+	                callback.failed(e);
+	            }
+	            return future;
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 异步发送HTTPS_POST请求
+	     * @see 参数含义同<code>sendPostSSLRequest(String,Map,String,String)</code>
+	     * @return 远程主机响应正文的Future,通信异常时以异常结束
+	     */
+	    public static CompletableFuture<String> sendPostSSLRequestAsync(String reqURL, Map<String, String> params, String encodeCharset, String decodeCharset){
+	        try{
+	            return TrustAllEngineHolder.getEngine().postAsync(reqURL, params, encodeCharset, decodeCharset)
+	                    .thenApply(responseContent -> responseContent == null ? "" : responseContent);
+	        }catch(Exception e){
+	            CompletableFuture<String> future = new CompletableFuture<String>();
+	            future.completeExceptionally(e);
+	            return future;
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 批量并发发送HTTP请求
+	     * @see 请求共享默认引擎的连接池并行执行,单个请求的异常记录在对应结果中,不影响其他请求
+	     * @param requests           请求列表
+	     * @param maxInFlightPerHost 每个主机同时在途的最大请求数
+	     * @return 与<code>requests</code>顺序一一对应的结果,含响应正文、异常及耗时
+	     * @throws InterruptedException 
+	     */
+	    public static List<HttpBatchResult> sendBatchRequest(List<HttpBatchRequest> requests, int maxInFlightPerHost) throws InterruptedException{
+	        return new HttpBatchExecutor(HttpClientEngine.getDefault(), maxInFlightPerHost).execute(requests);
 	    }
 	     
 	     
 	    /**
 	     * 发送HTTP_POST请求
 	     * @see 若发送的<code>params</code>中含有中文,记得按照双方约定的字符集将中文<code>URLEncoder.encode(string,encodeCharset)</code>
-	     * @see 本方法默认的连接超时时间为30秒,默认的读取超时时间为30秒
+	     * @see 连接与读取超时取自默认引擎的<code>HttpRequestPolicy</code>,默认均为30秒
 	     * @param reqURL 请求地址
 	     * @param params 发送到远程主机的正文数据,其数据类型为<code>java.util.Map<String, String></code>
 	     * @return 远程主机响应正文`HTTP状态码,如<code>"SUCCESS`200"</code><br>若通信过程中发生异常则返回"Failed`HTTP状态码",如<code>"Failed`500"</code>
@@ -255,25 +307,75 @@ public class HttpClientUtil {
 	    /**
 	     * 发送HTTP_POST请求
 	     * @see 若发送的<code>sendData</code>中含有中文,记得按照双方约定的字符集将中文<code>URLEncoder.encode(string,encodeCharset)</code>
-	     * @see 本方法默认的连接超时时间为30秒,默认的读取超时时间为30秒
+	     * @see 连接与读取超时取自默认引擎的<code>HttpRequestPolicy</code>,默认均为30秒
 	     * @param reqURL   请求地址
 	     * @param sendData 发送到远程主机的正文数据
 	     * @return 远程主机响应正文`HTTP状态码,如<code>"SUCCESS`200"</code><br>若通信过程中发生异常则返回"Failed`HTTP状态码",如<code>"Failed`500"</code>
 	     * @throws Exception 
 	     */
 	    public static String sendPostRequestByJava(String reqURL, String sendData) throws Exception{
-	        HttpURLConnection httpURLConnection = null;
+	        ByteArrayOutputStream out = new ByteArrayOutputStream();
+	        int[] httpStatusCode = new int[1]; //远程主机响应的HTTP状态码
+	        try{
+	            postByJava(reqURL, sendData, out, httpStatusCode);
+	            return new String(out.toByteArray()) + "`" + httpStatusCode[0];
+	        }catch(Exception e){
+	        	  return "Failed`" + httpStatusCode[0];
+	        }
+	    }
+	     
+	     
+	    /**
+	     * 发送HTTP_POST请求,响应正文写入<code>responseOut</code>
+	     * @see 响应正文按固定大小的块写出,不会整体读入内存;<code>responseOut</code>不会被关闭
+	     * @see 连接与读取超时取自默认引擎的<code>HttpRequestPolicy</code>,默认均为30秒
+	     * @param reqURL      请求地址
+	     * @param sendData    发送到远程主机的正文数据
+	     * @param responseOut 响应正文的输出流
+	     * @return 远程主机响应的HTTP状态码
+	     * @throws Exception 通信过程中发生异常
+	     */
+	    public static int sendPostRequestByJava(String reqURL, String sendData, OutputStream responseOut) throws Exception{
+	        int[] httpStatusCode = new int[1];
+	        postByJava(reqURL, sendData, responseOut, httpStatusCode);
+	        return httpStatusCode[0];
+	    }
+	     
+	     
+	    /**
+	     * 采用HttpURLConnection发送HTTP_POST请求,响应正文分块写入<code>responseOut</code>
+	     * @see 超时与总时限取自默认引擎的<code>HttpRequestPolicy</code>,POST请求只在连接被拒绝时重试;到达总时限时断开连接
+	     * @param httpStatusCode 用于带回HTTP状态码,通信中途失败时保留已获取的状态码
+	     */
+	    private static void postByJava(final String reqURL, final String sendData, final OutputStream responseOut, final int[] httpStatusCode) throws Exception{
+	        HttpClientEngine.getDefault().getConfig().getRequestPolicy().execute(false, new HttpRequestPolicy.Attempt<Void>() {
+	            private volatile HttpURLConnection connection;
+
+	            public Void run(int connectTimeout, int socketTimeout, long poolWaitTimeout) throws IOException {
+	                connection = (HttpURLConnection)new URL(reqURL).openConnection();
+	                postByJava(connection, sendData, responseOut, httpStatusCode, connectTimeout, socketTimeout);
+	                return null;
+	            }
+
+	            public void abort() {
+	                HttpURLConnection current = connection;
+	                if(current != null){
+	                    current.disconnect();
+	                }
+	            }
+	        });
+	    }
+	     
+	     
+	    private static void postByJava(HttpURLConnection httpURLConnection, String sendData, final OutputStream responseOut, int[] httpStatusCode, int connectTimeout, int readTimeout) throws IOException{
 	        OutputStream out = null; //写
 	        InputStream in = null;   //读
-	        int httpStatusCode = 0;  //远程主机响应的HTTP状态码
 	        try{
-	            URL sendUrl = new URL(reqURL);
-	            httpURLConnection = (HttpURLConnection)sendUrl.openConnection();
 	            httpURLConnection.setRequestMethod("POST");
 	            httpURLConnection.setDoOutput(true);        //指示应用程序要将数据写入URL连接,其值默认为false
 	            httpURLConnection.setUseCaches(false);
-	            httpURLConnection.setConnectTimeout(30000); //30秒连接超时
-	            httpURLConnection.setReadTimeout(30000);    //30秒读取超时
+	            httpURLConnection.setConnectTimeout(connectTimeout);
+	            httpURLConnection.setReadTimeout(readTimeout);
 	             
 	            out = httpURLConnection.getOutputStream();
 	            out.write(sendData.toString().getBytes());
@@ -282,33 +384,57 @@ public class HttpClientUtil {
 	            out.flush();
 	             
 	            //获取HTTP状态码
-	            httpStatusCode = httpURLConnection.getResponseCode();
+	            httpStatusCode[0] = httpURLConnection.getResponseCode();
 	             
-	            in = httpURLConnection.getInputStream();            
-	            byte[] byteDatas = new byte[in.available()];
-	            in.read(byteDatas);
-	            return new String(byteDatas) + "`" + httpStatusCode;
-	        }catch(Exception e){
-	        	  return "Failed`" + httpStatusCode;
+	            in = httpURLConnection.getInputStream();
+	            HttpClientEngine.copy(in, new HttpChunkHandler() {
+	                public void handle(byte[] buffer, int offset, int length) throws IOException {
+	                    responseOut.write(buffer, offset, length);
+	                }
+	            });
 	        }finally{
 	            if(out != null){
 	                try{
 	                    out.close();
-	                }catch (Exception e){
-	                    throw new Exception("关闭输出流时发生异常,堆栈信息如下", e); 
+	                }catch (IOException e){
+	                    throw new IOException("关闭输出流时发生异常,堆栈信息如下", e); 
 	                }
 	            }
 	            if(in != null){
 	                try{
 	                    in.close();
-	                }catch(Exception e){
-	                	throw new Exception("关闭输出流时发生异常,堆栈信息如下", e); 
+	                }catch(IOException e){
+	                	throw new IOException("关闭输出流时发生异常,堆栈信息如下", e); 
 	                }
 	            }
-	            if(httpURLConnection != null){
-	                httpURLConnection.disconnect();
-	                httpURLConnection = null;
+	            httpURLConnection.disconnect();
+	        }
+	    }
+
+	    /**
+	     * 信任所有证书的HTTPS引擎,复制默认引擎的配置并只替换<code>SslConfig</code>
+	     * @see 请求策略、熔断与隔离舱、指标收集器、压缩等配置与默认引擎一致
+	     * @see 默认引擎被<code>HttpClientEngine.setDefault</code>替换后,下次使用时按新的配置重新创建,
+	     *      并关闭按原配置创建的信任所有证书的引擎,其上尚未结束的请求以异常结束;默认引擎本身不会被关闭
+	     */
+	    private static class TrustAllEngineHolder {
+	        private static HttpClientEngine source;
+	        private static HttpClientEngine engine;
+
+	        static synchronized HttpClientEngine getEngine() throws Exception {
+	            HttpClientEngine defaultEngine = HttpClientEngine.getDefault();
+	            if (engine == null || source != defaultEngine) {
+	                HttpClientConfig config = defaultEngine.getConfig().copy();
+	                config.setSslConfig(SslConfig.trustAll());
+	                HttpClientEngine previous = engine;
+	                engine = new HttpClientEngine(config);
+	                source = defaultEngine;
+	                if (previous != null) {
+	                    // 释放原引擎的回收线程、异步线程池与连接池
+	                    previous.shutdown();
+	                }
 	            }
+	            return engine;
 	        }
 	    }
 }
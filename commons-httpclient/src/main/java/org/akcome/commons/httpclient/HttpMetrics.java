@@ -0,0 +1,27 @@
+package org.akcome.commons.httpclient;
+
+/**
+ * HttpClientEngine的指标收集接口
+ * @see 通过<code>HttpClientConfig.setMetrics</code>注入,默认实现为<code>InMemoryHttpMetrics</code>
+ * @see 实现类会在发送请求的线程中被调用,应保证线程安全且不阻塞
+ * @author peng_wang
+ */
+public interface HttpMetrics {
+	/**
+	 * 记录一次请求(每次重试单独记录)
+	 * @param host          目标主机(协议://主机名:端口)
+	 * @param method        HTTP方法
+	 * @param latencyNanos  从发送请求到读完响应正文的纳秒数
+	 * @param bytesOut      已写出的请求正文字节数(压缩发送时为压缩前的字节数)
+	 * @param bytesIn       已读取的响应正文字节数(启用压缩时为解压后的字节数)
+	 * @param failed        是否失败(网络异常或5xx响应)
+	 */
+	void recordRequest(String host, String method, long latencyNanos, long bytesOut, long bytesIn, boolean failed);
+
+	/**
+	 * 记录一次从连接池获取连接的等待时间
+	 * @param host      目标主机(协议://主机名:端口)
+	 * @param waitNanos 等待纳秒数
+	 */
+	void recordLeaseWait(String host, long waitNanos);
+}
@@ -0,0 +1,76 @@
+package org.akcome.commons.httpclient;
+
+import org.akcome.commons.metrics.LatencyHistogram;
+
+/**
+ * 某个主机某种HTTP方法的请求统计快照
+ * @see 由<code>InMemoryHttpMetrics.snapshot()</code>生成,延迟数值单位均为微秒
+ * @author peng_wang
+ */
+public class HttpMetricsSnapshot {
+	private final String host;
+	private final String method;
+	private final long requestCount;
+	private final long errorCount;
+	private final long bytesIn;
+	private final long bytesOut;
+	private final LatencyHistogram.Snapshot latency;
+
+	HttpMetricsSnapshot(String host, String method, long requestCount, long errorCount, long bytesIn, long bytesOut,
+			LatencyHistogram.Snapshot latency) {
+		this.host = host;
+		this.method = method;
+		this.requestCount = requestCount;
+		this.errorCount = errorCount;
+		this.bytesIn = bytesIn;
+		this.bytesOut = bytesOut;
+		this.latency = latency;
+	}
+
+	/**
+	 * 目标主机(协议://主机名:端口)
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	/**
+	 * 已读取的响应正文字节数
+	 */
+	public long getBytesIn() {
+		return bytesIn;
+	}
+
+	/**
+	 * 请求正文字节数
+	 */
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	/**
+	 * 请求延迟的直方图快照
+	 */
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String toString() {
+		return host + " " + method + " count=" + requestCount + " errors=" + errorCount + " bytesIn=" + bytesIn
+				+ " bytesOut=" + bytesOut + " p50=" + latency.getValueAtPercentile(50) + "us p99="
+				+ latency.getValueAtPercentile(99) + "us max=" + latency.getMax() + "us";
+	}
+}
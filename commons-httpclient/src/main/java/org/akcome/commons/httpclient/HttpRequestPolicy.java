@@ -0,0 +1,281 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import org.apache.http.conn.ConnectTimeoutException;
+
+/**
+ * 请求的超时、重试与总时限策略
+ * @see 同时作用于HttpClient发送的请求与<code>HttpClientUtil.sendPostRequestByJava</code>的HttpURLConnection请求
+ * @see 幂等请求(GET/HEAD/OPTIONS/PUT/DELETE/TRACE)在网络异常时按指数退避加随机抖动重试;
+ *      非幂等请求只在连接未建立(请求未发出)时重试
+ * @see 设置了总时限时,每次尝试的超时时间不超过剩余时间,超过总时限后不再重试;
+ *      到达总时限时由定时线程中止正在进行的尝试,读取响应正文同样受总时限约束
+ * @author peng_wang
+ */
+public class HttpRequestPolicy {
+	/** 建立连接的超时毫秒数,0表示不限制 */
+	private int connectTimeoutMillis = 30000;
+	/** 读取数据的超时毫秒数(两次读取之间的最大间隔),0表示不限制 */
+	private int socketTimeoutMillis = 30000;
+	/** 从连接池获取连接的最大等待毫秒数,0表示不限制 */
+	private long poolWaitTimeoutMillis = 10000;
+	/** 首次失败后的最大重试次数 */
+	private int maxRetries = 2;
+	/** 首次重试前的退避毫秒数,之后每次翻倍 */
+	private long backoffBaseMillis = 100;
+	/** 单次退避的最大毫秒数 */
+	private long backoffMaxMillis = 2000;
+	/** 随机抖动比例(0~1),实际退避时间在[退避时间*(1-抖动比例),退避时间]之间均匀分布 */
+	private double jitter = 0.5;
+	/** 包括所有重试及读取响应正文在内的总时限毫秒数,0表示不限制 */
+	private long deadlineMillis = 0;
+
+	/**
+	 * 一次请求尝试
+	 */
+	interface Attempt<T> {
+		/**
+		 * @param connectTimeout  本次尝试的连接超时毫秒数
+		 * @param socketTimeout   本次尝试的读取超时毫秒数
+		 * @param poolWaitTimeout 本次尝试从连接池获取连接的最大等待毫秒数
+		 */
+		T run(int connectTimeout, int socketTimeout, long poolWaitTimeout) throws IOException;
+
+		/**
+		 * 中止正在进行的尝试,到达总时限时由定时线程调用,阻塞中的连接与读取随之以异常结束
+		 */
+		void abort();
+	}
+
+	/**
+	 * 判断失败时能否重试
+	 */
+	interface RetryCondition {
+		boolean canRetry(IOException e);
+	}
+
+	/**
+	 * 按本策略执行请求,失败时按条件重试
+	 * @param idempotent 请求是否幂等,非幂等请求只在连接失败时重试
+	 * @param attempt    一次请求尝试
+	 */
+	<T> T execute(final boolean idempotent, Attempt<T> attempt) throws IOException {
+		return execute(new RetryCondition() {
+			public boolean canRetry(IOException e) {
+				return isRetriable(e, idempotent);
+			}
+		}, attempt);
+	}
+
+	/**
+	 * 按本策略执行请求,失败时按条件重试
+	 * @param condition 失败时能否重试
+	 * @param attempt   一次请求尝试
+	 */
+	<T> T execute(RetryCondition condition, Attempt<T> attempt) throws IOException {
+		long deadline = deadlineMillis > 0 ? System.nanoTime() + deadlineMillis * 1000000L : 0;
+		for (int retry = 0;; retry++) {
+			long remaining = remainingMillis(deadline);
+			ScheduledFuture<?> timer = deadline == 0 ? null : scheduleAbort(attempt, remaining);
+			IOException failure;
+			try {
+				return attempt.run(limit(connectTimeoutMillis, remaining), limit(socketTimeoutMillis, remaining),
+						limit(poolWaitTimeoutMillis, remaining));
+			} catch (IOException e) {
+				failure = e;
+			} finally {
+				if (timer != null) {
+					timer.cancel(false);
+				}
+			}
+			if (deadline != 0 && deadline - System.nanoTime() <= 0) {
+				InterruptedIOException e = new InterruptedIOException("请求超过总时限");
+				e.initCause(failure);
+				throw e;
+			}
+			if (retry >= maxRetries || !condition.canRetry(failure)) {
+				throw failure;
+			}
+			long backoff = backoffMillis(retry + 1);
+			if (deadline != 0 && remainingMillis(deadline) <= backoff) {
+				throw failure;
+			}
+			sleep(backoff);
+		}
+	}
+
+	/**
+	 * 在剩余时间后中止尝试
+	 */
+	private static ScheduledFuture<?> scheduleAbort(final Attempt<?> attempt, long remainingMillis) {
+		return DeadlineTimer.EXECUTOR.schedule(new Runnable() {
+			public void run() {
+				attempt.abort();
+			}
+		}, remainingMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 第<code>retry</code>次重试前的退避毫秒数(含随机抖动)
+	 */
+	long backoffMillis(int retry) {
+		long backoff = backoffBaseMillis << Math.min(retry - 1, 30);
+		if (backoff <= 0 || backoff > backoffMaxMillis) {
+			backoff = backoffMaxMillis;
+		}
+		if (jitter > 0) {
+			backoff -= (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+		}
+		return backoff;
+	}
+
+	/**
+	 * 判断异常是否可重试
+	 * @see 连接被拒绝或连接超时时请求尚未发出,任何请求均可重试;
+	 *      熔断、隔离舱拒绝、域名解析失败、SSL异常及线程中断不重试;其余网络异常只对幂等请求重试
+	 */
+	static boolean isRetriable(IOException e, boolean idempotent) {
+		if (e instanceof CircuitBreakerOpenException || e instanceof BulkheadFullException) {
+			return false;
+		}
+		if (e instanceof ConnectException || e instanceof ConnectTimeoutException) {
+			return true;
+		}
+		if (e instanceof UnknownHostException || e instanceof SSLException) {
+			return false;
+		}
+		if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+			return false;
+		}
+		return idempotent;
+	}
+
+	/**
+	 * 判断HTTP方法是否幂等
+	 */
+	static boolean isIdempotent(String method) {
+		return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+				|| "PUT".equals(method) || "DELETE".equals(method) || "TRACE".equals(method);
+	}
+
+	private static long remainingMillis(long deadline) throws InterruptedIOException {
+		if (deadline == 0) {
+			return 0;
+		}
+		long remaining = (deadline - System.nanoTime()) / 1000000L;
+		if (remaining <= 0) {
+			throw new InterruptedIOException("请求超过总时限");
+		}
+		return remaining;
+	}
+
+	/**
+	 * 取超时时间与剩余时间中的较小者,0均表示不限制
+	 */
+	private static int limit(int timeout, long remaining) {
+		return (int) limit((long) timeout, remaining);
+	}
+
+	private static long limit(long timeout, long remaining) {
+		if (remaining == 0) {
+			return timeout;
+		}
+		return timeout == 0 ? remaining : Math.min(timeout, remaining);
+	}
+
+	private static void sleep(long millis) throws InterruptedIOException {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("重试等待时线程被中断");
+		}
+	}
+
+	/**
+	 * 到达总时限时中止请求的定时线程,首次设置总时限的请求执行时创建
+	 */
+	private static class DeadlineTimer {
+		static final ScheduledThreadPoolExecutor EXECUTOR;
+
+		static {
+			EXECUTOR = new ScheduledThreadPoolExecutor(1, new HttpClientEngine.DaemonThreadFactory("HttpRequestPolicy-deadline-"));
+			EXECUTOR.setRemoveOnCancelPolicy(true);
+		}
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	public long getPoolWaitTimeoutMillis() {
+		return poolWaitTimeoutMillis;
+	}
+
+	public void setPoolWaitTimeoutMillis(long poolWaitTimeoutMillis) {
+		this.poolWaitTimeoutMillis = poolWaitTimeoutMillis;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	public long getBackoffBaseMillis() {
+		return backoffBaseMillis;
+	}
+
+	public void setBackoffBaseMillis(long backoffBaseMillis) {
+		this.backoffBaseMillis = backoffBaseMillis;
+	}
+
+	public long getBackoffMaxMillis() {
+		return backoffMaxMillis;
+	}
+
+	public void setBackoffMaxMillis(long backoffMaxMillis) {
+		this.backoffMaxMillis = backoffMaxMillis;
+	}
+
+	public double getJitter() {
+		return jitter;
+	}
+
+	public void setJitter(double jitter) {
+		this.jitter = jitter;
+	}
+
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	public void setDeadlineMillis(long deadlineMillis) {
+		this.deadlineMillis = deadlineMillis;
+	}
+}
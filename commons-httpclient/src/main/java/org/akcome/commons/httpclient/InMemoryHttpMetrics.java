@@ -0,0 +1,136 @@
+package org.akcome.commons.httpclient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.akcome.commons.metrics.LatencyHistogram;
+
+/**
+ * 在内存中按主机与HTTP方法累计请求指标
+ * @see 计数器只增不减,调用<code>reset()</code>清零;快照按主机、方法排序
+ * @see <code>toText()</code>输出每行一个指标的文本,便于监控系统采集
+ * @author peng_wang
+ */
+public class InMemoryHttpMetrics implements HttpMetrics {
+	private final ConcurrentMap<String, RequestStats> requestStats = new ConcurrentHashMap<String, RequestStats>();
+	private final ConcurrentMap<String, LatencyHistogram> leaseWaits = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	public void recordRequest(String host, String method, long latencyNanos, long bytesOut, long bytesIn, boolean failed) {
+		String key = host + " " + method;
+		RequestStats stats = requestStats.get(key);
+		if (stats == null) {
+			RequestStats created = new RequestStats(host, method);
+			stats = requestStats.putIfAbsent(key, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		stats.count.increment();
+		if (failed) {
+			stats.errors.increment();
+		}
+		stats.bytesIn.add(bytesIn);
+		stats.bytesOut.add(bytesOut);
+		stats.latency.recordNanos(latencyNanos);
+	}
+
+	public void recordLeaseWait(String host, long waitNanos) {
+		LatencyHistogram histogram = leaseWaits.get(host);
+		if (histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = leaseWaits.putIfAbsent(host, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		histogram.recordNanos(waitNanos);
+	}
+
+	/**
+	 * 获取各主机、各HTTP方法的请求统计快照
+	 */
+	public List<HttpMetricsSnapshot> snapshot() {
+		List<HttpMetricsSnapshot> snapshots = new ArrayList<HttpMetricsSnapshot>();
+		for (RequestStats stats : new TreeMap<String, RequestStats>(requestStats).values()) {
+			snapshots.add(new HttpMetricsSnapshot(stats.host, stats.method, stats.count.sum(), stats.errors.sum(),
+					stats.bytesIn.sum(), stats.bytesOut.sum(), stats.latency.snapshot()));
+		}
+		return snapshots;
+	}
+
+	/**
+	 * 获取各主机从连接池获取连接的等待时间快照
+	 * @return 协议://主机名:端口 -> 等待时间直方图快照
+	 */
+	public Map<String, LatencyHistogram.Snapshot> leaseWaitSnapshot() {
+		Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<String, LatencyHistogram.Snapshot>();
+		for (Map.Entry<String, LatencyHistogram> entry : leaseWaits.entrySet()) {
+			snapshots.put(entry.getKey(), entry.getValue().snapshot());
+		}
+		return snapshots;
+	}
+
+	/**
+	 * 清空所有已记录的指标
+	 */
+	public void reset() {
+		requestStats.clear();
+		leaseWaits.clear();
+	}
+
+	/**
+	 * 以文本形式输出所有指标,每行形如<code>http_client_requests{host="a:80",method="GET"} 10</code>
+	 * @see 延迟及等待时间单位为微秒
+	 */
+	public String toText() {
+		StringBuilder sb = new StringBuilder();
+		for (HttpMetricsSnapshot s : snapshot()) {
+			String labels = "{host=\"" + s.getHost() + "\",method=\"" + s.getMethod() + "\"";
+			appendLine(sb, "http_client_requests", labels + "}", s.getRequestCount());
+			appendLine(sb, "http_client_errors", labels + "}", s.getErrorCount());
+			appendLine(sb, "http_client_bytes_in", labels + "}", s.getBytesIn());
+			appendLine(sb, "http_client_bytes_out", labels + "}", s.getBytesOut());
+			appendPercentiles(sb, "http_client_latency_us", labels, s.getLatency());
+		}
+		for (Map.Entry<String, LatencyHistogram.Snapshot> entry : leaseWaitSnapshot().entrySet()) {
+			appendPercentiles(sb, "http_client_lease_wait_us", "{host=\"" + entry.getKey() + "\"", entry.getValue());
+		}
+		return sb.toString();
+	}
+
+	private static void appendPercentiles(StringBuilder sb, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+		appendLine(sb, name, labels + ",quantile=\"0.5\"}", snapshot.getValueAtPercentile(50));
+		appendLine(sb, name, labels + ",quantile=\"0.9\"}", snapshot.getValueAtPercentile(90));
+		appendLine(sb, name, labels + ",quantile=\"0.99\"}", snapshot.getValueAtPercentile(99));
+		appendLine(sb, name, labels + ",quantile=\"0.999\"}", snapshot.getValueAtPercentile(99.9));
+		appendLine(sb, name + "_max", labels + "}", snapshot.getMax());
+		appendLine(sb, name + "_count", labels + "}", snapshot.getCount());
+	}
+
+	private static void appendLine(StringBuilder sb, String name, String labels, long value) {
+		sb.append(name).append(labels).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * 某个主机某种HTTP方法的累计数据
+	 */
+	private static class RequestStats {
+		final String host;
+		final String method;
+		final LongAdder count = new LongAdder();
+		final LongAdder errors = new LongAdder();
+		final LongAdder bytesIn = new LongAdder();
+		final LongAdder bytesOut = new LongAdder();
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		RequestStats(String host, String method) {
+			this.host = host;
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.akcome.commons.httpclient;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.X509HostnameVerifier;
+
+/**
+ * 可复用的SSL配置
+ * @see SSLContext及SSLSocketFactory只在创建本对象时构造一次,之后由所有使用该配置的<code>HttpClientEngine</code>共享
+ * @see 共享同一个SSLContext的连接可复用其客户端会话缓存中的TLS会话,重连同一主机时免去完整握手
+ * @see 默认校验证书中的主机名(BROWSER_COMPATIBLE)
+ * @author peng_wang
+ */
+public class SslConfig {
+	private final SSLContext sslContext;
+	private final SSLSocketFactory socketFactory;
+
+	private SslConfig(SSLContext sslContext, X509HostnameVerifier hostnameVerifier) {
+		this.sslContext = sslContext;
+		this.socketFactory = new SSLSocketFactory(sslContext, hostnameVerifier);
+	}
+
+	/**
+	 * 使用JVM默认的信任库(cacerts)
+	 */
+	public static SslConfig systemDefault() throws GeneralSecurityException {
+		SSLContext ctx = SSLContext.getInstance("TLS");
+		ctx.init(null, null, null);
+		return new SslConfig(ctx, SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+	}
+
+	/**
+	 * 使用指定的信任库校验服务端证书
+	 * @param trustStore         信任库文件
+	 * @param trustStorePassword 信任库密码,可以为null
+	 * @param type               信任库类型,为null时使用<code>KeyStore.getDefaultType()</code>
+	 */
+	public static SslConfig fromTrustStore(File trustStore, String trustStorePassword, String type)
+			throws GeneralSecurityException, IOException {
+		return fromKeyStore(null, null, trustStore, trustStorePassword, type);
+	}
+
+	/**
+	 * 使用客户端证书(双向认证)及信任库
+	 * @param keyStore           客户端证书所在的密钥库文件,为null时不发送客户端证书
+	 * @param keyStorePassword   密钥库及私钥的密码
+	 * @param trustStore         信任库文件,为null时使用JVM默认的信任库
+	 * @param trustStorePassword 信任库密码,可以为null
+	 * @param type               密钥库与信任库的类型,为null时使用<code>KeyStore.getDefaultType()</code>
+	 */
+	public static SslConfig fromKeyStore(File keyStore, String keyStorePassword, File trustStore,
+			String trustStorePassword, String type) throws GeneralSecurityException, IOException {
+		KeyManager[] keyManagers = null;
+		if (keyStore != null) {
+			KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+			kmf.init(loadKeyStore(keyStore, keyStorePassword, type), toChars(keyStorePassword));
+			keyManagers = kmf.getKeyManagers();
+		}
+		TrustManager[] trustManagers = null;
+		if (trustStore != null) {
+			TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+			tmf.init(loadKeyStore(trustStore, trustStorePassword, type));
+			trustManagers = tmf.getTrustManagers();
+		}
+		SSLContext ctx = SSLContext.getInstance("TLS");
+		ctx.init(keyManagers, trustManagers, null);
+		return new SslConfig(ctx, SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+	}
+
+	/**
+	 * 信任所有服务端证书,仅用于测试环境或对接使用自签名证书的第三方
+	 * @see 仍校验证书中的主机名,与原<code>sendPostSSLRequest</code>的行为一致
+	 */
+	public static SslConfig trustAll() throws GeneralSecurityException {
+		X509TrustManager xtm = new X509TrustManager() {
+			public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {}
+			public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {}
+			public X509Certificate[] getAcceptedIssuers() {return null;}
+		};
+		SSLContext ctx = SSLContext.getInstance("TLS");
+		ctx.init(null, new TrustManager[] { xtm }, null);
+		return new SslConfig(ctx, SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+	}
+
+	/**
+	 * 使用已初始化的SSLContext及指定的主机名校验器
+	 */
+	public static SslConfig of(SSLContext sslContext, X509HostnameVerifier hostnameVerifier) {
+		return new SslConfig(sslContext, hostnameVerifier);
+	}
+
+	private static KeyStore loadKeyStore(File file, String password, String type) throws GeneralSecurityException, IOException {
+		KeyStore keyStore = KeyStore.getInstance(type == null ? KeyStore.getDefaultType() : type);
+		InputStream in = new FileInputStream(file);
+		try {
+			keyStore.load(in, toChars(password));
+		} finally {
+			in.close();
+		}
+		return keyStore;
+	}
+
+	private static char[] toChars(String password) {
+		return password == null ? null : password.toCharArray();
+	}
+
+	/**
+	 * 设置TLS会话缓存的最大会话数,0表示不限制
+	 */
+	public SslConfig setSessionCacheSize(int size) {
+		sslContext.getClientSessionContext().setSessionCacheSize(size);
+		return this;
+	}
+
+	/**
+	 * 设置TLS会话在缓存中的有效秒数,0表示不限制
+	 */
+	public SslConfig setSessionTimeout(int seconds) {
+		sslContext.getClientSessionContext().setSessionTimeout(seconds);
+		return this;
+	}
+
+	public SSLContext getSslContext() {
+		return sslContext;
+	}
+
+	/**
+	 * 注册到连接池https协议的SSLSocketFactory,每个配置对象只创建一次
+	 */
+	public SSLSocketFactory getSocketFactory() {
+		return socketFactory;
+	}
+}
@@ -0,0 +1,133 @@
+package org.akcome.commons.httpclient;
+
+import junit.framework.TestCase;
+
+/**
+ * CircuitBreaker的状态切换:关闭->打开->半开->关闭或重新打开
+ * @author peng_wang
+ */
+public class CircuitBreakerTest extends TestCase {
+
+	private static CircuitBreakerConfig newConfig(long openDurationMillis) {
+		CircuitBreakerConfig config = new CircuitBreakerConfig();
+		config.setSlidingWindowSize(4);
+		config.setMinimumCalls(4);
+		config.setFailureRateThreshold(50);
+		config.setSlowCallDurationMillis(1000);
+		config.setSlowCallRateThreshold(100);
+		config.setOpenDurationMillis(openDurationMillis);
+		config.setHalfOpenPermittedCalls(2);
+		return config;
+	}
+
+	/**
+	 * 调用数未达到minimumCalls时不打开,达到后失败率达到阈值即打开
+	 */
+	public void testOpensAtFailureRate() {
+		CircuitBreaker breaker = new CircuitBreaker(newConfig(60000));
+		breaker.onError(1);
+		breaker.onError(1);
+		breaker.onError(1);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onSuccess(1);
+		// 4次中3次失败
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+	}
+
+	/**
+	 * 失败率低于阈值时保持关闭,窗口满后最早的结果被移出
+	 */
+	public void testSlidingWindowEvictsOldest() {
+		CircuitBreaker breaker = new CircuitBreaker(newConfig(60000));
+		breaker.onError(1);
+		breaker.onSuccess(1);
+		breaker.onSuccess(1);
+		breaker.onSuccess(1);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		// 移出最早的失败,窗口中为3次成功1次失败
+		breaker.onError(1);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		// 窗口中为2次成功2次失败,达到50%
+		breaker.onError(1);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	/**
+	 * 慢调用即使成功也计入慢调用率
+	 */
+	public void testOpensAtSlowCallRate() {
+		CircuitBreaker breaker = new CircuitBreaker(newConfig(60000));
+		for (int i = 0; i < 3; i++) {
+			breaker.onSuccess(1000);
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		breaker.onSuccess(1000);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	/**
+	 * 打开时间过后只放行halfOpenPermittedCalls次试探调用,全部成功则关闭并清空窗口
+	 */
+	public void testHalfOpenCloses() throws InterruptedException {
+		CircuitBreaker breaker = open(newConfig(50));
+		assertFalse(breaker.tryAcquirePermission());
+		Thread.sleep(80);
+		// 打开时间已过,但尚未有新调用
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+		assertFalse(breaker.tryAcquirePermission());
+		breaker.onSuccess(1);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		breaker.onSuccess(1);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquirePermission());
+		// 窗口已清空,关闭后需重新累计minimumCalls次调用
+		breaker.onError(1);
+		breaker.onError(1);
+		breaker.onError(1);
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	/**
+	 * 半开状态下任一试探调用失败或过慢则重新打开,并重新计算打开时间
+	 */
+	public void testHalfOpenReopens() throws InterruptedException {
+		CircuitBreaker breaker = open(newConfig(50));
+		Thread.sleep(80);
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onError(1);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+
+		Thread.sleep(80);
+		assertTrue(breaker.tryAcquirePermission());
+		breaker.onSuccess(1000);
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+	}
+
+	/**
+	 * 打开前已放行的调用在打开后返回,其结果不影响状态
+	 */
+	public void testLateResultsIgnoredWhileOpen() {
+		CircuitBreaker breaker = open(newConfig(60000));
+		for (int i = 0; i < 10; i++) {
+			breaker.onSuccess(1);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquirePermission());
+	}
+
+	private static CircuitBreaker open(CircuitBreakerConfig config) {
+		CircuitBreaker breaker = new CircuitBreaker(config);
+		for (int i = 0; i < config.getMinimumCalls(); i++) {
+			breaker.onError(1);
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		return breaker;
+	}
+}
@@ -0,0 +1,200 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import junit.framework.TestCase;
+
+/**
+ * HttpBatchExecutor的排队、限流与线程池拒绝
+ * @author peng_wang
+ */
+public class HttpBatchExecutorTest extends TestCase {
+	private static final String[] HOSTS = { "127.0.0.1", "localhost" };
+
+	private RecordingHandler handler;
+	private LocalHttpServer server;
+
+	@Override
+	protected void setUp() throws IOException {
+		handler = new RecordingHandler();
+		server = new LocalHttpServer(handler);
+	}
+
+	@Override
+	protected void tearDown() {
+		server.close();
+	}
+
+	/**
+	 * 同一主机的请求按提交顺序发送,结果与请求顺序一一对应
+	 */
+	public void testPerHostOrder() throws Exception {
+		HttpClientEngine engine = new HttpClientEngine();
+		try {
+			List<HttpBatchRequest> requests = requests(20);
+			List<HttpBatchResult> results = new HttpBatchExecutor(engine, 1).execute(requests);
+			assertResults(requests, results);
+			for (String host : HOSTS) {
+				List<String> expected = new ArrayList<String>();
+				for (HttpBatchRequest request : requests) {
+					if (request.getReqURL().indexOf(host) >= 0) {
+						expected.add(request.getReqURL().substring(request.getReqURL().lastIndexOf('/')));
+					}
+				}
+				assertEquals(host, expected, handler.arrivals(host));
+			}
+		} finally {
+			engine.shutdown();
+		}
+	}
+
+	public void testMaxInFlightPerHost() throws Exception {
+		handler.delayMillis = 50;
+		HttpClientEngine engine = new HttpClientEngine();
+		try {
+			List<HttpBatchRequest> requests = requests(12);
+			assertResults(requests, new HttpBatchExecutor(engine, 2).execute(requests));
+			for (String host : HOSTS) {
+				assertEquals(host, 2, handler.maxConcurrent(host));
+			}
+		} finally {
+			engine.shutdown();
+		}
+	}
+
+	public void testMaxInFlight() throws Exception {
+		handler.delayMillis = 50;
+		HttpClientEngine engine = new HttpClientEngine();
+		try {
+			List<HttpBatchRequest> requests = requests(12);
+			assertResults(requests, new HttpBatchExecutor(engine, 5, 3).execute(requests));
+			assertEquals(3, handler.maxConcurrentTotal);
+		} finally {
+			engine.shutdown();
+		}
+	}
+
+	/**
+	 * 在途上限超过线程池容量时,被线程池拒绝的请求稍后重新提交,不记为失败
+	 */
+	public void testFullPoolDoesNotFailRequests() throws Exception {
+		handler.delayMillis = 20;
+		HttpClientConfig config = new HttpClientConfig();
+		config.setAsyncThreads(2);
+		config.setAsyncQueueCapacity(3);
+		HttpClientEngine engine = new HttpClientEngine(config);
+		try {
+			List<HttpBatchRequest> requests = requests(10);
+			assertResults(requests, new HttpBatchExecutor(engine, 10, 100).execute(requests));
+
+			// 线程池被其他异步请求占去大部分;上一批的任务已执行完,队列为空,但工作线程可能尚未空闲
+			List<CompletableFuture<String>> others = new ArrayList<CompletableFuture<String>>();
+			for (int i = 0; i < 3; i++) {
+				others.add(engine.getAsync(server.url(HOSTS[0], "/other" + i), null));
+			}
+			assertResults(requests, new HttpBatchExecutor(engine, 10, 100).execute(requests));
+			for (CompletableFuture<String> other : others) {
+				assertNotNull(other.get());
+			}
+		} finally {
+			engine.shutdown();
+		}
+	}
+
+	/**
+	 * 引擎已关闭时请求以RejectedExecutionException失败,不会一直重新提交
+	 */
+	public void testShutdownEngineFailsRequests() throws Exception {
+		HttpClientEngine engine = new HttpClientEngine();
+		engine.shutdown();
+		List<HttpBatchResult> results = new HttpBatchExecutor(engine, 2).execute(requests(4));
+		for (HttpBatchResult result : results) {
+			assertFalse(result.isSuccess());
+			assertTrue(result.getException() instanceof RejectedExecutionException);
+		}
+		assertTrue(new HttpBatchExecutor(engine).execute(new ArrayList<HttpBatchRequest>()).isEmpty());
+	}
+
+	/**
+	 * 交替发往两个主机的请求
+	 */
+	private List<HttpBatchRequest> requests(int count) {
+		List<HttpBatchRequest> requests = new ArrayList<HttpBatchRequest>();
+		for (int i = 0; i < count; i++) {
+			requests.add(HttpBatchRequest.get(server.url(HOSTS[i % 2], "/" + i), null));
+		}
+		return requests;
+	}
+
+	private static void assertResults(List<HttpBatchRequest> requests, List<HttpBatchResult> results) {
+		assertEquals(requests.size(), results.size());
+		for (int i = 0; i < requests.size(); i++) {
+			HttpBatchResult result = results.get(i);
+			assertTrue(String.valueOf(result.getException()), result.isSuccess());
+			assertSame(requests.get(i), result.getRequest());
+			String url = requests.get(i).getReqURL();
+			assertEquals(url.substring(url.lastIndexOf('/')), result.getResponseContent());
+		}
+	}
+
+	/**
+	 * 按Host头记录请求到达顺序与同时处理的请求数,延迟后返回请求路径
+	 */
+	private static class RecordingHandler implements HttpHandler {
+		volatile long delayMillis;
+		int maxConcurrentTotal;
+		private int concurrentTotal;
+		private final Map<String, List<String>> arrivals = new HashMap<String, List<String>>();
+		private final Map<String, AtomicInteger> concurrent = new HashMap<String, AtomicInteger>();
+		private final Map<String, Integer> maxConcurrent = new HashMap<String, Integer>();
+
+		public void handle(HttpExchange exchange) throws IOException {
+			String host = exchange.getRequestHeaders().getFirst("Host");
+			host = host.substring(0, host.lastIndexOf(':'));
+			String path = exchange.getRequestURI().getPath();
+			synchronized (this) {
+				if (!arrivals.containsKey(host)) {
+					arrivals.put(host, new ArrayList<String>());
+					concurrent.put(host, new AtomicInteger());
+					maxConcurrent.put(host, 0);
+				}
+				arrivals.get(host).add(path);
+				maxConcurrent.put(host, Math.max(maxConcurrent.get(host), concurrent.get(host).incrementAndGet()));
+				maxConcurrentTotal = Math.max(maxConcurrentTotal, ++concurrentTotal);
+			}
+			try {
+				if (delayMillis > 0) {
+					Thread.sleep(delayMillis);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				synchronized (this) {
+					concurrent.get(host).decrementAndGet();
+					concurrentTotal--;
+				}
+			}
+			LocalHttpServer.respond(exchange, path);
+		}
+
+		synchronized List<String> arrivals(String host) {
+			List<String> list = arrivals.get(host);
+			return list == null ? Collections.<String> emptyList() : new ArrayList<String>(list);
+		}
+
+		synchronized int maxConcurrent(String host) {
+			return maxConcurrent.get(host);
+		}
+	}
+}
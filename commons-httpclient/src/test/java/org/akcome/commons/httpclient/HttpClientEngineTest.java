@@ -0,0 +1,163 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * HttpClientEngine的异步线程池与关闭、按主机的隔离舱与熔断
+ * @author peng_wang
+ */
+public class HttpClientEngineTest extends TestCase {
+
+	/**
+	 * 关闭时队列中的请求不再执行,其Future以RejectedExecutionException结束,不会一直等待
+	 */
+	public void testShutdownCompletesQueuedFutures() throws Exception {
+		HttpClientConfig config = new HttpClientConfig();
+		config.setAsyncThreads(1);
+		HttpClientEngine engine = new HttpClientEngine(config);
+		// 接受连接但从不响应
+		ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		try {
+			String url = "http://127.0.0.1:" + server.getLocalPort() + "/";
+			CompletableFuture<String> running = engine.getAsync(url, null);
+			CompletableFuture<String> queued = engine.getAsync(url, null);
+			engine.shutdown();
+			try {
+				queued.get(5, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			try {
+				running.get(10, TimeUnit.SECONDS);
+				fail();
+			} catch (ExecutionException e) {
+				// 连接随连接池关闭
+			}
+			assertTrue(engine.getAsync(url, null).isCompletedExceptionally());
+		} finally {
+			server.close();
+		}
+	}
+
+	/**
+	 * 未指定端口时按协议取默认端口,协议不区分大小写
+	 */
+	public void testHostKey() {
+		assertEquals("http://h:80", HttpClientEngine.hostKey("http", "h", -1));
+		assertEquals("http://h:80", HttpClientEngine.hostKey("HTTP", "h", 80));
+		assertEquals("http://h:80", HttpClientEngine.hostKey(null, "h", -1));
+		assertEquals("https://h:443", HttpClientEngine.hostKey("https", "h", -1));
+		assertEquals("http://h:443", HttpClientEngine.hostKey("http", "h", 443));
+		assertEquals("http://h:8080", HttpClientEngine.hostKey("http", "h", 8080));
+		assertEquals(HttpBatchRequest.get("http://h/a", null).getHostKey(),
+				HttpBatchRequest.get("HTTP://h:80/b?c=1", null).getHostKey());
+		assertFalse(HttpBatchRequest.get("http://h/", null).getHostKey()
+				.equals(HttpBatchRequest.get("https://h/", null).getHostKey()));
+	}
+
+	/**
+	 * 每主机并发数已满时立即以BulkheadFullException失败,其他主机不受影响,许可在请求结束后归还
+	 */
+	public void testBulkhead() throws Exception {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		LocalHttpServer server = new LocalHttpServer(new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				if (exchange.getRequestURI().getPath().equals("/slow")) {
+					entered.countDown();
+					try {
+						release.await(10, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				LocalHttpServer.respond(exchange, "ok");
+			}
+		});
+		HttpClientConfig config = new HttpClientConfig();
+		config.setMaxConcurrentPerHost(1);
+		HttpClientEngine engine = new HttpClientEngine(config);
+		try {
+			CompletableFuture<String> slow = engine.getAsync(server.url("127.0.0.1", "/slow"), null);
+			assertTrue(entered.await(10, TimeUnit.SECONDS));
+			try {
+				engine.get(server.url("127.0.0.1", "/"), null);
+				fail();
+			} catch (BulkheadFullException e) {
+				// 期望
+			}
+			assertEquals("ok", engine.get(server.url("localhost", "/"), null));
+			release.countDown();
+			assertEquals("ok", slow.get(10, TimeUnit.SECONDS));
+			assertEquals("ok", engine.get(server.url("127.0.0.1", "/"), null));
+		} finally {
+			release.countDown();
+			engine.shutdown();
+			server.close();
+		}
+	}
+
+	/**
+	 * 5xx响应计为失败,熔断器打开后请求不再发送;熔断器按主机区分
+	 */
+	public void testCircuitBreakerPerHost() throws Exception {
+		final int[] served = new int[1];
+		LocalHttpServer server = new LocalHttpServer(new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				synchronized (served) {
+					served[0]++;
+				}
+				byte[] body = "error".getBytes("UTF-8");
+				exchange.sendResponseHeaders(500, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		CircuitBreakerConfig breakerConfig = new CircuitBreakerConfig();
+		breakerConfig.setSlidingWindowSize(2);
+		breakerConfig.setMinimumCalls(2);
+		HttpClientConfig config = new HttpClientConfig();
+		config.setCircuitBreakerConfig(breakerConfig);
+		HttpClientEngine engine = new HttpClientEngine(config);
+		try {
+			String url = server.url("127.0.0.1", "/");
+			engine.get(url, null);
+			engine.get(url, null);
+			try {
+				engine.get(url, null);
+				fail();
+			} catch (CircuitBreakerOpenException e) {
+				// 期望
+			}
+			synchronized (served) {
+				assertEquals(2, served[0]);
+			}
+			engine.get(server.url("localhost", "/"), null);
+
+			Map<String, CircuitBreaker.State> states = engine.getCircuitBreakerStates();
+			assertEquals(2, states.size());
+			assertEquals(CircuitBreaker.State.OPEN, states.get(HttpBatchRequest.get(url, null).getHostKey()));
+			assertEquals(CircuitBreaker.State.CLOSED,
+					states.get(HttpBatchRequest.get(server.url("localhost", "/"), null).getHostKey()));
+		} finally {
+			engine.shutdown();
+			server.close();
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLException;
+
+import junit.framework.TestCase;
+
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectTimeoutException;
+
+/**
+ * HttpRequestPolicy的退避时间、重试判断与总时限
+ * @author peng_wang
+ */
+public class HttpRequestPolicyTest extends TestCase {
+
+	public void testBackoffWithoutJitter() {
+		HttpRequestPolicy policy = new HttpRequestPolicy();
+		policy.setBackoffBaseMillis(100);
+		policy.setBackoffMaxMillis(1000);
+		policy.setJitter(0);
+		assertEquals(100, policy.backoffMillis(1));
+		assertEquals(200, policy.backoffMillis(2));
+		assertEquals(800, policy.backoffMillis(4));
+		assertEquals(1000, policy.backoffMillis(5));
+		// 移位溢出时同样取上限
+		assertEquals(1000, policy.backoffMillis(40));
+		assertEquals(1000, policy.backoffMillis(Integer.MAX_VALUE));
+	}
+
+	public void testBackoffJitterBounds() {
+		HttpRequestPolicy policy = new HttpRequestPolicy();
+		policy.setBackoffBaseMillis(100);
+		policy.setBackoffMaxMillis(1000);
+		policy.setJitter(0.5);
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int i = 0; i < 10000; i++) {
+			long backoff = policy.backoffMillis(3);
+			min = Math.min(min, backoff);
+			max = Math.max(max, backoff);
+			assertTrue(String.valueOf(backoff), backoff >= 200 && backoff <= 400);
+			backoff = policy.backoffMillis(10);
+			assertTrue(String.valueOf(backoff), backoff >= 500 && backoff <= 1000);
+		}
+		// 抖动确实生效
+		assertTrue(min < 250 && max > 350);
+	}
+
+	public void testIsRetriable() {
+		IOException[] always = { new ConnectException(), new ConnectTimeoutException() };
+		IOException[] never = { new CircuitBreakerOpenException("h"), new BulkheadFullException("h"),
+				new UnknownHostException(), new SSLException("x"), new InterruptedIOException() };
+		IOException[] idempotentOnly = { new SocketTimeoutException(), new NoHttpResponseException("x"),
+				new IOException() };
+		for (IOException e : always) {
+			assertTrue(e.toString(), HttpRequestPolicy.isRetriable(e, true));
+			assertTrue(e.toString(), HttpRequestPolicy.isRetriable(e, false));
+		}
+		for (IOException e : never) {
+			assertFalse(e.toString(), HttpRequestPolicy.isRetriable(e, true));
+			assertFalse(e.toString(), HttpRequestPolicy.isRetriable(e, false));
+		}
+		for (IOException e : idempotentOnly) {
+			assertTrue(e.toString(), HttpRequestPolicy.isRetriable(e, true));
+			assertFalse(e.toString(), HttpRequestPolicy.isRetriable(e, false));
+		}
+		assertTrue(HttpRequestPolicy.isIdempotent("GET"));
+		assertTrue(HttpRequestPolicy.isIdempotent("PUT"));
+		assertFalse(HttpRequestPolicy.isIdempotent("POST"));
+		assertFalse(HttpRequestPolicy.isIdempotent("PATCH"));
+	}
+
+	public void testRetryCount() throws IOException {
+		HttpRequestPolicy policy = new HttpRequestPolicy();
+		policy.setMaxRetries(3);
+		policy.setBackoffBaseMillis(1);
+		assertEquals(4, failingAttempts(policy, true, new SocketTimeoutException()));
+		assertEquals(1, failingAttempts(policy, false, new SocketTimeoutException()));
+		assertEquals(4, failingAttempts(policy, false, new ConnectException()));
+		assertEquals(1, failingAttempts(policy, true, new UnknownHostException()));
+	}
+
+	/**
+	 * 服务端接受连接后不响应,到达总时限时中止,不等待读取超时
+	 */
+	public void testDeadlineAbortsWaitingForResponse() throws Exception {
+		StallingServer server = new StallingServer(false);
+		HttpClientEngine engine = new HttpClientEngine();
+		try {
+			long start = System.nanoTime();
+			try {
+				engine.execute(new HttpGet(server.url()), null, deadlinePolicy(500));
+				fail();
+			} catch (InterruptedIOException e) {
+				assertEquals("请求超过总时限", e.getMessage());
+			}
+			assertElapsed(start, 500);
+		} finally {
+			engine.shutdown();
+			server.close();
+		}
+	}
+
+	/**
+	 * 响应正文缓慢到达,每次读取都不超时,到达总时限时同样中止
+	 */
+	public void testDeadlineAbortsTricklingBody() throws Exception {
+		StallingServer server = new StallingServer(true);
+		HttpClientEngine engine = new HttpClientEngine();
+		try {
+			long start = System.nanoTime();
+			try {
+				engine.execute(new HttpGet(server.url()), null, deadlinePolicy(500));
+				fail();
+			} catch (InterruptedIOException e) {
+				assertEquals("请求超过总时限", e.getMessage());
+			}
+			assertElapsed(start, 500);
+		} finally {
+			engine.shutdown();
+			server.close();
+		}
+	}
+
+	/**
+	 * HttpURLConnection发送的请求取默认引擎的策略,同样受总时限约束
+	 */
+	public void testDeadlineAbortsJavaPost() throws Exception {
+		StallingServer server = new StallingServer(true);
+		HttpClientConfig config = new HttpClientConfig();
+		config.setRequestPolicy(deadlinePolicy(500));
+		HttpClientEngine engine = new HttpClientEngine(config);
+		HttpClientEngine original = HttpClientEngine.getDefault();
+		HttpClientEngine.setDefault(engine);
+		try {
+			long start = System.nanoTime();
+			// 通信异常时返回Failed`HTTP状态码
+			assertEquals("Failed`200", HttpClientUtil.sendPostRequestByJava(server.url(), "a=1"));
+			assertElapsed(start, 500);
+		} finally {
+			HttpClientEngine.setDefault(original);
+			engine.shutdown();
+			server.close();
+		}
+	}
+
+	private static HttpRequestPolicy deadlinePolicy(long deadlineMillis) {
+		HttpRequestPolicy policy = new HttpRequestPolicy();
+		policy.setSocketTimeoutMillis(30000);
+		policy.setDeadlineMillis(deadlineMillis);
+		return policy;
+	}
+
+	private static void assertElapsed(long start, long deadlineMillis) {
+		long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+		assertTrue(String.valueOf(elapsedMillis), elapsedMillis >= deadlineMillis - 50 && elapsedMillis < 5000);
+	}
+
+	private static int failingAttempts(HttpRequestPolicy policy, boolean idempotent, final IOException failure) {
+		final AtomicInteger attempts = new AtomicInteger();
+		try {
+			policy.execute(idempotent, new HttpRequestPolicy.Attempt<Object>() {
+				public Object run(int connectTimeout, int socketTimeout, long poolWaitTimeout) throws IOException {
+					attempts.incrementAndGet();
+					throw failure;
+				}
+
+				public void abort() {
+				}
+			});
+			fail();
+		} catch (IOException e) {
+			assertSame(failure, e);
+		}
+		return attempts.get();
+	}
+
+	/**
+	 * 接受连接后不响应,或发送响应头后每100毫秒发送一个字节的正文
+	 */
+	private static class StallingServer implements Runnable {
+		private final ServerSocket serverSocket;
+		private final boolean trickle;
+		private final List<Socket> sockets = new ArrayList<Socket>();
+
+		StallingServer(boolean trickle) throws IOException {
+			this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			this.trickle = trickle;
+			Thread thread = new Thread(this, "StallingServer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		String url() {
+			return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					final Socket socket = serverSocket.accept();
+					synchronized (sockets) {
+						sockets.add(socket);
+					}
+					if (trickle) {
+						Thread writer = new Thread(new Runnable() {
+							public void run() {
+								trickle(socket);
+							}
+						});
+						writer.setDaemon(true);
+						writer.start();
+					}
+				}
+			} catch (IOException e) {
+				// 已关闭
+			}
+		}
+
+		private static void trickle(Socket socket) {
+			try {
+				OutputStream out = socket.getOutputStream();
+				out.write("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 1000\r\n\r\n".getBytes("US-ASCII"));
+				for (int i = 0; i < 1000; i++) {
+					out.write('a');
+					out.flush();
+					Thread.sleep(100);
+				}
+			} catch (Exception e) {
+				// 客户端中止
+			}
+		}
+
+		void close() throws IOException {
+			serverSocket.close();
+			synchronized (sockets) {
+				for (Socket socket : sockets) {
+					socket.close();
+				}
+			}
+		}
+	}
+}
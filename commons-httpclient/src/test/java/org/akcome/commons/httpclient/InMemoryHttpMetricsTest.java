@@ -0,0 +1,149 @@
+package org.akcome.commons.httpclient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import junit.framework.TestCase;
+
+import org.akcome.commons.metrics.LatencyHistogram;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+/**
+ * InMemoryHttpMetrics的计数与文本输出
+ * @author peng_wang
+ */
+public class InMemoryHttpMetricsTest extends TestCase {
+
+	public void testToText() {
+		InMemoryHttpMetrics metrics = new InMemoryHttpMetrics();
+		metrics.recordRequest("http://b:80", "GET", 10000L, 0, 7, false);
+		metrics.recordRequest("http://a:80", "POST", 5000L, 3, 2, true);
+		metrics.recordLeaseWait("http://a:80", 1000L);
+		String expected = "http_client_requests{host=\"http://a:80\",method=\"POST\"} 1\n"
+				+ "http_client_errors{host=\"http://a:80\",method=\"POST\"} 1\n"
+				+ "http_client_bytes_in{host=\"http://a:80\",method=\"POST\"} 2\n"
+				+ "http_client_bytes_out{host=\"http://a:80\",method=\"POST\"} 3\n"
+				+ latency("http_client_latency_us", "{host=\"http://a:80\",method=\"POST\"", 5)
+				+ "http_client_requests{host=\"http://b:80\",method=\"GET\"} 1\n"
+				+ "http_client_errors{host=\"http://b:80\",method=\"GET\"} 0\n"
+				+ "http_client_bytes_in{host=\"http://b:80\",method=\"GET\"} 7\n"
+				+ "http_client_bytes_out{host=\"http://b:80\",method=\"GET\"} 0\n"
+				+ latency("http_client_latency_us", "{host=\"http://b:80\",method=\"GET\"", 10)
+				+ latency("http_client_lease_wait_us", "{host=\"http://a:80\"", 1);
+		assertEquals(expected, metrics.toText());
+
+		metrics.reset();
+		assertEquals("", metrics.toText());
+		assertTrue(metrics.snapshot().isEmpty());
+	}
+
+	/**
+	 * 经由HttpClientEngine发送一次GET和一次压缩的POST,按主机、方法分别计数
+	 */
+	public void testRecordedByEngine() throws Exception {
+		final String form = repeat("a=1&", 256);
+		final String[] received = new String[2];
+		LocalHttpServer server = new LocalHttpServer(new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				if ("POST".equals(exchange.getRequestMethod())) {
+					InputStream in = exchange.getRequestBody();
+					received[1] = exchange.getRequestHeaders().getFirst("Content-Encoding");
+					if ("gzip".equals(received[1])) {
+						in = new GZIPInputStream(in);
+					}
+					ByteArrayOutputStream body = new ByteArrayOutputStream();
+					byte[] buffer = new byte[1024];
+					for (int n; (n = in.read(buffer)) >= 0;) {
+						body.write(buffer, 0, n);
+					}
+					received[0] = body.toString("UTF-8");
+					byte[] response = "posted".getBytes("UTF-8");
+					exchange.sendResponseHeaders(200, response.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(response);
+					out.close();
+				} else {
+					LocalHttpServer.respond(exchange, "hello");
+				}
+			}
+		});
+		InMemoryHttpMetrics metrics = new InMemoryHttpMetrics();
+		HttpClientConfig config = new HttpClientConfig();
+		config.setMetrics(metrics);
+		config.setRequestCompressionThreshold(512);
+		HttpClientEngine engine = new HttpClientEngine(config);
+		try {
+			assertEquals("hello", engine.get(server.url("127.0.0.1", "/"), null));
+			assertEquals("posted", engine.post(server.url("127.0.0.1", "/"), form, false, null, null));
+			assertEquals(form, received[0]);
+			assertEquals("gzip", received[1]);
+		} finally {
+			engine.shutdown();
+			server.close();
+		}
+
+		String host = HttpBatchRequest.get(server.url("127.0.0.1", "/"), null).getHostKey();
+		List<HttpMetricsSnapshot> snapshots = metrics.snapshot();
+		assertEquals(2, snapshots.size());
+		HttpMetricsSnapshot get = snapshots.get(0);
+		assertEquals(host, get.getHost());
+		assertEquals("GET", get.getMethod());
+		assertEquals(1, get.getRequestCount());
+		assertEquals(0, get.getErrorCount());
+		assertEquals(5, get.getBytesIn());
+		assertEquals(0, get.getBytesOut());
+		assertEquals(1, get.getLatency().getCount());
+		HttpMetricsSnapshot post = snapshots.get(1);
+		assertEquals(host, post.getHost());
+		assertEquals("POST", post.getMethod());
+		assertEquals(1, post.getRequestCount());
+		assertEquals(0, post.getErrorCount());
+		assertEquals(6, post.getBytesIn());
+		// 压缩发送,记录压缩前的字节数
+		assertEquals(form.length(), post.getBytesOut());
+		assertEquals(1, post.getLatency().getCount());
+
+		Map<String, LatencyHistogram.Snapshot> leaseWaits = metrics.leaseWaitSnapshot();
+		assertEquals(1, leaseWaits.size());
+		assertEquals(2, leaseWaits.get(host).getCount());
+
+		String text = metrics.toText();
+		String getLabels = "{host=\"" + host + "\",method=\"GET\"}";
+		String postLabels = "{host=\"" + host + "\",method=\"POST\"}";
+		assertTrue(text, text.contains("http_client_requests" + getLabels + " 1\n"));
+		assertTrue(text, text.contains("http_client_errors" + getLabels + " 0\n"));
+		assertTrue(text, text.contains("http_client_bytes_in" + getLabels + " 5\n"));
+		assertTrue(text, text.contains("http_client_bytes_out" + getLabels + " 0\n"));
+		assertTrue(text, text.contains("http_client_latency_us_count" + getLabels + " 1\n"));
+		assertTrue(text, text.contains("http_client_requests" + postLabels + " 1\n"));
+		assertTrue(text, text.contains("http_client_errors" + postLabels + " 0\n"));
+		assertTrue(text, text.contains("http_client_bytes_in" + postLabels + " 6\n"));
+		assertTrue(text, text.contains("http_client_bytes_out" + postLabels + " " + form.length() + "\n"));
+		assertTrue(text, text.contains("http_client_latency_us_count" + postLabels + " 1\n"));
+		assertTrue(text, text.contains("http_client_lease_wait_us_count{host=\"" + host + "\"} 2\n"));
+	}
+
+	private static String latency(String name, String labels, long micros) {
+		return name + labels + ",quantile=\"0.5\"} " + micros + "\n"
+				+ name + labels + ",quantile=\"0.9\"} " + micros + "\n"
+				+ name + labels + ",quantile=\"0.99\"} " + micros + "\n"
+				+ name + labels + ",quantile=\"0.999\"} " + micros + "\n"
+				+ name + "_max" + labels + "} " + micros + "\n"
+				+ name + "_count" + labels + "} 1\n";
+	}
+
+	private static String repeat(String s, int times) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < times; i++) {
+			sb.append(s);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,55 @@
+package org.akcome.commons.httpclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 测试用的本地HTTP服务,只监听回环地址
+ * @author peng_wang
+ */
+final class LocalHttpServer {
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	LocalHttpServer(HttpHandler handler) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+		server.createContext("/", handler);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * @param host 127.0.0.1或localhost,两者在连接池与批量发送中是不同的主机
+	 */
+	String url(String host, String path) {
+		return "http://" + host + ":" + server.getAddress().getPort() + path;
+	}
+
+	void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * 读完请求正文后以200返回文本
+	 */
+	static void respond(HttpExchange exchange, String text) throws IOException {
+		byte[] request = new byte[8192];
+		while (exchange.getRequestBody().read(request) >= 0) {
+			// 丢弃请求正文
+		}
+		byte[] body = text.getBytes("UTF-8");
+		exchange.sendResponseHeaders(200, body.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(body);
+		out.close();
+	}
+}
@@ -0,0 +1,158 @@
+package org.akcome.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 以微秒为单位的延迟直方图
+ * @see 采用HDR直方图的对数-线性分桶:每个2的幂区间再等分为16个子桶,相对误差不超过1/16,
+ *      覆盖0微秒到约12天,占用固定的数百个计数器,记录操作无锁且不分配对象
+ * @author peng_wang
+ */
+public class LatencyHistogram {
+	/** 每个2的幂区间的子桶数为2^SUB_BUCKET_BITS */
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** 小于该值的微秒数各占一个桶 */
+	private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+	/** 可记录的最大微秒数的最高位 */
+	private static final int MAX_MSB = 40;
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_MSB - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * 记录一个以纳秒为单位的延迟
+	 */
+	public void recordNanos(long nanos) {
+		recordMicros(nanos / 1000L);
+	}
+
+	/**
+	 * 记录一个以微秒为单位的延迟,负数按0记录
+	 */
+	public void recordMicros(long micros) {
+		if (micros < 0) {
+			micros = 0;
+		}
+		counts.incrementAndGet(bucketIndex(micros));
+		totalCount.increment();
+		totalMicros.add(micros);
+		long max = maxMicros.get();
+		while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+			max = maxMicros.get();
+		}
+	}
+
+	static int bucketIndex(long micros) {
+		if (micros < LINEAR_LIMIT) {
+			return (int) micros;
+		}
+		int msb = 63 - Long.numberOfLeadingZeros(micros);
+		if (msb > MAX_MSB) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = msb - SUB_BUCKET_BITS;
+		int sub = (int) (micros >>> shift) - SUB_BUCKETS;
+		return LINEAR_LIMIT + (msb - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * 桶的上界(含)微秒数
+	 */
+	static long bucketUpperBound(int index) {
+		if (index < LINEAR_LIMIT) {
+			return index;
+		}
+		int offset = index - LINEAR_LIMIT;
+		int msb = offset / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		int sub = offset % SUB_BUCKETS + SUB_BUCKETS;
+		int shift = msb - SUB_BUCKET_BITS;
+		return ((long) (sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * 获取当前数据的快照
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new Snapshot(copy, count, totalMicros.sum(), maxMicros.get());
+	}
+
+	/**
+	 * 清空已记录的数据
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+		totalCount.reset();
+		totalMicros.reset();
+		maxMicros.set(0);
+	}
+
+	public long getCount() {
+		return totalCount.sum();
+	}
+
+	/**
+	 * 直方图快照,数值单位均为微秒
+	 */
+	public static class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * 获取百分位数
+		 * @param percentile 百分位,如99.9
+		 * @return 该百分位所在桶的上界微秒数,无数据时返回0
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(percentile / 100.0 * count);
+			if (rank < 1) {
+				rank = 1;
+			}
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(bucketUpperBound(i), max);
+				}
+			}
+			return max;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getMax() {
+			return max;
+		}
+
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package org.akcome.commons.metrics;
+
+import junit.framework.TestCase;
+
+/**
+ * LatencyHistogram的分桶与百分位数
+ * @author peng_wang
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	public void testBucketBoundsCoverEveryValue() {
+		for (long micros = 0; micros < 1000000; micros += 7) {
+			int index = LatencyHistogram.bucketIndex(micros);
+			assertTrue(micros <= LatencyHistogram.bucketUpperBound(index));
+			if (index > 0) {
+				assertTrue(micros > LatencyHistogram.bucketUpperBound(index - 1));
+			}
+		}
+	}
+
+	public void testRelativeErrorWithinOneSixteenth() {
+		for (long micros = 32; micros < 100000000L; micros = micros * 3 / 2) {
+			long upper = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(micros));
+			assertTrue(micros + " -> " + upper, upper - micros <= micros / 16);
+		}
+	}
+
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.recordMicros(i);
+		}
+		histogram.recordNanos(-5);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(1001, snapshot.getCount());
+		assertEquals(1000, snapshot.getMax());
+		long p50 = snapshot.getValueAtPercentile(50);
+		assertTrue(String.valueOf(p50), p50 >= 500 && p50 <= 500 + 500 / 16);
+		assertEquals(1000, snapshot.getValueAtPercentile(100));
+		histogram.reset();
+		assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+	}
+}
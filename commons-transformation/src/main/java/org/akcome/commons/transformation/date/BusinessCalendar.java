@@ -0,0 +1,371 @@
+package org.akcome.commons.transformation.date;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 工作日日历,区分节假日与调休上班日
+ * @see 定义文件每行一条,格式为"yyyy-MM-dd[~yyyy-MM-dd] holiday|workday",#开头为注释,例如:
+ *      <pre>
+ *      2024-10-01~2024-10-07 holiday
+ *      2024-09-29 workday
+ *      </pre>
+ * @see 定义文件涉及的年份按整年展开为每年一段位图,未定义的日期周一至周五为工作日;其余年份只排除周六、周日
+ * @see 日期均为纪元日(距1970-01-01的天数),见EpochDayUtil;isBusinessDay、getBusinessDays为O(1),addBusinessDays为O(log n)
+ * @see 实例不可变,可在线程间共享
+ * @author peng_wang
+ */
+public final class BusinessCalendar {
+	/** 每年位图占用的long数,384位,足以容纳366天 */
+	private static final int WORDS_PER_YEAR = 6;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** 只排除周六、周日的日历 */
+	private static final BusinessCalendar WEEKDAYS = new BusinessCalendar(1970, new long[0], new int[1], new int[] { 0, 0 });
+
+	/** 按文件路径缓存的日历 */
+	private static final ConcurrentMap<String, BusinessCalendar> CALENDARS = new ConcurrentHashMap<String, BusinessCalendar>();
+
+	/** 位图的第一年 */
+	private final int fromYear;
+	/** 工作日位图,每年WORDS_PER_YEAR个long,第n位为该年第n天(从0开始) */
+	private final long[] bits;
+	/** 各long之前的工作日数,多出一项为位图中的工作日总数 */
+	private final int[] ranks;
+	/** 位图各年1月1日的纪元日,多出一项作为结束边界 */
+	private final int[] yearStarts;
+
+	private BusinessCalendar(int fromYear, long[] bits, int[] ranks, int[] yearStarts) {
+		this.fromYear = fromYear;
+		this.bits = bits;
+		this.ranks = ranks;
+		this.yearStarts = yearStarts;
+	}
+
+	/**
+	 * 只排除周六、周日的日历
+	 */
+	public static BusinessCalendar weekdays() {
+		return WEEKDAYS;
+	}
+
+	/**
+	 * 获取定义文件对应的日历,同一路径只加载一次
+	 *
+	 * @param path
+	 *            定义文件路径
+	 * @return 日历
+	 * @throws IOException
+	 *             读取文件失败
+	 * @throws IllegalArgumentException
+	 *             定义格式错误
+	 */
+	public static BusinessCalendar getInstance(String path) throws IOException {
+		String key = new File(path).getCanonicalPath();
+		BusinessCalendar calendar = CALENDARS.get(key);
+		if (calendar == null) {
+			calendar = load(new File(key));
+			BusinessCalendar existing = CALENDARS.putIfAbsent(key, calendar);
+			if (existing != null) {
+				calendar = existing;
+			}
+		}
+		return calendar;
+	}
+
+	/**
+	 * 从定义文件加载日历
+	 *
+	 * @param file
+	 *            UTF-8编码的定义文件
+	 * @return 日历
+	 * @throws IOException
+	 *             读取文件失败
+	 * @throws IllegalArgumentException
+	 *             定义格式错误
+	 */
+	public static BusinessCalendar load(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return load(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * 从输入流加载日历,不关闭输入流
+	 *
+	 * @param in
+	 *            UTF-8编码的定义
+	 * @return 日历
+	 * @throws IOException
+	 *             读取失败
+	 * @throws IllegalArgumentException
+	 *             定义格式错误
+	 */
+	public static BusinessCalendar load(InputStream in) throws IOException {
+		return load(new InputStreamReader(in, UTF_8));
+	}
+
+	/**
+	 * 从字符流加载日历,不关闭字符流
+	 *
+	 * @param reader
+	 *            定义
+	 * @return 日历
+	 * @throws IOException
+	 *             读取失败
+	 * @throws IllegalArgumentException
+	 *             定义格式错误
+	 */
+	public static BusinessCalendar load(Reader reader) throws IOException {
+		BufferedReader lines = new BufferedReader(reader);
+		// 先收集定义再按涉及的年份分配位图,每条定义为{起始纪元日,结束纪元日,是否工作日}
+		int[] definitions = new int[48];
+		int count = 0;
+		int minYear = Integer.MAX_VALUE;
+		int maxYear = Integer.MIN_VALUE;
+		String line;
+		int lineNumber = 0;
+		while ((line = lines.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.length() == 0 || line.charAt(0) == '#') {
+				continue;
+			}
+			int[] definition = parseLine(line, lineNumber);
+			if (count + 3 > definitions.length) {
+				definitions = Arrays.copyOf(definitions, definitions.length * 2);
+			}
+			System.arraycopy(definition, 0, definitions, count, 3);
+			count += 3;
+			minYear = Math.min(minYear, EpochDayUtil.getYear(definition[0]));
+			maxYear = Math.max(maxYear, EpochDayUtil.getYear(definition[1]));
+		}
+		if (count == 0) {
+			return WEEKDAYS;
+		}
+		int years = maxYear - minYear + 1;
+		int[] yearStarts = new int[years + 1];
+		long[] bits = new long[years * WORDS_PER_YEAR];
+		for (int i = 0; i <= years; i++) {
+			yearStarts[i] = EpochDayUtil.toEpochDay(minYear + i, 1, 1);
+		}
+		for (int i = 0; i < years; i++) {
+			for (int day = yearStarts[i]; day < yearStarts[i + 1]; day++) {
+				if (EpochDayUtil.getWeek(day).getNumber() <= 5) {
+					setBit(bits, i, day - yearStarts[i], true);
+				}
+			}
+		}
+		// 同一日期重复定义时必须一致
+		long[] defined = new long[bits.length];
+		for (int i = 0; i < count; i += 3) {
+			for (int day = definitions[i]; day <= definitions[i + 1]; day++) {
+				int yearIndex = EpochDayUtil.getYear(day) - minYear;
+				int dayOfYear = day - yearStarts[yearIndex];
+				boolean business = definitions[i + 2] != 0;
+				int index = yearIndex * WORDS_PER_YEAR + (dayOfYear >>> 6);
+				long mask = 1L << dayOfYear;
+				if ((defined[index] & mask) != 0 && ((bits[index] & mask) != 0) != business) {
+					throw new IllegalArgumentException("工作日定义冲突:" + formatDay(day));
+				}
+				defined[index] |= mask;
+				setBit(bits, yearIndex, dayOfYear, business);
+			}
+		}
+		int[] ranks = new int[bits.length + 1];
+		for (int i = 0; i < bits.length; i++) {
+			ranks[i + 1] = ranks[i] + Long.bitCount(bits[i]);
+		}
+		return new BusinessCalendar(minYear, bits, ranks, yearStarts);
+	}
+
+	/**
+	 * 是否为工作日
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 */
+	public boolean isBusinessDay(int epochDay) {
+		if (epochDay < yearStarts[0] || epochDay >= yearStarts[yearStarts.length - 1]) {
+			return EpochDayUtil.getWeek(epochDay).getNumber() <= 5;
+		}
+		int yearIndex = EpochDayUtil.getYear(epochDay) - fromYear;
+		int dayOfYear = epochDay - yearStarts[yearIndex];
+		return (bits[yearIndex * WORDS_PER_YEAR + (dayOfYear >>> 6)] & (1L << dayOfYear)) != 0;
+	}
+
+	/**
+	 * 获取[from,to)之间的工作日数
+	 *
+	 * @param from
+	 *            起始纪元日(含)
+	 * @param to
+	 *            结束纪元日(不含)
+	 * @return 工作日数,to早于from时为负数
+	 */
+	public int getBusinessDays(int from, int to) {
+		return (int) (rank(to) - rank(from));
+	}
+
+	/**
+	 * 增加工作日
+	 * @see dayAmount为正数时返回之后的第dayAmount个工作日,为负数时返回之前的第-dayAmount个工作日,为0时返回原日期
+	 *
+	 * @param epochDay
+	 *            纪元日,可以不是工作日
+	 * @param dayAmount
+	 *            增加数量。可为负数
+	 * @return 纪元日
+	 */
+	public int addBusinessDays(int epochDay, int dayAmount) {
+		if (dayAmount == 0) {
+			return epochDay;
+		}
+		if (dayAmount > 0) {
+			return select(rank(epochDay + 1) + dayAmount - 1);
+		}
+		return select(rank(epochDay) + dayAmount);
+	}
+
+	/**
+	 * 获取不早于该日的第一个工作日
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 纪元日
+	 */
+	public int nextOrSameBusinessDay(int epochDay) {
+		return select(rank(epochDay));
+	}
+
+	/**
+	 * 早于该日的工作日数,以周一至周五的计数为基准在位图范围内外连续计数
+	 */
+	private long rank(int epochDay) {
+		int start = yearStarts[0];
+		if (epochDay <= start) {
+			return weekdayRank(epochDay);
+		}
+		int end = yearStarts[yearStarts.length - 1];
+		if (epochDay >= end) {
+			return weekdayRank(start) + ranks[bits.length] + weekdayRank(epochDay) - weekdayRank(end);
+		}
+		int yearIndex = EpochDayUtil.getYear(epochDay) - fromYear;
+		int dayOfYear = epochDay - yearStarts[yearIndex];
+		int index = yearIndex * WORDS_PER_YEAR + (dayOfYear >>> 6);
+		long below = bits[index] & ((1L << dayOfYear) - 1);
+		return weekdayRank(start) + ranks[index] + Long.bitCount(below);
+	}
+
+	/**
+	 * rank的逆运算:早于它的工作日数为rank的工作日
+	 */
+	private int select(long rank) {
+		long base = weekdayRank(yearStarts[0]);
+		if (rank < base) {
+			return weekdaySelect(rank);
+		}
+		long tableRank = rank - base;
+		if (tableRank >= ranks[bits.length]) {
+			return weekdaySelect(tableRank - ranks[bits.length] + weekdayRank(yearStarts[yearStarts.length - 1]));
+		}
+		// 最后一个ranks[index]<=tableRank的long即包含该工作日
+		int low = 0;
+		int high = bits.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (ranks[mid] <= tableRank) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		long word = bits[low];
+		for (long skip = tableRank - ranks[low]; skip > 0; skip--) {
+			word &= word - 1;
+		}
+		int yearIndex = low / WORDS_PER_YEAR;
+		return yearStarts[yearIndex] + (low % WORDS_PER_YEAR) * 64 + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * 早于该日的周一至周五天数,从1969-12-29(周一)起算
+	 */
+	private static long weekdayRank(int epochDay) {
+		long fromMonday = epochDay + 3L;
+		return Math.floorDiv(fromMonday, 7L) * 5 + Math.min(Math.floorMod(fromMonday, 7L), 5);
+	}
+
+	/**
+	 * weekdayRank的逆运算
+	 */
+	private static int weekdaySelect(long rank) {
+		return (int) (Math.floorDiv(rank, 5L) * 7 + Math.floorMod(rank, 5L) - 3);
+	}
+
+	private static void setBit(long[] bits, int yearIndex, int dayOfYear, boolean value) {
+		int index = yearIndex * WORDS_PER_YEAR + (dayOfYear >>> 6);
+		if (value) {
+			bits[index] |= 1L << dayOfYear;
+		} else {
+			bits[index] &= ~(1L << dayOfYear);
+		}
+	}
+
+	/**
+	 * 解析一行定义
+	 *
+	 * @return {起始纪元日,结束纪元日,是否工作日}
+	 */
+	private static int[] parseLine(String line, int lineNumber) {
+		int space = line.indexOf(' ');
+		if (space < 0) {
+			throw new IllegalArgumentException("第" + lineNumber + "行缺少holiday或workday:" + line);
+		}
+		String range = line.substring(0, space);
+		String kind = line.substring(space + 1).trim();
+		int business;
+		if ("holiday".equals(kind)) {
+			business = 0;
+		} else if ("workday".equals(kind)) {
+			business = 1;
+		} else {
+			throw new IllegalArgumentException("第" + lineNumber + "行类型应为holiday或workday:" + line);
+		}
+		int tilde = range.indexOf('~');
+		int from = parseDay(tilde < 0 ? range : range.substring(0, tilde), line, lineNumber);
+		int to = tilde < 0 ? from : parseDay(range.substring(tilde + 1), line, lineNumber);
+		if (to < from) {
+			throw new IllegalArgumentException("第" + lineNumber + "行结束日期早于起始日期:" + line);
+		}
+		return new int[] { from, to, business };
+	}
+
+	private static String formatDay(int epochDay) {
+		char[] buffer = new char[10];
+		long packed = DateLayout.pack(EpochDayUtil.getYear(epochDay), EpochDayUtil.getMonth(epochDay),
+				EpochDayUtil.getDay(epochDay), 0, 0, 0);
+		return new String(buffer, 0, DateLayout.of(DateStyle.YYYY_MM_DD).format(packed, buffer));
+	}
+
+	private static int parseDay(String date, String line, int lineNumber) {
+		long packed = DateLayout.of(DateStyle.YYYY_MM_DD).parse(date);
+		if (packed == DateLayout.INVALID) {
+			throw new IllegalArgumentException("第" + lineNumber + "行日期应为yyyy-MM-dd:" + line);
+		}
+		return (int) (DateLayout.toLocalEpochSecond(packed) / 86400);
+	}
+}
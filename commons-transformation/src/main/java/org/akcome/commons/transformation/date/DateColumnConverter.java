@@ -0,0 +1,134 @@
+package org.akcome.commons.transformation.date;
+
+import java.util.Date;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量转换日期列
+ * @see 符合格式的日期按字段直接重排到每个线程复用的字符缓冲区,不经过Date与SimpleDateFormat;
+ *      不符合严格格式的日期(如2015-1-5)、夏令时空档中的时间及1901至2099年以外的时间退回DateUtil的单值转换,结果与其一致
+ * @see 并行转换时按固定大小分段提交到ForkJoinPool公共线程池
+ * @author peng_wang
+ */
+final class DateColumnConverter {
+	/** 并行转换时每段的元素数,少于两段的输入不拆分 */
+	private static final int SEGMENT_SIZE = 4096;
+
+	/** 每个线程复用的输出缓冲区,长度足以容纳任一DateStyle */
+	private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
+		@Override
+		protected char[] initialValue() {
+			return new char[32];
+		}
+	};
+
+	private DateColumnConverter() {
+	}
+
+	/**
+	 * 将日期字符串数组从一种日期风格转换为另一种
+	 *
+	 * @param oldDateStyle
+	 *            旧日期风格,为null时逐个识别
+	 */
+	static String[] convert(final String[] dates, final DateStyle oldDateStyle, final DateStyle newDateStyle,
+			boolean parallel) {
+		final String[] result = new String[dates.length];
+		final DateLayout target = DateLayout.of(newDateStyle);
+		final ZoneOffsetTable zone = DateUtil.getDefaultZoneTable();
+		run(dates.length, new RangeConverter() {
+			public void convert(int from, int to) {
+				char[] buffer = BUFFER.get();
+				for (int i = from; i < to; i++) {
+					result[i] = convertOne(dates[i], oldDateStyle, newDateStyle, target, zone, buffer);
+				}
+			}
+		}, parallel);
+		return result;
+	}
+
+	/**
+	 * 将毫秒数数组格式化为日期字符串
+	 */
+	static String[] format(final long[] millis, final DateStyle dateStyle, boolean parallel) {
+		final String[] result = new String[millis.length];
+		final DateLayout target = DateLayout.of(dateStyle);
+		final ZoneOffsetTable zone = DateUtil.getDefaultZoneTable();
+		run(millis.length, new RangeConverter() {
+			public void convert(int from, int to) {
+				char[] buffer = BUFFER.get();
+				for (int i = from; i < to; i++) {
+					long packed = ZoneOffsetTable.isExact(Math.floorDiv(millis[i], 1000L))
+							? DateLayout.fromEpochMillis(millis[i], zone) : DateLayout.INVALID;
+					if (packed == DateLayout.INVALID) {
+						result[i] = DateUtil.DateToString(new Date(millis[i]), dateStyle);
+					} else {
+						result[i] = new String(buffer, 0, target.format(packed, buffer));
+					}
+				}
+			}
+		}, parallel);
+		return result;
+	}
+
+	private static String convertOne(String date, DateStyle oldDateStyle, DateStyle newDateStyle, DateLayout target,
+			ZoneOffsetTable zone, char[] buffer) {
+		if (date == null) {
+			return null;
+		}
+		DateStyle style = oldDateStyle != null ? oldDateStyle : DateUtil.getDateStyle(date);
+		if (style == null) {
+			return null;
+		}
+		DateLayout source = DateLayout.of(style);
+		long packed = source.parse(date);
+		if (packed == DateLayout.INVALID || !ZoneOffsetTable.isExact(DateLayout.toLocalEpochSecond(packed))
+				|| zone.isGap(DateLayout.toLocalEpochSecond(packed))) {
+			return DateUtil.StringToString(date, style, newDateStyle);
+		}
+		return new String(buffer, 0, target.format(packed, buffer));
+	}
+
+	private static void run(int length, RangeConverter converter, boolean parallel) {
+		if (parallel && length > SEGMENT_SIZE) {
+			ForkJoinPool.commonPool().invoke(new Segment(converter, 0, length));
+		} else {
+			converter.convert(0, length);
+		}
+	}
+
+	/**
+	 * 转换[from,to)区间的元素
+	 */
+	private interface RangeConverter {
+		void convert(int from, int to);
+	}
+
+	/**
+	 * 并行转换的一段,超过SEGMENT_SIZE时对半拆分
+	 */
+	private static class Segment extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final RangeConverter converter;
+		private final int from;
+		private final int to;
+
+		Segment(RangeConverter converter, int from, int to) {
+			this.converter = converter;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= SEGMENT_SIZE) {
+				converter.convert(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Segment(converter, from, middle), new Segment(converter, middle, to));
+		}
+	}
+}
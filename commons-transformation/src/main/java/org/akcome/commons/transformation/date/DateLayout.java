@@ -0,0 +1,302 @@
+package org.akcome.commons.transformation.date;
+
+import java.nio.charset.Charset;
+
+/**
+ * DateStyle编译后的布局,用于不经过Date、Calendar直接解析与格式化日期
+ * @see 每个DateStyle在类加载时编译为字段与分隔符的序列,解析时逐字符比较并累加数字,不创建任何对象
+ * @see 解析结果为打包的日期字段(年、月、日、时、分、秒压缩在一个long中),无效时为-1
+ * @see 严格匹配:各字段的位数必须与格式一致(yyyy为4位,其余为2位),输入不能有多余字符,
+ *      月、日、时、分、秒超出范围时失败,不像SimpleDateFormat那样顺延
+ * @see 格式中没有年份时为1970年,没有日期时为1970-01-01
+ * @author peng_wang
+ */
+final class DateLayout {
+	/** 无效的打包日期字段 */
+	static final long INVALID = -1;
+
+	private static final int LITERAL = 0;
+	private static final int YEAR = 1;
+	private static final int MONTH = 2;
+	private static final int DAY = 3;
+	private static final int HOUR = 4;
+	private static final int MINUTE = 5;
+	private static final int SECOND = 6;
+
+	/** 按字段类型的打包位移,下标为字段类型 */
+	private static final int[] SHIFTS = { 0, 26, 22, 17, 12, 6, 0 };
+	/** 按字段类型的打包掩码,下标为字段类型 */
+	private static final int[] MASKS = { 0, 0xFFFF, 0xF, 0x1F, 0x1F, 0x3F, 0x3F };
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** 下标为DateStyle.ordinal() */
+	private static final DateLayout[] LAYOUTS;
+
+	static {
+		DateStyle[] styles = DateStyle.values();
+		LAYOUTS = new DateLayout[styles.length];
+		for (DateStyle style : styles) {
+			LAYOUTS[style.ordinal()] = new DateLayout(style.getValue());
+		}
+	}
+
+	/** 各段的类型 */
+	private final int[] kinds;
+	/** 字段段的位数,分隔符段为0 */
+	private final int[] widths;
+	/** 分隔符段的字符 */
+	private final char[] literals;
+	/** 分隔符段的UTF-8编码 */
+	private final byte[][] literalBytes;
+	/** 按字符计算的总长度 */
+	private final int charLength;
+	/** 按UTF-8字节计算的总长度 */
+	private final int byteLength;
+
+	private DateLayout(String pattern) {
+		int segments = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			if (i == 0 || !isField(pattern.charAt(i)) || pattern.charAt(i) != pattern.charAt(i - 1)) {
+				segments++;
+			}
+		}
+		kinds = new int[segments];
+		widths = new int[segments];
+		literals = new char[segments];
+		literalBytes = new byte[segments][];
+		int segment = -1;
+		int bytes = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (isField(c)) {
+				if (i == 0 || c != pattern.charAt(i - 1)) {
+					segment++;
+					kinds[segment] = kindOf(c);
+				}
+				widths[segment]++;
+				bytes++;
+			} else {
+				segment++;
+				kinds[segment] = LITERAL;
+				literals[segment] = c;
+				literalBytes[segment] = String.valueOf(c).getBytes(UTF_8);
+				bytes += literalBytes[segment].length;
+			}
+		}
+		charLength = pattern.length();
+		byteLength = bytes;
+	}
+
+	static DateLayout of(DateStyle dateStyle) {
+		return LAYOUTS[dateStyle.ordinal()];
+	}
+
+	/**
+	 * 格式化后的字符数
+	 */
+	int length() {
+		return charLength;
+	}
+
+	/**
+	 * 解析字符序列为打包的日期字段
+	 *
+	 * @return 打包的日期字段,失败返回INVALID
+	 */
+	long parse(CharSequence date) {
+		if (date == null || date.length() != charLength) {
+			return INVALID;
+		}
+		long packed = pack(1970, 1, 1, 0, 0, 0);
+		int pos = 0;
+		for (int segment = 0; segment < kinds.length; segment++) {
+			int kind = kinds[segment];
+			if (kind == LITERAL) {
+				if (date.charAt(pos++) != literals[segment]) {
+					return INVALID;
+				}
+				continue;
+			}
+			int value = 0;
+			for (int end = pos + widths[segment]; pos < end; pos++) {
+				int digit = date.charAt(pos) - '0';
+				if (digit < 0 || digit > 9) {
+					return INVALID;
+				}
+				value = value * 10 + digit;
+			}
+			packed = (packed & ~((long) MASKS[kind] << SHIFTS[kind])) | ((long) value << SHIFTS[kind]);
+		}
+		return validate(packed);
+	}
+
+	/**
+	 * 解析UTF-8字节为打包的日期字段
+	 *
+	 * @return 打包的日期字段,失败返回INVALID
+	 */
+	long parse(byte[] bytes, int offset, int length) {
+		if (bytes == null || length != byteLength || offset < 0 || offset > bytes.length - length) {
+			return INVALID;
+		}
+		long packed = pack(1970, 1, 1, 0, 0, 0);
+		int pos = offset;
+		for (int segment = 0; segment < kinds.length; segment++) {
+			int kind = kinds[segment];
+			if (kind == LITERAL) {
+				byte[] literal = literalBytes[segment];
+				for (int i = 0; i < literal.length; i++) {
+					if (bytes[pos++] != literal[i]) {
+						return INVALID;
+					}
+				}
+				continue;
+			}
+			int value = 0;
+			for (int end = pos + widths[segment]; pos < end; pos++) {
+				int digit = bytes[pos] - '0';
+				if (digit < 0 || digit > 9) {
+					return INVALID;
+				}
+				value = value * 10 + digit;
+			}
+			packed = (packed & ~((long) MASKS[kind] << SHIFTS[kind])) | ((long) value << SHIFTS[kind]);
+		}
+		return validate(packed);
+	}
+
+	/**
+	 * 将打包的日期字段按本布局写入缓冲区
+	 *
+	 * @param buffer
+	 *            缓冲区,长度不小于<code>length()</code>
+	 * @return 写入的字符数
+	 */
+	int format(long packed, char[] buffer) {
+		int pos = 0;
+		for (int segment = 0; segment < kinds.length; segment++) {
+			int kind = kinds[segment];
+			if (kind == LITERAL) {
+				buffer[pos++] = literals[segment];
+				continue;
+			}
+			int value = field(packed, kind);
+			for (int i = pos + widths[segment] - 1; i >= pos; i--) {
+				buffer[i] = (char) ('0' + value % 10);
+				value /= 10;
+			}
+			pos += widths[segment];
+		}
+		return pos;
+	}
+
+	static long pack(int year, int month, int day, int hour, int minute, int second) {
+		return ((long) year << SHIFTS[YEAR]) | ((long) month << SHIFTS[MONTH]) | ((long) day << SHIFTS[DAY])
+				| ((long) hour << SHIFTS[HOUR]) | ((long) minute << SHIFTS[MINUTE]) | second;
+	}
+
+	/**
+	 * 按时区将打包的日期字段转换为毫秒数
+	 */
+	static long toEpochMillis(long packed, ZoneOffsetTable zone) {
+		long localSecond = toLocalEpochSecond(packed);
+		return (localSecond - zone.offsetSeconds(localSecond)) * 1000L;
+	}
+
+	/**
+	 * 打包的日期字段按UTC计算的秒数
+	 */
+	static long toLocalEpochSecond(long packed) {
+		return epochDay(field(packed, YEAR), field(packed, MONTH), field(packed, DAY)) * 86400L
+				+ field(packed, HOUR) * 3600 + field(packed, MINUTE) * 60 + field(packed, SECOND);
+	}
+
+	/**
+	 * 按时区将毫秒数转换为打包的日期字段
+	 * @see 年份须在0至9999之间,否则返回INVALID
+	 */
+	static long fromEpochMillis(long millis, ZoneOffsetTable zone) {
+		long epochSecond = Math.floorDiv(millis, 1000L);
+		long localSecond = epochSecond + zone.offsetSecondsAt(epochSecond);
+		long epochDay = Math.floorDiv(localSecond, 86400L);
+		int secondOfDay = (int) Math.floorMod(localSecond, 86400L);
+		// 以3月为一年的开始,闰日落在年末
+		long z = epochDay + 719468;
+		long era = (z >= 0 ? z : z - 146096) / 146097;
+		int dayOfEra = (int) (z - era * 146097);
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		int monthFromMarch = (5 * dayOfYear + 2) / 153;
+		int day = dayOfYear - (153 * monthFromMarch + 2) / 5 + 1;
+		int month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if (year < 0 || year > 9999) {
+			return INVALID;
+		}
+		return pack((int) year, month, day, secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+	}
+
+	/**
+	 * 公历日期距1970-01-01的天数
+	 */
+	static long epochDay(int year, int month, int day) {
+		// 以3月为一年的开始,闰日落在年末
+		int y = month <= 2 ? year - 1 : year;
+		int era = (y >= 0 ? y : y - 399) / 400;
+		int yearOfEra = y - era * 400;
+		int monthFromMarch = month > 2 ? month - 3 : month + 9;
+		int dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1;
+		int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097L + dayOfEra - 719468;
+	}
+
+	static int daysInMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	private static long validate(long packed) {
+		int month = field(packed, MONTH);
+		int day = field(packed, DAY);
+		if (month < 1 || month > 12 || day < 1 || day > daysInMonth(field(packed, YEAR), month)
+				|| field(packed, HOUR) > 23 || field(packed, MINUTE) > 59 || field(packed, SECOND) > 59) {
+			return INVALID;
+		}
+		return packed;
+	}
+
+	private static int field(long packed, int kind) {
+		return (int) (packed >>> SHIFTS[kind]) & MASKS[kind];
+	}
+
+	private static boolean isField(char c) {
+		return c == 'y' || c == 'M' || c == 'd' || c == 'H' || c == 'm' || c == 's';
+	}
+
+	private static int kindOf(char c) {
+		switch (c) {
+		case 'y':
+			return YEAR;
+		case 'M':
+			return MONTH;
+		case 'd':
+			return DAY;
+		case 'H':
+			return HOUR;
+		case 'm':
+			return MINUTE;
+		default:
+			return SECOND;
+		}
+	}
+}
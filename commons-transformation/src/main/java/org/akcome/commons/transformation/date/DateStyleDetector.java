@@ -0,0 +1,168 @@
+package org.akcome.commons.transformation.date;
+
+/**
+ * 日期风格识别
+ * @see 从左到右扫描一遍日期字符串,按数字段、分隔符(-、/、:)及年/月/日标记确定日期风格,不进行解析,不抛出异常
+ * @see 两段数字的日期中首段超过两位时为年月(yyyy-MM),否则为月日(MM-dd);三段数字时为年月日
+ * @see 与SimpleDateFormat的解析规则一致,识别出的风格之后的多余字符被忽略,如"2015-11-25T10:30"识别为yyyy-MM-dd
+ * @author peng_wang
+ */
+final class DateStyleDetector {
+	private DateStyleDetector() {
+	}
+
+	/**
+	 * 识别日期字符串的日期风格
+	 *
+	 * @param date
+	 *            日期字符串
+	 * @return 日期风格,无法识别时返回null
+	 */
+	static DateStyle detect(String date) {
+		if (date == null) {
+			return null;
+		}
+		int length = date.length();
+		int start = skipSpaces(date, 0);
+		int firstEnd = skipDigits(date, start);
+		if (firstEnd == start || firstEnd == length) {
+			return null;
+		}
+		char separator = date.charAt(firstEnd);
+		switch (separator) {
+		case ':':
+			return pick(timeFields(date, firstEnd), null, DateStyle.HH_MM, DateStyle.HH_MM_SS);
+		case '-':
+		case '/':
+			return detectNumeric(date, start, firstEnd, separator);
+		case '年':
+			return detectChineseWithYear(date, firstEnd);
+		case '月':
+			return detectChineseMonthDay(date, firstEnd);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * 识别以-或/分隔的日期
+	 */
+	private static DateStyle detectNumeric(String date, int start, int firstEnd, char separator) {
+		boolean en = separator == '/';
+		int secondEnd = skipDigits(date, firstEnd + 1);
+		if (secondEnd == firstEnd + 1) {
+			return null;
+		}
+		if (secondEnd < date.length() && date.charAt(secondEnd) == separator) {
+			int thirdEnd = skipDigits(date, secondEnd + 1);
+			if (thirdEnd > secondEnd + 1) {
+				return en ? pick(trailingTimeFields(date, thirdEnd), DateStyle.YYYY_MM_DD_EN,
+						DateStyle.YYYY_MM_DD_HH_MM_EN, DateStyle.YYYY_MM_DD_HH_MM_SS_EN)
+						: pick(trailingTimeFields(date, thirdEnd), DateStyle.YYYY_MM_DD,
+								DateStyle.YYYY_MM_DD_HH_MM, DateStyle.YYYY_MM_DD_HH_MM_SS);
+			}
+		}
+		if (firstEnd - start > 2) {
+			return en ? DateStyle.YYYY_MM_EN : DateStyle.YYYY_MM;
+		}
+		return en ? pick(trailingTimeFields(date, secondEnd), DateStyle.MM_DD_EN, DateStyle.MM_DD_HH_MM_EN,
+				DateStyle.MM_DD_HH_MM_SS_EN)
+				: pick(trailingTimeFields(date, secondEnd), DateStyle.MM_DD, DateStyle.MM_DD_HH_MM,
+						DateStyle.MM_DD_HH_MM_SS);
+	}
+
+	/**
+	 * 识别yyyy年MM月[dd日]
+	 */
+	private static DateStyle detectChineseWithYear(String date, int yearEnd) {
+		int monthEnd = skipDigits(date, yearEnd + 1);
+		if (monthEnd == yearEnd + 1 || !charAt(date, monthEnd, '月')) {
+			return null;
+		}
+		int dayEnd = skipDigits(date, monthEnd + 1);
+		if (dayEnd == monthEnd + 1 || !charAt(date, dayEnd, '日')) {
+			return DateStyle.YYYY_MM_CN;
+		}
+		return pick(trailingTimeFields(date, dayEnd + 1), DateStyle.YYYY_MM_DD_CN, DateStyle.YYYY_MM_DD_HH_MM_CN,
+				DateStyle.YYYY_MM_DD_HH_MM_SS_CN);
+	}
+
+	/**
+	 * 识别MM月dd日
+	 */
+	private static DateStyle detectChineseMonthDay(String date, int monthEnd) {
+		int dayEnd = skipDigits(date, monthEnd + 1);
+		if (dayEnd == monthEnd + 1 || !charAt(date, dayEnd, '日')) {
+			return null;
+		}
+		return pick(trailingTimeFields(date, dayEnd + 1), DateStyle.MM_DD_CN, DateStyle.MM_DD_HH_MM_CN,
+				DateStyle.MM_DD_HH_MM_SS_CN);
+	}
+
+	/**
+	 * 日期之后以空格分隔的时间的字段数
+	 *
+	 * @param pos
+	 *            日期结束的位置
+	 * @return 2(HH:mm)、3(HH:mm:ss),没有时间时返回0
+	 */
+	private static int trailingTimeFields(String date, int pos) {
+		if (!charAt(date, pos, ' ')) {
+			return 0;
+		}
+		int start = skipSpaces(date, pos);
+		int hourEnd = skipDigits(date, start);
+		if (hourEnd == start) {
+			return 0;
+		}
+		return timeFields(date, hourEnd);
+	}
+
+	/**
+	 * 从小时之后的冒号开始识别时间的字段数
+	 *
+	 * @return 2(HH:mm)、3(HH:mm:ss),不是时间时返回0
+	 */
+	private static int timeFields(String date, int colon) {
+		if (!charAt(date, colon, ':')) {
+			return 0;
+		}
+		int minuteEnd = skipDigits(date, colon + 1);
+		if (minuteEnd == colon + 1) {
+			return 0;
+		}
+		if (charAt(date, minuteEnd, ':') && skipDigits(date, minuteEnd + 1) > minuteEnd + 1) {
+			return 3;
+		}
+		return 2;
+	}
+
+	private static DateStyle pick(int timeFields, DateStyle dateOnly, DateStyle withMinute, DateStyle withSecond) {
+		switch (timeFields) {
+		case 2:
+			return withMinute;
+		case 3:
+			return withSecond;
+		default:
+			return dateOnly;
+		}
+	}
+
+	private static boolean charAt(String s, int pos, char c) {
+		return pos < s.length() && s.charAt(pos) == c;
+	}
+
+	private static int skipDigits(String s, int pos) {
+		while (pos < s.length() && s.charAt(pos) >= '0' && s.charAt(pos) <= '9') {
+			pos++;
+		}
+		return pos;
+	}
+
+	private static int skipSpaces(String s, int pos) {
+		while (pos < s.length() && s.charAt(pos) == ' ') {
+			pos++;
+		}
+		return pos;
+	}
+}
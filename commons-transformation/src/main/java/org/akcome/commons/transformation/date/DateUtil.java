@@ -1,12 +1,15 @@
 package org.akcome.commons.transformation.date;
 
+import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 /** 
  *  
  * Date工具类. <br> 
@@ -15,8 +18,48 @@ import java.util.Map;
  * @date 2015年11月23日 
  */  
 public class DateUtil {
+	/** StringToMillis、BytesToMillis解析失败时的返回值 */
+	public static final long INVALID_MILLIS = Long.MIN_VALUE;
+
+	/** 每个线程缓存的自定义格式数上限,超过后清空重建 */
+	private static final int MAX_CACHED_PATTERNS = 64;
+
+	/**
+	 * 按格式缓存的SimpleDateFormat
+	 * @see SimpleDateFormat非线程安全,每个线程持有各自的实例;每次获取时重设为当前的默认时区,与每次新建实例的结果一致
+	 */
+	private static final ThreadLocal<Map<String, SimpleDateFormat>> PATTERN_FORMATS = new ThreadLocal<Map<String, SimpleDateFormat>>() {
+		@Override
+		protected Map<String, SimpleDateFormat> initialValue() {
+			return new HashMap<String, SimpleDateFormat>();
+		}
+	};
+
+	/** 按DateStyle缓存的SimpleDateFormat,下标为DateStyle.ordinal() */
+	private static final ThreadLocal<SimpleDateFormat[]> STYLE_FORMATS = new ThreadLocal<SimpleDateFormat[]>() {
+		@Override
+		protected SimpleDateFormat[] initialValue() {
+			return new SimpleDateFormat[DateStyle.values().length];
+		}
+	};
+
+	/** 首次按默认时区解析毫秒数时创建的偏移量表 */
+	private static volatile ZoneOffsetTable defaultZoneTable;
+
+	/** 下标为Calendar.DAY_OF_WEEK加5对7取模 */
+	private static final Week[] WEEKS = Week.values();
+
+	/** 用于取值与加减运算的Calendar,每个线程复用同一实例,每次获取时重设为当前的默认时区 */
+	private static final ThreadLocal<Calendar> CALENDAR = new ThreadLocal<Calendar>() {
+		@Override
+		protected Calendar initialValue() {
+			return Calendar.getInstance();
+		}
+	};
+
 	/**
 	 * 获取SimpleDateFormat
+	 * @see 返回当前线程缓存的实例,调用方不得修改其设置或跨线程使用
 	 * 
 	 * @param parttern
 	 *            日期格式
@@ -24,9 +67,56 @@ public class DateUtil {
 	 * @throws RuntimeException
 	 *             异常：非法日期格式
 	 */
-	private static SimpleDateFormat getDateFormat(String parttern)
+	static SimpleDateFormat getDateFormat(String parttern)
 			throws RuntimeException {
-		return new SimpleDateFormat(parttern);
+		Map<String, SimpleDateFormat> formats = PATTERN_FORMATS.get();
+		SimpleDateFormat format = formats.get(parttern);
+		if (format == null) {
+			format = new SimpleDateFormat(parttern);
+			if (formats.size() >= MAX_CACHED_PATTERNS) {
+				formats.clear();
+			}
+			formats.put(parttern, format);
+		} else {
+			format.setTimeZone(TimeZone.getDefault());
+		}
+		return format;
+	}
+
+	/**
+	 * 获取日期风格对应的SimpleDateFormat
+	 * @see 返回当前线程缓存的实例,调用方不得修改其设置或跨线程使用
+	 */
+	static SimpleDateFormat getDateFormat(DateStyle dateStyle) {
+		SimpleDateFormat[] formats = STYLE_FORMATS.get();
+		SimpleDateFormat format = formats[dateStyle.ordinal()];
+		if (format == null) {
+			format = new SimpleDateFormat(dateStyle.getValue());
+			formats[dateStyle.ordinal()] = format;
+		} else {
+			format.setTimeZone(TimeZone.getDefault());
+		}
+		return format;
+	}
+
+	/**
+	 * 获取当前线程复用的Calendar
+	 * @see 调用方须先以<code>setTime</code>设置时间
+	 */
+	private static Calendar getCalendar() {
+		Calendar calendar = CALENDAR.get();
+		calendar.setTimeZone(TimeZone.getDefault());
+		return calendar;
+	}
+
+	/**
+	 * 按格式解析日期字符串,失败返回null
+	 * @see 与<code>SimpleDateFormat.parse(String)</code>的规则相同,但解析失败时不创建异常对象
+	 */
+	private static Date parse(SimpleDateFormat format, String date) {
+		ParsePosition position = new ParsePosition(0);
+		Date myDate = format.parse(date, position);
+		return position.getIndex() == 0 ? null : myDate;
 	}
 
 	/**
@@ -39,7 +129,7 @@ public class DateUtil {
 	 * @return 数值
 	 */
 	private static int getInteger(Date date, int dateType) {
-		Calendar calendar = Calendar.getInstance();
+		Calendar calendar = getCalendar();
 		calendar.setTime(date);
 		return calendar.get(dateType);
 	}
@@ -80,7 +170,7 @@ public class DateUtil {
 	private static Date addInteger(Date date, int dateType, int amount) {
 		Date myDate = null;
 		if (date != null) {
-			Calendar calendar = Calendar.getInstance();
+			Calendar calendar = getCalendar();
 			calendar.setTime(date);
 			calendar.add(dateType, amount);
 			myDate = calendar.getTime();
@@ -88,82 +178,6 @@ public class DateUtil {
 		return myDate;
 	}
 
-	/**
-	 * 获取精确的日期
-	 * 
-	 * @param timestamps
-	 *            时间long集合
-	 * @return 日期
-	 */
-	private static Date getAccurateDate(List<Long> timestamps) {
-		Date date = null;
-		long timestamp = 0;
-		Map<Long, long[]> map = new HashMap<Long, long[]>();
-		List<Long> absoluteValues = new ArrayList<Long>();
-
-		if (timestamps != null && timestamps.size() > 0) {
-			if (timestamps.size() > 1) {
-				for (int i = 0; i < timestamps.size(); i++) {
-					for (int j = i + 1; j < timestamps.size(); j++) {
-						long absoluteValue = Math.abs(timestamps.get(i)
-								- timestamps.get(j));
-						absoluteValues.add(absoluteValue);
-						long[] timestampTmp = { timestamps.get(i),
-								timestamps.get(j) };
-						map.put(absoluteValue, timestampTmp);
-					}
-				}
-
-				// 有可能有相等的情况。如2012-11和2012-11-01。时间戳是相等的
-				long minAbsoluteValue = -1;
-				if (!absoluteValues.isEmpty()) {
-					// 如果timestamps的size为2，这是差值只有一个，因此要给默认值
-					minAbsoluteValue = absoluteValues.get(0);
-				}
-				for (int i = 0; i < absoluteValues.size(); i++) {
-					for (int j = i + 1; j < absoluteValues.size(); j++) {
-						if (absoluteValues.get(i) > absoluteValues.get(j)) {
-							minAbsoluteValue = absoluteValues.get(j);
-						} else {
-							minAbsoluteValue = absoluteValues.get(i);
-						}
-					}
-				}
-
-				if (minAbsoluteValue != -1) {
-					long[] timestampsLastTmp = map.get(minAbsoluteValue);
-					if (absoluteValues.size() > 1) {
-						timestamp = Math.max(timestampsLastTmp[0],
-								timestampsLastTmp[1]);
-					} else if (absoluteValues.size() == 1) {
-						// 当timestamps的size为2，需要与当前时间作为参照
-						long dateOne = timestampsLastTmp[0];
-						long dateTwo = timestampsLastTmp[1];
-						if ((Math.abs(dateOne - dateTwo)) < 100000000000L) {
-							timestamp = Math.max(timestampsLastTmp[0],
-									timestampsLastTmp[1]);
-						} else {
-							long now = new Date().getTime();
-							if (Math.abs(dateOne - now) <= Math.abs(dateTwo
-									- now)) {
-								timestamp = dateOne;
-							} else {
-								timestamp = dateTwo;
-							}
-						}
-					}
-				}
-			} else {
-				timestamp = timestamps.get(0);
-			}
-		}
-
-		if (timestamp != 0) {
-			date = new Date(timestamp);
-		}
-		return date;
-	}
-
 	/**
 	 * 判断字符串是否为日期字符串
 	 * 
@@ -183,24 +197,14 @@ public class DateUtil {
 
 	/**
 	 * 获取日期字符串的日期风格。失敗返回null。
+	 * @see 按字符串的结构一次扫描识别,规则见<code>DateStyleDetector</code>
 	 * 
 	 * @param date
 	 *            日期字符串
 	 * @return 日期风格
 	 */
 	public static DateStyle getDateStyle(String date) {
-		DateStyle dateStyle = null;
-		Map<Long, DateStyle> map = new HashMap<Long, DateStyle>();
-		List<Long> timestamps = new ArrayList<Long>();
-		for (DateStyle style : DateStyle.values()) {
-			Date dateTmp = StringToDate(date, style.getValue());
-			if (dateTmp != null) {
-				timestamps.add(dateTmp.getTime());
-				map.put(dateTmp.getTime(), style);
-			}
-		}
-		dateStyle = map.get(getAccurateDate(timestamps).getTime());
-		return dateStyle;
+		return DateStyleDetector.detect(date);
 	}
 
 	/**
@@ -228,7 +232,7 @@ public class DateUtil {
 		Date myDate = null;
 		if (date != null) {
 			try {
-				myDate = getDateFormat(parttern).parse(date);
+				myDate = parse(getDateFormat(parttern), date);
 			} catch (Exception e) {
 			}
 		}
@@ -241,26 +245,102 @@ public class DateUtil {
 	 * @param date
 	 *            日期字符串
 	 * @param dateStyle
-	 *            日期风格
+	 *            日期风格,为null时先识别日期风格再按该风格解析一次
 	 * @return 日期
 	 */
 	public static Date StringToDate(String date, DateStyle dateStyle) {
 		Date myDate = null;
 		if (dateStyle == null) {
-			List<Long> timestamps = new ArrayList<Long>();
-			for (DateStyle style : DateStyle.values()) {
-				Date dateTmp = StringToDate(date, style.getValue());
-				if (dateTmp != null) {
-					timestamps.add(dateTmp.getTime());
-				}
-			}
-			myDate = getAccurateDate(timestamps);
-		} else {
-			myDate = StringToDate(date, dateStyle.getValue());
+			dateStyle = getDateStyle(date);
+		}
+		if (dateStyle != null && date != null) {
+			myDate = parse(getDateFormat(dateStyle), date);
 		}
 		return myDate;
 	}
 
+	/**
+	 * 按日期风格将日期字符串直接解析为毫秒数。失败返回INVALID_MILLIS。
+	 * @see 不创建Date、Calendar或String对象,适用于大批量解析固定格式的日期
+	 * @see 严格匹配格式:字段位数须与格式一致,不允许多余字符,超出范围的字段不顺延
+	 * @see 使用首次调用本类毫秒解析方法时的默认时区,之后修改默认时区不影响结果
+	 * @see 夏令时空档与重叠区间中的时间按SimpleDateFormat的规则解析,结果与StringToDate一致
+	 * 
+	 * @param date
+	 *            日期字符串
+	 * @param dateStyle
+	 *            日期风格
+	 * @return 毫秒数
+	 */
+	public static long StringToMillis(CharSequence date, DateStyle dateStyle) {
+		return toMillis(DateLayout.of(dateStyle).parse(date), getDefaultZoneTable());
+	}
+
+	/**
+	 * 按日期风格和时区将日期字符串直接解析为毫秒数。失败返回INVALID_MILLIS。
+	 * 
+	 * @param date
+	 *            日期字符串
+	 * @param dateStyle
+	 *            日期风格
+	 * @param zone
+	 *            时区
+	 * @return 毫秒数
+	 */
+	public static long StringToMillis(CharSequence date, DateStyle dateStyle, TimeZone zone) {
+		return toMillis(DateLayout.of(dateStyle).parse(date), ZoneOffsetTable.of(zone));
+	}
+
+	/**
+	 * 按日期风格将UTF-8编码的日期直接解析为毫秒数。失败返回INVALID_MILLIS。
+	 * @see 规则同<code>StringToMillis(CharSequence,DateStyle)</code>
+	 * 
+	 * @param bytes
+	 *            字节数组
+	 * @param offset
+	 *            日期的起始位置
+	 * @param length
+	 *            日期的字节数
+	 * @param dateStyle
+	 *            日期风格
+	 * @return 毫秒数
+	 */
+	public static long BytesToMillis(byte[] bytes, int offset, int length, DateStyle dateStyle) {
+		return toMillis(DateLayout.of(dateStyle).parse(bytes, offset, length), getDefaultZoneTable());
+	}
+
+	/**
+	 * 按日期风格和时区将UTF-8编码的日期直接解析为毫秒数。失败返回INVALID_MILLIS。
+	 * 
+	 * @param bytes
+	 *            字节数组
+	 * @param offset
+	 *            日期的起始位置
+	 * @param length
+	 *            日期的字节数
+	 * @param dateStyle
+	 *            日期风格
+	 * @param zone
+	 *            时区
+	 * @return 毫秒数
+	 */
+	public static long BytesToMillis(byte[] bytes, int offset, int length, DateStyle dateStyle, TimeZone zone) {
+		return toMillis(DateLayout.of(dateStyle).parse(bytes, offset, length), ZoneOffsetTable.of(zone));
+	}
+
+	private static long toMillis(long packed, ZoneOffsetTable zone) {
+		return packed == DateLayout.INVALID ? INVALID_MILLIS : DateLayout.toEpochMillis(packed, zone);
+	}
+
+	static ZoneOffsetTable getDefaultZoneTable() {
+		ZoneOffsetTable table = defaultZoneTable;
+		if (table == null) {
+			table = ZoneOffsetTable.of(TimeZone.getDefault());
+			defaultZoneTable = table;
+		}
+		return table;
+	}
+
 	/**
 	 * 将日期转化为日期字符串。失败返回null。
 	 * 
@@ -292,8 +372,8 @@ public class DateUtil {
 	 */
 	public static String DateToString(Date date, DateStyle dateStyle) {
 		String dateString = null;
-		if (dateStyle != null) {
-			dateString = DateToString(date, dateStyle.getValue());
+		if (dateStyle != null && date != null) {
+			dateString = getDateFormat(dateStyle).format(date);
 		}
 		return dateString;
 	}
@@ -367,8 +447,10 @@ public class DateUtil {
 		String dateString = null;
 		if (olddDteStyle == null) {
 			DateStyle style = getDateStyle(date);
-			dateString = StringToString(date, style.getValue(),
-					newDateStyle.getValue());
+			if (style != null) {
+				dateString = StringToString(date, style.getValue(),
+						newDateStyle.getValue());
+			}
 		} else {
 			dateString = StringToString(date, olddDteStyle.getValue(),
 					newDateStyle.getValue());
@@ -376,6 +458,104 @@ public class DateUtil {
 		return dateString;
 	}
 
+	/**
+	 * 批量将日期字符串转化为另一日期风格。失败的元素为null。
+	 * @see 每个元素的结果与<code>StringToString(String,DateStyle,DateStyle)</code>相同
+	 * @see 符合严格格式的日期按字段直接重排,不创建Date对象,每个线程复用同一输出缓冲区
+	 * 
+	 * @param dates
+	 *            旧日期字符串数组
+	 * @param olddDteStyle
+	 *            旧日期风格,为null时逐个识别
+	 * @param newDateStyle
+	 *            新日期风格
+	 * @return 新日期字符串数组
+	 */
+	public static String[] StringArrayToString(String[] dates, DateStyle olddDteStyle, DateStyle newDateStyle) {
+		return StringArrayToString(dates, olddDteStyle, newDateStyle, false);
+	}
+
+	/**
+	 * 批量将日期字符串转化为另一日期风格。失败的元素为null。
+	 * 
+	 * @param dates
+	 *            旧日期字符串数组
+	 * @param olddDteStyle
+	 *            旧日期风格,为null时逐个识别
+	 * @param newDateStyle
+	 *            新日期风格
+	 * @param parallel
+	 *            是否拆分到ForkJoinPool公共线程池并行转换
+	 * @return 新日期字符串数组
+	 */
+	public static String[] StringArrayToString(String[] dates, DateStyle olddDteStyle, DateStyle newDateStyle,
+			boolean parallel) {
+		return DateColumnConverter.convert(dates, olddDteStyle, newDateStyle, parallel);
+	}
+
+	/**
+	 * 批量将日期字符串转化为另一日期风格。失败的元素为null。
+	 * 
+	 * @param dates
+	 *            旧日期字符串列表
+	 * @param olddDteStyle
+	 *            旧日期风格,为null时逐个识别
+	 * @param newDateStyle
+	 *            新日期风格
+	 * @return 新日期字符串列表
+	 */
+	public static List<String> StringListToString(List<String> dates, DateStyle olddDteStyle, DateStyle newDateStyle) {
+		return StringListToString(dates, olddDteStyle, newDateStyle, false);
+	}
+
+	/**
+	 * 批量将日期字符串转化为另一日期风格。失败的元素为null。
+	 * 
+	 * @param dates
+	 *            旧日期字符串列表
+	 * @param olddDteStyle
+	 *            旧日期风格,为null时逐个识别
+	 * @param newDateStyle
+	 *            新日期风格
+	 * @param parallel
+	 *            是否拆分到ForkJoinPool公共线程池并行转换
+	 * @return 新日期字符串列表
+	 */
+	public static List<String> StringListToString(List<String> dates, DateStyle olddDteStyle, DateStyle newDateStyle,
+			boolean parallel) {
+		String[] result = DateColumnConverter.convert(dates.toArray(new String[dates.size()]), olddDteStyle,
+				newDateStyle, parallel);
+		return new ArrayList<String>(Arrays.asList(result));
+	}
+
+	/**
+	 * 批量将毫秒数转化为日期字符串
+	 * 
+	 * @param millis
+	 *            毫秒数数组
+	 * @param dateStyle
+	 *            日期风格
+	 * @return 日期字符串数组
+	 */
+	public static String[] MillisArrayToString(long[] millis, DateStyle dateStyle) {
+		return MillisArrayToString(millis, dateStyle, false);
+	}
+
+	/**
+	 * 批量将毫秒数转化为日期字符串
+	 * 
+	 * @param millis
+	 *            毫秒数数组
+	 * @param dateStyle
+	 *            日期风格
+	 * @param parallel
+	 *            是否拆分到ForkJoinPool公共线程池并行转换
+	 * @return 日期字符串数组
+	 */
+	public static String[] MillisArrayToString(long[] millis, DateStyle dateStyle, boolean parallel) {
+		return DateColumnConverter.format(millis, dateStyle, parallel);
+	}
+
 	/**
 	 * 增加日期的年份。失败返回null。
 	 * 
@@ -733,34 +913,14 @@ public class DateUtil {
 	 * @return 星期
 	 */
 	public static Week getWeek(Date date) {
-		Week week = null;
-		Calendar calendar = Calendar.getInstance();
-		calendar.setTime(date);
-		int weekNumber = calendar.get(Calendar.DAY_OF_WEEK) - 1;
-		switch (weekNumber) {
-		case 0:
-			week = Week.SUNDAY;
-			break;
-		case 1:
-			week = Week.MONDAY;
-			break;
-		case 2:
-			week = Week.TUESDAY;
-			break;
-		case 3:
-			week = Week.WEDNESDAY;
-			break;
-		case 4:
-			week = Week.THURSDAY;
-			break;
-		case 5:
-			week = Week.FRIDAY;
-			break;
-		case 6:
-			week = Week.SATURDAY;
-			break;
+		long millis = date.getTime();
+		if (ZoneOffsetTable.isExact(Math.floorDiv(millis, 1000L))) {
+			return EpochDayUtil.getWeek(EpochDayUtil.toEpochDay(millis, getDefaultZoneTable()));
 		}
-		return week;
+		// 1901年以前按Calendar计算,含儒略历日期与地方平时
+		Calendar calendar = getCalendar();
+		calendar.setTime(date);
+		return WEEKS[(calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7];
 	}
 
 	/**
@@ -0,0 +1,287 @@
+package org.akcome.commons.transformation.date;
+
+import java.util.TimeZone;
+
+/**
+ * 基于纪元日(距1970-01-01的天数)的日期运算工具类
+ * @see 纪元日为int,毫秒数为long,全部运算不创建Date、Calendar对象,适用于计费周期等热点路径
+ * @see 1900年至2100年间的年、月、日按预先计算的查找表取值,超出范围时按公历规则计算
+ * @see 月份为1至12,与Calendar.MONTH(0至11)不同
+ * @see 毫秒数与纪元日的转换使用时区偏移量表,1901年至2099年之外的夏令时规则可能与TimeZone不一致
+ * @author peng_wang
+ */
+public final class EpochDayUtil {
+	private static final int TABLE_FROM_YEAR = 1900;
+	private static final int TABLE_TO_YEAR = 2100;
+
+	/** 各年1月1日的纪元日,下标为年份减TABLE_FROM_YEAR,多出一项作为结束边界 */
+	private static final int[] YEAR_STARTS = new int[TABLE_TO_YEAR - TABLE_FROM_YEAR + 2];
+	/** 平年、闰年各月1日在一年中的序号(从0开始),下标为月份,多出一项作为结束边界 */
+	private static final int[][] MONTH_STARTS = new int[2][14];
+	/** 平年、闰年一年中第几天(从0开始)所在的月份 */
+	private static final byte[][] MONTH_OF_DAY = new byte[2][366];
+	/** 下标为(纪元日+3)对7取模,1970-01-01为星期四 */
+	private static final Week[] WEEKS = Week.values();
+
+	static {
+		for (int i = 0; i < YEAR_STARTS.length; i++) {
+			YEAR_STARTS[i] = (int) DateLayout.epochDay(TABLE_FROM_YEAR + i, 1, 1);
+		}
+		for (int leap = 0; leap < 2; leap++) {
+			int year = leap == 0 ? 2001 : 2000;
+			for (int month = 1; month <= 12; month++) {
+				int length = DateLayout.daysInMonth(year, month);
+				MONTH_STARTS[leap][month + 1] = MONTH_STARTS[leap][month] + length;
+				for (int day = MONTH_STARTS[leap][month]; day < MONTH_STARTS[leap][month + 1]; day++) {
+					MONTH_OF_DAY[leap][day] = (byte) month;
+				}
+			}
+		}
+	}
+
+	private EpochDayUtil() {
+	}
+
+	/**
+	 * 获取日期的纪元日
+	 *
+	 * @param year
+	 *            年
+	 * @param month
+	 *            月(1至12)
+	 * @param day
+	 *            日
+	 * @return 纪元日
+	 */
+	public static int toEpochDay(int year, int month, int day) {
+		if (year >= TABLE_FROM_YEAR && year <= TABLE_TO_YEAR && month >= 1 && month <= 12) {
+			return YEAR_STARTS[year - TABLE_FROM_YEAR] + MONTH_STARTS[isLeapYear(year) ? 1 : 0][month] + day - 1;
+		}
+		return (int) DateLayout.epochDay(year, month, day);
+	}
+
+	/**
+	 * 按默认时区获取毫秒数所在日的纪元日
+	 * @see 使用首次调用本类或DateUtil毫秒解析方法时的默认时区
+	 *
+	 * @param millis
+	 *            毫秒数
+	 * @return 纪元日
+	 */
+	public static int toEpochDay(long millis) {
+		return toEpochDay(millis, DateUtil.getDefaultZoneTable());
+	}
+
+	/**
+	 * 按时区获取毫秒数所在日的纪元日
+	 *
+	 * @param millis
+	 *            毫秒数
+	 * @param zone
+	 *            时区
+	 * @return 纪元日
+	 */
+	public static int toEpochDay(long millis, TimeZone zone) {
+		return toEpochDay(millis, ZoneOffsetTable.of(zone));
+	}
+
+	static int toEpochDay(long millis, ZoneOffsetTable zone) {
+		long epochSecond = Math.floorDiv(millis, 1000L);
+		return (int) Math.floorDiv(epochSecond + zone.offsetSecondsAt(epochSecond), 86400L);
+	}
+
+	/**
+	 * 按默认时区获取纪元日0时的毫秒数
+	 * @see 0时落在夏令时开始的空档中时按切换前的偏移量计算,即空档结束的时刻;落在重叠区间时取标准时间的0时
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 毫秒数
+	 */
+	public static long toMillis(int epochDay) {
+		return toMillis(epochDay, DateUtil.getDefaultZoneTable());
+	}
+
+	/**
+	 * 按时区获取纪元日0时的毫秒数
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @param zone
+	 *            时区
+	 * @return 毫秒数
+	 */
+	public static long toMillis(int epochDay, TimeZone zone) {
+		return toMillis(epochDay, ZoneOffsetTable.of(zone));
+	}
+
+	private static long toMillis(int epochDay, ZoneOffsetTable zone) {
+		long localSecond = epochDay * 86400L;
+		return (localSecond - zone.offsetSeconds(localSecond)) * 1000L;
+	}
+
+	/**
+	 * 获取纪元日的年份
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 年份
+	 */
+	public static int getYear(int epochDay) {
+		if (epochDay >= YEAR_STARTS[0] && epochDay < YEAR_STARTS[YEAR_STARTS.length - 1]) {
+			// 按平均年长估算,误差不超过一年
+			int index = (int) ((epochDay - YEAR_STARTS[0]) * 400L / 146097);
+			if (YEAR_STARTS[index + 1] <= epochDay) {
+				index++;
+			} else if (YEAR_STARTS[index] > epochDay) {
+				index--;
+			}
+			return TABLE_FROM_YEAR + index;
+		}
+		int year = (int) Math.floorDiv(epochDay * 400L, 146097L) + 1970;
+		while (DateLayout.epochDay(year, 1, 1) > epochDay) {
+			year--;
+		}
+		while (DateLayout.epochDay(year + 1, 1, 1) <= epochDay) {
+			year++;
+		}
+		return year;
+	}
+
+	/**
+	 * 获取纪元日的月份
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 月份(1至12)
+	 */
+	public static int getMonth(int epochDay) {
+		int year = getYear(epochDay);
+		int leap = isLeapYear(year) ? 1 : 0;
+		return MONTH_OF_DAY[leap][epochDay - yearStart(year)];
+	}
+
+	/**
+	 * 获取纪元日在月份中的日
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 日(1至31)
+	 */
+	public static int getDay(int epochDay) {
+		int year = getYear(epochDay);
+		int leap = isLeapYear(year) ? 1 : 0;
+		int dayOfYear = epochDay - yearStart(year);
+		return dayOfYear - MONTH_STARTS[leap][MONTH_OF_DAY[leap][dayOfYear]] + 1;
+	}
+
+	/**
+	 * 获取纪元日的星期
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @return 星期
+	 */
+	public static Week getWeek(int epochDay) {
+		return WEEKS[Math.floorMod(epochDay + 3, 7)];
+	}
+
+	/**
+	 * 增加天数
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @param dayAmount
+	 *            增加数量。可为负数
+	 * @return 纪元日
+	 */
+	public static int addDay(int epochDay, int dayAmount) {
+		return epochDay + dayAmount;
+	}
+
+	/**
+	 * 增加月份,日超过目标月份的天数时取该月最后一天,与Calendar.add一致
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @param monthAmount
+	 *            增加数量。可为负数
+	 * @return 纪元日
+	 */
+	public static int addMonth(int epochDay, int monthAmount) {
+		int year = getYear(epochDay);
+		int leap = isLeapYear(year) ? 1 : 0;
+		int dayOfYear = epochDay - yearStart(year);
+		int month = MONTH_OF_DAY[leap][dayOfYear];
+		int day = dayOfYear - MONTH_STARTS[leap][month] + 1;
+		long months = year * 12L + month - 1 + monthAmount;
+		int newYear = (int) Math.floorDiv(months, 12L);
+		int newMonth = (int) Math.floorMod(months, 12L) + 1;
+		return toEpochDay(newYear, newMonth, Math.min(day, DateLayout.daysInMonth(newYear, newMonth)));
+	}
+
+	/**
+	 * 增加年份,2月29日在非闰年取2月28日,与Calendar.add一致
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @param yearAmount
+	 *            增加数量。可为负数
+	 * @return 纪元日
+	 */
+	public static int addYear(int epochDay, int yearAmount) {
+		return addMonth(epochDay, yearAmount * 12);
+	}
+
+	/**
+	 * 获取两个纪元日相差的天数
+	 *
+	 * @param epochDay
+	 *            纪元日
+	 * @param otherEpochDay
+	 *            另一个纪元日
+	 * @return 相差天数,不为负数
+	 */
+	public static int getIntervalDays(int epochDay, int otherEpochDay) {
+		return Math.abs(epochDay - otherEpochDay);
+	}
+
+	/**
+	 * 获取纪元日所在月份第一天的纪元日
+	 */
+	public static int getFirstDayOfMonth(int epochDay) {
+		return epochDay - getDay(epochDay) + 1;
+	}
+
+	/**
+	 * 获取纪元日所在月份最后一天的纪元日
+	 */
+	public static int getLastDayOfMonth(int epochDay) {
+		int year = getYear(epochDay);
+		int leap = isLeapYear(year) ? 1 : 0;
+		int dayOfYear = epochDay - yearStart(year);
+		return epochDay - dayOfYear + MONTH_STARTS[leap][MONTH_OF_DAY[leap][dayOfYear] + 1] - 1;
+	}
+
+	/**
+	 * 获取纪元日所在月份的天数
+	 */
+	public static int getLengthOfMonth(int epochDay) {
+		int year = getYear(epochDay);
+		return DateLayout.daysInMonth(year, getMonth(epochDay));
+	}
+
+	/**
+	 * 是否为闰年
+	 */
+	public static boolean isLeapYear(int year) {
+		return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+	}
+
+	private static int yearStart(int year) {
+		if (year >= TABLE_FROM_YEAR && year <= TABLE_TO_YEAR) {
+			return YEAR_STARTS[year - TABLE_FROM_YEAR];
+		}
+		return (int) DateLayout.epochDay(year, 1, 1);
+	}
+}
@@ -0,0 +1,148 @@
+package org.akcome.commons.transformation.date;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 时区的本地时间到UTC偏移量的查找表
+ * @see 创建时预先展开1900年至2100年间的全部时区切换(含夏令时),查找时对切换点二分查找,不创建对象
+ * @see 本地时间落在夏令时开始的空档中时使用切换前的偏移量,落在夏令时结束的重叠区间时使用切换后的偏移量(标准时间),
+ *      与TimeZone、SimpleDateFormat的规则一致
+ * @see 超出上述年份范围时使用最近一次切换的偏移量;1901年以前的地方平时按java.time的规则计算,可能与TimeZone略有差异
+ * @author peng_wang
+ */
+final class ZoneOffsetTable {
+	private static final long FROM_EPOCH_SECOND = -2208988800L; // 1900-01-01T00:00:00Z
+	private static final long TO_EPOCH_SECOND = 4102444800L; // 2100-01-01T00:00:00Z
+	/** 与TimeZone的规则一致的最早时间,更早的地方平时可能不同 */
+	private static final long EXACT_FROM_EPOCH_SECOND = -2177452800L; // 1901-01-01T00:00:00Z
+
+	private static final ConcurrentMap<String, ZoneOffsetTable> TABLES = new ConcurrentHashMap<String, ZoneOffsetTable>();
+
+	/** 各切换点的UTC秒数 */
+	private final long[] transitions;
+	/** 各切换点之后使用新偏移量的最早本地时间(秒),即切换时刻按新偏移量计算的本地时间 */
+	private final long[] localBoundaries;
+	/** 各切换点产生的不存在的本地时间(夏令时开始的空档)的起点,没有空档时等于localBoundaries */
+	private final long[] gapStarts;
+	/** 各切换点之后的偏移秒数 */
+	private final int[] offsetsAfter;
+	/** 第一个切换点之前的偏移秒数 */
+	private final int initialOffset;
+
+	private ZoneOffsetTable(ZoneRules rules) {
+		long[] instants = new long[16];
+		long[] boundaries = new long[16];
+		long[] gaps = new long[16];
+		int[] offsets = new int[16];
+		int count = 0;
+		initialOffset = rules.getOffset(Instant.ofEpochSecond(FROM_EPOCH_SECOND)).getTotalSeconds();
+		ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochSecond(FROM_EPOCH_SECOND));
+		while (transition != null && transition.toEpochSecond() < TO_EPOCH_SECOND) {
+			if (count == boundaries.length) {
+				instants = Arrays.copyOf(instants, count * 2);
+				boundaries = Arrays.copyOf(boundaries, count * 2);
+				gaps = Arrays.copyOf(gaps, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			ZoneOffset before = transition.getOffsetBefore();
+			ZoneOffset after = transition.getOffsetAfter();
+			instants[count] = transition.toEpochSecond();
+			boundaries[count] = transition.toEpochSecond() + after.getTotalSeconds();
+			gaps[count] = transition.toEpochSecond() + before.getTotalSeconds();
+			if (gaps[count] > boundaries[count]) {
+				gaps[count] = boundaries[count];
+			}
+			offsets[count] = after.getTotalSeconds();
+			count++;
+			transition = rules.nextTransition(transition.getInstant());
+		}
+		transitions = Arrays.copyOf(instants, count);
+		localBoundaries = Arrays.copyOf(boundaries, count);
+		gapStarts = Arrays.copyOf(gaps, count);
+		offsetsAfter = Arrays.copyOf(offsets, count);
+	}
+
+	/**
+	 * 获取时区的偏移量表,同一时区只创建一次
+	 */
+	static ZoneOffsetTable of(TimeZone zone) {
+		ZoneOffsetTable table = TABLES.get(zone.getID());
+		if (table == null) {
+			ZoneOffsetTable created = new ZoneOffsetTable(zone.toZoneId().getRules());
+			table = TABLES.putIfAbsent(zone.getID(), created);
+			if (table == null) {
+				table = created;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * 本地时间对应的偏移秒数
+	 *
+	 * @param localEpochSecond
+	 *            本地时间按UTC计算的秒数
+	 */
+	int offsetSeconds(long localEpochSecond) {
+		int index = floorIndex(localBoundaries, localEpochSecond);
+		return index < 0 ? initialOffset : offsetsAfter[index];
+	}
+
+	/**
+	 * 某一时刻的偏移秒数
+	 *
+	 * @param epochSecond
+	 *            UTC秒数
+	 */
+	int offsetSecondsAt(long epochSecond) {
+		int index = floorIndex(transitions, epochSecond);
+		return index < 0 ? initialOffset : offsetsAfter[index];
+	}
+
+	/**
+	 * 该时间按本表计算的偏移量是否与TimeZone一致(1901年至2099年)
+	 *
+	 * @param epochSecond
+	 *            UTC秒数或本地时间按UTC计算的秒数
+	 */
+	static boolean isExact(long epochSecond) {
+		return epochSecond >= EXACT_FROM_EPOCH_SECOND && epochSecond < TO_EPOCH_SECOND;
+	}
+
+	/**
+	 * 本地时间是否落在夏令时开始的空档中(该本地时间不存在)
+	 *
+	 * @param localEpochSecond
+	 *            本地时间按UTC计算的秒数
+	 */
+	boolean isGap(long localEpochSecond) {
+		int index = floorIndex(gapStarts, localEpochSecond);
+		return index >= 0 && localEpochSecond < localBoundaries[index];
+	}
+
+	/**
+	 * 有序数组中不大于<code>key</code>的最后一个元素的下标,不存在时返回-1
+	 */
+	private static int floorIndex(long[] sorted, long key) {
+		int low = 0;
+		int high = sorted.length - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= key) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return found;
+	}
+}
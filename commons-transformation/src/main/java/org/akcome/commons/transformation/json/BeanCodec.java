@@ -0,0 +1,227 @@
+package org.akcome.commons.transformation.json;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实体的属性及读写方法,每个类只内省一次
+ * @see 按类缓存在ClassValue中,类卸载时随之回收;读写方法转换为MethodHandle,调用时不再做反射查找与访问检查
+ * @see 属性的类型分类、集合元素类型在创建时解析,可读属性按名称排序,与json-lib的输出顺序一致
+ *
+ * @author peng_wang
+ */
+final class BeanCodec {
+    static final int KIND_OTHER = 0;
+    static final int KIND_STRING = 1;
+    static final int KIND_INT = 2;
+    static final int KIND_LONG = 3;
+    static final int KIND_DOUBLE = 4;
+    static final int KIND_BOOLEAN = 5;
+    /** Collection及Iterable,elementType为元素类型 */
+    static final int KIND_COLLECTION = 6;
+    /** 数组,elementType为元素类型 */
+    static final int KIND_ARRAY = 7;
+
+    private static final ClassValue<BeanCodec> CODECS = new ClassValue<BeanCodec>() {
+        @Override
+        protected BeanCodec computeValue(Class<?> type) {
+            return new BeanCodec(type);
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private final Class<?> type;
+    /** 无参构造方法,没有时为null */
+    private final MethodHandle constructor;
+    private final Property[] readable;
+    private final Map<String, Property> writable;
+
+    private BeanCodec(Class<?> type) {
+        this.type = type;
+        MethodHandle noArgs;
+        try {
+            Constructor<?> declared = type.getDeclaredConstructor();
+            declared.setAccessible(true);
+            noArgs = LOOKUP.unreflectConstructor(declared).asType(CONSTRUCTOR_TYPE);
+        } catch (Exception e) {
+            noArgs = null;
+        }
+        this.constructor = noArgs;
+        BeanInfo beanInfo;
+        try {
+            beanInfo = Introspector.getBeanInfo(type, Object.class);
+        } catch (IntrospectionException e) {
+            throw new JsonException("无法获取" + type.getName() + "的属性", e);
+        }
+        List<Property> readList = new ArrayList<Property>();
+        Map<String, Property> writeMap = new HashMap<String, Property>();
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            MethodHandle getter = unreflect(descriptor.getReadMethod(), GETTER_TYPE);
+            MethodHandle setter = unreflect(descriptor.getWriteMethod(), SETTER_TYPE);
+            if (getter == null && setter == null) {
+                continue;
+            }
+            Method method = setter != null ? descriptor.getWriteMethod() : descriptor.getReadMethod();
+            Property property = new Property(descriptor.getName(), getter, setter, method);
+            if (getter != null) {
+                readList.add(property);
+            }
+            if (setter != null) {
+                writeMap.put(property.name, property);
+            }
+        }
+        this.readable = readList.toArray(new Property[readList.size()]);
+        this.writable = writeMap;
+    }
+
+    static BeanCodec of(Class<?> type) {
+        return CODECS.get(type);
+    }
+
+    Object newInstance() {
+        if (constructor == null) {
+            throw new JsonException(type.getName() + "没有无参构造方法");
+        }
+        try {
+            return constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new JsonException("创建" + type.getName() + "失败", e);
+        }
+    }
+
+    /**
+     * 有getter的属性,按名称排序
+     */
+    Property[] getReadable() {
+        return readable;
+    }
+
+    /**
+     * 有setter的属性
+     *
+     * @return 没有该属性时返回null
+     */
+    Property getWritable(String name) {
+        return writable.get(name);
+    }
+
+    /**
+     * 将读写方法转换为统一签名的MethodHandle,非公开的类、方法先设置为可访问
+     */
+    private static MethodHandle unreflect(Method method, MethodType methodType) {
+        if (method == null) {
+            return null;
+        }
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+            // 公开方法不设置也可调用
+        }
+        try {
+            return LOOKUP.unreflect(method).asType(methodType);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static int kindOf(Class<?> rawType) {
+        if (rawType == String.class) {
+            return KIND_STRING;
+        }
+        if (rawType == int.class || rawType == Integer.class) {
+            return KIND_INT;
+        }
+        if (rawType == long.class || rawType == Long.class) {
+            return KIND_LONG;
+        }
+        if (rawType == double.class || rawType == Double.class) {
+            return KIND_DOUBLE;
+        }
+        if (rawType == boolean.class || rawType == Boolean.class) {
+            return KIND_BOOLEAN;
+        }
+        if (Collection.class.isAssignableFrom(rawType) || rawType == Iterable.class) {
+            return KIND_COLLECTION;
+        }
+        if (rawType.isArray()) {
+            return KIND_ARRAY;
+        }
+        return KIND_OTHER;
+    }
+
+    /**
+     * 实体的一个属性
+     */
+    static final class Property {
+        final String name;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+        /** setter的参数类型,含泛型参数;只读属性为getter的返回类型 */
+        final Type type;
+        final Class<?> rawType;
+        /** 类型分类,见KIND_*常量 */
+        final int kind;
+        /** 集合、数组的元素类型,其他为null */
+        final Type elementType;
+
+        Property(String name, MethodHandle getter, MethodHandle setter, Method method) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+            if (setter != null) {
+                this.type = method.getGenericParameterTypes()[0];
+                this.rawType = method.getParameterTypes()[0];
+            } else {
+                this.type = method.getGenericReturnType();
+                this.rawType = method.getReturnType();
+            }
+            this.kind = kindOf(rawType);
+            if (kind == KIND_COLLECTION) {
+                this.elementType = StreamingJsonEngine.typeArgument(type, 0);
+            } else if (kind == KIND_ARRAY) {
+                this.elementType = StreamingJsonEngine.componentType(type);
+            } else {
+                this.elementType = null;
+            }
+        }
+
+        Object get(Object bean) {
+            try {
+                return getter.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonException("读取属性" + name + "失败", e);
+            }
+        }
+
+        void set(Object bean, Object value) {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonException("设置属性" + name + "失败", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐个读取JSON数组元素的迭代器,用于无法一次载入内存的大数组
+ * @see 每次next只解析一个元素,内存占用取决于最大的单个元素而非整个文档
+ * @see 始终使用流式解析,不受JsonUtils.setEngine影响;元素类型为Map时得到LinkedHashMap,为Object时得到Map、List或简单值
+ * @see 读完最后一个元素后自动关闭输入;提前结束或解析出错时须调用close,可用于try-with-resources
+ *
+ * @author peng_wang
+ */
+public final class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+    private static final StreamingJsonEngine ENGINE = new StreamingJsonEngine();
+
+    private final Reader source;
+    private final JsonReader reader;
+    private final Class<T> elementClass;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * @param source       JSON数组文本,内部有缓冲,无需再包装为BufferedReader
+     * @param elementClass 元素类型
+     */
+    public JsonArrayIterator(Reader source, Class<T> elementClass) {
+        this.source = source;
+        this.reader = new JsonReader(source);
+        this.elementClass = elementClass;
+    }
+
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            if (reader.peek() == JsonReader.NULL) {
+                reader.nextNull();
+                finish();
+                return false;
+            }
+            reader.beginArray();
+        }
+        if (reader.hasNext()) {
+            return true;
+        }
+        reader.endArray();
+        finish();
+        return false;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return elementClass.cast(ENGINE.read(reader, elementClass));
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 按顺序、非并行的Spliterator,元素可能为null
+     */
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED);
+    }
+
+    /**
+     * 顺序流,关闭流时关闭输入
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false).onClose(new Runnable() {
+            public void run() {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new JsonException("关闭JSON输入失败", e);
+                }
+            }
+        });
+    }
+
+    public void close() throws IOException {
+        finished = true;
+        source.close();
+    }
+
+    private void finish() {
+        reader.endDocument();
+        try {
+            close();
+        } catch (IOException e) {
+            throw new JsonException("关闭JSON输入失败", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * 逐个写出JSON数组元素的写入器,用于无需先在内存中组装整个List的大数组
+ * @see 元素经复用的缓冲区直接写入输出,写入OutputStream时编码为UTF-8;始终使用流式序列化,不受JsonUtils.setEngine影响
+ * @see close时补充数组结尾并关闭输出,可用于try-with-resources;非线程安全
+ *
+ * @author peng_wang
+ */
+public final class JsonArrayWriter implements Closeable, Flushable {
+    private static final StreamingJsonEngine ENGINE = new StreamingJsonEngine();
+
+    private final Closeable target;
+    private final JsonWriter writer;
+    private boolean closed;
+
+    /**
+     * @param out 以UTF-8编码写入的输出流
+     */
+    public JsonArrayWriter(OutputStream out) {
+        this.target = out;
+        this.writer = new JsonWriter(out);
+        writer.beginArray();
+    }
+
+    public JsonArrayWriter(Writer out) {
+        this.target = out;
+        this.writer = new JsonWriter(out);
+        writer.beginArray();
+    }
+
+    /**
+     * 写出一个元素
+     *
+     * @param element 实体、Map、Collection、数组或简单值
+     * @throws JsonException 序列化或写入失败,此时已写出的内容不完整
+     */
+    public JsonArrayWriter write(Object element) {
+        ensureOpen();
+        ENGINE.write(writer, element);
+        return this;
+    }
+
+    /**
+     * 逐个写出全部元素
+     */
+    public JsonArrayWriter writeAll(Iterable<?> elements) {
+        for (Object element : elements) {
+            write(element);
+        }
+        return this;
+    }
+
+    /**
+     * 将缓冲区中已写出的元素写入输出并刷新
+     */
+    public void flush() {
+        ensureOpen();
+        writer.flush();
+    }
+
+    /**
+     * 写出数组结尾并关闭输出,重复调用无效果
+     *
+     * @throws IOException 关闭输出失败
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.endArray();
+            writer.flush();
+        } finally {
+            writer.release();
+            target.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("JsonArrayWriter已关闭");
+        }
+    }
+}
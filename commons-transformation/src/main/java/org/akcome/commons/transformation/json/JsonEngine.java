@@ -0,0 +1,70 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JsonUtils使用的JSON引擎
+ * @see 默认为StreamingJsonEngine,可通过JsonUtils.setEngine或系统属性akcome.json.engine切换为JsonLibEngine
+ * @see 实现类须线程安全
+ *
+ * @author peng_wang
+ */
+public interface JsonEngine {
+    /**
+     * 将对象序列化为JSON文本
+     *
+     * @param value 实体、Map、Collection、数组、字符串、数字、布尔值或null
+     * @return JSON文本,实体、Map为对象,Collection、数组为数组
+     */
+    String toJSONString(Object value);
+
+    /**
+     * 将对象序列化后写入Writer,写入后刷新但不关闭
+     *
+     * @param value 同toJSONString
+     * @param out   输出
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    void write(Object value, Writer out);
+
+    /**
+     * 将对象序列化为UTF-8编码后写入OutputStream,写入后刷新但不关闭
+     *
+     * @param value 同toJSONString
+     * @param out   输出
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    void write(Object value, OutputStream out);
+
+    /**
+     * 解析JSON文本
+     *
+     * @param json JSON文本
+     * @return 对象为Map,数组为List,其余为String、Number、Boolean或null
+     */
+    Object parse(String json);
+
+    /**
+     * 将JSON对象文本反序列化为实体
+     *
+     * @param json          JSON对象文本
+     * @param beanClass     实体类型
+     * @param detailClasses 集合属性名称与元素类型,可为null;
+     *                      属性声明了泛型参数时可不指定
+     * @return 实体
+     */
+    <T> T toBean(String json, Class<T> beanClass, Map<String, Class<?>> detailClasses);
+
+    /**
+     * 将JSON数组文本反序列化为实体的List
+     * @see 单个对象视为只有一个元素的数组,与JsonUtils.toList(Object)及JSONArray.fromObject对实体的处理一致
+     *
+     * @param json         JSON数组文本
+     * @param elementClass 元素类型
+     * @return 实体的List
+     */
+    <T> List<T> toList(String json, Class<T> elementClass);
+}
@@ -0,0 +1,18 @@
+package org.akcome.commons.transformation.json;
+
+/**
+ * JSON解析、序列化或转换失败
+ *
+ * @author peng_wang
+ */
+public class JsonException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public JsonException(String message) {
+        super(message);
+    }
+
+    public JsonException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
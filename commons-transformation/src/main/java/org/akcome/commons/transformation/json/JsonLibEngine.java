@@ -0,0 +1,86 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.json.JSON;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import net.sf.json.JSONSerializer;
+import net.sf.json.util.JSONUtils;
+
+/**
+ * 基于json-lib的JSON引擎,结果与原有的JsonUtils一致
+ * @see 解析结果为JSONObject、JSONArray,JSON中的null为JSONNull
+ *
+ * @author peng_wang
+ */
+public class JsonLibEngine implements JsonEngine {
+
+    public String toJSONString(Object value) {
+        if (value == null) {
+            return JSONNull.getInstance().toString();
+        }
+        if (value instanceof JSON) {
+            return value.toString();
+        }
+        if (value instanceof Collection || value.getClass().isArray()) {
+            return JSONArray.fromObject(value).toString();
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return JSONUtils.valueToString(value);
+        }
+        return JSONObject.fromObject(value).toString();
+    }
+
+    public void write(Object value, Writer out) {
+        try {
+            out.write(toJSONString(value));
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonException("写入JSON失败", e);
+        }
+    }
+
+    public void write(Object value, OutputStream out) {
+        try {
+            out.write(toJSONString(value).getBytes(Charset.forName("UTF-8")));
+            out.flush();
+        } catch (IOException e) {
+            throw new JsonException("写入JSON失败", e);
+        }
+    }
+
+    public Object parse(String json) {
+        JSON value = JSONSerializer.toJSON(json);
+        return value instanceof JSONNull ? null : value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T toBean(String json, Class<T> beanClass, Map<String, Class<?>> detailClasses) {
+        JSONObject jsonObject = JSONObject.fromObject(json);
+        if (detailClasses == null || detailClasses.isEmpty()) {
+            return (T) JSONObject.toBean(jsonObject, beanClass);
+        }
+        return (T) JSONObject.toBean(jsonObject, beanClass, new HashMap<String, Class<?>>(detailClasses));
+    }
+
+    @SuppressWarnings({ "unchecked", "deprecation" })
+    public <T> List<T> toList(String json, Class<T> elementClass) {
+        JSONArray array;
+        if (json != null && json.trim().startsWith("{")) {
+            // JSONArray.fromObject不接受对象文本,先解析为JSONObject再包装
+            array = JSONArray.fromObject(JSONObject.fromObject(json));
+        } else {
+            array = JSONArray.fromObject(json);
+        }
+        return JSONArray.toList(array, elementClass);
+    }
+}
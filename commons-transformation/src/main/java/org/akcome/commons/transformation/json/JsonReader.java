@@ -0,0 +1,704 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 拉取式的JSON词法分析器,按RFC 8259严格解析
+ * @see 调用方按结构依次调用beginObject、nextName、nextString等方法,不构建中间对象
+ * @see 解析字符串时一次读入全部文本;解析Reader时使用可增长的缓冲区,一个字符串或数字不会被截断
+ *
+ * @author peng_wang
+ */
+final class JsonReader {
+    static final int BEGIN_OBJECT = 1;
+    static final int END_OBJECT = 2;
+    static final int BEGIN_ARRAY = 3;
+    static final int END_ARRAY = 4;
+    static final int NAME = 5;
+    static final int STRING = 6;
+    static final int NUMBER = 7;
+    static final int TRUE = 8;
+    static final int FALSE = 9;
+    static final int NULL = 10;
+    static final int END_DOCUMENT = 11;
+
+    private static final int NONE = 0;
+
+    /** 嵌套层数上限,防止恶意输入导致栈溢出 */
+    static final int MAX_DEPTH = 512;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private char[] buf;
+    private int pos;
+    private int limit;
+    /** buf[0]之前已丢弃的字符数,用于报告出错位置 */
+    private long bufferOffset;
+
+    private int[] stack = new int[16];
+    private int stackSize = 1;
+    private int peeked = NONE;
+    /** peeked为NUMBER时数字的长度 */
+    private int numberLength;
+    private boolean numberIntegral;
+
+    JsonReader(String json) {
+        this.in = null;
+        this.buf = json.toCharArray();
+        this.limit = buf.length;
+    }
+
+    JsonReader(Reader in) {
+        this.in = in;
+        this.buf = new char[8192];
+    }
+
+    /**
+     * 下一个记号的类型,不消费
+     */
+    int peek() {
+        int p = peeked;
+        if (p == NONE) {
+            p = doPeek();
+        }
+        return p;
+    }
+
+    void beginObject() {
+        expect(BEGIN_OBJECT, "{");
+        pos++;
+        push(EMPTY_OBJECT);
+        peeked = NONE;
+    }
+
+    void endObject() {
+        expect(END_OBJECT, "}");
+        pos++;
+        stackSize--;
+        peeked = NONE;
+    }
+
+    void beginArray() {
+        expect(BEGIN_ARRAY, "[");
+        pos++;
+        push(EMPTY_ARRAY);
+        peeked = NONE;
+    }
+
+    void endArray() {
+        expect(END_ARRAY, "]");
+        pos++;
+        stackSize--;
+        peeked = NONE;
+    }
+
+    /**
+     * 当前对象或数组是否还有元素
+     */
+    boolean hasNext() {
+        int p = peek();
+        return p != END_OBJECT && p != END_ARRAY && p != END_DOCUMENT;
+    }
+
+    String nextName() {
+        expect(NAME, "属性名");
+        peeked = NONE;
+        return readString();
+    }
+
+    /**
+     * 读取字符串,数字按原文返回
+     */
+    String nextString() {
+        int p = peek();
+        if (p == STRING) {
+            peeked = NONE;
+            return readString();
+        }
+        if (p == NUMBER) {
+            String text = new String(buf, pos, numberLength);
+            consumeNumber();
+            return text;
+        }
+        throw syntaxError("期望字符串");
+    }
+
+    boolean nextBoolean() {
+        int p = peek();
+        if (p == TRUE) {
+            pos += 4;
+        } else if (p == FALSE) {
+            pos += 5;
+        } else {
+            throw syntaxError("期望布尔值");
+        }
+        peeked = NONE;
+        return p == TRUE;
+    }
+
+    void nextNull() {
+        expect(NULL, "null");
+        pos += 4;
+        peeked = NONE;
+    }
+
+    /**
+     * 读取整数,小数须无小数部分;字符串按其内容解析
+     */
+    long nextLong() {
+        int p = peek();
+        if (p == NUMBER && numberIntegral && numberLength <= 18) {
+            long value = 0;
+            int i = pos;
+            int end = pos + numberLength;
+            boolean negative = buf[i] == '-';
+            if (negative) {
+                i++;
+            }
+            for (; i < end; i++) {
+                value = value * 10 + (buf[i] - '0');
+            }
+            consumeNumber();
+            return negative ? -value : value;
+        }
+        String text = p == NUMBER ? null : nextString().trim();
+        if (text == null) {
+            text = new String(buf, pos, numberLength);
+            consumeNumber();
+        }
+        try {
+            return new BigDecimal(text).longValueExact();
+        } catch (RuntimeException e) {
+            throw new JsonException("无法转换为整数:" + text + ",位置" + position(), e);
+        }
+    }
+
+    /**
+     * 读取浮点数;字符串按其内容解析
+     */
+    double nextDouble() {
+        int p = peek();
+        if (p == NUMBER && numberIntegral && numberLength <= 15) {
+            return nextLong();
+        }
+        String text;
+        if (p == NUMBER) {
+            text = new String(buf, pos, numberLength);
+            consumeNumber();
+        } else {
+            text = nextString().trim();
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new JsonException("无法转换为数字:" + text + ",位置" + position(), e);
+        }
+    }
+
+    /**
+     * 读取数字:int范围内的整数为Integer,long范围内的为Long,更大的为BigInteger;
+     * 小数为Double,超出double范围时为BigDecimal
+     */
+    Number nextNumber() {
+        expect(NUMBER, "数字");
+        if (numberIntegral && numberLength <= 18) {
+            long value = nextLong();
+            if (value == (int) value) {
+                return Integer.valueOf((int) value);
+            }
+            return Long.valueOf(value);
+        }
+        String text = new String(buf, pos, numberLength);
+        boolean integral = numberIntegral;
+        consumeNumber();
+        if (integral) {
+            BigInteger value = new BigInteger(text);
+            return value.bitLength() < 64 ? (Number) Long.valueOf(value.longValue()) : value;
+        }
+        double value = Double.parseDouble(text);
+        return Double.isInfinite(value) ? (Number) new BigDecimal(text) : Double.valueOf(value);
+    }
+
+    /**
+     * 跳过下一个值,包括其中嵌套的对象和数组
+     */
+    void skipValue() {
+        int depth = 0;
+        do {
+            switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                depth++;
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                depth++;
+                break;
+            case END_OBJECT:
+                endObject();
+                depth--;
+                break;
+            case END_ARRAY:
+                endArray();
+                depth--;
+                break;
+            case NAME:
+                peeked = NONE;
+                skipString();
+                break;
+            case STRING:
+                peeked = NONE;
+                skipString();
+                break;
+            case NUMBER:
+                consumeNumber();
+                break;
+            case TRUE:
+            case FALSE:
+                nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            default:
+                throw syntaxError("意外的结束");
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * 读取下一个值:对象为LinkedHashMap,数组为ArrayList,其余见nextString、nextNumber
+     */
+    Object readValue() {
+        switch (peek()) {
+        case BEGIN_OBJECT:
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            beginObject();
+            while (hasNext()) {
+                String name = nextName();
+                map.put(name, readValue());
+            }
+            endObject();
+            return map;
+        case BEGIN_ARRAY:
+            List<Object> list = new ArrayList<Object>();
+            beginArray();
+            while (hasNext()) {
+                list.add(readValue());
+            }
+            endArray();
+            return list;
+        case STRING:
+            return nextString();
+        case NUMBER:
+            return nextNumber();
+        case TRUE:
+        case FALSE:
+            return nextBoolean();
+        case NULL:
+            nextNull();
+            return null;
+        default:
+            throw syntaxError("期望值");
+        }
+    }
+
+    /**
+     * 确认文档已结束,之后只有空白
+     */
+    void endDocument() {
+        if (peek() != END_DOCUMENT) {
+            throw syntaxError("多余的内容");
+        }
+    }
+
+    /**
+     * 当前位置,从0开始的字符偏移
+     */
+    long position() {
+        return bufferOffset + pos;
+    }
+
+    JsonException syntaxError(String message) {
+        return new JsonException("JSON格式错误:" + message + ",位置" + position());
+    }
+
+    private void expect(int token, String expected) {
+        if (peek() != token) {
+            throw syntaxError("期望" + expected);
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize > MAX_DEPTH) {
+            throw syntaxError("嵌套层数超过" + MAX_DEPTH);
+        }
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    private int doPeek() {
+        int top = stackSize - 1;
+        int c;
+        switch (stack[top]) {
+        case EMPTY_ARRAY:
+            stack[top] = NONEMPTY_ARRAY;
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = END_ARRAY;
+            }
+            break;
+        case NONEMPTY_ARRAY:
+            c = nextNonWhitespace();
+            if (c == ']') {
+                return peeked = END_ARRAY;
+            }
+            if (c != ',') {
+                throw syntaxError("期望,或]");
+            }
+            pos++;
+            c = nextNonWhitespace();
+            break;
+        case EMPTY_OBJECT:
+        case NONEMPTY_OBJECT:
+            c = nextNonWhitespace();
+            if (c == '}') {
+                return peeked = END_OBJECT;
+            }
+            if (stack[top] == NONEMPTY_OBJECT) {
+                if (c != ',') {
+                    throw syntaxError("期望,或}");
+                }
+                pos++;
+                c = nextNonWhitespace();
+            }
+            if (c != '"') {
+                throw syntaxError("期望属性名");
+            }
+            stack[top] = DANGLING_NAME;
+            return peeked = NAME;
+        case DANGLING_NAME:
+            c = nextNonWhitespace();
+            if (c != ':') {
+                throw syntaxError("期望:");
+            }
+            pos++;
+            stack[top] = NONEMPTY_OBJECT;
+            c = nextNonWhitespace();
+            break;
+        case EMPTY_DOCUMENT:
+            stack[top] = NONEMPTY_DOCUMENT;
+            c = nextNonWhitespace();
+            if (c == '\uFEFF') {
+                // 跳过文件开头的BOM
+                pos++;
+                c = nextNonWhitespace();
+            }
+            break;
+        default:
+            if (nextNonWhitespace() < 0) {
+                return peeked = END_DOCUMENT;
+            }
+            throw syntaxError("多余的内容");
+        }
+        return peeked = peekValue(c);
+    }
+
+    private int peekValue(int c) {
+        switch (c) {
+        case '{':
+            return BEGIN_OBJECT;
+        case '[':
+            return BEGIN_ARRAY;
+        case '"':
+            return STRING;
+        case 't':
+            return peekKeyword("true", TRUE);
+        case 'f':
+            return peekKeyword("false", FALSE);
+        case 'n':
+            return peekKeyword("null", NULL);
+        case -1:
+            throw syntaxError("意外的结束");
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                scanNumber();
+                return NUMBER;
+            }
+            throw syntaxError("期望值");
+        }
+    }
+
+    private int peekKeyword(String keyword, int token) {
+        int length = keyword.length();
+        if (!fill(length + 1) && limit - pos < length) {
+            throw syntaxError("期望" + keyword);
+        }
+        for (int i = 1; i < length; i++) {
+            if (buf[pos + i] != keyword.charAt(i)) {
+                throw syntaxError("期望" + keyword);
+            }
+        }
+        if (pos + length < limit && isLiteral(buf[pos + length])) {
+            throw syntaxError("期望" + keyword);
+        }
+        return token;
+    }
+
+    /**
+     * 校验pos处的数字并记录长度,数字全部位于缓冲区中
+     */
+    private void scanNumber() {
+        int i = 0;
+        while (true) {
+            if (pos + i == limit && !fill(i + 1)) {
+                break;
+            }
+            if (!isLiteral(buf[pos + i])) {
+                break;
+            }
+            i++;
+        }
+        int end = pos + i;
+        int p = pos;
+        if (buf[p] == '-') {
+            p++;
+        }
+        int digits = p;
+        if (p < end && buf[p] == '0') {
+            p++;
+        } else {
+            while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+                p++;
+            }
+        }
+        boolean integral = true;
+        if (p == digits) {
+            throw syntaxError("数字格式错误");
+        }
+        if (p < end && buf[p] == '.') {
+            integral = false;
+            int start = ++p;
+            while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+                p++;
+            }
+            if (p == start) {
+                throw syntaxError("数字格式错误");
+            }
+        }
+        if (p < end && (buf[p] == 'e' || buf[p] == 'E')) {
+            integral = false;
+            p++;
+            if (p < end && (buf[p] == '+' || buf[p] == '-')) {
+                p++;
+            }
+            int start = p;
+            while (p < end && buf[p] >= '0' && buf[p] <= '9') {
+                p++;
+            }
+            if (p == start) {
+                throw syntaxError("数字格式错误");
+            }
+        }
+        if (p != end) {
+            throw syntaxError("数字格式错误");
+        }
+        numberLength = i;
+        numberIntegral = integral;
+    }
+
+    private void consumeNumber() {
+        expect(NUMBER, "数字");
+        pos += numberLength;
+        peeked = NONE;
+    }
+
+    private static boolean isLiteral(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '-'
+                || c == '+' || c == '.';
+    }
+
+    /**
+     * 读取pos处以"开始的字符串
+     */
+    private String readString() {
+        int start = ++pos;
+        // 快速路径:缓冲区内不含转义的字符串直接构造
+        int i = start;
+        for (; i < limit; i++) {
+            char c = buf[i];
+            if (c == '"') {
+                pos = i + 1;
+                return new String(buf, start, i - start);
+            }
+            if (c == '\\' || c < 0x20) {
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder(i - start + 16);
+        while (true) {
+            i = pos;
+            while (i < limit) {
+                char c = buf[i];
+                if (c == '"') {
+                    sb.append(buf, pos, i - pos);
+                    pos = i + 1;
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    sb.append(buf, pos, i - pos);
+                    pos = i + 1;
+                    sb.append(readEscape());
+                    i = pos;
+                    continue;
+                }
+                if (c < 0x20) {
+                    pos = i;
+                    throw syntaxError("字符串中有未转义的控制字符");
+                }
+                i++;
+            }
+            sb.append(buf, pos, i - pos);
+            pos = i;
+            if (!fill(1)) {
+                throw syntaxError("字符串未结束");
+            }
+        }
+    }
+
+    private void skipString() {
+        pos++;
+        while (true) {
+            while (pos < limit) {
+                char c = buf[pos++];
+                if (c == '"') {
+                    return;
+                }
+                if (c == '\\') {
+                    readEscape();
+                } else if (c < 0x20) {
+                    pos--;
+                    throw syntaxError("字符串中有未转义的控制字符");
+                }
+            }
+            if (!fill(1)) {
+                throw syntaxError("字符串未结束");
+            }
+        }
+    }
+
+    /**
+     * 读取\之后的转义序列
+     */
+    private char readEscape() {
+        if (pos == limit && !fill(1)) {
+            throw syntaxError("字符串未结束");
+        }
+        char c = buf[pos++];
+        switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+            return c;
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'u':
+            if (limit - pos < 4 && !fill(4)) {
+                throw syntaxError("字符串未结束");
+            }
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(buf[pos + i], 16);
+                if (digit < 0) {
+                    throw syntaxError("无效的\\u转义");
+                }
+                value = (value << 4) | digit;
+            }
+            pos += 4;
+            return (char) value;
+        default:
+            pos--;
+            throw syntaxError("无效的转义字符");
+        }
+    }
+
+    /**
+     * 跳过空白,返回pos处的字符(不消费),没有更多字符时返回-1
+     */
+    private int nextNonWhitespace() {
+        while (true) {
+            while (pos < limit) {
+                char c = buf[pos];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return c;
+                }
+                pos++;
+            }
+            if (!fill(1)) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 读入更多字符,使pos之后至少有minimum个字符
+     *
+     * @return 读到文档末尾仍不足minimum个时返回false
+     */
+    private boolean fill(int minimum) {
+        if (limit - pos >= minimum) {
+            return true;
+        }
+        if (in == null) {
+            return false;
+        }
+        if (pos > 0) {
+            bufferOffset += pos;
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (minimum > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(minimum, buf.length * 2));
+        } else if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        try {
+            while (limit < minimum) {
+                int n = in.read(buf, limit, buf.length - limit);
+                if (n < 0) {
+                    return false;
+                }
+                limit += n;
+            }
+        } catch (IOException e) {
+            throw new JsonException("读取JSON失败", e);
+        }
+        return true;
+    }
+}
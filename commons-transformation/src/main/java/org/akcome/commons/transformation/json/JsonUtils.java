@@ -1,41 +1,162 @@
 package org.akcome.commons.transformation.json;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
-import org.apache.commons.beanutils.BeanUtils;
 
 /**
  * JSON转换工具类
+ * @see 参数、返回值为JSONObject、JSONArray的方法使用json-lib,其余方法使用可替换的JsonEngine
+ * @see 默认引擎为StreamingJsonEngine;系统属性akcome.json.engine为json-lib时使用JsonLibEngine,
+ *      也可指定JsonEngine实现类的类名,或调用setEngine替换
  *
  * @author peng_wang
  */
 public class JsonUtils {
+    /** 指定JSON引擎的系统属性 */
+    public static final String ENGINE_PROPERTY = "akcome.json.engine";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile JsonEngine engine = createEngine(System.getProperty(ENGINE_PROPERTY));
+
+    /***
+     * 按名称创建JSON引擎
+     *
+     * @param name streaming、json-lib或JsonEngine实现类的类名,为空时为streaming
+     * @return
+     */
+    static JsonEngine createEngine(String name) {
+        if (name == null || name.trim().isEmpty() || "streaming".equalsIgnoreCase(name.trim())) {
+            return new StreamingJsonEngine();
+        }
+        if ("json-lib".equalsIgnoreCase(name.trim())) {
+            return new JsonLibEngine();
+        }
+        try {
+            return (JsonEngine) Class.forName(name.trim()).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("无法创建JSON引擎:" + name, e);
+        }
+    }
+
+    /***
+     * 获取当前使用的JSON引擎
+     *
+     * @return
+     */
+    public static JsonEngine getEngine() {
+        return engine;
+    }
+
+    /***
+     * 替换JSON引擎,对之后的调用生效
+     *
+     * @param jsonEngine
+     */
+    public static void setEngine(JsonEngine jsonEngine) {
+        if (jsonEngine == null) {
+            throw new IllegalArgumentException("JSON引擎不能为null");
+        }
+        engine = jsonEngine;
+    }
+
     /***
      * 将List对象序列化为JSON文本
      */
     public static <T> String toJSONString(List<T> list) {
-        JSONArray jsonArray = JSONArray.fromObject(list);
-
-        return jsonArray.toString();
+        return engine.toJSONString(list == null ? Collections.emptyList() : list);
     }
 
     /***
-     * 将对象序列化为JSON文本
+     * 将对象序列化为JSON文本,与json-lib的JSONArray.fromObject一致,集合、数组以外的对象包装为只有一个元素的数组
      *
-     * @param object
+     * @param object 字符串按JSON文本解析
      * @return
      */
     public static String toJSONString(Object object) {
-        JSONArray jsonArray = JSONArray.fromObject(object);
+        JsonEngine jsonEngine = engine;
+        return jsonEngine.toJSONString(toArrayValue(jsonEngine, object));
+    }
 
-        return jsonArray.toString();
+    /***
+     * 将List对象序列化为UTF-8编码的JSON写入输出流,不生成中间的String;写入后刷新但不关闭
+     *
+     * @param list
+     * @param out
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    public static <T> void writeJSONString(List<T> list, OutputStream out) {
+        engine.write(list == null ? Collections.emptyList() : list, out);
+    }
+
+    /***
+     * 将对象序列化为UTF-8编码的JSON写入输出流,不生成中间的String;写入后刷新但不关闭
+     *
+     * @param object 同toJSONString(Object)
+     * @param out
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    public static void writeJSONString(Object object, OutputStream out) {
+        JsonEngine jsonEngine = engine;
+        jsonEngine.write(toArrayValue(jsonEngine, object), out);
+    }
+
+    /***
+     * 将List对象序列化为JSON写入Writer,不生成中间的String;写入后刷新但不关闭
+     *
+     * @param list
+     * @param out
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    public static <T> void writeJSONString(List<T> list, Writer out) {
+        engine.write(list == null ? Collections.emptyList() : list, out);
+    }
+
+    /***
+     * 将对象序列化为JSON写入Writer,不生成中间的String;写入后刷新但不关闭
+     *
+     * @param object 同toJSONString(Object)
+     * @param out
+     * @throws JsonException 写入失败时cause为IOException
+     */
+    public static void writeJSONString(Object object, Writer out) {
+        JsonEngine jsonEngine = engine;
+        jsonEngine.write(toArrayValue(jsonEngine, object), out);
+    }
+
+    /***
+     * 与json-lib的JSONArray.fromObject一致,集合、数组以外的对象包装为只有一个元素的数组
+     *
+     * @param jsonEngine
+     * @param object     字符串按JSON文本解析
+     * @return
+     */
+    private static Object toArrayValue(JsonEngine jsonEngine, Object object) {
+        Object value = object instanceof String ? jsonEngine.parse((String) object) : object;
+        if (value instanceof Collection || (value != null && value.getClass().isArray())) {
+            return value;
+        }
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(value);
     }
 
     /***
@@ -67,18 +188,8 @@ public class JsonUtils {
     public static List toArrayList(Object object) {
         List arrayList = new ArrayList();
 
-        JSONArray jsonArray = JSONArray.fromObject(object);
-
-        Iterator it = jsonArray.iterator();
-        while (it.hasNext()) {
-            JSONObject jsonObject = (JSONObject) it.next();
-
-            Iterator keys = jsonObject.keys();
-            while (keys.hasNext()) {
-                Object key = keys.next();
-                Object value = jsonObject.get(key);
-                arrayList.add(value);
-            }
+        for (Object element : parseArray(object)) {
+            arrayList.addAll(toMap(element).values());
         }
 
         return arrayList;
@@ -91,9 +202,7 @@ public class JsonUtils {
      * @return
      */
     public static Collection toCollection(Object object) {
-        JSONArray jsonArray = JSONArray.fromObject(object);
-
-        return JSONArray.toCollection(jsonArray);
+        return new ArrayList(parseArray(object));
     }
 
     /***
@@ -116,6 +225,16 @@ public class JsonUtils {
         return JSONObject.fromObject(object);
     }
 
+    /***
+     * 建立JSON文本的延迟解析视图,只需读取少数属性时代替toHashMap、toJSONObject
+     *
+     * @param jsonString JSON文本
+     * @return
+     */
+    public static JsonView toJsonView(String jsonString) {
+        return JsonView.parse(jsonString);
+    }
+
     /***
      * 将对象转换为HashMap
      *
@@ -123,16 +242,10 @@ public class JsonUtils {
      * @return
      */
     public static HashMap toHashMap(Object object) {
-        HashMap<String, Object> data = new HashMap<String, Object>();
-        JSONObject jsonObject = JsonUtils.toJSONObject(object);
-        Iterator it = jsonObject.keys();
-        while (it.hasNext()) {
-            String key = String.valueOf(it.next());
-            Object value = jsonObject.get(key);
-            data.put(key, value);
-        }
+        JsonEngine jsonEngine = engine;
+        Object value = jsonEngine.parse(object instanceof String ? (String) object : jsonEngine.toJSONString(object));
 
-        return data;
+        return new HashMap<String, Object>(toMap(value));
     }
 
     /***
@@ -144,21 +257,58 @@ public class JsonUtils {
     // 返回非实体类型(Map)的List
     public static List<Map<String, Object>> toList(Object object) {
         List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
-        JSONArray jsonArray = JSONArray.fromObject(object);
-        for (Object obj : jsonArray) {
-            JSONObject jsonObject = (JSONObject) obj;
-            Map<String, Object> map = new HashMap<String, Object>();
-            Iterator it = jsonObject.keys();
-            while (it.hasNext()) {
-                String key = (String) it.next();
-                Object value = jsonObject.get(key);
-                map.put((String) key, value);
-            }
-            list.add(map);
+        for (Object element : parseArray(object)) {
+            list.add(new HashMap<String, Object>(toMap(element)));
         }
         return list;
     }
 
+    /***
+     * 逐个读取JSON数组的元素,不将整个数组载入内存
+     *
+     * @param reader      JSON数组文本,读完后自动关闭
+     * @param objectClass 元素类型,为Map时得到Map
+     * @return
+     */
+    public static <T> JsonArrayIterator<T> toIterator(Reader reader, Class<T> objectClass) {
+        return new JsonArrayIterator<T>(reader, objectClass);
+    }
+
+    /***
+     * 逐个读取UTF-8编码的JSON数组的元素,不将整个数组载入内存
+     *
+     * @param in          JSON数组,读完后自动关闭
+     * @param objectClass 元素类型,为Map时得到Map
+     * @return
+     */
+    public static <T> JsonArrayIterator<T> toIterator(InputStream in, Class<T> objectClass) {
+        return toIterator(in, UTF_8, objectClass);
+    }
+
+    /***
+     * 逐个读取JSON数组的元素,不将整个数组载入内存
+     *
+     * @param in          JSON数组,读完后自动关闭
+     * @param charset     字符集
+     * @param objectClass 元素类型,为Map时得到Map
+     * @return
+     */
+    public static <T> JsonArrayIterator<T> toIterator(InputStream in, Charset charset, Class<T> objectClass) {
+        return new JsonArrayIterator<T>(new InputStreamReader(in, charset), objectClass);
+    }
+
+    /***
+     * 逐个读取UTF-8编码的JSON数组文件的元素,不将整个文件载入内存
+     *
+     * @param file        JSON数组文件
+     * @param objectClass 元素类型,为Map时得到Map
+     * @return 读完后自动关闭文件,提前结束时须调用close
+     * @throws IOException 文件不存在或无法读取
+     */
+    public static <T> JsonArrayIterator<T> toIterator(File file, Class<T> objectClass) throws IOException {
+        return toIterator(new FileInputStream(file), UTF_8, objectClass);
+    }
+
     /***
      * 将JSON对象数组转换为传入类型的List
      *
@@ -180,9 +330,9 @@ public class JsonUtils {
      * @return
      */
     public static <T> List<T> toList(Object object, Class<T> objectClass) {
-        JSONArray jsonArray = JSONArray.fromObject(object);
+        String json = object instanceof String ? (String) object : toJSONString(object);
 
-        return JSONArray.toList(jsonArray, objectClass);
+        return engine.toList(json, objectClass);
     }
 
     /***
@@ -206,9 +356,10 @@ public class JsonUtils {
      * @return
      */
     public static <T> T toBean(Object object, Class<T> beanClass) {
-        JSONObject jsonObject = JSONObject.fromObject(object);
+        JsonEngine jsonEngine = engine;
+        String json = object instanceof String ? (String) object : jsonEngine.toJSONString(object);
 
-        return (T) JSONObject.toBean(jsonObject, beanClass);
+        return jsonEngine.toBean(json, beanClass, null);
     }
 
     /***
@@ -224,19 +375,10 @@ public class JsonUtils {
      */
     public static <T, D> T toBean(String jsonString, Class<T> mainClass,
                                   String detailName, Class<D> detailClass) {
-        JSONObject jsonObject = JSONObject.fromObject(jsonString);
-        JSONArray jsonArray = (JSONArray) jsonObject.get(detailName);
-
-        T mainEntity = JsonUtils.toBean(jsonObject, mainClass);
-        List<D> detailList = JsonUtils.toList(jsonArray, detailClass);
+        Map<String, Class<?>> detailClasses = new LinkedHashMap<String, Class<?>>();
+        detailClasses.put(detailName, detailClass);
 
-        try {
-            BeanUtils.setProperty(mainEntity, detailName, detailList);
-        } catch (Exception ex) {
-            throw new RuntimeException("主从关系JSON反序列化实体失败！");
-        }
-
-        return mainEntity;
+        return toBean(jsonString, mainClass, detailClasses);
     }
 
     /***
@@ -256,22 +398,11 @@ public class JsonUtils {
     public static <T, D1, D2> T toBean(String jsonString, Class<T> mainClass,
                                        String detailName1, Class<D1> detailClass1, String detailName2,
                                        Class<D2> detailClass2) {
-        JSONObject jsonObject = JSONObject.fromObject(jsonString);
-        JSONArray jsonArray1 = (JSONArray) jsonObject.get(detailName1);
-        JSONArray jsonArray2 = (JSONArray) jsonObject.get(detailName2);
-
-        T mainEntity = JsonUtils.toBean(jsonObject, mainClass);
-        List<D1> detailList1 = JsonUtils.toList(jsonArray1, detailClass1);
-        List<D2> detailList2 = JsonUtils.toList(jsonArray2, detailClass2);
-
-        try {
-            BeanUtils.setProperty(mainEntity, detailName1, detailList1);
-            BeanUtils.setProperty(mainEntity, detailName2, detailList2);
-        } catch (Exception ex) {
-            throw new RuntimeException("主从关系JSON反序列化实体失败！");
-        }
+        Map<String, Class<?>> detailClasses = new LinkedHashMap<String, Class<?>>();
+        detailClasses.put(detailName1, detailClass1);
+        detailClasses.put(detailName2, detailClass2);
 
-        return mainEntity;
+        return toBean(jsonString, mainClass, detailClasses);
     }
 
     /***
@@ -294,25 +425,12 @@ public class JsonUtils {
                                            Class<T> mainClass, String detailName1, Class<D1> detailClass1,
                                            String detailName2, Class<D2> detailClass2, String detailName3,
                                            Class<D3> detailClass3) {
-        JSONObject jsonObject = JSONObject.fromObject(jsonString);
-        JSONArray jsonArray1 = (JSONArray) jsonObject.get(detailName1);
-        JSONArray jsonArray2 = (JSONArray) jsonObject.get(detailName2);
-        JSONArray jsonArray3 = (JSONArray) jsonObject.get(detailName3);
+        Map<String, Class<?>> detailClasses = new LinkedHashMap<String, Class<?>>();
+        detailClasses.put(detailName1, detailClass1);
+        detailClasses.put(detailName2, detailClass2);
+        detailClasses.put(detailName3, detailClass3);
 
-        T mainEntity = JsonUtils.toBean(jsonObject, mainClass);
-        List<D1> detailList1 = JsonUtils.toList(jsonArray1, detailClass1);
-        List<D2> detailList2 = JsonUtils.toList(jsonArray2, detailClass2);
-        List<D3> detailList3 = JsonUtils.toList(jsonArray3, detailClass3);
-
-        try {
-            BeanUtils.setProperty(mainEntity, detailName1, detailList1);
-            BeanUtils.setProperty(mainEntity, detailName2, detailList2);
-            BeanUtils.setProperty(mainEntity, detailName3, detailList3);
-        } catch (Exception ex) {
-            throw new RuntimeException("主从关系JSON反序列化实体失败！");
-        }
-
-        return mainEntity;
+        return toBean(jsonString, mainClass, detailClasses);
     }
 
     /***
@@ -326,16 +444,48 @@ public class JsonUtils {
      */
     public static <T> T toBean(String jsonString, Class<T> mainClass,
                                HashMap<String, Class> detailClass) {
-        JSONObject jsonObject = JSONObject.fromObject(jsonString);
-        T mainEntity = JsonUtils.toBean(jsonObject, mainClass);
-        for (Object key : detailClass.keySet()) {
-            try {
-                Class value = (Class) detailClass.get(key);
-                BeanUtils.setProperty(mainEntity, key.toString(), value);
-            } catch (Exception ex) {
-                throw new RuntimeException("主从关系JSON反序列化实体失败！");
-            }
+        Map<String, Class<?>> detailClasses = new LinkedHashMap<String, Class<?>>();
+        for (Map.Entry<String, Class> entry : detailClass.entrySet()) {
+            detailClasses.put(entry.getKey(), entry.getValue());
+        }
+        return toBean(jsonString, mainClass, detailClasses);
+    }
+
+    /***
+     * 将JSON文本反序列化为主从关系的实体
+     *
+     * @param jsonString    JSON文本
+     * @param mainClass     主实体类型
+     * @param detailClasses 从实体在主实体中的属性名称与类型
+     * @return
+     */
+    private static <T> T toBean(String jsonString, Class<T> mainClass, Map<String, Class<?>> detailClasses) {
+        try {
+            return engine.toBean(jsonString, mainClass, detailClasses);
+        } catch (RuntimeException ex) {
+            throw new RuntimeException("主从关系JSON反序列化实体失败！", ex);
+        }
+    }
+
+    /***
+     * 将对象解析为数组,与json-lib的JSONArray.fromObject一致,数组以外的值作为只有一个元素的数组
+     *
+     * @param object
+     * @return
+     */
+    private static List<?> parseArray(Object object) {
+        JsonEngine jsonEngine = engine;
+        Object value = jsonEngine.parse(object instanceof String ? (String) object : toJSONString(object));
+        if (value instanceof List) {
+            return (List<?>) value;
+        }
+        return value == null ? Collections.emptyList() : Collections.singletonList(value);
+    }
+
+    private static Map<String, Object> toMap(Object value) {
+        if (!(value instanceof Map)) {
+            throw new JsonException("不是JSON对象:" + value);
         }
-        return mainEntity;
+        return (Map<String, Object>) value;
     }
 }
@@ -0,0 +1,301 @@
+package org.akcome.commons.transformation.json;
+
+import java.util.Arrays;
+
+/**
+ * 只读取JSON中少数属性时使用的延迟解析视图
+ * @see 创建时扫描一次并校验格式,只记录每个记号的起止位置,不解码字符串、数字,不创建Map、List
+ * @see 按路径读取时沿索引跳过无关的对象和数组,只解码找到的值;路径形如order.items[0].sku,根为数组时形如[0].sku,空字符串表示根
+ * @see 属性名中不能含.和[;对象中有重名属性时取第一个;不可变,可在线程间共享
+ *
+ * @author peng_wang
+ */
+public final class JsonView {
+    private static final StreamingJsonEngine ENGINE = new StreamingJsonEngine();
+
+    /** kinds中表示字符串含转义字符的标志位,低4位为JsonReader的记号类型 */
+    private static final int ESCAPED = 0x10;
+    private static final int KIND_MASK = 0x0F;
+
+    private final String json;
+    /** 每个记号3个int:起始位置、结束位置(不含)、其后第一个不属于它的记号下标 */
+    private final int[] index;
+    private final byte[] kinds;
+    private final int root;
+
+    private JsonView(String json, int[] index, byte[] kinds, int root) {
+        this.json = json;
+        this.index = index;
+        this.kinds = kinds;
+        this.root = root;
+    }
+
+    /**
+     * 扫描JSON文本建立索引
+     *
+     * @throws JsonException JSON格式错误
+     */
+    public static JsonView parse(String json) {
+        JsonReader reader = new JsonReader(json);
+        int[] index = new int[48];
+        byte[] kinds = new byte[16];
+        int[] open = new int[16];
+        int depth = 0;
+        int count = 0;
+        while (true) {
+            int kind = reader.peek();
+            if (kind == JsonReader.END_DOCUMENT) {
+                break;
+            }
+            if (kind == JsonReader.END_OBJECT || kind == JsonReader.END_ARRAY) {
+                if (kind == JsonReader.END_OBJECT) {
+                    reader.endObject();
+                } else {
+                    reader.endArray();
+                }
+                int token = open[--depth];
+                index[token * 3 + 1] = (int) reader.position();
+                index[token * 3 + 2] = count;
+                continue;
+            }
+            if (count == kinds.length) {
+                kinds = Arrays.copyOf(kinds, count * 2);
+                index = Arrays.copyOf(index, count * 6);
+            }
+            int start = (int) reader.position();
+            index[count * 3] = start;
+            if (kind == JsonReader.BEGIN_OBJECT || kind == JsonReader.BEGIN_ARRAY) {
+                if (kind == JsonReader.BEGIN_OBJECT) {
+                    reader.beginObject();
+                } else {
+                    reader.beginArray();
+                }
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                }
+                open[depth++] = count;
+            } else {
+                reader.skipValue();
+                int end = (int) reader.position();
+                index[count * 3 + 1] = end;
+                index[count * 3 + 2] = count + 1;
+                if ((kind == JsonReader.STRING || kind == JsonReader.NAME) && hasEscape(json, start + 1, end - 1)) {
+                    kind |= ESCAPED;
+                }
+            }
+            kinds[count++] = (byte) kind;
+        }
+        return new JsonView(json, index, kinds, 0);
+    }
+
+    private static boolean hasEscape(String json, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (json.charAt(i) == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 路径是否存在,值为null时也存在
+     */
+    public boolean has(String path) {
+        return find(path) >= 0;
+    }
+
+    /**
+     * 读取路径上的值
+     *
+     * @return 对象为Map,数组为List,其余为String、Number、Boolean;路径不存在或值为null时返回null
+     */
+    public Object get(String path) {
+        return get(path, Object.class);
+    }
+
+    /**
+     * 读取路径上的值并转换为指定类型,转换规则与JsonUtils.toBean相同
+     *
+     * @return 路径不存在或值为null时返回null
+     */
+    public <T> T get(String path, Class<T> type) {
+        int token = find(path);
+        if (token < 0) {
+            return null;
+        }
+        int kind = kinds[token] & KIND_MASK;
+        if (kind == JsonReader.STRING && (type == String.class || type == Object.class)) {
+            return type.cast(decodeString(token));
+        }
+        if (kind == JsonReader.NULL) {
+            return null;
+        }
+        return type.cast(ENGINE.read(new JsonReader(raw(token)), type));
+    }
+
+    /**
+     * 读取路径上的值的文本:字符串为解码后的内容,数字、布尔值为原文,对象、数组为JSON文本
+     *
+     * @return 路径不存在或值为null时返回null
+     */
+    public String getString(String path) {
+        int token = find(path);
+        if (token < 0) {
+            return null;
+        }
+        switch (kinds[token] & KIND_MASK) {
+        case JsonReader.STRING:
+            return decodeString(token);
+        case JsonReader.NULL:
+            return null;
+        default:
+            return raw(token);
+        }
+    }
+
+    /**
+     * 读取路径上的值的JSON原文,字符串含引号
+     *
+     * @return 路径不存在时返回null
+     */
+    public String getJSON(String path) {
+        int token = find(path);
+        return token < 0 ? null : raw(token);
+    }
+
+    /**
+     * 路径上的数组的元素个数或对象的属性个数
+     *
+     * @return 路径不存在或不是数组、对象时返回-1
+     */
+    public int size(String path) {
+        int token = find(path);
+        if (token < 0) {
+            return -1;
+        }
+        int kind = kinds[token] & KIND_MASK;
+        if (kind != JsonReader.BEGIN_OBJECT && kind != JsonReader.BEGIN_ARRAY) {
+            return -1;
+        }
+        int size = 0;
+        int end = next(token);
+        for (int t = token + 1; t < end; t = next(t)) {
+            size++;
+        }
+        return kind == JsonReader.BEGIN_OBJECT ? size / 2 : size;
+    }
+
+    /**
+     * 以路径上的值为根的视图,与本视图共用索引
+     *
+     * @return 路径不存在时返回null
+     */
+    public JsonView getView(String path) {
+        int token = find(path);
+        return token < 0 ? null : new JsonView(json, index, kinds, token);
+    }
+
+    /**
+     * 根节点的JSON原文
+     */
+    @Override
+    public String toString() {
+        return raw(root);
+    }
+
+    /**
+     * 查找路径对应的记号,不存在时返回-1
+     */
+    private int find(String path) {
+        int token = root;
+        int length = path.length();
+        int i = 0;
+        while (i < length && token >= 0) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0 || close == i + 1) {
+                    throw new IllegalArgumentException("路径格式错误:" + path);
+                }
+                int n = 0;
+                for (int j = i + 1; j < close; j++) {
+                    char d = path.charAt(j);
+                    if (d < '0' || d > '9' || n > (Integer.MAX_VALUE - 9) / 10) {
+                        throw new IllegalArgumentException("路径格式错误:" + path);
+                    }
+                    n = n * 10 + (d - '0');
+                }
+                token = element(token, n);
+                i = close + 1;
+            } else {
+                int end = i;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                token = member(token, path, i, end);
+                i = end;
+            }
+        }
+        return token;
+    }
+
+    /**
+     * 对象中名称为path[from,to)的属性值的记号
+     */
+    private int member(int token, String path, int from, int to) {
+        if ((kinds[token] & KIND_MASK) != JsonReader.BEGIN_OBJECT) {
+            return -1;
+        }
+        int end = next(token);
+        for (int name = token + 1; name < end; name = next(name + 1)) {
+            if (nameEquals(name, path, from, to)) {
+                return name + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 数组中第n个元素的记号
+     */
+    private int element(int token, int n) {
+        if ((kinds[token] & KIND_MASK) != JsonReader.BEGIN_ARRAY) {
+            return -1;
+        }
+        int end = next(token);
+        for (int t = token + 1; t < end; t = next(t)) {
+            if (n-- == 0) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int name, String path, int from, int to) {
+        int start = index[name * 3] + 1;
+        int length = index[name * 3 + 1] - 1 - start;
+        if ((kinds[name] & ESCAPED) == 0) {
+            return length == to - from && json.regionMatches(start, path, from, length);
+        }
+        return decodeString(name).equals(path.substring(from, to));
+    }
+
+    private String decodeString(int token) {
+        int start = index[token * 3];
+        int end = index[token * 3 + 1];
+        if ((kinds[token] & ESCAPED) == 0) {
+            return json.substring(start + 1, end - 1);
+        }
+        return new JsonReader(json.substring(start, end)).nextString();
+    }
+
+    private String raw(int token) {
+        return json.substring(index[token * 3], index[token * 3 + 1]);
+    }
+
+    private int next(int token) {
+        return index[token * 3 + 2];
+    }
+}
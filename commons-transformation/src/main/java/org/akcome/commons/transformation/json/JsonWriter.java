@@ -0,0 +1,435 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * 逐个记号输出JSON文本的写入器,自动补充逗号与冒号
+ * @see 字符先写入内部缓冲区,指定了Writer或OutputStream时缓冲区满后写出,否则扩容,最后由toString取得全部文本
+ * @see 写入OutputStream时直接将缓冲区编码为UTF-8字节,不经过String;缓冲区按线程复用,用完须调用release
+ *
+ * @author peng_wang
+ */
+final class JsonWriter {
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    /** 需要转义的字符的转义序列,不需要转义时为null */
+    private static final String[] REPLACEMENTS = new String[128];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            REPLACEMENTS[i] = String.format("\\u%04x", i);
+        }
+        REPLACEMENTS['"'] = "\\\"";
+        REPLACEMENTS['\\'] = "\\\\";
+        REPLACEMENTS['\t'] = "\\t";
+        REPLACEMENTS['\b'] = "\\b";
+        REPLACEMENTS['\n'] = "\\n";
+        REPLACEMENTS['\r'] = "\\r";
+        REPLACEMENTS['\f'] = "\\f";
+    }
+
+    /** 复用的字符缓冲区大小 */
+    private static final int BUFFER_SIZE = 8192;
+    /** 扩容后不超过此大小的缓冲区可放回复用 */
+    private static final int MAX_POOLED_SIZE = 65536;
+
+    private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<Buffers>();
+
+    private final Writer out;
+    private final OutputStream stream;
+    private Buffers buffers;
+    private char[] buf;
+    private int count;
+    /** 写入OutputStream时,上次写出的缓冲区末尾未配对的高代理项 */
+    private char pendingSurrogate;
+
+    private int[] stack = new int[16];
+    private int stackSize = 1;
+
+    /**
+     * 输出到内部缓冲区,由toString取得文本
+     */
+    JsonWriter() {
+        this(null, null);
+    }
+
+    JsonWriter(Writer out) {
+        this(out, null);
+    }
+
+    /**
+     * 以UTF-8编码写入OutputStream
+     */
+    JsonWriter(OutputStream stream) {
+        this(null, stream);
+    }
+
+    private JsonWriter(Writer out, OutputStream stream) {
+        this.out = out;
+        this.stream = stream;
+        Buffers pooled = BUFFERS.get();
+        if (pooled != null) {
+            // 取出后置空,同一线程中嵌套的序列化使用新的缓冲区
+            BUFFERS.set(null);
+        } else {
+            pooled = new Buffers();
+        }
+        this.buffers = pooled;
+        this.buf = pooled.chars;
+    }
+
+    JsonWriter beginObject() {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        write('{');
+        return this;
+    }
+
+    JsonWriter endObject() {
+        int scope = stack[stackSize - 1];
+        if (scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT) {
+            throw new IllegalStateException("当前不在对象中");
+        }
+        stackSize--;
+        write('}');
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        write('[');
+        return this;
+    }
+
+    JsonWriter endArray() {
+        int scope = stack[stackSize - 1];
+        if (scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY) {
+            throw new IllegalStateException("当前不在数组中");
+        }
+        stackSize--;
+        write(']');
+        return this;
+    }
+
+    JsonWriter name(String name) {
+        int top = stackSize - 1;
+        if (stack[top] == NONEMPTY_OBJECT) {
+            write(',');
+        } else if (stack[top] != EMPTY_OBJECT) {
+            throw new IllegalStateException("当前不在对象中");
+        }
+        stack[top] = DANGLING_NAME;
+        string(name);
+        write(':');
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        beforeValue();
+        raw(value ? "true" : "false");
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        beforeValue();
+        if (value == Long.MIN_VALUE) {
+            raw("-9223372036854775808");
+            return this;
+        }
+        ensure(20);
+        if (value < 0) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int length = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            length++;
+        }
+        int i = count + length;
+        do {
+            buf[--i] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        count += length;
+        return this;
+    }
+
+    /**
+     * 输出浮点数,NaN与无穷大不是合法的JSON
+     */
+    JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JsonException("JSON不支持非有限数值:" + value);
+        }
+        if (value == (long) value && Math.abs(value) < 1e7 && (value != 0 || 1 / value > 0)) {
+            // 与json-lib一致,整数值不输出.0
+            return value((long) value);
+        }
+        beforeValue();
+        raw(Double.toString(value));
+        return this;
+    }
+
+    /**
+     * 按原文输出数字,调用方保证text为合法的JSON数字
+     */
+    JsonWriter number(String text) {
+        beforeValue();
+        raw(text);
+        return this;
+    }
+
+    JsonWriter nullValue() {
+        beforeValue();
+        raw("null");
+        return this;
+    }
+
+    /**
+     * 写出缓冲区中的内容并刷新Writer或OutputStream
+     */
+    void flush() {
+        if (out == null && stream == null) {
+            return;
+        }
+        flushBuffer();
+        try {
+            if (out != null) {
+                out.flush();
+            } else {
+                stream.flush();
+            }
+        } catch (IOException e) {
+            throw new JsonException("写入JSON失败", e);
+        }
+    }
+
+    /**
+     * 将缓冲区放回当前线程复用,之后不能再使用本写入器;写入Writer或OutputStream时先调用flush
+     */
+    void release() {
+        if (buffers == null) {
+            return;
+        }
+        if (buf.length <= MAX_POOLED_SIZE) {
+            buffers.chars = buf;
+        }
+        BUFFERS.set(buffers);
+        buffers = null;
+        buf = null;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count);
+    }
+
+    private void beforeValue() {
+        int top = stackSize - 1;
+        switch (stack[top]) {
+        case NONEMPTY_ARRAY:
+            write(',');
+            break;
+        case EMPTY_ARRAY:
+            stack[top] = NONEMPTY_ARRAY;
+            break;
+        case DANGLING_NAME:
+            stack[top] = NONEMPTY_OBJECT;
+            break;
+        case EMPTY_DOCUMENT:
+            stack[top] = NONEMPTY_DOCUMENT;
+            break;
+        case NONEMPTY_DOCUMENT:
+            throw new IllegalStateException("JSON文档只能有一个根节点");
+        default:
+            throw new IllegalStateException("对象中的值之前须先输出属性名");
+        }
+    }
+
+    private void push(int scope) {
+        if (stackSize > JsonReader.MAX_DEPTH) {
+            throw new JsonException("嵌套层数超过" + JsonReader.MAX_DEPTH + ",可能存在循环引用");
+        }
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * 输出带引号的字符串,连续的无需转义的字符整段复制
+     */
+    private void string(String value) {
+        int length = value.length();
+        ensure(length + 2);
+        buf[count++] = '"';
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c < 128) {
+                replacement = REPLACEMENTS[c];
+                if (replacement == null) {
+                    continue;
+                }
+            } else if (c == '\u2028') {
+                replacement = "\\u2028";
+            } else if (c == '\u2029') {
+                replacement = "\\u2029";
+            } else {
+                continue;
+            }
+            copy(value, last, i);
+            raw(replacement);
+            last = i + 1;
+        }
+        copy(value, last, length);
+        write('"');
+    }
+
+    private void copy(String value, int start, int end) {
+        if (out == null && stream == null) {
+            ensure(end - start);
+        }
+        // 超过缓冲区剩余容量的长字符串分段写出
+        while (start < end) {
+            if (count == buf.length) {
+                flushBuffer();
+            }
+            int length = Math.min(buf.length - count, end - start);
+            value.getChars(start, start + length, buf, count);
+            count += length;
+            start += length;
+        }
+    }
+
+    private void raw(String text) {
+        copy(text, 0, text.length());
+    }
+
+    private void write(char c) {
+        if (count == buf.length) {
+            ensure(1);
+        }
+        buf[count++] = c;
+    }
+
+    /**
+     * 保证缓冲区还能写入length个字符;输出到内部缓冲区时扩容,否则先写出,写出后至少可写入BUFFER_SIZE个字符
+     */
+    private void ensure(int length) {
+        if (buf.length - count >= length) {
+            return;
+        }
+        if (out == null && stream == null) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, count + length));
+            return;
+        }
+        flushBuffer();
+    }
+
+    /**
+     * 将缓冲区中的字符写出到Writer或OutputStream
+     */
+    private void flushBuffer() {
+        if (out == null && stream == null) {
+            return;
+        }
+        try {
+            if (out != null) {
+                out.write(buf, 0, count);
+            } else {
+                byte[] bytes = buffers.bytes(count * 3 + 3);
+                stream.write(bytes, 0, encodeUtf8(bytes));
+            }
+        } catch (IOException e) {
+            throw new JsonException("写入JSON失败", e);
+        }
+        count = 0;
+    }
+
+    /**
+     * 将缓冲区中的字符编码为UTF-8,缓冲区末尾的高代理项留待下次与低代理项一起编码
+     *
+     * @return 字节数
+     */
+    private int encodeUtf8(byte[] bytes) {
+        int n = 0;
+        int i = 0;
+        if (pendingSurrogate != 0) {
+            if (count > 0 && Character.isLowSurrogate(buf[0])) {
+                n = encodeCodePoint(bytes, n, Character.toCodePoint(pendingSurrogate, buf[0]));
+                i = 1;
+            } else {
+                bytes[n++] = '?';
+            }
+            pendingSurrogate = 0;
+        }
+        for (; i < count; i++) {
+            char c = buf[i];
+            if (c < 0x80) {
+                bytes[n++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[n++] = (byte) (0xC0 | (c >> 6));
+                bytes[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                if (i + 1 == count) {
+                    pendingSurrogate = c;
+                } else if (Character.isLowSurrogate(buf[i + 1])) {
+                    n = encodeCodePoint(bytes, n, Character.toCodePoint(c, buf[++i]));
+                } else {
+                    bytes[n++] = '?';
+                }
+            } else if (Character.isLowSurrogate(c)) {
+                bytes[n++] = '?';
+            } else {
+                bytes[n++] = (byte) (0xE0 | (c >> 12));
+                bytes[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return n;
+    }
+
+    private static int encodeCodePoint(byte[] bytes, int n, int codePoint) {
+        bytes[n++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[n++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[n++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[n++] = (byte) (0x80 | (codePoint & 0x3F));
+        return n;
+    }
+
+    /**
+     * 每个线程复用的缓冲区
+     */
+    private static final class Buffers {
+        char[] chars = new char[BUFFER_SIZE];
+        private byte[] bytes;
+
+        byte[] bytes(int length) {
+            if (bytes == null || bytes.length < length) {
+                bytes = new byte[Math.max(length, BUFFER_SIZE * 3 + 3)];
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+
+import org.akcome.commons.transformation.date.DateUtil;
+
+/**
+ * 流式JSON引擎,直接在JSON文本与实体之间转换,不构建JSONObject等中间对象
+ * @see 实体按getter序列化,属性按名称排序;Date序列化为毫秒数,反序列化时接受毫秒数或DateUtil可识别的日期字符串
+ * @see 反序列化按setter的参数类型转换,集合属性的元素类型取自泛型参数或detailClasses;JSON中多余的属性被忽略
+ * @see 解析严格遵循RFC 8259,不接受json-lib容许的单引号、无引号属性名等写法
+ *
+ * @author peng_wang
+ */
+public class StreamingJsonEngine implements JsonEngine {
+
+    public String toJSONString(Object value) {
+        JsonWriter writer = new JsonWriter();
+        try {
+            write(writer, value);
+            return writer.toString();
+        } finally {
+            writer.release();
+        }
+    }
+
+    public void write(Object value, Writer out) {
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            write(writer, value);
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
+    public void write(Object value, OutputStream out) {
+        JsonWriter writer = new JsonWriter(out);
+        try {
+            write(writer, value);
+            writer.flush();
+        } finally {
+            writer.release();
+        }
+    }
+
+    public Object parse(String json) {
+        JsonReader reader = new JsonReader(json);
+        Object value = reader.readValue();
+        reader.endDocument();
+        return value;
+    }
+
+    public <T> T toBean(String json, Class<T> beanClass, Map<String, Class<?>> detailClasses) {
+        JsonReader reader = new JsonReader(json);
+        Object bean;
+        if (detailClasses == null || detailClasses.isEmpty() || reader.peek() != JsonReader.BEGIN_OBJECT) {
+            bean = read(reader, beanClass);
+        } else {
+            bean = readBean(reader, beanClass, detailClasses);
+        }
+        reader.endDocument();
+        return beanClass.cast(bean);
+    }
+
+    public <T> List<T> toList(String json, Class<T> elementClass) {
+        JsonReader reader = new JsonReader(json);
+        List<T> list = new ArrayList<T>();
+        int token = reader.peek();
+        if (token == JsonReader.NULL) {
+            reader.nextNull();
+        } else if (token == JsonReader.BEGIN_ARRAY) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(elementClass.cast(read(reader, elementClass)));
+            }
+            reader.endArray();
+        } else {
+            // 单个对象视为只有一个元素的数组,与JsonUtils.toList(Object)一致
+            list.add(elementClass.cast(read(reader, elementClass)));
+        }
+        reader.endDocument();
+        return list;
+    }
+
+    /**
+     * 输出一个值
+     */
+    void write(JsonWriter writer, Object value) {
+        if (value == null || value instanceof JSONNull
+                || (value instanceof JSONObject && ((JSONObject) value).isNullObject())) {
+            writer.nullValue();
+        } else if (value instanceof String) {
+            writer.value((String) value);
+        } else if (value instanceof Number) {
+            writeNumber(writer, (Number) value);
+        } else if (value instanceof Boolean) {
+            writer.value(((Boolean) value).booleanValue());
+        } else if (value instanceof Map) {
+            writer.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writer.name(String.valueOf(entry.getKey()));
+                write(writer, entry.getValue());
+            }
+            writer.endObject();
+        } else if (value instanceof Collection) {
+            writer.beginArray();
+            for (Object element : (Collection<?>) value) {
+                write(writer, element);
+            }
+            writer.endArray();
+        } else if (value.getClass().isArray()) {
+            writer.beginArray();
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                write(writer, Array.get(value, i));
+            }
+            writer.endArray();
+        } else if (value instanceof Date) {
+            writer.value(((Date) value).getTime());
+        } else if (value instanceof Calendar) {
+            writer.value(((Calendar) value).getTimeInMillis());
+        } else if (value instanceof Enum) {
+            writer.value(((Enum<?>) value).name());
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            writer.value(value.toString());
+        } else if (value instanceof Class) {
+            writer.value(((Class<?>) value).getName());
+        } else {
+            writer.beginObject();
+            for (BeanCodec.Property property : BeanCodec.of(value.getClass()).getReadable()) {
+                writer.name(property.name);
+                write(writer, property.get(value));
+            }
+            writer.endObject();
+        }
+    }
+
+    private static void writeNumber(JsonWriter writer, Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writer.value(value.longValue());
+        } else if (value instanceof Double) {
+            writer.value(value.doubleValue());
+        } else if (value instanceof Float) {
+            float f = value.floatValue();
+            if (f == (long) f || Float.isNaN(f) || Float.isInfinite(f)) {
+                writer.value((double) f);
+            } else {
+                writer.number(Float.toString(f));
+            }
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            writer.number(value.toString());
+        } else {
+            // AtomicLong等其他Number
+            double d = value.doubleValue();
+            if (d == value.longValue()) {
+                writer.value(value.longValue());
+            } else {
+                writer.value(d);
+            }
+        }
+    }
+
+    /**
+     * 读取一个值并转换为指定类型,JSON为null时返回null
+     */
+    Object read(JsonReader reader, Type type) {
+        Class<?> raw = rawClass(type);
+        switch (reader.peek()) {
+        case JsonReader.NULL:
+            reader.nextNull();
+            return null;
+        case JsonReader.STRING:
+            return fromString(reader.nextString(), raw);
+        case JsonReader.NUMBER:
+            return readNumber(reader, raw);
+        case JsonReader.TRUE:
+        case JsonReader.FALSE:
+            if (raw == boolean.class || raw == Boolean.class || raw == Object.class) {
+                return reader.nextBoolean();
+            }
+            if (raw == String.class) {
+                return String.valueOf(reader.nextBoolean());
+            }
+            throw mismatch(reader, "布尔值", raw);
+        case JsonReader.BEGIN_ARRAY:
+            if (raw == Object.class) {
+                return reader.readValue();
+            }
+            if (raw.isArray()) {
+                return readArray(reader, componentType(type));
+            }
+            if (Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+                return readCollection(reader, raw, typeArgument(type, 0));
+            }
+            if (raw == String.class) {
+                return toJSONString(reader.readValue());
+            }
+            throw mismatch(reader, "数组", raw);
+        case JsonReader.BEGIN_OBJECT:
+            if (raw == Object.class) {
+                return reader.readValue();
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                return readMap(reader, raw, typeArgument(type, 0), typeArgument(type, 1));
+            }
+            if (raw == String.class) {
+                return toJSONString(reader.readValue());
+            }
+            if (raw.isPrimitive() || raw.isArray() || raw.isInterface() || Number.class.isAssignableFrom(raw)
+                    || raw == Boolean.class || raw == Character.class || Date.class.isAssignableFrom(raw)
+                    || raw.isEnum() || Collection.class.isAssignableFrom(raw)) {
+                throw mismatch(reader, "对象", raw);
+            }
+            return readBean(reader, raw, null);
+        default:
+            throw reader.syntaxError("期望值");
+        }
+    }
+
+    /**
+     * 读取JSON对象为实体
+     *
+     * @param detailClasses 集合属性名称与元素类型,可为null
+     */
+    Object readBean(JsonReader reader, Class<?> beanClass, Map<String, Class<?>> detailClasses) {
+        BeanCodec codec = BeanCodec.of(beanClass);
+        Object bean = codec.newInstance();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            BeanCodec.Property property = codec.getWritable(name);
+            if (property == null) {
+                reader.skipValue();
+                continue;
+            }
+            Class<?> detailClass = detailClasses == null ? null : detailClasses.get(name);
+            Object value = detailClass == null ? readProperty(reader, property) : readDetail(reader, property,
+                    detailClass);
+            if (value == null && property.rawType.isPrimitive()) {
+                continue;
+            }
+            property.set(bean, value);
+        }
+        reader.endObject();
+        return bean;
+    }
+
+    /**
+     * 按属性创建时解析好的类型分类读取,常见的类型不再逐个比较
+     */
+    private Object readProperty(JsonReader reader, BeanCodec.Property property) {
+        int token = reader.peek();
+        switch (property.kind) {
+        case BeanCodec.KIND_STRING:
+            if (token == JsonReader.STRING) {
+                return reader.nextString();
+            }
+            break;
+        case BeanCodec.KIND_INT:
+        case BeanCodec.KIND_LONG:
+        case BeanCodec.KIND_DOUBLE:
+            if (token == JsonReader.NUMBER) {
+                return readNumber(reader, property.rawType);
+            }
+            break;
+        case BeanCodec.KIND_BOOLEAN:
+            if (token == JsonReader.TRUE || token == JsonReader.FALSE) {
+                return reader.nextBoolean();
+            }
+            break;
+        case BeanCodec.KIND_COLLECTION:
+            if (token == JsonReader.BEGIN_ARRAY) {
+                return readCollection(reader, property.rawType, property.elementType);
+            }
+            break;
+        case BeanCodec.KIND_ARRAY:
+            if (token == JsonReader.BEGIN_ARRAY) {
+                return readArray(reader, property.elementType);
+            }
+            break;
+        default:
+            break;
+        }
+        return read(reader, property.type);
+    }
+
+    /**
+     * 读取指定了元素类型的从实体属性,非集合、数组属性以detailClass作为属性类型
+     */
+    private Object readDetail(JsonReader reader, BeanCodec.Property property, Class<?> detailClass) {
+        if (property.kind != BeanCodec.KIND_COLLECTION && property.kind != BeanCodec.KIND_ARRAY) {
+            return read(reader, detailClass);
+        }
+        if (reader.peek() != JsonReader.BEGIN_ARRAY) {
+            return read(reader, property.type);
+        }
+        if (property.kind == BeanCodec.KIND_ARRAY) {
+            return readArray(reader, detailClass);
+        }
+        return readCollection(reader, property.rawType, detailClass);
+    }
+
+    private Collection<Object> readCollection(JsonReader reader, Class<?> raw, Type elementType) {
+        Collection<Object> collection = newCollection(raw);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            collection.add(read(reader, elementType));
+        }
+        reader.endArray();
+        return collection;
+    }
+
+    private Object readArray(JsonReader reader, Type componentType) {
+        Class<?> component = rawClass(componentType);
+        List<Object> list = new ArrayList<Object>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Object element = read(reader, componentType);
+            if (element == null && component.isPrimitive()) {
+                throw new JsonException("基本类型数组" + component.getName() + "[]中不能有null");
+            }
+            list.add(element);
+        }
+        reader.endArray();
+        Object array = Array.newInstance(component, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Array.set(array, i, list.get(i));
+        }
+        return array;
+    }
+
+    private Map<Object, Object> readMap(JsonReader reader, Class<?> raw, Type keyType, Type valueType) {
+        Map<Object, Object> map = newMap(raw);
+        Class<?> keyClass = rawClass(keyType);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Object key = fromString(reader.nextName(), keyClass);
+            map.put(key, read(reader, valueType));
+        }
+        reader.endObject();
+        return map;
+    }
+
+    private Object readNumber(JsonReader reader, Class<?> raw) {
+        if (raw == int.class || raw == Integer.class) {
+            long value = reader.nextLong();
+            if (value != (int) value) {
+                throw mismatch(reader, String.valueOf(value), raw);
+            }
+            return Integer.valueOf((int) value);
+        }
+        if (raw == long.class || raw == Long.class) {
+            return Long.valueOf(reader.nextLong());
+        }
+        if (raw == double.class || raw == Double.class) {
+            return Double.valueOf(reader.nextDouble());
+        }
+        if (raw == Object.class || raw == Number.class) {
+            return reader.nextNumber();
+        }
+        return fromString(reader.nextString(), raw);
+    }
+
+    /**
+     * 将字符串或数字原文转换为简单类型
+     */
+    private static Object fromString(String text, Class<?> raw) {
+        if (raw == String.class || raw == Object.class || raw == CharSequence.class) {
+            return text;
+        }
+        if (raw == char.class || raw == Character.class) {
+            return text.isEmpty() ? null : Character.valueOf(text.charAt(0));
+        }
+        String value = text.trim();
+        try {
+            if (raw.isEnum()) {
+                return value.isEmpty() ? null : toEnum(raw, value);
+            }
+            boolean numeric = raw.isPrimitive() || Number.class.isAssignableFrom(raw);
+            if ((numeric || raw == Boolean.class || Date.class.isAssignableFrom(raw)) && value.isEmpty()) {
+                return null;
+            }
+            if (raw == int.class || raw == Integer.class) {
+                long l = parseLong(value);
+                if (l != (int) l) {
+                    throw new ArithmeticException("超出int范围");
+                }
+                return Integer.valueOf((int) l);
+            }
+            if (raw == long.class || raw == Long.class) {
+                return Long.valueOf(parseLong(value));
+            }
+            if (raw == double.class || raw == Double.class) {
+                return Double.valueOf(value);
+            }
+            if (raw == float.class || raw == Float.class) {
+                return Float.valueOf(value);
+            }
+            if (raw == short.class || raw == Short.class) {
+                long l = parseLong(value);
+                if (l != (short) l) {
+                    throw new ArithmeticException("超出short范围");
+                }
+                return Short.valueOf((short) l);
+            }
+            if (raw == byte.class || raw == Byte.class) {
+                long l = parseLong(value);
+                if (l != (byte) l) {
+                    throw new ArithmeticException("超出byte范围");
+                }
+                return Byte.valueOf((byte) l);
+            }
+            if (raw == boolean.class || raw == Boolean.class) {
+                return Boolean.valueOf("true".equalsIgnoreCase(value) || "1".equals(value));
+            }
+            if (raw == BigDecimal.class || raw == Number.class) {
+                return new BigDecimal(value);
+            }
+            if (raw == BigInteger.class) {
+                return new BigDecimal(value).toBigIntegerExact();
+            }
+            if (Date.class.isAssignableFrom(raw)) {
+                return toDate(raw, value);
+            }
+        } catch (JsonException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new JsonException("无法将\"" + text + "\"转换为" + raw.getName(), e);
+        }
+        throw new JsonException("无法将\"" + text + "\"转换为" + raw.getName());
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return new BigDecimal(value).longValueExact();
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object toEnum(Class<?> raw, String name) {
+        return Enum.valueOf((Class) raw, name);
+    }
+
+    private static Date toDate(Class<?> raw, String value) {
+        long millis;
+        if (isInteger(value)) {
+            millis = Long.parseLong(value);
+        } else {
+            Date date = DateUtil.StringToDate(value);
+            if (date == null) {
+                throw new JsonException("无法识别的日期:" + value);
+            }
+            millis = date.getTime();
+        }
+        if (raw == Date.class) {
+            return new Date(millis);
+        }
+        try {
+            // java.sql.Date、Timestamp等
+            return (Date) raw.getConstructor(long.class).newInstance(millis);
+        } catch (Exception e) {
+            throw new JsonException("无法创建" + raw.getName(), e);
+        }
+    }
+
+    private static boolean isInteger(String value) {
+        int i = value.startsWith("-") ? 1 : 0;
+        if (i == value.length() || value.length() > 19) {
+            return false;
+        }
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> newCollection(Class<?> raw) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (SortedSet.class.isAssignableFrom(raw)) {
+                return new TreeSet<Object>();
+            }
+            if (Set.class.isAssignableFrom(raw)) {
+                return new LinkedHashSet<Object>();
+            }
+            if (Queue.class.isAssignableFrom(raw)) {
+                return new ArrayDeque<Object>();
+            }
+            return new ArrayList<Object>();
+        }
+        return (Collection<Object>) newInstance(raw);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, Object> newMap(Class<?> raw) {
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (SortedMap.class.isAssignableFrom(raw)) {
+                return new TreeMap<Object, Object>();
+            }
+            if (ConcurrentMap.class.isAssignableFrom(raw)) {
+                return new ConcurrentHashMap<Object, Object>();
+            }
+            return new LinkedHashMap<Object, Object>();
+        }
+        return (Map<Object, Object>) newInstance(raw);
+    }
+
+    private static Object newInstance(Class<?> raw) {
+        try {
+            return raw.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new JsonException("无法创建" + raw.getName(), e);
+        }
+    }
+
+    private static JsonException mismatch(JsonReader reader, String found, Class<?> raw) {
+        return new JsonException("无法将" + found + "转换为" + raw.getName() + ",位置" + reader.position());
+    }
+
+    static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component = rawClass(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * 泛型参数,未声明时为Object
+     */
+    static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    static Type componentType(Type type) {
+        if (type instanceof GenericArrayType) {
+            return ((GenericArrayType) type).getGenericComponentType();
+        }
+        Class<?> component = rawClass(type).getComponentType();
+        return component == null ? Object.class : component;
+    }
+}
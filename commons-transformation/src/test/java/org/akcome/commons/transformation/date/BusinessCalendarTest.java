@@ -0,0 +1,204 @@
+package org.akcome.commons.transformation.date;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * BusinessCalendar的测试
+ * @see 与逐日判断、逐日计数的朴素实现比较,日期范围跨越定义文件涉及的年份前后及年末年初
+ *
+ * @author peng_wang
+ */
+public class BusinessCalendarTest extends TestCase {
+	private static final String DEFINITIONS = "# 节假日与调休\n"
+			+ "2023-12-30~2024-01-01 holiday\n"
+			+ "2024-02-10~2024-02-17 holiday\n"
+			+ "2024-02-04 workday\n"
+			+ "2024-02-18 workday\n"
+			+ "2024-10-01~2024-10-07 holiday\n"
+			+ "2024-09-29 workday\n"
+			+ "2024-10-12 workday\n"
+			+ "\n"
+			+ "2024-12-31~2025-01-01 holiday\n"
+			+ "2024-12-28 workday\n"
+			+ "2025-01-26 workday\n";
+
+	/** 2022-01-01至2027-12-31,含位图(2023至2025年)前后各两年 */
+	private static final int FROM = EpochDayUtil.toEpochDay(2022, 1, 1);
+	private static final int TO = EpochDayUtil.toEpochDay(2028, 1, 1);
+
+	private BusinessCalendar calendar;
+	private boolean[] expected;
+
+	@Override
+	protected void setUp() throws IOException {
+		calendar = BusinessCalendar.load(new StringReader(DEFINITIONS));
+		expected = new boolean[TO - FROM];
+		for (int day = FROM; day < TO; day++) {
+			expected[day - FROM] = EpochDayUtil.getWeek(day).getNumber() <= 5;
+		}
+		for (String line : DEFINITIONS.split("\n")) {
+			if (line.length() == 0 || line.startsWith("#")) {
+				continue;
+			}
+			String[] parts = line.split(" ");
+			String[] range = parts[0].split("~");
+			int from = day(range[0]);
+			int to = range.length == 1 ? from : day(range[1]);
+			for (int day = from; day <= to; day++) {
+				expected[day - FROM] = "workday".equals(parts[1]);
+			}
+		}
+	}
+
+	public void testIsBusinessDay() {
+		for (int day = FROM; day < TO; day++) {
+			assertEquals(format(day), expected[day - FROM], calendar.isBusinessDay(day));
+		}
+		assertFalse(calendar.isBusinessDay(day("2024-10-07")));
+		assertTrue(calendar.isBusinessDay(day("2024-10-12")));
+		assertFalse(calendar.isBusinessDay(day("2024-12-31")));
+		assertTrue(calendar.isBusinessDay(day("2024-12-28")));
+	}
+
+	public void testGetBusinessDays() {
+		Random random = new Random(20241001L);
+		for (int i = 0; i < 20000; i++) {
+			int from = FROM + random.nextInt(TO - FROM + 1);
+			int to = FROM + random.nextInt(TO - FROM + 1);
+			assertEquals(format(from) + "~" + format(to), count(from, to), calendar.getBusinessDays(from, to));
+		}
+		// 跨越年末年初:12-27、12-28(调休)、12-30、01-02
+		int from = day("2024-12-27");
+		int to = day("2025-01-03");
+		assertEquals(4, calendar.getBusinessDays(from, to));
+		assertEquals(-4, calendar.getBusinessDays(to, from));
+		assertEquals(0, calendar.getBusinessDays(from, from));
+	}
+
+	public void testAddBusinessDays() {
+		Random random = new Random(20250101L);
+		for (int i = 0; i < 20000; i++) {
+			int day = FROM + 400 + random.nextInt(TO - FROM - 800);
+			int amount = random.nextInt(401) - 200;
+			assertEquals(format(day) + " " + amount, walk(day, amount), calendar.addBusinessDays(day, amount));
+			assertEquals(format(day), walk(day - 1, 1), calendar.nextOrSameBusinessDay(day));
+		}
+		// 2024-12-30为周一,之后两天为假期,2024-12-28(周六)调休上班
+		int monday = day("2024-12-30");
+		assertEquals(day("2025-01-02"), calendar.addBusinessDays(monday, 1));
+		assertEquals(day("2024-12-28"), calendar.addBusinessDays(monday, -1));
+		assertEquals(day("2024-12-27"), calendar.addBusinessDays(monday, -2));
+		assertEquals(day("2025-01-02"), calendar.addBusinessDays(day("2024-12-31"), 1));
+		assertEquals(day("2024-12-30"), calendar.addBusinessDays(day("2024-12-31"), -1));
+		assertEquals(day("2025-01-02"), calendar.nextOrSameBusinessDay(day("2024-12-31")));
+		assertEquals(monday, calendar.addBusinessDays(monday, 0));
+	}
+
+	/**
+	 * 没有定义时与只排除周六、周日的日历相同
+	 */
+	public void testWeekdays() throws IOException {
+		BusinessCalendar weekdays = BusinessCalendar.weekdays();
+		assertSame(weekdays, BusinessCalendar.load(new StringReader("# 空\n\n")));
+		for (int day = FROM; day < TO; day++) {
+			assertEquals(EpochDayUtil.getWeek(day).getNumber() <= 5, weekdays.isBusinessDay(day));
+		}
+		int friday = day("2024-10-04");
+		assertEquals(day("2024-10-07"), weekdays.addBusinessDays(friday, 1));
+		assertEquals(day("2024-10-03"), weekdays.addBusinessDays(friday, -1));
+		assertEquals(5, weekdays.getBusinessDays(friday, friday + 7));
+		assertEquals(-5, weekdays.getBusinessDays(friday + 7, friday));
+	}
+
+	public void testInvalidDefinitions() throws IOException {
+		String[] invalid = { "2024-10-01", "2024-10-01 rest", "2024-10-07~2024-10-01 holiday", "2024/10/01 holiday",
+				"2024-10-01 holiday\n2024-09-29~2024-10-01 workday" };
+		for (String definition : invalid) {
+			try {
+				BusinessCalendar.load(new StringReader(definition));
+				fail(definition);
+			} catch (IllegalArgumentException e) {
+				// 期望
+			}
+		}
+	}
+
+	/**
+	 * 同一文件只加载一次,之后修改文件不影响已加载的日历
+	 */
+	public void testGetInstanceCachesByPath() throws IOException {
+		File file = File.createTempFile("business-calendar", ".txt");
+		try {
+			write(file, DEFINITIONS);
+			BusinessCalendar first = BusinessCalendar.getInstance(file.getPath());
+			assertFalse(first.isBusinessDay(day("2024-10-01")));
+
+			write(file, "2024-10-01 workday\n");
+			assertSame(first, BusinessCalendar.getInstance(file.getPath()));
+			assertSame(first, BusinessCalendar.getInstance(file.getParent() + File.separator + "." + File.separator
+					+ file.getName()));
+			assertFalse(BusinessCalendar.getInstance(file.getPath()).isBusinessDay(day("2024-10-01")));
+			assertTrue(BusinessCalendar.load(file).isBusinessDay(day("2024-10-01")));
+		} finally {
+			file.delete();
+		}
+		try {
+			BusinessCalendar.getInstance(file.getPath() + ".missing");
+			fail();
+		} catch (IOException e) {
+			// 期望
+		}
+	}
+
+	/**
+	 * [from,to)之间的工作日数,to早于from时为负数
+	 */
+	private int count(int from, int to) {
+		int count = 0;
+		for (int day = Math.min(from, to); day < Math.max(from, to); day++) {
+			if (expected[day - FROM]) {
+				count++;
+			}
+		}
+		return from <= to ? count : -count;
+	}
+
+	/**
+	 * 逐日向前或向后数工作日
+	 */
+	private int walk(int day, int amount) {
+		int step = amount > 0 ? 1 : -1;
+		for (int remaining = Math.abs(amount); remaining > 0;) {
+			day += step;
+			if (expected[day - FROM]) {
+				remaining--;
+			}
+		}
+		return day;
+	}
+
+	private static int day(String date) {
+		long packed = DateLayout.of(DateStyle.YYYY_MM_DD).parse(date);
+		return (int) (DateLayout.toLocalEpochSecond(packed) / 86400);
+	}
+
+	private static String format(int epochDay) {
+		return EpochDayUtil.getYear(epochDay) + "-" + EpochDayUtil.getMonth(epochDay) + "-" + EpochDayUtil.getDay(epochDay);
+	}
+
+	private static void write(File file, String text) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(text.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}
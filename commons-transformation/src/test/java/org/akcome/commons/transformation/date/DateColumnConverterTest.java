@@ -0,0 +1,88 @@
+package org.akcome.commons.transformation.date;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * DateUtil批量转换方法的测试
+ * @see 行数超过DateColumnConverter.SEGMENT_SIZE(4096)时并行转换会拆分,结果须与逐个单值转换一致且保持原顺序
+ *
+ * @author peng_wang
+ */
+public class DateColumnConverterTest extends TestCase {
+	private static final int ROWS = 4096 * 5 + 17;
+	/** 2015-11-25 10:30:00 UTC */
+	private static final long START = 1448447400000L;
+
+	public void testStringColumn() {
+		String[] dates = dates();
+		String[] expected = new String[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			expected[i] = DateUtil.StringToString(dates[i], DateStyle.YYYY_MM_DD_HH_MM_SS, DateStyle.YYYY_MM_DD_HH_MM_CN);
+		}
+		for (boolean parallel : new boolean[] { false, true }) {
+			assertColumn(expected, DateUtil.StringArrayToString(dates, DateStyle.YYYY_MM_DD_HH_MM_SS,
+					DateStyle.YYYY_MM_DD_HH_MM_CN, parallel));
+			List<String> list = DateUtil.StringListToString(Arrays.asList(dates), DateStyle.YYYY_MM_DD_HH_MM_SS,
+					DateStyle.YYYY_MM_DD_HH_MM_CN, parallel);
+			assertColumn(expected, list.toArray(new String[list.size()]));
+		}
+	}
+
+	/**
+	 * 未指定旧风格时逐个识别
+	 */
+	public void testStringColumnDetectingStyle() {
+		String[] dates = dates();
+		String[] expected = new String[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			expected[i] = DateUtil.StringToString(dates[i], DateStyle.YYYY_MM_DD_EN);
+		}
+		assertColumn(expected, DateUtil.StringArrayToString(dates, null, DateStyle.YYYY_MM_DD_EN, true));
+	}
+
+	public void testMillisColumn() {
+		long[] millis = new long[ROWS];
+		String[] expected = new String[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			// 含1901年以前的时间
+			millis[i] = i % 1000 == 0 ? -2300000000000L - i * 60000L : START + i * 3600000L;
+			expected[i] = DateUtil.DateToString(new Date(millis[i]), DateStyle.YYYY_MM_DD_HH_MM_SS);
+		}
+		assertColumn(expected, DateUtil.MillisArrayToString(millis, DateStyle.YYYY_MM_DD_HH_MM_SS, false));
+		assertColumn(expected, DateUtil.MillisArrayToString(millis, DateStyle.YYYY_MM_DD_HH_MM_SS, true));
+	}
+
+	/**
+	 * 每行的日期各不相同,夹杂null、宽松格式及无法解析的行
+	 */
+	private static String[] dates() {
+		String[] dates = new String[ROWS];
+		for (int i = 0; i < ROWS; i++) {
+			switch (i % 997) {
+			case 1:
+				dates[i] = null;
+				break;
+			case 2:
+				dates[i] = "2015-1-" + (i % 28 + 1) + " 10:30:00";
+				break;
+			case 3:
+				dates[i] = "不是日期" + i;
+				break;
+			default:
+				dates[i] = DateUtil.DateToString(new Date(START + i * 60000L), DateStyle.YYYY_MM_DD_HH_MM_SS);
+			}
+		}
+		return dates;
+	}
+
+	private static void assertColumn(String[] expected, String[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("第" + i + "行", expected[i], actual[i]);
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package org.akcome.commons.transformation.date;
+
+import java.nio.charset.Charset;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+/**
+ * DateLayout及DateUtil毫秒解析方法的测试
+ * @see 严格匹配格式;夏令时空档与重叠区间中的时间与SimpleDateFormat的解析结果一致
+ *
+ * @author peng_wang
+ */
+public class DateLayoutTest extends TestCase {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+	private static final TimeZone BERLIN = TimeZone.getTimeZone("Europe/Berlin");
+
+	public void testParseAndFormat() {
+		DateLayout layout = DateLayout.of(DateStyle.YYYY_MM_DD_HH_MM_SS);
+		long packed = layout.parse("2016-02-29 23:59:58");
+		assertEquals(DateLayout.pack(2016, 2, 29, 23, 59, 58), packed);
+		char[] buffer = new char[layout.length()];
+		assertEquals("2016-02-29 23:59:58", new String(buffer, 0, layout.format(packed, buffer)));
+
+		DateLayout cn = DateLayout.of(DateStyle.YYYY_MM_DD_CN);
+		byte[] bytes = "x2015年11月25日x".getBytes(UTF_8);
+		assertEquals(DateLayout.pack(2015, 11, 25, 0, 0, 0), cn.parse(bytes, 1, bytes.length - 2));
+		assertEquals(DateLayout.pack(1970, 1, 1, 10, 30, 0), DateLayout.of(DateStyle.HH_MM).parse("10:30"));
+	}
+
+	public void testStrict() {
+		DateLayout layout = DateLayout.of(DateStyle.YYYY_MM_DD_HH_MM_SS);
+		String[] invalid = { "2015-1-5 10:30:00", "2015-01-05 10:30:00 ", "2015-01-05T10:30:00", "2015-13-01 00:00:00",
+				"2015-02-29 00:00:00", "2015-04-31 00:00:00", "2015-01-01 24:00:00", "2015-01-01 00:60:00",
+				"2015-01-01 00:00:60", "2015-0a-01 00:00:00", null };
+		for (String date : invalid) {
+			assertEquals(date, DateLayout.INVALID, layout.parse(date));
+		}
+		byte[] bytes = "2015-01-05".getBytes(UTF_8);
+		assertEquals(DateLayout.INVALID, DateLayout.of(DateStyle.YYYY_MM_DD).parse(bytes, 1, bytes.length));
+		assertEquals(DateUtil.INVALID_MILLIS, DateUtil.StringToMillis("2015-1-5", DateStyle.YYYY_MM_DD));
+	}
+
+	/**
+	 * 夏令时开始的空档中的时间不存在,与宽松的SimpleDateFormat一样顺延到夏令时
+	 */
+	public void testDstGap() throws ParseException {
+		// 2016-03-13 02:30在纽约不存在,按EST计算即EDT 03:30
+		String date = "2016-03-13 02:30:00";
+		long millis = DateUtil.StringToMillis(date, DateStyle.YYYY_MM_DD_HH_MM_SS, NEW_YORK);
+		assertEquals(parse(date, NEW_YORK), millis);
+		assertEquals("2016-03-13 03:30:00", format(millis, NEW_YORK));
+		assertEquals(millis, DateUtil.StringToMillis("2016-03-13 03:30:00", DateStyle.YYYY_MM_DD_HH_MM_SS, NEW_YORK));
+
+		date = "2016-03-27 02:15";
+		assertEquals(parse(date + ":00", BERLIN),
+				DateUtil.StringToMillis(date, DateStyle.YYYY_MM_DD_HH_MM, BERLIN));
+		byte[] bytes = date.getBytes(UTF_8);
+		assertEquals(parse(date + ":00", BERLIN),
+				DateUtil.BytesToMillis(bytes, 0, bytes.length, DateStyle.YYYY_MM_DD_HH_MM, BERLIN));
+	}
+
+	/**
+	 * 夏令时结束的重叠区间中的时间出现两次,与SimpleDateFormat一样取标准时间
+	 */
+	public void testDstOverlap() throws ParseException {
+		String date = "2016-11-06 01:30:00";
+		long millis = DateUtil.StringToMillis(date, DateStyle.YYYY_MM_DD_HH_MM_SS, NEW_YORK);
+		assertEquals(parse(date, NEW_YORK), millis);
+		// 01:30 EST,即06:30 UTC
+		assertEquals(1478413800000L, millis);
+		assertFalse(NEW_YORK.inDaylightTime(new Date(millis)));
+
+		date = "2016-10-30 02:30:00";
+		assertEquals(parse(date, BERLIN), DateUtil.StringToMillis(date, DateStyle.YYYY_MM_DD_HH_MM_SS, BERLIN));
+		// 重叠区间前后的时间
+		for (String near : new String[] { "2016-10-30 01:59:59", "2016-10-30 03:00:00", "2016-11-06 00:59:59",
+				"2016-11-06 02:00:00" }) {
+			TimeZone zone = near.startsWith("2016-10") ? BERLIN : NEW_YORK;
+			assertEquals(near, parse(near, zone), DateUtil.StringToMillis(near, DateStyle.YYYY_MM_DD_HH_MM_SS, zone));
+		}
+	}
+
+	/**
+	 * 纪元日0时落在空档中时(圣保罗2016-10-16 00:00不存在)取空档结束的时刻,与Calendar一致
+	 */
+	public void testEpochDayMidnightGap() {
+		TimeZone saoPaulo = TimeZone.getTimeZone("America/Sao_Paulo");
+		Calendar calendar = Calendar.getInstance(saoPaulo);
+		calendar.clear();
+		calendar.set(2016, Calendar.OCTOBER, 16);
+		int epochDay = EpochDayUtil.toEpochDay(2016, 10, 16);
+		assertEquals(calendar.getTimeInMillis(), EpochDayUtil.toMillis(epochDay, saoPaulo));
+		assertEquals(epochDay, EpochDayUtil.toEpochDay(EpochDayUtil.toMillis(epochDay, saoPaulo), saoPaulo));
+	}
+
+	/**
+	 * 批量转换中空档里的时间退回单值转换,结果与StringToString一致
+	 */
+	public void testColumnConversionMatchesSingleValue() {
+		String[] dates = { "2016-03-13 02:30:00", "2016-03-27 02:30:00", "1988-04-17 02:30:00", "2016-11-06 01:30:00",
+				"2016-10-30 02:30:00", "2015-11-25 10:30:00" };
+		String[] converted = DateUtil.StringArrayToString(dates, DateStyle.YYYY_MM_DD_HH_MM_SS,
+				DateStyle.YYYY_MM_DD_HH_MM_CN);
+		for (int i = 0; i < dates.length; i++) {
+			assertEquals(dates[i], DateUtil.StringToString(dates[i], DateStyle.YYYY_MM_DD_HH_MM_SS,
+					DateStyle.YYYY_MM_DD_HH_MM_CN), converted[i]);
+		}
+	}
+
+	private static long parse(String date, TimeZone zone) throws ParseException {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		format.setTimeZone(zone);
+		return format.parse(date).getTime();
+	}
+
+	private static String format(long millis, TimeZone zone) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		format.setTimeZone(zone);
+		return format.format(new Date(millis));
+	}
+}
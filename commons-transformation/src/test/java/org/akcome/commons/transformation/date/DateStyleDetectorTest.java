@@ -0,0 +1,116 @@
+package org.akcome.commons.transformation.date;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+/**
+ * DateUtil.getDateStyle(DateStyleDetector)的测试
+ * @see 表中的结果与原先逐个风格解析再比较时间戳的实现一致;不一致之处单独列出
+ *
+ * @author peng_wang
+ */
+public class DateStyleDetectorTest extends TestCase {
+	private static final String[] SAMPLES = { "2015-11-25 10:30:45", "1999-01-05 00:00:00", "2000-02-29 23:59:59",
+			"1970-01-02 08:00:01" };
+
+	/**
+	 * 原实现的结果
+	 */
+	private static final Object[][] LEGACY = {
+		{ "2015-1-5", DateStyle.YYYY_MM_DD },
+		{ "1-2-3", DateStyle.YYYY_MM_DD },
+		{ "12-1-5", DateStyle.YYYY_MM_DD },
+		{ "99-12-31", DateStyle.YYYY_MM_DD },
+		{ "0099-12-31", DateStyle.YYYY_MM_DD },
+		{ "2015-13-45", DateStyle.YYYY_MM_DD },
+		{ " 2015-11-25", DateStyle.YYYY_MM_DD },
+		{ "2015-11-25T10:30:00", DateStyle.YYYY_MM_DD },
+		{ "2015-11-25 10", DateStyle.YYYY_MM_DD },
+		{ "2015-11-25 10:", DateStyle.YYYY_MM_DD },
+		{ "2015-11-25 10:30:", DateStyle.YYYY_MM_DD_HH_MM },
+		{ "2015-11-25 1:2", DateStyle.YYYY_MM_DD_HH_MM },
+		{ "2015-11-25  10:30", DateStyle.YYYY_MM_DD_HH_MM },
+		{ "2015-11-25 10:30 x", DateStyle.YYYY_MM_DD_HH_MM },
+		{ "2015-11-25 10:30:45:99", DateStyle.YYYY_MM_DD_HH_MM_SS },
+		{ "2015/11/25 10:30:00.123", DateStyle.YYYY_MM_DD_HH_MM_SS_EN },
+		{ "2015-11", DateStyle.YYYY_MM },
+		{ "1930-06", DateStyle.YYYY_MM },
+		{ "2015/11", DateStyle.YYYY_MM_EN },
+		{ "12-31", DateStyle.MM_DD },
+		{ "12/31", DateStyle.MM_DD_EN },
+		{ "11-25 10:30", DateStyle.MM_DD_HH_MM },
+		{ "12/31 23:59:59", DateStyle.MM_DD_HH_MM_SS_EN },
+		{ "11/25 1:2:3", DateStyle.MM_DD_HH_MM_SS_EN },
+		{ "2015年1月", DateStyle.YYYY_MM_CN },
+		{ "2015年11月25", DateStyle.YYYY_MM_CN },
+		{ "2015年11月25日 10:30", DateStyle.YYYY_MM_DD_HH_MM_CN },
+		{ "10:30", DateStyle.HH_MM },
+		{ "25:61", DateStyle.HH_MM },
+		{ "10:30:45", DateStyle.HH_MM_SS },
+	};
+
+	/**
+	 * 与原实现不一致的结果
+	 * @see 原实现在两段数字的首段超过两位时,按yyyy-MM与MM-dd两种解读中离当前时间较近的一个返回,结果随当前日期变化;
+	 *      现在首段超过两位时一律为年月
+	 * @see 原实现在无风格可以解析或解析结果恰为1970-01-01 00:00 UTC时抛出NullPointerException,现在返回null或识别出的风格
+	 * @see 原实现将"-1-2"按宽松规则解析为MM-dd,现在不识别负数
+	 */
+	private static final Object[][] CHANGED = {
+		{ "123-4", DateStyle.YYYY_MM },
+		{ "300-1", DateStyle.YYYY_MM },
+		{ "1000-01", DateStyle.YYYY_MM },
+		{ "1000/01", DateStyle.YYYY_MM_EN },
+		{ "9999-12", DateStyle.YYYY_MM },
+		{ "00:00", DateStyle.HH_MM },
+		{ "0:0", DateStyle.HH_MM },
+		{ "-1-2", null },
+		{ "abc", null },
+		{ "", null },
+		{ "2015", null },
+		{ "20151125", null },
+		{ "2015.11.25", null },
+		{ "年", null },
+		{ "11月", null },
+		{ "2015年", null },
+		{ null, null },
+	};
+
+	public void testEveryStyle() throws ParseException {
+		SimpleDateFormat sample = new SimpleDateFormat(DateStyle.YYYY_MM_DD_HH_MM_SS.getValue());
+		for (String text : SAMPLES) {
+			Date date = sample.parse(text);
+			for (DateStyle style : DateStyle.values()) {
+				String formatted = new SimpleDateFormat(style.getValue()).format(date);
+				assertEquals(formatted, style, DateUtil.getDateStyle(formatted));
+			}
+		}
+	}
+
+	public void testLegacyResults() {
+		assertTable(LEGACY);
+	}
+
+	public void testChangedResults() {
+		assertTable(CHANGED);
+	}
+
+	/**
+	 * 不带风格的解析按识别出的风格进行一次解析
+	 */
+	public void testStringToDate() throws ParseException {
+		assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2015-01-05"), DateUtil.StringToDate("2015-1-5"));
+		assertEquals(new SimpleDateFormat("HH:mm").parse("00:00"), DateUtil.StringToDate("00:00"));
+		assertNull(DateUtil.StringToDate("abc"));
+		assertNull(DateUtil.StringToString("abc", DateStyle.YYYY_MM_DD));
+	}
+
+	private static void assertTable(Object[][] table) {
+		for (Object[] row : table) {
+			assertEquals((String) row[0], row[1], DateUtil.getDateStyle((String) row[0]));
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package org.akcome.commons.transformation.date;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * DateUtil中按线程缓存的SimpleDateFormat与Calendar
+ * @see 每个线程持有各自的实例;修改默认时区后结果与每次新建实例一致
+ *
+ * @author peng_wang
+ */
+public class DateUtilTest extends TestCase {
+	private TimeZone original;
+
+	@Override
+	protected void setUp() {
+		original = TimeZone.getDefault();
+	}
+
+	@Override
+	protected void tearDown() {
+		TimeZone.setDefault(original);
+	}
+
+	public void testFormatsPerThread() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Callable<SimpleDateFormat[]> fetch = new Callable<SimpleDateFormat[]>() {
+				public SimpleDateFormat[] call() {
+					SimpleDateFormat[] formats = { DateUtil.getDateFormat(DateStyle.YYYY_MM_DD),
+							DateUtil.getDateFormat("yyyyMMdd") };
+					// 同一线程再次获取时复用
+					assertSame(formats[0], DateUtil.getDateFormat(DateStyle.YYYY_MM_DD));
+					assertSame(formats[1], DateUtil.getDateFormat("yyyyMMdd"));
+					return formats;
+				}
+			};
+			Future<SimpleDateFormat[]> first = executor.submit(fetch);
+			Future<SimpleDateFormat[]> second = executor.submit(fetch);
+			SimpleDateFormat[] a = first.get();
+			SimpleDateFormat[] b = second.get();
+			for (int i = 0; i < a.length; i++) {
+				assertNotSame(a[i], b[i]);
+			}
+			assertNotSame(a[0], DateUtil.getDateFormat(DateStyle.YYYY_MM_DD));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 多个线程同时解析、格式化,结果互不干扰
+	 */
+	public void testConcurrentUse() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<?>[] futures = new Future<?>[4];
+			for (int t = 0; t < futures.length; t++) {
+				final int offset = t;
+				futures[t] = executor.submit(new Callable<Void>() {
+					public Void call() {
+						for (int i = 0; i < 2000; i++) {
+							String date = String.format("20%02d-%02d-%02d 10:%02d:00", (i + offset) % 100, i % 12 + 1,
+									i % 28 + 1, i % 60);
+							Date parsed = DateUtil.StringToDate(date, DateStyle.YYYY_MM_DD_HH_MM_SS);
+							assertEquals(date, DateUtil.DateToString(parsed, DateStyle.YYYY_MM_DD_HH_MM_SS));
+							assertEquals(i % 28 + 1, DateUtil.getDay(parsed));
+						}
+						return null;
+					}
+				});
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testFollowsDefaultTimeZone() {
+		Date date = new Date(1448418600000L);
+		TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+		assertEquals("2015-11-25 10:30:00", DateUtil.DateToString(date, DateStyle.YYYY_MM_DD_HH_MM_SS));
+		assertEquals("10:30", DateUtil.DateToString(date, "HH:mm"));
+		assertEquals(10, DateUtil.getHour(date));
+
+		TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+		assertEquals("2015-11-25 02:30:00", DateUtil.DateToString(date, DateStyle.YYYY_MM_DD_HH_MM_SS));
+		assertEquals("02:30", DateUtil.DateToString(date, "HH:mm"));
+		assertEquals(2, DateUtil.getHour(date));
+		assertEquals(date, DateUtil.StringToDate("2015-11-25 02:30:00", DateStyle.YYYY_MM_DD_HH_MM_SS));
+	}
+}
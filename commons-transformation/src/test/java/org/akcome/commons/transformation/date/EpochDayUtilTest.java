@@ -0,0 +1,114 @@
+package org.akcome.commons.transformation.date;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+/**
+ * EpochDayUtil的测试
+ * @see 与java.time.LocalDate逐日比较,覆盖查找表(1900至2100年)内外及负数纪元日
+ * @see 毫秒数与纪元日的转换在有夏令时的时区中与Calendar、java.time比较
+ *
+ * @author peng_wang
+ */
+public class EpochDayUtilTest extends TestCase {
+	/** 约公元前768年至公元4707年 */
+	private static final int FROM_DAY = -1000000;
+	private static final int TO_DAY = 1000000;
+	private static final String[] ZONES = { "America/New_York", "Europe/Berlin", "America/Sao_Paulo",
+			"Australia/Lord_Howe", "Asia/Shanghai" };
+
+	public void testFieldsAgainstLocalDate() {
+		for (int epochDay = FROM_DAY; epochDay <= TO_DAY; epochDay++) {
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			String message = date.toString();
+			assertEquals(message, date.getYear(), EpochDayUtil.getYear(epochDay));
+			assertEquals(message, date.getMonthValue(), EpochDayUtil.getMonth(epochDay));
+			assertEquals(message, date.getDayOfMonth(), EpochDayUtil.getDay(epochDay));
+			assertEquals(message, epochDay,
+					EpochDayUtil.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+			assertEquals(message, date.getDayOfWeek().getValue(), EpochDayUtil.getWeek(epochDay).getNumber());
+			assertEquals(message, date.lengthOfMonth(), EpochDayUtil.getLengthOfMonth(epochDay));
+			assertEquals(message, date.withDayOfMonth(1).toEpochDay(), EpochDayUtil.getFirstDayOfMonth(epochDay));
+			assertEquals(message, date.withDayOfMonth(date.lengthOfMonth()).toEpochDay(),
+					EpochDayUtil.getLastDayOfMonth(epochDay));
+		}
+		for (int year = -800; year <= 4800; year++) {
+			assertEquals(String.valueOf(year), java.time.Year.isLeap(year), EpochDayUtil.isLeapYear(year));
+		}
+	}
+
+	/**
+	 * 随机的纪元日与增减量,月末按目标月份的天数截断
+	 */
+	public void testAddAgainstLocalDate() {
+		Random random = new Random(20151125L);
+		for (int i = 0; i < 200000; i++) {
+			int epochDay = FROM_DAY + random.nextInt(TO_DAY - FROM_DAY);
+			int months = random.nextInt(2400) - 1200;
+			int years = random.nextInt(400) - 200;
+			int days = random.nextInt(200000) - 100000;
+			LocalDate date = LocalDate.ofEpochDay(epochDay);
+			String message = date + " " + months + " " + years;
+			assertEquals(message, date.plusMonths(months).toEpochDay(), EpochDayUtil.addMonth(epochDay, months));
+			assertEquals(message, date.plusYears(years).toEpochDay(), EpochDayUtil.addYear(epochDay, years));
+			assertEquals(message, epochDay + days, EpochDayUtil.addDay(epochDay, days));
+			assertEquals(message, Math.abs(days), EpochDayUtil.getIntervalDays(epochDay, epochDay + days));
+		}
+	}
+
+	/**
+	 * 1900年不是闰年,2000年是闰年;两者都在查找表的范围内
+	 */
+	public void testLeapDays() {
+		int feb28 = EpochDayUtil.toEpochDay(1900, 2, 28);
+		assertEquals(LocalDate.of(1900, 2, 28).toEpochDay(), feb28);
+		assertEquals(3, EpochDayUtil.getMonth(feb28 + 1));
+		assertEquals(1, EpochDayUtil.getDay(feb28 + 1));
+		assertEquals(28, EpochDayUtil.getLengthOfMonth(feb28));
+		assertFalse(EpochDayUtil.isLeapYear(1900));
+		assertEquals(EpochDayUtil.toEpochDay(1900, 2, 28), EpochDayUtil.addYear(EpochDayUtil.toEpochDay(1896, 2, 29), 4));
+
+		int feb29 = EpochDayUtil.toEpochDay(2000, 2, 29);
+		assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), feb29);
+		assertEquals(2, EpochDayUtil.getMonth(feb29));
+		assertEquals(29, EpochDayUtil.getDay(feb29));
+		assertEquals(29, EpochDayUtil.getLengthOfMonth(feb29));
+		assertTrue(EpochDayUtil.isLeapYear(2000));
+		assertEquals(EpochDayUtil.toEpochDay(2001, 2, 28), EpochDayUtil.addYear(feb29, 1));
+		assertEquals(EpochDayUtil.toEpochDay(2000, 3, 29), EpochDayUtil.addMonth(feb29, 1));
+		assertEquals(EpochDayUtil.toEpochDay(2000, 1, 31), EpochDayUtil.addMonth(EpochDayUtil.toEpochDay(2000, 3, 31), -2));
+		assertEquals(EpochDayUtil.toEpochDay(2000, 2, 29), EpochDayUtil.addMonth(EpochDayUtil.toEpochDay(2000, 3, 31), -1));
+	}
+
+	/**
+	 * 1901至2099年间逐日比较:0时的毫秒数与Calendar一致(空档取空档结束的时刻,重叠取标准时间),
+	 * 该时刻及其前一毫秒所在的纪元日与java.time一致
+	 */
+	public void testToMillisInDstZones() {
+		int from = EpochDayUtil.toEpochDay(1901, 1, 1);
+		int to = EpochDayUtil.toEpochDay(2099, 1, 1);
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			Calendar calendar = Calendar.getInstance(zone);
+			for (int epochDay = from; epochDay < to; epochDay++) {
+				calendar.clear();
+				calendar.set(EpochDayUtil.getYear(epochDay), EpochDayUtil.getMonth(epochDay) - 1,
+						EpochDayUtil.getDay(epochDay));
+				long millis = EpochDayUtil.toMillis(epochDay, zone);
+				String message = id + " " + LocalDate.ofEpochDay(epochDay);
+				assertEquals(message, calendar.getTimeInMillis(), millis);
+				assertEquals(message, epochDay(millis, zone), EpochDayUtil.toEpochDay(millis, zone));
+				assertEquals(message, epochDay(millis - 1, zone), EpochDayUtil.toEpochDay(millis - 1, zone));
+			}
+		}
+	}
+
+	private static long epochDay(long millis, TimeZone zone) {
+		return Instant.ofEpochMilli(millis).atZone(zone.toZoneId()).toLocalDate().toEpochDay();
+	}
+}
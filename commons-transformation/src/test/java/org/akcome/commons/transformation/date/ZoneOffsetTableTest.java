@@ -0,0 +1,111 @@
+package org.akcome.commons.transformation.date;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+/**
+ * ZoneOffsetTable的测试
+ * @see 对有夏令时的时区逐个切换点比较:空档、重叠区间内外的本地时间须与SimpleDateFormat的解析结果一致,时刻的偏移量须与TimeZone一致
+ *
+ * @author peng_wang
+ */
+public class ZoneOffsetTableTest extends TestCase {
+	private static final String[] ZONES = { "America/New_York", "Europe/Berlin", "Asia/Shanghai",
+			"Australia/Lord_Howe", "America/Sao_Paulo", "Asia/Kolkata", "UTC" };
+	private static final long FROM = LocalDateTime.of(1901, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+	private static final long TO = LocalDateTime.of(2099, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+	private static final DateTimeFormatter TEXT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	public void testLocalTimesAroundTransitions() throws ParseException {
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			ZoneOffsetTable table = ZoneOffsetTable.of(zone);
+			SimpleDateFormat format = newFormat(zone);
+			ZoneRules rules = zone.toZoneId().getRules();
+			for (ZoneOffsetTransition t = rules.nextTransition(Instant.ofEpochSecond(FROM)); t != null
+					&& t.toEpochSecond() < TO; t = rules.nextTransition(t.getInstant())) {
+				long before = t.toEpochSecond() + t.getOffsetBefore().getTotalSeconds();
+				long after = t.toEpochSecond() + t.getOffsetAfter().getTotalSeconds();
+				long from = Math.min(before, after);
+				long to = Math.max(before, after);
+				long[] locals = { from - 1, from, (from + to) / 2, to - 1, to };
+				for (long local : locals) {
+					String text = text(local);
+					long expected = format.parse(text).getTime();
+					assertEquals(id + " " + text, expected, (local - table.offsetSeconds(local)) * 1000L);
+				}
+			}
+		}
+	}
+
+	public void testOffsetAtInstant() {
+		for (String id : ZONES) {
+			TimeZone zone = TimeZone.getTimeZone(id);
+			ZoneOffsetTable table = ZoneOffsetTable.of(zone);
+			ZoneRules rules = zone.toZoneId().getRules();
+			for (ZoneOffsetTransition t = rules.nextTransition(Instant.ofEpochSecond(FROM)); t != null
+					&& t.toEpochSecond() < TO; t = rules.nextTransition(t.getInstant())) {
+				long second = t.toEpochSecond();
+				assertEquals(id + " " + t, zone.getOffset((second - 1) * 1000L) / 1000, table.offsetSecondsAt(second - 1));
+				assertEquals(id + " " + t, zone.getOffset(second * 1000L) / 1000, table.offsetSecondsAt(second));
+			}
+		}
+	}
+
+	public void testGap() {
+		ZoneOffsetTable newYork = ZoneOffsetTable.of(TimeZone.getTimeZone("America/New_York"));
+		// 2016-03-13 02:00至03:00不存在
+		assertFalse(newYork.isGap(local(2016, 3, 13, 1, 59, 59)));
+		assertTrue(newYork.isGap(local(2016, 3, 13, 2, 0, 0)));
+		assertTrue(newYork.isGap(local(2016, 3, 13, 2, 59, 59)));
+		assertFalse(newYork.isGap(local(2016, 3, 13, 3, 0, 0)));
+		// 重叠区间中的时间存在
+		assertFalse(newYork.isGap(local(2016, 11, 6, 1, 30, 0)));
+
+		ZoneOffsetTable shanghai = ZoneOffsetTable.of(TimeZone.getTimeZone("Asia/Shanghai"));
+		assertTrue(shanghai.isGap(local(1988, 4, 17, 2, 30, 0)));
+		assertFalse(shanghai.isGap(local(2016, 3, 13, 2, 30, 0)));
+	}
+
+	public void testGapAndOverlapResolution() {
+		ZoneOffsetTable newYork = ZoneOffsetTable.of(TimeZone.getTimeZone("America/New_York"));
+		// 空档中按切换前的偏移量(EST,-5)计算,即顺延到夏令时的03:30
+		assertEquals(-5 * 3600, newYork.offsetSeconds(local(2016, 3, 13, 2, 30, 0)));
+		assertEquals(-4 * 3600, newYork.offsetSeconds(local(2016, 3, 13, 3, 0, 0)));
+		// 重叠区间中按切换后的偏移量(EST,-5)计算
+		assertEquals(-4 * 3600, newYork.offsetSeconds(local(2016, 11, 6, 0, 59, 59)));
+		assertEquals(-5 * 3600, newYork.offsetSeconds(local(2016, 11, 6, 1, 0, 0)));
+		assertEquals(-5 * 3600, newYork.offsetSeconds(local(2016, 11, 6, 1, 59, 59)));
+	}
+
+	public void testSharedPerZone() {
+		assertSame(ZoneOffsetTable.of(TimeZone.getTimeZone("Europe/Berlin")),
+				ZoneOffsetTable.of(TimeZone.getTimeZone("Europe/Berlin")));
+		assertTrue(ZoneOffsetTable.isExact(local(1901, 1, 1, 0, 0, 0)));
+		assertFalse(ZoneOffsetTable.isExact(local(1900, 12, 31, 23, 59, 59)));
+		assertFalse(ZoneOffsetTable.isExact(local(2100, 1, 1, 0, 0, 0)));
+	}
+
+	private static long local(int year, int month, int day, int hour, int minute, int second) {
+		return LocalDateTime.of(year, month, day, hour, minute, second).toEpochSecond(ZoneOffset.UTC);
+	}
+
+	private static String text(long localEpochSecond) {
+		return TEXT.format(LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC));
+	}
+
+	private static SimpleDateFormat newFormat(TimeZone zone) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		format.setTimeZone(zone);
+		return format;
+	}
+}
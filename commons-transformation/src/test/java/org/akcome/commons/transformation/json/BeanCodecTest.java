@@ -0,0 +1,91 @@
+package org.akcome.commons.transformation.json;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.akcome.commons.transformation.json.StreamingJsonEngineTest.Item;
+import org.akcome.commons.transformation.json.StreamingJsonEngineTest.Order;
+
+/**
+ * BeanCodec的测试
+ * @see 每个类只解析一次;属性的类型分类、元素类型与setter的参数类型一致;非公开的类同样可以读写
+ *
+ * @author peng_wang
+ */
+public class BeanCodecTest extends TestCase {
+
+    public void testCachedPerClass() {
+        assertSame(BeanCodec.of(Item.class), BeanCodec.of(Item.class));
+        assertNotSame(BeanCodec.of(Item.class), BeanCodec.of(Order.class));
+    }
+
+    public void testReadablePropertiesSortedByName() {
+        BeanCodec.Property[] readable = BeanCodec.of(Item.class).getReadable();
+        assertEquals(3, readable.length);
+        assertEquals("price", readable[0].name);
+        assertEquals("quantity", readable[1].name);
+        assertEquals("sku", readable[2].name);
+    }
+
+    public void testPropertyKinds() {
+        BeanCodec codec = BeanCodec.of(Order.class);
+        assertEquals(BeanCodec.KIND_LONG, codec.getWritable("id").kind);
+        assertEquals(BeanCodec.KIND_STRING, codec.getWritable("name").kind);
+        assertEquals(BeanCodec.KIND_BOOLEAN, codec.getWritable("paid").kind);
+        assertEquals(BeanCodec.KIND_OTHER, codec.getWritable("amount").kind);
+        assertEquals(BeanCodec.KIND_COLLECTION, codec.getWritable("items").kind);
+        assertEquals(Item.class, codec.getWritable("items").elementType);
+        assertEquals(List.class, codec.getWritable("remarks").rawType);
+        assertEquals(BeanCodec.KIND_ARRAY, codec.getWritable("codes").kind);
+        assertEquals(int.class, codec.getWritable("codes").elementType);
+        assertNull(codec.getWritable("none"));
+    }
+
+    public void testNonPublicBean() {
+        BeanCodec codec = BeanCodec.of(Hidden.class);
+        Hidden hidden = (Hidden) codec.newInstance();
+        codec.getWritable("value").set(hidden, "x");
+        assertEquals("x", codec.getReadable()[0].get(hidden));
+
+        StreamingJsonEngine engine = new StreamingJsonEngine();
+        assertEquals("{\"value\":\"x\"}", engine.toJSONString(hidden));
+        assertEquals("y", engine.toBean("{\"value\":\"y\"}", Hidden.class, null).getValue());
+    }
+
+    public void testNoDefaultConstructor() {
+        try {
+            BeanCodec.of(NoDefault.class).newInstance();
+            fail();
+        } catch (JsonException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("没有无参构造方法") >= 0);
+        }
+    }
+
+    private static class Hidden {
+        private String value;
+
+        private Hidden() {
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    public static class NoDefault {
+        private final String value;
+
+        public NoDefault(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
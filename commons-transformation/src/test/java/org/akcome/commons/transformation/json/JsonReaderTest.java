@@ -0,0 +1,202 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * JsonReader的测试
+ * @see 覆盖RFC 8259的严格校验、转义、嵌套层数限制,以及记号跨越Reader读取边界的情况
+ *
+ * @author peng_wang
+ */
+public class JsonReaderTest extends TestCase {
+
+    public void testReadValueTypes() {
+        Object value = parse("{\"a\":[1,2.5,12345678901,123456789012345678901,true,false,null],\"b\":{\"c\":\"d\"}}");
+
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("a", Arrays.<Object> asList(1, 2.5, 12345678901L, new BigInteger("123456789012345678901"),
+                true, false, null));
+        Map<String, Object> b = new LinkedHashMap<String, Object>();
+        b.put("c", "d");
+        expected.put("b", b);
+        assertEquals(expected, value);
+        assertEquals(Integer.class, ((List<?>) ((Map<?, ?>) value).get("a")).get(0).getClass());
+        assertEquals(new BigDecimal("1e400"), parse("1e400"));
+    }
+
+    public void testEscapes() {
+        assertEquals("\"\\/\b\f\n\r\t", parse("\"\\\"\\\\\\/\\b\\f\\n\\r\\t\""));
+        assertEquals("中文\u2028", parse("\"\\u4e2D\\u6587\\u2028\""));
+        // 代理对以两个\\u转义表示
+        assertEquals("\uD83D\uDE00", parse("\"\\ud83d\\ude00\""));
+        assertEquals("\uD83D\uDE00", parse("\"\uD83D\uDE00\""));
+    }
+
+    public void testStrictSyntax() {
+        String[] invalid = {
+            "{'a':1}",
+            "{a:1}",
+            "['a']",
+            "[1,]",
+            "{\"a\":1,}",
+            "[1 2]",
+            "{\"a\" 1}",
+            "[01]",
+            "[1.]",
+            "[.5]",
+            "[-]",
+            "[+1]",
+            "[NaN]",
+            "[tru]",
+            "[True]",
+            "\"abc",
+            "[\"\\x\"]",
+            "[\"\\u12g4\"]",
+            "[\"a\tb\"]",
+            "[\"a\nb\"]",
+            "{} x",
+            "[1]]",
+            "",
+            "// c\n[1]",
+            "{",
+        };
+        for (String json : invalid) {
+            try {
+                parse(json);
+                fail("应拒绝:" + json);
+            } catch (JsonException e) {
+                // 期望
+            }
+        }
+    }
+
+    public void testErrorMessageHasPosition() {
+        try {
+            parse("[1,\n 2,]");
+            fail();
+        } catch (JsonException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("位置7"));
+        }
+    }
+
+    public void testWhitespaceAndBom() {
+        assertEquals(Arrays.asList(1, 2), parse(" \t\r\n[ 1 ,\n2 ]\r\n "));
+        assertEquals(Arrays.asList(1, 2), parse("\uFEFF[1,2]"));
+    }
+
+    public void testDepthLimit() {
+        assertNotNull(parse(nested(JsonReader.MAX_DEPTH)));
+        try {
+            parse(nested(JsonReader.MAX_DEPTH + 1));
+            fail();
+        } catch (JsonException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf(String.valueOf(JsonReader.MAX_DEPTH)) >= 0);
+        }
+        // skipValue同样受限
+        JsonReader reader = new JsonReader("{\"x\":" + nested(JsonReader.MAX_DEPTH + 1) + "}");
+        reader.beginObject();
+        reader.nextName();
+        try {
+            reader.skipValue();
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    public void testReaderBoundaries() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            sb.append("{\"name\\u0031\":\"值\\ud83d\\ude00\\n").append(i).append("\",\"n\":").append(-i)
+                    .append(".25e1,\"ok\":true,\"none\":null},");
+        }
+        sb.append("\"\uD83D\uDE00\"]");
+        String json = sb.toString();
+        Object expected = parse(json);
+        assertEquals(expected, parse(new OneCharReader(json)));
+        assertEquals(expected, parse(new StringReader(json)));
+        assertEquals(3001, ((List<?>) expected).size());
+    }
+
+    public void testSkipValue() {
+        JsonReader reader = new JsonReader("{\"a\":{\"x\":[1,{\"y\":\"\\\"]}\"}]},\"b\":2}");
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.skipValue();
+        assertEquals("b", reader.nextName());
+        assertEquals(2L, reader.nextLong());
+        reader.endObject();
+        reader.endDocument();
+    }
+
+    public void testNextLong() {
+        assertEquals(Long.MAX_VALUE, new JsonReader(String.valueOf(Long.MAX_VALUE)).nextLong());
+        assertEquals(100L, new JsonReader("1e2").nextLong());
+        assertEquals(3L, new JsonReader("\"3\"").nextLong());
+        try {
+            new JsonReader("1.5").nextLong();
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    private static Object parse(String json) {
+        return parse(new JsonReader(json));
+    }
+
+    private static Object parse(Reader in) {
+        return parse(new JsonReader(in));
+    }
+
+    private static Object parse(JsonReader reader) {
+        Object value = reader.readValue();
+        reader.endDocument();
+        return value;
+    }
+
+    private static String nested(int depth) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append('[');
+        }
+        for (int i = 0; i < depth; i++) {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 每次只返回一个字符的Reader,使每个记号都跨越读取边界
+     */
+    private static final class OneCharReader extends Reader {
+        private final String text;
+        private int pos;
+
+        OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == text.length()) {
+                return -1;
+            }
+            cbuf[off] = text.charAt(pos++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+
+import org.akcome.commons.transformation.json.StreamingJsonEngineTest.Item;
+import org.akcome.commons.transformation.json.StreamingJsonEngineTest.Order;
+
+/**
+ * JsonUtils的测试
+ * @see 覆盖引擎选择、与json-lib一致的数组包装规则、主从关系反序列化,以及JsonArrayIterator、JsonArrayWriter的流式读写
+ *
+ * @author peng_wang
+ */
+public class JsonUtilsTest extends TestCase {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private JsonEngine original;
+
+    @Override
+    protected void setUp() {
+        original = JsonUtils.getEngine();
+        JsonUtils.setEngine(new StreamingJsonEngine());
+    }
+
+    @Override
+    protected void tearDown() {
+        JsonUtils.setEngine(original);
+    }
+
+    public void testCreateEngine() {
+        assertEquals(StreamingJsonEngine.class, JsonUtils.createEngine(null).getClass());
+        assertEquals(StreamingJsonEngine.class, JsonUtils.createEngine(" Streaming ").getClass());
+        assertEquals(JsonLibEngine.class, JsonUtils.createEngine("json-lib").getClass());
+        assertEquals(JsonLibEngine.class, JsonUtils.createEngine(JsonLibEngine.class.getName()).getClass());
+        try {
+            JsonUtils.createEngine("no.such.Engine");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 期望
+        }
+        try {
+            JsonUtils.setEngine(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 期望
+        }
+    }
+
+    /**
+     * toJSONString(Object)与JSONArray.fromObject一致,两个引擎的结果相同
+     */
+    public void testToJSONStringWrapsSingleValue() {
+        Map<String, Object> map = Collections.<String, Object> singletonMap("a", 1);
+        Object[] inputs = { map, "{\"a\":1}", "[{\"a\":1}]", Arrays.asList(map), new int[] { 1, 2 }, null };
+        String[] expected = { "[{\"a\":1}]", "[{\"a\":1}]", "[{\"a\":1}]", "[{\"a\":1}]", "[1,2]", "[]" };
+        for (JsonEngine engine : new JsonEngine[] { new StreamingJsonEngine(), new JsonLibEngine() }) {
+            JsonUtils.setEngine(engine);
+            for (int i = 0; i < inputs.length; i++) {
+                assertEquals(engine.getClass().getSimpleName(), expected[i], JsonUtils.toJSONString(inputs[i]));
+            }
+            assertEquals("[]", JsonUtils.toJSONString((List<?>) null));
+        }
+    }
+
+    public void testWriteJSONString() {
+        List<Object> list = Arrays.<Object> asList("中文\uD83D\uDE00", 1, null);
+        String expected = JsonUtils.toJSONString(list);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonUtils.writeJSONString(list, bytes);
+        assertEquals(expected, new String(bytes.toByteArray(), UTF_8));
+
+        StringWriter chars = new StringWriter();
+        JsonUtils.writeJSONString((Object) "{\"a\":1}", chars);
+        assertEquals("[{\"a\":1}]", chars.toString());
+
+        try {
+            JsonUtils.writeJSONString(list, new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("closed");
+                }
+            });
+            fail();
+        } catch (JsonException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    public void testToHashMapAndToList() {
+        Map<?, ?> map = JsonUtils.toHashMap("{\"a\":[1,2.5],\"b\":{\"c\":null}}");
+        assertEquals(Arrays.asList(1, 2.5), map.get("a"));
+        assertEquals(Collections.singletonMap("c", null), map.get("b"));
+
+        List<Map<String, Object>> list = JsonUtils.toList("[{\"a\":1},{\"b\":2}]");
+        assertEquals(2, list.size());
+        assertEquals(2, list.get(1).get("b"));
+        assertEquals(Arrays.asList(1, 3, 2), JsonUtils.toArrayList("[{\"a\":1,\"c\":3},{\"b\":2}]"));
+
+        List<Item> items = JsonUtils.toList("[{\"sku\":\"S0\"}]", Item.class);
+        assertEquals("S0", items.get(0).getSku());
+        items = JsonUtils.toList("{\"sku\":\"q\"}", Item.class);
+        assertEquals(1, items.size());
+        assertEquals("q", items.get(0).getSku());
+        assertEquals(1, JsonUtils.toList("{\"a\":1}").size());
+        try {
+            JsonUtils.toHashMap("[1]");
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    public void testMasterDetail() {
+        String json = "{\"id\":7,\"items\":[{\"sku\":\"S0\"}],\"remarks\":[{\"sku\":\"R0\",\"quantity\":2}]}";
+        Order order = JsonUtils.toBean(json, Order.class, "remarks", Item.class);
+        assertEquals(7L, order.getId());
+        assertEquals("S0", order.getItems().get(0).getSku());
+        assertEquals(2, ((Item) order.getRemarks().get(0)).getQuantity());
+
+        HashMap<String, Class> detailClass = new HashMap<String, Class>();
+        detailClass.put("remarks", Item.class);
+        order = JsonUtils.toBean(json, Order.class, detailClass);
+        assertEquals("R0", ((Item) order.getRemarks().get(0)).getSku());
+
+        JsonUtils.setEngine(new JsonLibEngine());
+        Order legacy = JsonUtils.toBean(json, Order.class, "remarks", Item.class);
+        assertEquals("R0", ((Item) legacy.getRemarks().get(0)).getSku());
+
+        JsonUtils.setEngine(new StreamingJsonEngine());
+        try {
+            JsonUtils.toBean("{\"id\":\"x\"}", Order.class, "remarks", Item.class);
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("主从关系JSON反序列化实体失败！", e.getMessage());
+            assertTrue(e.getCause() instanceof JsonException);
+        }
+    }
+
+    public void testToIterator() throws IOException {
+        StringBuilder sb = new StringBuilder("\uFEFF[\n");
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i == 0 ? "" : ",\n").append("{\"sku\":\"名").append(i).append("\",\"quantity\":").append(i)
+                    .append(",\"extra\":{\"x\":[true,null]}}");
+        }
+        sb.append("]");
+        byte[] bytes = sb.toString().getBytes(UTF_8);
+
+        ClosingInputStream in = new ClosingInputStream(bytes);
+        JsonArrayIterator<Item> iterator = JsonUtils.toIterator(in, Item.class);
+        long sum = 0;
+        int count = 0;
+        while (iterator.hasNext()) {
+            Item item = iterator.next();
+            assertEquals("名" + count, item.getSku());
+            sum += item.getQuantity();
+            count++;
+        }
+        assertEquals(5000, count);
+        assertEquals(4999L * 5000 / 2, sum);
+        assertTrue("读完后自动关闭", in.closed);
+        try {
+            iterator.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            // 期望
+        }
+
+        File file = File.createTempFile("json-iterator", ".json");
+        try {
+            OutputStream out = new FileOutputStream(file);
+            out.write(bytes);
+            out.close();
+            JsonArrayIterator<Map> maps = JsonUtils.toIterator(file, Map.class);
+            try {
+                assertEquals(50L, maps.stream().filter(m -> ((Number) m.get("quantity")).intValue() % 100 == 0).count());
+            } finally {
+                maps.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testToIteratorEdgeCases() throws IOException {
+        assertFalse(JsonUtils.toIterator(new StringReader("[]"), Object.class).hasNext());
+        assertFalse(JsonUtils.toIterator(new StringReader("null"), Object.class).hasNext());
+
+        List<Object> values = new ArrayList<Object>();
+        JsonArrayIterator<Object> iterator = JsonUtils.toIterator(new StringReader("[1, \"a\", null, [2]]"), Object.class);
+        while (iterator.hasNext()) {
+            values.add(iterator.next());
+        }
+        assertEquals(Arrays.<Object> asList(1, "a", null, Arrays.asList(2)), values);
+
+        String[] invalid = { "[1, 2", "[1,]", "{\"a\":1}", "[1] 2" };
+        for (String json : invalid) {
+            iterator = JsonUtils.toIterator(new StringReader(json), Object.class);
+            try {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                }
+                fail(json);
+            } catch (JsonException e) {
+                // 期望
+            } finally {
+                iterator.close();
+            }
+        }
+    }
+
+    public void testJsonArrayWriter() throws IOException {
+        List<Object> list = new ArrayList<Object>();
+        for (int i = 0; i < 3000; i++) {
+            Item item = new Item();
+            item.setSku("\uD83D\uDE00" + i);
+            item.setQuantity(i);
+            list.add(item);
+        }
+        String expected = JsonUtils.toJSONString(list);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonArrayWriter writer = new JsonArrayWriter(bytes);
+        for (Object element : list) {
+            writer.write(element);
+        }
+        writer.close();
+        assertEquals(expected, new String(bytes.toByteArray(), UTF_8));
+
+        StringWriter chars = new StringWriter();
+        new JsonArrayWriter(chars).writeAll(list).close();
+        assertEquals(expected, chars.toString());
+
+        StringWriter empty = new StringWriter();
+        new JsonArrayWriter(empty).close();
+        assertEquals("[]", empty.toString());
+    }
+
+    public void testJsonViewShortcut() {
+        assertEquals("S0", JsonUtils.toJsonView("{\"items\":[{\"sku\":\"S0\"}]}").getString("items[0].sku"));
+    }
+
+    /**
+     * 记录是否已关闭的输入流
+     */
+    private static final class ClosingInputStream extends ByteArrayInputStream {
+        boolean closed;
+
+        ClosingInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
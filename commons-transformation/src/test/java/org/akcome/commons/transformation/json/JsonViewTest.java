@@ -0,0 +1,95 @@
+package org.akcome.commons.transformation.json;
+
+import java.util.Collections;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.akcome.commons.transformation.json.StreamingJsonEngineTest.Item;
+
+/**
+ * JsonView的测试
+ *
+ * @author peng_wang
+ */
+public class JsonViewTest extends TestCase {
+    private static final String JSON = "{\"order\":{\"id\":10086,\"name\":\"张\\\"三\\\"\",\"paid\":true,\"remark\":null,"
+            + "\"items\":[{\"sku\":\"S0\",\"quantity\":1},{\"sku\":\"S1\",\"quantity\":2,\"tags\":[]}]},"
+            + "\"na\\u006de\":\"escaped\",\"order.id\":1,\"dup\":1,\"dup\":2}";
+
+    public void testGetByPath() {
+        JsonView view = JsonView.parse(JSON);
+        assertEquals("S1", view.getString("order.items[1].sku"));
+        assertEquals(Integer.valueOf(10086), view.get("order.id"));
+        assertEquals(Long.valueOf(10086), view.get("order.id", Long.class));
+        assertEquals("10086", view.getString("order.id"));
+        assertEquals("张\"三\"", view.get("order.name"));
+        assertEquals(Boolean.TRUE, view.get("order.paid", Boolean.class));
+        assertEquals("escaped", view.getString("name"));
+        assertEquals(Integer.valueOf(1), view.get("dup"));
+
+        Item item = view.get("order.items[0]", Item.class);
+        assertEquals("S0", item.getSku());
+        assertEquals(1, item.getQuantity());
+        assertEquals("S0", ((Map<?, ?>) view.get("order.items[0]")).get("sku"));
+        assertEquals(Collections.emptyList(), view.get("order.items[1].tags"));
+    }
+
+    public void testMissingAndNull() {
+        JsonView view = JsonView.parse(JSON);
+        assertTrue(view.has("order.remark"));
+        assertNull(view.get("order.remark"));
+        assertNull(view.getString("order.remark"));
+        assertEquals("null", view.getJSON("order.remark"));
+
+        assertFalse(view.has("order.none"));
+        assertFalse(view.has("order.items[2]"));
+        assertFalse(view.has("order.id.x"));
+        assertFalse(view.has("order[0]"));
+        assertNull(view.get("order.items[5].sku"));
+        assertNull(view.getJSON("none"));
+    }
+
+    public void testRawAndSize() {
+        JsonView view = JsonView.parse(JSON);
+        assertEquals("\"张\\\"三\\\"\"", view.getJSON("order.name"));
+        assertEquals("{\"sku\":\"S0\",\"quantity\":1}", view.getJSON("order.items[0]"));
+        assertEquals(JSON, view.toString());
+        assertEquals(JSON, view.getJSON(""));
+        assertEquals(2, view.size("order.items"));
+        assertEquals(5, view.size("order"));
+        assertEquals(0, view.size("order.items[1].tags"));
+        assertEquals(-1, view.size("order.id"));
+        assertEquals(-1, view.size("none"));
+    }
+
+    public void testSubView() {
+        JsonView items = JsonView.parse(JSON).getView("order.items");
+        assertEquals("S0", items.getString("[0].sku"));
+        assertEquals(2, items.size(""));
+        assertNull(JsonView.parse(JSON).getView("none"));
+
+        JsonView array = JsonView.parse("[[1,2],[3]]");
+        assertEquals("3", array.getString("[1][0]"));
+        assertEquals(2, array.size(""));
+    }
+
+    public void testInvalid() {
+        try {
+            JsonView.parse("{\"a\":1,}");
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+        JsonView view = JsonView.parse(JSON);
+        String[] paths = { "order.items[", "order.items[]", "order.items[x]" };
+        for (String path : paths) {
+            try {
+                view.get(path);
+                fail(path);
+            } catch (IllegalArgumentException e) {
+                // 期望
+            }
+        }
+    }
+}
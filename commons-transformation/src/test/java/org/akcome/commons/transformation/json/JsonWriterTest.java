@@ -0,0 +1,121 @@
+package org.akcome.commons.transformation.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * JsonWriter的测试
+ * @see 覆盖转义、数字格式、嵌套层数限制,以及字符串跨越缓冲区时写入Writer、OutputStream的结果
+ *
+ * @author peng_wang
+ */
+public class JsonWriterTest extends TestCase {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public void testEscapes() {
+        assertEquals("\"\\\"\\\\/\\b\\f\\n\\r\\t\\u0000\\u001f\\u2028\\u2029中\uD83D\uDE00\"",
+                write("\"\\/\b\f\n\r\t\u0000\u001f\u2028\u2029中\uD83D\uDE00"));
+    }
+
+    public void testStructure() {
+        JsonWriter writer = new JsonWriter();
+        writer.beginObject().name("a").beginArray().value(1).value(true).nullValue().endArray()
+                .name("b").beginObject().endObject().name("c").beginArray().endArray().endObject();
+        assertEquals("{\"a\":[1,true,null],\"b\":{},\"c\":[]}", writer.toString());
+        writer.release();
+    }
+
+    public void testNumbers() {
+        JsonWriter writer = new JsonWriter();
+        writer.beginArray().value(0L).value(-1L).value(Long.MIN_VALUE).value(Long.MAX_VALUE)
+                .value(2.0).value(2.5).value(-0.0).value(1e7).value(1e20).number("1.10").endArray();
+        assertEquals("[0,-1,-9223372036854775808,9223372036854775807,2,2.5,-0.0,1.0E7,1.0E20,1.10]",
+                writer.toString());
+        writer.release();
+    }
+
+    public void testNonFiniteRejected() {
+        double[] values = { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (double value : values) {
+            JsonWriter writer = new JsonWriter();
+            try {
+                writer.value(value);
+                fail(String.valueOf(value));
+            } catch (JsonException e) {
+                // 期望
+            } finally {
+                writer.release();
+            }
+        }
+    }
+
+    public void testDepthLimit() {
+        List<Object> root = new ArrayList<Object>();
+        root.add(root);
+        try {
+            new StreamingJsonEngine().toJSONString(root);
+            fail();
+        } catch (JsonException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("循环引用") >= 0);
+        }
+        // 异常后线程的缓冲区仍可使用
+        assertEquals("[1]", new StreamingJsonEngine().toJSONString(Arrays.asList(1)));
+    }
+
+    /**
+     * 代理对、多字节字符恰好落在缓冲区边界的前后,写出的字节须与String.getBytes一致
+     */
+    public void testSurrogatesAcrossFlushBoundary() {
+        StreamingJsonEngine engine = new StreamingJsonEngine();
+        for (int padding = 8180; padding < 8200; padding++) {
+            for (String tail : new String[] { "\uD83D\uDE00", "中", "é", " ", "\"" }) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < padding; i++) {
+                    sb.append('a');
+                }
+                sb.append(tail).append(tail).append("z");
+                List<String> value = Arrays.asList(sb.toString(), tail);
+                String expected = engine.toJSONString(value);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                engine.write(value, bytes);
+                assertTrue("padding " + padding + " " + tail,
+                        Arrays.equals(expected.getBytes(UTF_8), bytes.toByteArray()));
+
+                StringWriter chars = new StringWriter();
+                engine.write(value, chars);
+                assertEquals(expected, chars.toString());
+            }
+        }
+    }
+
+    public void testLongStringToStream() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            sb.append(i % 3 == 0 ? "\uD83D\uDE00" : i % 3 == 1 ? "中\n" : "x");
+        }
+        String expected = write(sb.toString());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(bytes);
+        writer.value(sb.toString());
+        writer.flush();
+        writer.release();
+        assertEquals(expected, new String(bytes.toByteArray(), UTF_8));
+        assertEquals(sb.toString(), new JsonReader(expected).nextString());
+    }
+
+    private static String write(String value) {
+        JsonWriter writer = new JsonWriter();
+        try {
+            return writer.value(value).toString();
+        } finally {
+            writer.release();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package org.akcome.commons.transformation.json;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.json.JSONObject;
+
+/**
+ * StreamingJsonEngine的测试
+ * @see 除往返转换外,逐条验证类注释中与json-lib不同的行为:null属性、Date为毫秒数、严格解析、属性按名称排序
+ *
+ * @author peng_wang
+ */
+public class StreamingJsonEngineTest extends TestCase {
+    private final StreamingJsonEngine engine = new StreamingJsonEngine();
+    private final JsonLibEngine jsonLib = new JsonLibEngine();
+
+    public void testBeanRoundTrip() {
+        Order order = newOrder();
+        String json = engine.toJSONString(order);
+        Order back = engine.toBean(json, Order.class, null);
+
+        assertEquals(order.getId(), back.getId());
+        assertEquals(order.getName(), back.getName());
+        assertEquals(order.getCreateTime(), back.getCreateTime());
+        assertEquals(order.getAmount(), back.getAmount());
+        assertEquals(order.isPaid(), back.isPaid());
+        assertEquals(Status.SHIPPED, back.getStatus());
+        assertEquals(order.getTags(), back.getTags());
+        assertTrue(Arrays.equals(order.getCodes(), back.getCodes()));
+        assertEquals(2, back.getItems().size());
+        assertEquals(Item.class, back.getItems().get(0).getClass());
+        assertEquals("S1", back.getItems().get(1).getSku());
+        assertEquals(19.8, back.getItems().get(1).getPrice(), 0);
+        assertEquals(json, engine.toJSONString(back));
+    }
+
+    public void testPropertiesSortedByName() {
+        Item item = new Item();
+        item.setSku("S0");
+        item.setQuantity(2);
+        item.setPrice(9.9);
+        assertEquals("{\"price\":9.9,\"quantity\":2,\"sku\":\"S0\"}", engine.toJSONString(item));
+        // 属性不为null时与json-lib的结果一致
+        assertEquals(jsonLib.toJSONString(item), engine.toJSONString(item));
+    }
+
+    public void testNullPropertiesWrittenAsNull() {
+        Order order = new Order();
+        String json = engine.toJSONString(order);
+        assertTrue(json, json.indexOf("\"name\":null") >= 0);
+        assertTrue(json, json.indexOf("\"remarks\":null") >= 0);
+        assertTrue(json, json.indexOf("\"createTime\":null") >= 0);
+        // json-lib将null字符串写为"",null集合写为[]
+        JSONObject legacy = JSONObject.fromObject(jsonLib.toJSONString(order));
+        assertEquals("", legacy.get("name"));
+        assertEquals(0, legacy.getJSONArray("remarks").size());
+
+        Order back = engine.toBean(json, Order.class, null);
+        assertNull(back.getName());
+        assertNull(back.getRemarks());
+        assertNull(back.getCreateTime());
+    }
+
+    public void testDateAsMillis() {
+        Order order = new Order();
+        order.setCreateTime(new Date(1448418600000L));
+        assertTrue(engine.toJSONString(order).indexOf("\"createTime\":1448418600000") >= 0);
+        // json-lib将Date展开为对象
+        assertTrue(JSONObject.fromObject(jsonLib.toJSONString(order)).get("createTime") instanceof JSONObject);
+
+        assertEquals(new Date(1448418600000L),
+                engine.toBean("{\"createTime\":1448418600000}", Order.class, null).getCreateTime());
+        assertEquals(new Date(1448418600000L),
+                engine.toBean("{\"createTime\":\"1448418600000\"}", Order.class, null).getCreateTime());
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2015, Calendar.NOVEMBER, 25, 10, 30, 0);
+        assertEquals(calendar.getTime(),
+                engine.toBean("{\"createTime\":\"2015-11-25 10:30:00\"}", Order.class, null).getCreateTime());
+        assertEquals("[" + calendar.getTimeInMillis() + "]", engine.toJSONString(Arrays.asList(calendar)));
+
+        Timestamp timestamp = (Timestamp) engine.read(new JsonReader("1448418600000"), Timestamp.class);
+        assertEquals(1448418600000L, timestamp.getTime());
+        try {
+            engine.toBean("{\"createTime\":\"不是日期\"}", Order.class, null);
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    public void testStrictParsing() {
+        String lenient = "{'sku':'S0',quantity:2}";
+        // json-lib容许单引号和无引号属性名
+        assertEquals("S0", jsonLib.toBean(lenient, Item.class, null).getSku());
+        try {
+            engine.toBean(lenient, Item.class, null);
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+        try {
+            engine.parse("{\"sku\":\"S0\"} trailing");
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    public void testConversions() {
+        Item item = engine.toBean("{\"sku\":12,\"quantity\":\" 3 \",\"price\":\"1.5\",\"unknown\":{\"x\":[1]}}",
+                Item.class, null);
+        assertEquals("12", item.getSku());
+        assertEquals(3, item.getQuantity());
+        assertEquals(1.5, item.getPrice(), 0);
+
+        // 基本类型属性遇到null或空字符串时保持默认值
+        item = engine.toBean("{\"quantity\":null,\"price\":\"\"}", Item.class, null);
+        assertEquals(0, item.getQuantity());
+        assertEquals(0.0, item.getPrice(), 0);
+
+        Order order = engine.toBean("{\"amount\":0.1000,\"paid\":\"true\",\"status\":\"CREATED\",\"codes\":[1,\"2\"]}",
+                Order.class, null);
+        assertEquals(new BigDecimal("0.1000"), order.getAmount());
+        assertTrue(order.isPaid());
+        assertEquals(Status.CREATED, order.getStatus());
+        assertTrue(Arrays.equals(new int[] { 1, 2 }, order.getCodes()));
+
+        String[] invalid = {
+            "{\"quantity\":3000000000}",
+            "{\"quantity\":1.5}",
+            "{\"quantity\":[1]}",
+            "{\"sku\":true,\"quantity\":\"x\"}",
+        };
+        for (String json : invalid) {
+            try {
+                engine.toBean(json, Item.class, null);
+                fail(json);
+            } catch (JsonException e) {
+                // 期望
+            }
+        }
+        try {
+            engine.toBean("{\"codes\":[1,null]}", Order.class, null);
+            fail();
+        } catch (JsonException e) {
+            // 期望
+        }
+    }
+
+    public void testDetailClasses() {
+        String json = "{\"id\":1,\"remarks\":[{\"sku\":\"S0\",\"quantity\":1}]}";
+        Order plain = engine.toBean(json, Order.class, null);
+        assertTrue(plain.getRemarks().get(0) instanceof Map);
+
+        Map<String, Class<?>> detailClasses = new HashMap<String, Class<?>>();
+        detailClasses.put("remarks", Item.class);
+        Order order = engine.toBean(json, Order.class, detailClasses);
+        Order legacy = jsonLib.toBean(json, Order.class, detailClasses);
+        assertEquals(Item.class, order.getRemarks().get(0).getClass());
+        assertEquals(legacy.getRemarks().get(0).getClass(), order.getRemarks().get(0).getClass());
+        assertEquals("S0", ((Item) order.getRemarks().get(0)).getSku());
+    }
+
+    public void testParseAndToList() {
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("a", Arrays.<Object> asList(1, "中", null));
+        assertEquals(expected, engine.parse("{\"a\":[1,\"\\u4e2d\",null]}"));
+        assertNull(engine.parse("null"));
+
+        List<Item> items = engine.toList("[{\"sku\":\"S0\"},null,{\"sku\":\"S1\"}]", Item.class);
+        assertEquals(3, items.size());
+        assertEquals("S0", items.get(0).getSku());
+        assertNull(items.get(1));
+        assertEquals("S1", items.get(2).getSku());
+        assertTrue(engine.toList("null", Item.class).isEmpty());
+
+        // 单个对象与json-lib一样视为只有一个元素的数组
+        for (JsonEngine e : new JsonEngine[] { engine, jsonLib }) {
+            List<Item> single = e.toList("{\"sku\":\"q\"}", Item.class);
+            assertEquals(1, single.size());
+            assertEquals("q", single.get(0).getSku());
+        }
+    }
+
+    public void testNumbers() {
+        List<Object> values = new ArrayList<Object>();
+        values.add(1);
+        values.add(2L);
+        values.add(1.5);
+        values.add(2.0);
+        values.add(0.1f);
+        values.add(3.0f);
+        values.add(new BigDecimal("1.10"));
+        values.add(new java.util.concurrent.atomic.AtomicLong(7));
+        values.add('c');
+        values.add(Status.CREATED);
+        assertEquals("[1,2,1.5,2,0.1,3,1.10,7,\"c\",\"CREATED\"]", engine.toJSONString(values));
+    }
+
+    private static Order newOrder() {
+        Order order = new Order();
+        order.setId(10086L);
+        order.setName("张三<\"x\"\n\u2028\uD83D\uDE00");
+        order.setCreateTime(new Date(1448418600123L));
+        order.setAmount(new BigDecimal("12345678901234567890.01"));
+        order.setPaid(true);
+        order.setStatus(Status.SHIPPED);
+        Map<String, Integer> tags = new LinkedHashMap<String, Integer>();
+        tags.put("b", 2);
+        tags.put("a", 1);
+        order.setTags(tags);
+        order.setCodes(new int[] { 3, 1, 2 });
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 2; i++) {
+            Item item = new Item();
+            item.setSku("S" + i);
+            item.setQuantity(i + 1);
+            item.setPrice(9.9 * (i + 1));
+            items.add(item);
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    public enum Status {
+        CREATED, SHIPPED
+    }
+
+    public static class Item {
+        private String sku;
+        private int quantity;
+        private double price;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+    }
+
+    public static class Order {
+        private long id;
+        private String name;
+        private String remark;
+        private Date createTime;
+        private BigDecimal amount;
+        private boolean paid;
+        private Status status;
+        private List<Item> items;
+        private List remarks;
+        private Map<String, Integer> tags;
+        private int[] codes;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        public Date getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Date createTime) {
+            this.createTime = createTime;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public boolean isPaid() {
+            return paid;
+        }
+
+        public void setPaid(boolean paid) {
+            this.paid = paid;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+
+        public List getRemarks() {
+            return remarks;
+        }
+
+        public void setRemarks(List remarks) {
+            this.remarks = remarks;
+        }
+
+        public Map<String, Integer> getTags() {
+            return tags;
+        }
+
+        public void setTags(Map<String, Integer> tags) {
+            this.tags = tags;
+        }
+
+        public int[] getCodes() {
+            return codes;
+        }
+
+        public void setCodes(int[] codes) {
+            this.codes = codes;
+        }
+    }
+}
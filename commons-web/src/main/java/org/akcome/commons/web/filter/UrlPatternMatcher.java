@@ -0,0 +1,128 @@
+package org.akcome.commons.web.filter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 按Servlet规范的url-pattern匹配请求路径
+ * @see 支持精确匹配(/health)、前缀匹配(/static/*、/*)、扩展名匹配(*.js)及默认匹配(/)
+ * @see 多个url-pattern都匹配时按Servlet规范的顺序选择:精确匹配、最长的前缀匹配、扩展名匹配、默认匹配
+ * @see 创建时按类型编译,精确匹配为哈希查找,前缀与扩展名匹配逐个比较,匹配时不创建对象
+ * @author peng_wang
+ */
+public final class UrlPatternMatcher {
+	private final Set<String> exactPaths = new HashSet<String>();
+	/** 前缀,不含末尾的/*,如/static,按长度从长到短排列 */
+	private final String[] prefixes;
+	/** 与prefixes对应的url-pattern */
+	private final String[] prefixPatterns;
+	/** 含点的扩展名,如.js */
+	private final String[] suffixes;
+	/** 与suffixes对应的url-pattern */
+	private final String[] suffixPatterns;
+	/** 默认匹配的url-pattern,没有时为null */
+	private final String defaultPattern;
+
+	/**
+	 * @param patterns
+	 *            以逗号、空白分隔的url-pattern,为空时不匹配任何路径
+	 * @throws IllegalArgumentException
+	 *             url-pattern无效
+	 */
+	public UrlPatternMatcher(String patterns) {
+		String fallback = null;
+		List<String> prefixList = new ArrayList<String>();
+		List<String> suffixList = new ArrayList<String>();
+		if (patterns != null) {
+			for (String pattern : patterns.split("[,\\s]+")) {
+				if (pattern.isEmpty()) {
+					continue;
+				}
+				if ("/".equals(pattern)) {
+					fallback = pattern;
+				} else if (pattern.startsWith("*.")) {
+					suffixList.add(pattern);
+				} else if (pattern.startsWith("/") && pattern.endsWith("/*")) {
+					prefixList.add(pattern);
+				} else if (pattern.startsWith("/") && pattern.indexOf('*') < 0) {
+					exactPaths.add(pattern);
+				} else {
+					throw new IllegalArgumentException("无效的url-pattern:" + pattern);
+				}
+			}
+		}
+		Collections.sort(prefixList, new Comparator<String>() {
+			public int compare(String a, String b) {
+				return b.length() - a.length();
+			}
+		});
+		defaultPattern = fallback;
+		prefixPatterns = prefixList.toArray(new String[prefixList.size()]);
+		prefixes = new String[prefixPatterns.length];
+		for (int i = 0; i < prefixes.length; i++) {
+			prefixes[i] = prefixPatterns[i].substring(0, prefixPatterns[i].length() - 2);
+		}
+		suffixPatterns = suffixList.toArray(new String[suffixList.size()]);
+		suffixes = new String[suffixPatterns.length];
+		for (int i = 0; i < suffixes.length; i++) {
+			suffixes[i] = suffixPatterns[i].substring(1);
+		}
+	}
+
+	/**
+	 * 路径是否匹配
+	 *
+	 * @param path
+	 *            去掉上下文路径的请求路径,如/static/app.js,见getPath
+	 */
+	public boolean matches(String path) {
+		return match(path) != null;
+	}
+
+	/**
+	 * 获取匹配路径的url-pattern
+	 *
+	 * @param path
+	 *            去掉上下文路径的请求路径,如/static/app.js,见getPath
+	 * @return 按Servlet规范优先的url-pattern,不匹配时返回null
+	 */
+	public String match(String path) {
+		if (exactPaths.contains(path)) {
+			return path;
+		}
+		for (int i = 0; i < prefixes.length; i++) {
+			String prefix = prefixes[i];
+			// /static/*匹配/static及/static/下的路径
+			if (path.startsWith(prefix)
+					&& (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+				return prefixPatterns[i];
+			}
+		}
+		for (int i = 0; i < suffixes.length; i++) {
+			if (path.endsWith(suffixes[i])) {
+				return suffixPatterns[i];
+			}
+		}
+		return defaultPattern;
+	}
+
+	/**
+	 * 去掉上下文路径的请求路径,即getServletPath()与getPathInfo()的拼接
+	 * @see 取容器解码并规范化后的路径,与容器按url-pattern映射Servlet时使用的路径一致;
+	 *      不使用getRequestURI(),其中未解码的%2e%2e、..及;参数会使匹配结果与实际处理请求的Servlet不符
+	 */
+	public static String getPath(HttpServletRequest request) {
+		String servletPath = request.getServletPath();
+		String pathInfo = request.getPathInfo();
+		if (servletPath == null) {
+			servletPath = "";
+		}
+		return pathInfo == null ? servletPath : servletPath + pathInfo;
+	}
+}
@@ -0,0 +1,92 @@
+package org.akcome.commons.web.filter;
+
+/**
+ * xss过滤的编码方式
+ * @see 只处理 &gt; &lt; ' " &amp; \ # 七个半角字符,没有需要替换的字符时返回原字符串
+ * @author peng_wang
+ */
+public enum XssEncodePolicy {
+	/** 替换成全角字符,默认方式 */
+	FULL_WIDTH(new String[] { ">", "＞", "<", "＜", "'", "‘", "\"", "“", "&", "＆", "\\", "＼", "#", "＃" }),
+	/** 替换成HTML实体 */
+	HTML_ENTITY(new String[] { ">", "&gt;", "<", "&lt;", "'", "&#39;", "\"", "&quot;", "&", "&amp;", "\\",
+			"&#92;", "#", "&#35;" });
+
+	/** 替换后的字符串,下标为半角字符,null表示不替换 */
+	private final String[] replacements = new String[128];
+
+	private XssEncodePolicy(String[] pairs) {
+		for (int i = 0; i < pairs.length; i += 2) {
+			replacements[pairs[i].charAt(0)] = pairs[i + 1];
+		}
+	}
+
+	/**
+	 * 按名称获取编码方式,忽略大小写
+	 *
+	 * @param name
+	 *            名称,为空时返回FULL_WIDTH
+	 * @throws IllegalArgumentException
+	 *             名称无效
+	 */
+	public static XssEncodePolicy of(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return FULL_WIDTH;
+		}
+		for (XssEncodePolicy policy : values()) {
+			if (policy.name().equalsIgnoreCase(name.trim())) {
+				return policy;
+			}
+		}
+		throw new IllegalArgumentException("无效的xss编码方式:" + name);
+	}
+
+	/**
+	 * 是否为需要替换的字符
+	 */
+	public boolean needsEncode(char c) {
+		return c < replacements.length && replacements[c] != null;
+	}
+
+	/**
+	 * 替换字符串中容易引起xss漏洞的字符
+	 *
+	 * @param s
+	 *            字符串
+	 * @return 替换后的字符串,没有需要替换的字符时为原字符串
+	 */
+	public String encode(String s) {
+		if (s == null) {
+			return s;
+		}
+		int length = s.length();
+		int i = 0;
+		while (i < length && !needsEncode(s.charAt(i))) {
+			i++;
+		}
+		if (i == length) {
+			return s;
+		}
+		StringBuilder sb = new StringBuilder(length + 16);
+		sb.append(s, 0, i);
+		for (; i < length; i++) {
+			char c = s.charAt(i);
+			if (needsEncode(c)) {
+				sb.append(replacements[c]);
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 替换后的字符串
+	 *
+	 * @param c
+	 *            需要替换的字符,见needsEncode
+	 */
+	String replacement(char c) {
+		return replacements[c];
+	}
+}
@@ -12,33 +12,105 @@ import javax.servlet.http.HttpServletRequest;
 
 /**
  * 编写定制的XssFilter，将request请求代理，
- * 覆盖getParameter和getHeader方法将参数名和参数值里的指定半角字符，
+ * 覆盖getParameter、getParameterValues、getParameterMap、getParameterNames和getHeader方法将参数名和参数值里的指定半角字符，
  * 强制替换成全角字符。使得在业务层的处理时不用担心会有异常输入内容
- * 
+ *
  * 使用方式 ：web.xml 加入
- *  <filter>  
-		<filter-name>xssFilter</filter-name>  
-		<filter-class>filter.XssFilter</filter-class>  
-	</filter>  
-	<filter-mapping>  
-		<filter-name>xssFilter</filter-name>  
-		<url-pattern>/*</url-pattern>  
-	</filter-mapping>  
+ *  <filter>
+		<filter-name>xssFilter</filter-name>
+		<filter-class>filter.XssFilter</filter-class>
+		<!-- 以下参数均可省略 -->
+		<init-param>
+			<param-name>includePatterns</param-name>
+			<param-value>/*</param-value>
+		</init-param>
+		<init-param>
+			<param-name>excludePatterns</param-name>
+			<param-value>/static/*,*.js,*.css,/health</param-value>
+		</init-param>
+		<init-param>
+			<param-name>excludeContentTypes</param-name>
+			<param-value>multipart/,application/octet-stream</param-value>
+		</init-param>
+		<init-param>
+			<param-name>encodePolicy</param-name>
+			<param-value>FULL_WIDTH</param-value>
+		</init-param>
+		<init-param>
+			<param-name>sanitizeBody</param-name>
+			<param-value>false</param-value>
+		</init-param>
+	</filter>
+	<filter-mapping>
+		<filter-name>xssFilter</filter-name>
+		<url-pattern>/*</url-pattern>
+	</filter-mapping>
+ *
+ * includePatterns、excludePatterns为以逗号分隔的url-pattern，按容器解码后的getServletPath()+getPathInfo()匹配，
+ * 与容器映射Servlet使用的路径一致，请求URI中的;参数、..及%2e%2e不影响匹配；
+ * includePatterns默认为/*；excludeContentTypes为以逗号分隔的Content-Type前缀，忽略大小写；
+ * encodePolicy为FULL_WIDTH(全角字符，默认)或HTML_ENTITY(HTML实体)；
+ * sanitizeBody为true时边读取边过滤JSON及text/plain请求体，JSON只过滤字符串中的字符，默认false。
+ * 未包含、被排除的请求不做包装，直接交给后续处理
  * @author peng_wang
- * @date 2015年11月26日 
+ * @date 2015年11月26日
  *
  */
 public class XssFilter implements Filter {
+	private UrlPatternMatcher includes = new UrlPatternMatcher("/*");
+	private UrlPatternMatcher excludes = new UrlPatternMatcher(null);
+	private String[] excludeContentTypes = new String[0];
+	private XssEncodePolicy policy = XssEncodePolicy.FULL_WIDTH;
+	private boolean sanitizeBody;
+
 	public void init(FilterConfig config) throws ServletException {
+		try {
+			String includePatterns = config.getInitParameter("includePatterns");
+			if (includePatterns != null) {
+				includes = new UrlPatternMatcher(includePatterns);
+			}
+			excludes = new UrlPatternMatcher(config.getInitParameter("excludePatterns"));
+			String contentTypes = config.getInitParameter("excludeContentTypes");
+			if (contentTypes != null && !contentTypes.trim().isEmpty()) {
+				excludeContentTypes = contentTypes.trim().split("\\s*,\\s*");
+			}
+			policy = XssEncodePolicy.of(config.getInitParameter("encodePolicy"));
+			sanitizeBody = Boolean.parseBoolean(config.getInitParameter("sanitizeBody"));
+		} catch (IllegalArgumentException e) {
+			throw new ServletException("XssFilter配置错误:" + e.getMessage(), e);
+		}
 	}
-	
+
 	public void doFilter(ServletRequest request, ServletResponse response,
 			FilterChain chain) throws IOException, ServletException {
+		if (!(request instanceof HttpServletRequest) || isBypassed((HttpServletRequest) request)) {
+			chain.doFilter(request, response);
+			return;
+		}
 		XssHttpServletRequestWrapper xssRequest = new XssHttpServletRequestWrapper(
-				(HttpServletRequest) request);
+				(HttpServletRequest) request, policy, sanitizeBody);
 		chain.doFilter(xssRequest, response);
 	}
 
+	/**
+	 * 请求是否不需要包装：路径未包含或被排除，或Content-Type被排除
+	 */
+	private boolean isBypassed(HttpServletRequest request) {
+		String path = UrlPatternMatcher.getPath(request);
+		if (!includes.matches(path) || excludes.matches(path)) {
+			return true;
+		}
+		String contentType = request.getContentType();
+		if (contentType != null) {
+			for (String excluded : excludeContentTypes) {
+				if (contentType.regionMatches(true, 0, excluded, 0, excluded.length())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	public void destroy() {
 	}
 }
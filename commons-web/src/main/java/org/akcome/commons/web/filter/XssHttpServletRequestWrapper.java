@@ -1,28 +1,121 @@
 package org.akcome.commons.web.filter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 
 public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
+	private static final int BODY_NONE = 0;
+	private static final int BODY_JSON = 1;
+	private static final int BODY_TEXT = 2;
+
 	HttpServletRequest orgRequest = null;
 
+	private final XssEncodePolicy policy;
+	/** 请求体的过滤方式,按Content-Type确定 */
+	private final int bodyMode;
+
+	private ServletInputStream inputStream;
+	private BufferedReader reader;
+
+	/** 过滤后的参数名与参数值,首次读取参数时创建 */
+	private Map<String, String[]> encodedParameterMap;
+
 	public XssHttpServletRequestWrapper(HttpServletRequest request) {
+		this(request, XssEncodePolicy.FULL_WIDTH);
+	}
+
+	public XssHttpServletRequestWrapper(HttpServletRequest request, XssEncodePolicy policy) {
+		this(request, policy, false);
+	}
+
+	/**
+	 * @param sanitizeBody
+	 *            是否过滤请求体。JSON(application/json及+json)只过滤字符串中的字符,text/plain过滤全部字符,
+	 *            其他类型不过滤;表单的请求体由容器解析为参数,已通过getParameter等方法过滤
+	 */
+	public XssHttpServletRequestWrapper(HttpServletRequest request, XssEncodePolicy policy, boolean sanitizeBody) {
 		super(request);
 		orgRequest = request;
+		this.policy = policy;
+		this.bodyMode = sanitizeBody ? getBodyMode(request.getContentType()) : BODY_NONE;
 	}
 
 	/**
 	 * 覆盖getParameter方法，将参数名和参数值都做xss过滤。<br/>
 	 * 如果需要获得原始的值，则通过super.getParameterValues(name)来获取<br/>
-	 * getParameterNames,getParameterValues和getParameterMap也可能需要覆盖
+	 * 过滤结果在首次读取参数时计算一次,之后的读取直接返回
 	 */
 	@Override
 	public String getParameter(String name) {
-		String value = super.getParameter(xssEncode(name));
-		if (value != null) {
-			value = xssEncode(value);
+		String[] values = getEncodedValues(name);
+		return values == null || values.length == 0 ? null : values[0];
+	}
+
+	/**
+	 * 覆盖getParameterValues方法，将参数名和参数值都做xss过滤。<br/>
+	 * 返回数组的副本,调用方修改不影响其他读取
+	 */
+	@Override
+	public String[] getParameterValues(String name) {
+		String[] values = getEncodedValues(name);
+		return values == null ? null : values.clone();
+	}
+
+	/**
+	 * 覆盖getParameterNames方法，返回过滤后的参数名
+	 */
+	@Override
+	public Enumeration<String> getParameterNames() {
+		return Collections.enumeration(getParameterMap().keySet());
+	}
+
+	/**
+	 * 覆盖getParameterMap方法，返回过滤后的参数名和参数值，不可修改<br/>
+	 * 一次性过滤全部参数,没有需要替换的字符时保留原数组;getParameter等方法均从中查找,
+	 * 过滤后同名的参数值按原顺序合并
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Map<String, String[]> getParameterMap() {
+		if (encodedParameterMap == null) {
+			Map<String, String[]> parameters = super.getParameterMap();
+			Map<String, String[]> map = new LinkedHashMap<String, String[]>(parameters.size() * 4 / 3 + 1);
+			for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+				String name = xssEncode(entry.getKey());
+				String[] values = xssEncode(entry.getValue());
+				String[] existing = map.get(name);
+				if (existing != null && values != null) {
+					String[] merged = new String[existing.length + values.length];
+					System.arraycopy(existing, 0, merged, 0, existing.length);
+					System.arraycopy(values, 0, merged, existing.length, values.length);
+					values = merged;
+				} else if (existing != null) {
+					values = existing;
+				}
+				map.put(name, values);
+			}
+			encodedParameterMap = Collections.unmodifiableMap(map);
 		}
-		return value;
+		return encodedParameterMap;
+	}
+
+	/**
+	 * 按参数名查找过滤后的参数值,参数名可以是getParameterNames返回的过滤后的名称,也可以是原始名称
+	 */
+	private String[] getEncodedValues(String name) {
+		Map<String, String[]> parameters = getParameterMap();
+		String[] values = parameters.get(name);
+		return values != null ? values : parameters.get(xssEncode(name));
 	}
 
 	/**
@@ -41,46 +134,99 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
 	}
 
 	/**
-	 * 将容易引起xss漏洞的半角字符直接替换成全角字符
+	 * 覆盖getInputStream方法，过滤请求体时边读取边替换，不缓存整个请求体
+	 */
+	@Override
+	public ServletInputStream getInputStream() throws IOException {
+		if (bodyMode == BODY_NONE) {
+			return super.getInputStream();
+		}
+		if (inputStream == null) {
+			Charset charset = getBodyCharset();
+			inputStream = new XssSanitizingInputStream(
+					new XssSanitizingReader(new InputStreamReader(super.getInputStream(), charset), policy,
+							bodyMode == BODY_JSON), charset);
+		}
+		return inputStream;
+	}
+
+	/**
+	 * 覆盖getReader方法，过滤请求体时边读取边替换，不缓存整个请求体
+	 */
+	@Override
+	public BufferedReader getReader() throws IOException {
+		if (bodyMode == BODY_NONE) {
+			return super.getReader();
+		}
+		if (reader == null) {
+			reader = new BufferedReader(new XssSanitizingReader(super.getReader(), policy, bodyMode == BODY_JSON));
+		}
+		return reader;
+	}
+
+	/**
+	 * 过滤请求体时长度会变化，返回-1
+	 */
+	@Override
+	public int getContentLength() {
+		return bodyMode == BODY_NONE ? super.getContentLength() : -1;
+	}
+
+	private static int getBodyMode(String contentType) {
+		if (contentType == null) {
+			return BODY_NONE;
+		}
+		int end = contentType.indexOf(';');
+		String mimeType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase();
+		if (mimeType.equals("application/json") || mimeType.endsWith("+json")) {
+			return BODY_JSON;
+		}
+		if (mimeType.equals("text/plain")) {
+			return BODY_TEXT;
+		}
+		return BODY_NONE;
+	}
+
+	/**
+	 * 请求体的字符集,未指定时JSON为UTF-8,其他为ISO-8859-1
+	 */
+	private Charset getBodyCharset() {
+		String encoding = getCharacterEncoding();
+		if (encoding != null) {
+			return Charset.forName(encoding);
+		}
+		return Charset.forName(bodyMode == BODY_JSON ? "UTF-8" : "ISO-8859-1");
+	}
+
+	/**
+	 * 将容易引起xss漏洞的半角字符按编码方式替换,默认替换成全角字符
+	 * 没有需要替换的字符时返回原字符串
 	 * 
 	 * @param s
 	 * @return
 	 */
-	private static String xssEncode(String s) {
-		if (s == null || s.isEmpty()) {
-			return s;
+	private String xssEncode(String s) {
+		return policy.encode(s);
+	}
+
+	/**
+	 * 过滤参数值数组,没有需要替换的字符时返回原数组
+	 */
+	private String[] xssEncode(String[] values) {
+		if (values == null) {
+			return null;
 		}
-		StringBuilder sb = new StringBuilder(s.length() + 16);
-		for (int i = 0; i < s.length(); i++) {
-			char c = s.charAt(i);
-			switch (c) {
-			case '>':
-				sb.append('＞');// 全角大于号
-				break;
-			case '<':
-				sb.append('＜');// 全角小于号
-				break;
-			case '\'':
-				sb.append('‘');// 全角单引号
-				break;
-			case '\"':
-				sb.append('“');// 全角双引号
-				break;
-			case '&':
-				sb.append('＆');// 全角
-				break;
-			case '\\':
-				sb.append('＼');// 全角斜线
-				break;
-			case '#':
-				sb.append('＃');// 全角井号
-				break;
-			default:
-				sb.append(c);
-				break;
+		String[] encoded = values;
+		for (int i = 0; i < values.length; i++) {
+			String value = xssEncode(values[i]);
+			if (value != values[i]) {
+				if (encoded == values) {
+					encoded = values.clone();
+				}
+				encoded[i] = value;
 			}
 		}
-		return sb.toString();
+		return encoded;
 	}
 
 	/**
@@ -0,0 +1,97 @@
+package org.akcome.commons.web.filter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+import javax.servlet.ServletInputStream;
+
+/**
+ * 将XssSanitizingReader按字符集重新编码为字节的ServletInputStream
+ * @see 按块编码,字符与字节缓冲区大小固定,不缓存整个请求体
+ * @author peng_wang
+ */
+class XssSanitizingInputStream extends ServletInputStream {
+	private static final int BUFFER_SIZE = 4096;
+
+	private final Reader reader;
+	private final CharsetEncoder encoder;
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+	private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 4);
+	private boolean eof;
+	private boolean flushed;
+
+	XssSanitizingInputStream(Reader reader, Charset charset) {
+		this.reader = reader;
+		this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		chars.flip();
+		bytes.flip();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!bytes.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return bytes.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!bytes.hasRemaining() && !fill()) {
+			return -1;
+		}
+		int n = Math.min(len, bytes.remaining());
+		bytes.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return bytes.remaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	/**
+	 * 编码下一块字节
+	 *
+	 * @return 是否还有字节
+	 */
+	private boolean fill() throws IOException {
+		bytes.clear();
+		while (bytes.position() == 0 && !flushed) {
+			if (!eof) {
+				// 保留上一块未编码的字符(如被拆开的代理对)
+				chars.compact();
+				int n = reader.read(chars.array(), chars.position(), chars.remaining());
+				if (n < 0) {
+					eof = true;
+				} else {
+					chars.position(chars.position() + n);
+				}
+				chars.flip();
+			}
+			if (encoder.encode(chars, bytes, eof).isOverflow()) {
+				break;
+			}
+			if (eof) {
+				encoder.flush(bytes);
+				flushed = true;
+			}
+		}
+		bytes.flip();
+		return bytes.hasRemaining();
+	}
+}
@@ -0,0 +1,222 @@
+package org.akcome.commons.web.filter;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 边读取边替换容易引起xss漏洞的字符的Reader
+ * @see 按块读取被包装的Reader,每块替换后输出,不缓存整个请求体
+ * @see JSON模式只替换字符串(含属性名)中的字符,结构中的引号、反斜线不变;转义的\"、\\及\\uXXXX形式的特殊字符同样替换,
+ *      其他转义保持原样。替换后的内容不含引号与反斜线,替换结果仍是合法的JSON
+ * @see 文本模式替换全部特殊字符
+ * @author peng_wang
+ */
+public class XssSanitizingReader extends Reader {
+	private static final int CHUNK_SIZE = 4096;
+
+	private static final int OUTSIDE = 0;
+	private static final int STRING = 1;
+	private static final int ESCAPE = 2;
+	private static final int UNICODE = 3;
+
+	private final Reader in;
+	private final XssEncodePolicy policy;
+	private final boolean json;
+
+	private final char[] input = new char[CHUNK_SIZE];
+	/** 替换后等待输出的内容 */
+	private char[] output = new char[CHUNK_SIZE * 2];
+	private int outputPos;
+	private int outputLength;
+	private boolean eof;
+
+	/** JSON模式的状态,跨块保持 */
+	private int state = OUTSIDE;
+	/** \\uXXXX转义已读取的十六进制字符及其值 */
+	private final char[] hex = new char[4];
+	private int hexDigits;
+	private int hexValue;
+
+	/**
+	 * @param in
+	 *            被包装的Reader
+	 * @param policy
+	 *            编码方式
+	 * @param json
+	 *            是否按JSON只替换字符串中的字符
+	 */
+	public XssSanitizingReader(Reader in, XssEncodePolicy policy, boolean json) {
+		this.in = in;
+		this.policy = policy;
+		this.json = json;
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (outputPos == outputLength) {
+			if (eof) {
+				return -1;
+			}
+			fill();
+		}
+		int n = Math.min(len, outputLength - outputPos);
+		System.arraycopy(output, outputPos, cbuf, off, n);
+		outputPos += n;
+		return n;
+	}
+
+	@Override
+	public int read() throws IOException {
+		while (outputPos == outputLength) {
+			if (eof) {
+				return -1;
+			}
+			fill();
+		}
+		return output[outputPos++];
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		return outputPos < outputLength || in.ready();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * 读取一块并替换
+	 */
+	private void fill() throws IOException {
+		outputPos = 0;
+		outputLength = 0;
+		int n = in.read(input, 0, input.length);
+		if (n < 0) {
+			eof = true;
+			// 不完整的\\uXXXX转义原样输出
+			if (state == UNICODE) {
+				appendUnicodeEscape();
+			} else if (state == ESCAPE) {
+				append('\\');
+			}
+			state = OUTSIDE;
+			return;
+		}
+		for (int i = 0; i < n; i++) {
+			char c = input[i];
+			if (json) {
+				process(c);
+			} else if (policy.needsEncode(c)) {
+				append(policy.replacement(c));
+			} else {
+				append(c);
+			}
+		}
+	}
+
+	/**
+	 * 按JSON状态处理一个字符
+	 */
+	private void process(char c) {
+		switch (state) {
+		case OUTSIDE:
+			append(c);
+			if (c == '"') {
+				state = STRING;
+			}
+			break;
+		case STRING:
+			if (c == '"') {
+				append(c);
+				state = OUTSIDE;
+			} else if (c == '\\') {
+				state = ESCAPE;
+			} else if (policy.needsEncode(c)) {
+				append(policy.replacement(c));
+			} else {
+				append(c);
+			}
+			break;
+		case ESCAPE:
+			if (c == 'u') {
+				hexDigits = 0;
+				hexValue = 0;
+				state = UNICODE;
+				break;
+			}
+			if (c == '"' || c == '\\') {
+				append(policy.replacement(c));
+			} else {
+				append('\\');
+				append(c);
+			}
+			state = STRING;
+			break;
+		default:
+			int digit = hexDigit(c);
+			if (digit < 0) {
+				// 无效的转义原样输出,当前字符按字符串内容处理
+				appendUnicodeEscape();
+				state = STRING;
+				process(c);
+				break;
+			}
+			hex[hexDigits++] = c;
+			hexValue = hexValue * 16 + digit;
+			if (hexDigits == 4) {
+				char decoded = (char) hexValue;
+				if (policy.needsEncode(decoded)) {
+					append(policy.replacement(decoded));
+				} else {
+					appendUnicodeEscape();
+				}
+				state = STRING;
+			}
+			break;
+		}
+	}
+
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return -1;
+	}
+
+	/**
+	 * 输出已读取部分的\\uXXXX转义
+	 */
+	private void appendUnicodeEscape() {
+		append('\\');
+		append('u');
+		for (int i = 0; i < hexDigits; i++) {
+			append(hex[i]);
+		}
+	}
+
+	private void append(char c) {
+		if (outputLength == output.length) {
+			char[] grown = new char[output.length * 2];
+			System.arraycopy(output, 0, grown, 0, outputLength);
+			output = grown;
+		}
+		output[outputLength++] = c;
+	}
+
+	private void append(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			append(s.charAt(i));
+		}
+	}
+}
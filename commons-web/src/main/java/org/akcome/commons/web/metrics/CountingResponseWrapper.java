@@ -0,0 +1,138 @@
+package org.akcome.commons.web.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * 记录响应状态码与正文大小的HttpServletResponse
+ * @see 通过getOutputStream输出的部分按字节数计算,通过getWriter输出的部分按字符数计算
+ * @author peng_wang
+ */
+class CountingResponseWrapper extends HttpServletResponseWrapper {
+	private int status = SC_OK;
+	private long count;
+	private ServletOutputStream outputStream;
+	private PrintWriter writer;
+
+	CountingResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		status = sc;
+		super.setStatus(sc);
+	}
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void setStatus(int sc, String sm) {
+		status = sc;
+		super.setStatus(sc, sm);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		status = sc;
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		status = sc;
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		status = SC_MOVED_TEMPORARILY;
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (outputStream == null) {
+			final ServletOutputStream out = super.getOutputStream();
+			outputStream = new ServletOutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+					count++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+					count += len;
+				}
+
+				@Override
+				public void flush() throws IOException {
+					out.flush();
+				}
+
+				@Override
+				public void close() throws IOException {
+					out.close();
+				}
+			};
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			final PrintWriter out = super.getWriter();
+			writer = new PrintWriter(new Writer() {
+				@Override
+				public void write(int c) {
+					out.write(c);
+					count++;
+				}
+
+				@Override
+				public void write(char[] cbuf, int off, int len) {
+					out.write(cbuf, off, len);
+					count += len;
+				}
+
+				@Override
+				public void write(String str, int off, int len) {
+					out.write(str, off, len);
+					count += len;
+				}
+
+				@Override
+				public void flush() {
+					out.flush();
+				}
+
+				@Override
+				public void close() {
+					out.close();
+				}
+			});
+		}
+		return writer;
+	}
+
+	/**
+	 * 响应状态码,未设置时为200
+	 */
+	int getStatus() {
+		return status;
+	}
+
+	/**
+	 * 已输出的正文大小
+	 */
+	long getCount() {
+		return count;
+	}
+}
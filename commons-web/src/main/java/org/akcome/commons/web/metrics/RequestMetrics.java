@@ -0,0 +1,137 @@
+package org.akcome.commons.web.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.akcome.commons.metrics.LatencyHistogram;
+
+/**
+ * 在内存中按url-pattern与HTTP方法累计请求指标
+ * @see 计数器为LongAdder,记录操作无锁;调用<code>reset()</code>清零,正在处理的请求数不清零
+ * @see <code>toText()</code>输出每行一个指标的文本,便于监控系统采集
+ * @author peng_wang
+ */
+public class RequestMetrics {
+	private final ConcurrentMap<String, RequestStats> requestStats = new ConcurrentHashMap<String, RequestStats>();
+
+	/**
+	 * 请求开始,增加正在处理的请求数
+	 *
+	 * @return 请求结束时传给<code>recordEnd</code>的统计对象
+	 */
+	RequestStats recordStart(String pattern, String method) {
+		RequestStats stats = getStats(pattern, method);
+		stats.inFlight.increment();
+		return stats;
+	}
+
+	/**
+	 * 请求结束
+	 *
+	 * @param stats
+	 *            <code>recordStart</code>的返回值
+	 * @param status
+	 *            响应状态码,抛出异常时为500
+	 */
+	void recordEnd(RequestStats stats, int status, long latencyNanos, long bytesOut) {
+		stats.inFlight.decrement();
+		stats.count.increment();
+		if (status >= 500) {
+			stats.serverErrors.increment();
+		} else if (status >= 400) {
+			stats.clientErrors.increment();
+		}
+		stats.bytesOut.add(bytesOut);
+		stats.latency.recordNanos(latencyNanos);
+	}
+
+	private RequestStats getStats(String pattern, String method) {
+		String key = pattern + " " + method;
+		RequestStats stats = requestStats.get(key);
+		if (stats == null) {
+			RequestStats created = new RequestStats(pattern, method);
+			stats = requestStats.putIfAbsent(key, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * 获取各url-pattern、各HTTP方法的请求统计快照,按url-pattern、方法排序
+	 */
+	public List<RequestMetricsSnapshot> snapshot() {
+		List<RequestMetricsSnapshot> snapshots = new ArrayList<RequestMetricsSnapshot>();
+		for (RequestStats stats : new TreeMap<String, RequestStats>(requestStats).values()) {
+			snapshots.add(new RequestMetricsSnapshot(stats.pattern, stats.method, stats.count.sum(),
+					stats.clientErrors.sum(), stats.serverErrors.sum(), stats.bytesOut.sum(), stats.inFlight.sum(),
+					stats.latency.snapshot()));
+		}
+		return snapshots;
+	}
+
+	/**
+	 * 清空已记录的指标
+	 */
+	public void reset() {
+		for (RequestStats stats : requestStats.values()) {
+			stats.count.reset();
+			stats.clientErrors.reset();
+			stats.serverErrors.reset();
+			stats.bytesOut.reset();
+			stats.latency.reset();
+		}
+	}
+
+	/**
+	 * 以文本形式输出所有指标,每行形如<code>http_server_requests{pattern="/api/*",method="GET"} 10</code>
+	 * @see 延迟单位为微秒
+	 */
+	public String toText() {
+		StringBuilder sb = new StringBuilder();
+		for (RequestMetricsSnapshot s : snapshot()) {
+			String labels = "{pattern=\"" + s.getPattern() + "\",method=\"" + s.getMethod() + "\"";
+			appendLine(sb, "http_server_requests", labels + "}", s.getRequestCount());
+			appendLine(sb, "http_server_client_errors", labels + "}", s.getClientErrorCount());
+			appendLine(sb, "http_server_server_errors", labels + "}", s.getServerErrorCount());
+			appendLine(sb, "http_server_bytes_out", labels + "}", s.getBytesOut());
+			appendLine(sb, "http_server_in_flight", labels + "}", s.getInFlight());
+			LatencyHistogram.Snapshot latency = s.getLatency();
+			appendLine(sb, "http_server_latency_us", labels + ",quantile=\"0.5\"}", latency.getValueAtPercentile(50));
+			appendLine(sb, "http_server_latency_us", labels + ",quantile=\"0.9\"}", latency.getValueAtPercentile(90));
+			appendLine(sb, "http_server_latency_us", labels + ",quantile=\"0.99\"}", latency.getValueAtPercentile(99));
+			appendLine(sb, "http_server_latency_us", labels + ",quantile=\"0.999\"}",
+					latency.getValueAtPercentile(99.9));
+			appendLine(sb, "http_server_latency_us_max", labels + "}", latency.getMax());
+		}
+		return sb.toString();
+	}
+
+	private static void appendLine(StringBuilder sb, String name, String labels, long value) {
+		sb.append(name).append(labels).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * 某个url-pattern某种HTTP方法的累计数据
+	 */
+	static class RequestStats {
+		final String pattern;
+		final String method;
+		final LongAdder count = new LongAdder();
+		final LongAdder clientErrors = new LongAdder();
+		final LongAdder serverErrors = new LongAdder();
+		final LongAdder bytesOut = new LongAdder();
+		final LongAdder inFlight = new LongAdder();
+		final LatencyHistogram latency = new LatencyHistogram();
+
+		RequestStats(String pattern, String method) {
+			this.pattern = pattern;
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package org.akcome.commons.web.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.akcome.commons.web.filter.UrlPatternMatcher;
+
+/**
+ * 按url-pattern统计请求数、状态码、处理时间、响应大小及正在处理的请求数的过滤器
+ *
+ * 使用方式 ：web.xml 加入
+ *  <filter>
+		<filter-name>requestMetricsFilter</filter-name>
+		<filter-class>org.akcome.commons.web.metrics.RequestMetricsFilter</filter-class>
+		<!-- 以下参数均可省略 -->
+		<init-param>
+			<param-name>patterns</param-name>
+			<param-value>/api/order/*,/api/user/*,*.do</param-value>
+		</init-param>
+		<init-param>
+			<param-name>metricsPath</param-name>
+			<param-value>/metrics</param-value>
+		</init-param>
+		<init-param>
+			<param-name>metricsAllowRemote</param-name>
+			<param-value>false</param-value>
+		</init-param>
+	</filter>
+	<filter-mapping>
+		<filter-name>requestMetricsFilter</filter-name>
+		<url-pattern>/*</url-pattern>
+	</filter-mapping>
+ *
+ * patterns为以逗号分隔的url-pattern，请求按Servlet规范的优先顺序归入其中一个，未匹配的归入other，默认全部归入/*；
+ * 匹配使用容器解码后的getServletPath()+getPathInfo()，请求URI中的;参数不影响分组；
+ * metricsPath为输出指标文本的路径，为空时不输出；
+ * metricsAllowRemote为false(默认)时只向本机(getRemoteAddr()为回环地址)输出指标，其他请求按普通请求交给后续处理。
+ * 经同一台机器上的反向代理转发时，远程请求的getRemoteAddr()也是回环地址，须在代理上禁止访问metricsPath；
+ * 设为true时任何客户端均可读取指标，须由其他方式(如安全约束、网关)保护该路径。
+ * 指标保存在ServletContext的属性<code>RequestMetrics.class.getName()</code>中，可通过<code>getMetrics(ServletContext)</code>获取
+ * @author peng_wang
+ *
+ */
+public class RequestMetricsFilter implements Filter {
+	/** 未匹配任何url-pattern的请求归入的分组 */
+	public static final String OTHER = "other";
+
+	/** 非标准的HTTP方法归入OTHER,避免分组无限增长 */
+	private static final Set<String> METHODS = new HashSet<String>(Arrays.asList("GET", "POST", "PUT", "DELETE",
+			"HEAD", "OPTIONS", "PATCH", "TRACE"));
+
+	private final RequestMetrics metrics = new RequestMetrics();
+	private UrlPatternMatcher patterns = new UrlPatternMatcher("/*");
+	private String metricsPath;
+	private boolean metricsAllowRemote;
+
+	public void init(FilterConfig config) throws ServletException {
+		try {
+			String patternList = config.getInitParameter("patterns");
+			if (patternList != null && !patternList.trim().isEmpty()) {
+				patterns = new UrlPatternMatcher(patternList);
+			}
+		} catch (IllegalArgumentException e) {
+			throw new ServletException("RequestMetricsFilter配置错误:" + e.getMessage(), e);
+		}
+		String path = config.getInitParameter("metricsPath");
+		metricsPath = path == null || path.trim().isEmpty() ? null : path.trim();
+		metricsAllowRemote = Boolean.parseBoolean(config.getInitParameter("metricsAllowRemote"));
+		config.getServletContext().setAttribute(RequestMetrics.class.getName(), metrics);
+	}
+
+	/**
+	 * 获取ServletContext中的请求指标
+	 *
+	 * @return 请求指标,未配置过滤器时返回null
+	 */
+	public static RequestMetrics getMetrics(ServletContext context) {
+		return (RequestMetrics) context.getAttribute(RequestMetrics.class.getName());
+	}
+
+	public RequestMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException,
+			ServletException {
+		if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+			chain.doFilter(request, response);
+			return;
+		}
+		HttpServletRequest httpRequest = (HttpServletRequest) request;
+		String path = UrlPatternMatcher.getPath(httpRequest);
+		if (metricsPath != null && metricsPath.equals(path)
+				&& (metricsAllowRemote || isLoopback(httpRequest.getRemoteAddr()))) {
+			writeMetrics((HttpServletResponse) response);
+			return;
+		}
+		String pattern = patterns.match(path);
+		String method = httpRequest.getMethod();
+		RequestMetrics.RequestStats stats = metrics.recordStart(pattern == null ? OTHER : pattern,
+				METHODS.contains(method) ? method : "OTHER");
+		CountingResponseWrapper countingResponse = new CountingResponseWrapper((HttpServletResponse) response);
+		long start = System.nanoTime();
+		int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		try {
+			chain.doFilter(request, countingResponse);
+			status = countingResponse.getStatus();
+		} finally {
+			metrics.recordEnd(stats, status, System.nanoTime() - start, countingResponse.getCount());
+		}
+	}
+
+	/**
+	 * 是否为回环地址,只比较文本,不做域名解析
+	 */
+	static boolean isLoopback(String address) {
+		if (address == null) {
+			return false;
+		}
+		return address.startsWith("127.") || address.equals("::1") || address.equals("0:0:0:0:0:0:0:1")
+				|| address.equals("[::1]") || address.startsWith("::ffff:127.");
+	}
+
+	private void writeMetrics(HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain;charset=UTF-8");
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter writer = response.getWriter();
+		writer.write(metrics.toText());
+		writer.flush();
+	}
+
+	public void destroy() {
+	}
+}
@@ -0,0 +1,92 @@
+package org.akcome.commons.web.metrics;
+
+import org.akcome.commons.metrics.LatencyHistogram;
+
+/**
+ * 某个url-pattern某种HTTP方法的请求统计快照
+ * @see 由<code>RequestMetrics.snapshot()</code>生成,延迟数值单位均为微秒
+ * @author peng_wang
+ */
+public class RequestMetricsSnapshot {
+	private final String pattern;
+	private final String method;
+	private final long requestCount;
+	private final long clientErrorCount;
+	private final long serverErrorCount;
+	private final long bytesOut;
+	private final long inFlight;
+	private final LatencyHistogram.Snapshot latency;
+
+	RequestMetricsSnapshot(String pattern, String method, long requestCount, long clientErrorCount,
+			long serverErrorCount, long bytesOut, long inFlight, LatencyHistogram.Snapshot latency) {
+		this.pattern = pattern;
+		this.method = method;
+		this.requestCount = requestCount;
+		this.clientErrorCount = clientErrorCount;
+		this.serverErrorCount = serverErrorCount;
+		this.bytesOut = bytesOut;
+		this.inFlight = inFlight;
+		this.latency = latency;
+	}
+
+	/**
+	 * 匹配请求路径的url-pattern,未匹配任何url-pattern时为other
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * 已完成的请求数
+	 */
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * 状态码为4xx的请求数
+	 */
+	public long getClientErrorCount() {
+		return clientErrorCount;
+	}
+
+	/**
+	 * 状态码为5xx或抛出异常的请求数
+	 */
+	public long getServerErrorCount() {
+		return serverErrorCount;
+	}
+
+	/**
+	 * 响应正文大小,通过getWriter输出的部分按字符数计算
+	 */
+	public long getBytesOut() {
+		return bytesOut;
+	}
+
+	/**
+	 * 正在处理的请求数
+	 */
+	public long getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	 * 请求处理时间的直方图快照
+	 */
+	public LatencyHistogram.Snapshot getLatency() {
+		return latency;
+	}
+
+	@Override
+	public String toString() {
+		return pattern + " " + method + " count=" + requestCount + " 4xx=" + clientErrorCount + " 5xx="
+				+ serverErrorCount + " bytesOut=" + bytesOut + " inFlight=" + inFlight + " p50="
+				+ latency.getValueAtPercentile(50) + "us p99=" + latency.getValueAtPercentile(99) + "us max="
+				+ latency.getMax() + "us";
+	}
+}
@@ -0,0 +1,114 @@
+package org.akcome.commons.web.filter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 测试用的HttpServletRequest,只实现过滤器用到的方法,路径按容器解码后的结果设置
+ * @author peng_wang
+ */
+public final class StubRequest implements InvocationHandler {
+	public String method = "GET";
+	public String contextPath = "";
+	public String servletPath = "";
+	public String pathInfo;
+	public String requestURI;
+	public String contentType;
+	public String characterEncoding;
+	public String remoteAddr = "127.0.0.1";
+	public byte[] body = new byte[0];
+	public final Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+
+	/**
+	 * @param requestURI  未解码的请求URI
+	 * @param contextPath 上下文路径
+	 * @param servletPath 容器解码、规范化后的Servlet路径
+	 * @param pathInfo    容器解码、规范化后的附加路径,可以为null
+	 */
+	public static StubRequest of(String requestURI, String contextPath, String servletPath, String pathInfo) {
+		StubRequest stub = new StubRequest();
+		stub.requestURI = requestURI;
+		stub.contextPath = contextPath;
+		stub.servletPath = servletPath;
+		stub.pathInfo = pathInfo;
+		return stub;
+	}
+
+	public StubRequest parameter(String name, String... values) {
+		parameters.put(name, values);
+		return this;
+	}
+
+	public StubRequest body(String contentType, String body) {
+		this.contentType = contentType;
+		this.body = body.getBytes(Charset.forName("UTF-8"));
+		return this;
+	}
+
+	public HttpServletRequest toRequest() {
+		return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, this);
+	}
+
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if ("getMethod".equals(name)) {
+			return this.method;
+		} else if ("getContextPath".equals(name)) {
+			return contextPath;
+		} else if ("getServletPath".equals(name)) {
+			return servletPath;
+		} else if ("getPathInfo".equals(name)) {
+			return pathInfo;
+		} else if ("getRequestURI".equals(name)) {
+			return requestURI;
+		} else if ("getContentType".equals(name)) {
+			return contentType;
+		} else if ("getCharacterEncoding".equals(name)) {
+			return characterEncoding;
+		} else if ("getRemoteAddr".equals(name)) {
+			return remoteAddr;
+		} else if ("getContentLength".equals(name)) {
+			return body.length;
+		} else if ("getParameterMap".equals(name)) {
+			return Collections.unmodifiableMap(parameters);
+		} else if ("getParameter".equals(name)) {
+			String[] values = parameters.get(args[0]);
+			return values == null ? null : values[0];
+		} else if ("getParameterValues".equals(name)) {
+			return parameters.get(args[0]);
+		} else if ("getParameterNames".equals(name)) {
+			return Collections.enumeration(parameters.keySet());
+		} else if ("getHeader".equals(name)) {
+			return null;
+		} else if ("getInputStream".equals(name)) {
+			final ByteArrayInputStream in = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public int read() {
+					return in.read();
+				}
+			};
+		} else if ("getReader".equals(name)) {
+			return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), Charset.forName("UTF-8")));
+		} else if ("toString".equals(name)) {
+			return "StubRequest[" + requestURI + "]";
+		} else if ("hashCode".equals(name)) {
+			return System.identityHashCode(proxy);
+		} else if ("equals".equals(name)) {
+			return proxy == args[0];
+		}
+		throw new UnsupportedOperationException(name);
+	}
+}
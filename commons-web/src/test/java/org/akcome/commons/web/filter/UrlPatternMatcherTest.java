@@ -0,0 +1,60 @@
+package org.akcome.commons.web.filter;
+
+import junit.framework.TestCase;
+
+/**
+ * UrlPatternMatcher的匹配规则、匹配顺序与请求路径的取法
+ * @author peng_wang
+ */
+public class UrlPatternMatcherTest extends TestCase {
+
+	public void testMatches() {
+		UrlPatternMatcher matcher = new UrlPatternMatcher("/static/*, *.js,/health");
+		assertTrue(matcher.matches("/health"));
+		assertFalse(matcher.matches("/health/x"));
+		assertTrue(matcher.matches("/static"));
+		assertTrue(matcher.matches("/static/a.css"));
+		assertFalse(matcher.matches("/staticx/a.css"));
+		assertTrue(matcher.matches("/app.js"));
+		assertFalse(matcher.matches("/app.json"));
+	}
+
+	public void testServletSpecPrecedence() {
+		UrlPatternMatcher matcher = new UrlPatternMatcher("/, *.js, /static/*, /static/lib/*, /health");
+		assertEquals("/health", matcher.match("/health"));
+		assertEquals("/static/lib/*", matcher.match("/static/lib/a.js"));
+		assertEquals("/static/*", matcher.match("/static/a.js"));
+		assertEquals("/static/*", matcher.match("/static"));
+		assertEquals("*.js", matcher.match("/app.js"));
+		assertEquals("/", matcher.match("/staticx/a.css"));
+	}
+
+	public void testMatchAll() {
+		assertTrue(new UrlPatternMatcher("/").matches("/a/b"));
+		assertTrue(new UrlPatternMatcher("/*").matches(""));
+	}
+
+	public void testEmptyPatternsMatchNothing() {
+		assertNull(new UrlPatternMatcher(null).match("/a"));
+		assertNull(new UrlPatternMatcher(" ").match("/a"));
+	}
+
+	public void testInvalidPattern() {
+		for (String pattern : new String[] { "static/*", "/a/*/b" }) {
+			try {
+				new UrlPatternMatcher(pattern);
+				fail(pattern);
+			} catch (IllegalArgumentException e) {
+				// url-pattern无效
+			}
+		}
+	}
+
+	public void testGetPathUsesServletPathAndPathInfo() {
+		assertEquals("/api/save",
+				UrlPatternMatcher.getPath(StubRequest.of("/app/api/save;x.js", "/app", "/api/save", null).toRequest()));
+		assertEquals("/api/save",
+				UrlPatternMatcher.getPath(StubRequest.of("/app/static/%2e%2e/api/save", "/app", "/api", "/save").toRequest()));
+		assertEquals("/a", UrlPatternMatcher.getPath(StubRequest.of("/a", "", "", "/a").toRequest()));
+	}
+}
@@ -0,0 +1,97 @@
+package org.akcome.commons.web.filter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import junit.framework.TestCase;
+
+/**
+ * XssFilter按路径、Content-Type跳过包装的规则
+ * @author peng_wang
+ */
+public class XssFilterTest extends TestCase {
+	private XssFilter filter;
+
+	@Override
+	protected void setUp() throws Exception {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("excludePatterns", "/static/*,*.js,/health");
+		params.put("excludeContentTypes", "multipart/");
+		filter = new XssFilter();
+		filter.init(config(params));
+	}
+
+	public void testOrdinaryRequestIsWrapped() throws Exception {
+		assertTrue(isWrapped(StubRequest.of("/app/api/save", "/app", "/api/save", null)));
+	}
+
+	public void testExcludedPathsAreBypassed() throws Exception {
+		assertFalse(isWrapped(StubRequest.of("/app/static/app.css", "/app", "/static/app.css", null)));
+		assertFalse(isWrapped(StubRequest.of("/app/lib/jquery.js", "/app", "/lib/jquery.js", null)));
+		assertFalse(isWrapped(StubRequest.of("/app/health", "/app", "/health", null)));
+		// 映射为/*的Servlet,路径在pathInfo中
+		assertFalse(isWrapped(StubRequest.of("/app/static/a.png", "/app", "", "/static/a.png")));
+	}
+
+	public void testPathParameterDoesNotBypass() throws Exception {
+		// 容器去掉;参数后交给/api/save
+		assertTrue(isWrapped(StubRequest.of("/app/api/save;x.js", "/app", "/api/save", null)));
+		assertTrue(isWrapped(StubRequest.of("/app/api/save;jsessionid=1", "/app", "/api/save", null)));
+	}
+
+	public void testDotSegmentsDoNotBypass() throws Exception {
+		assertTrue(isWrapped(StubRequest.of("/app/static/..;/api/save", "/app", "/api/save", null)));
+		assertTrue(isWrapped(StubRequest.of("/app/static/../api/save", "/app", "/api/save", null)));
+		assertTrue(isWrapped(StubRequest.of("/app/static/%2e%2e/api/save", "/app", "/api/save", null)));
+		assertTrue(isWrapped(StubRequest.of("/app/static/%2e%2e/api/save", "/app", "", "/api/save")));
+	}
+
+	public void testExcludedContentTypeIsBypassed() throws Exception {
+		StubRequest stub = StubRequest.of("/app/upload", "/app", "/upload", null);
+		stub.contentType = "Multipart/form-data; boundary=x";
+		assertFalse(isWrapped(stub));
+	}
+
+	public void testInvalidPatternFailsInit() {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("excludePatterns", "static/*");
+		try {
+			new XssFilter().init(config(params));
+			fail();
+		} catch (ServletException e) {
+			// url-pattern无效
+		}
+	}
+
+	private boolean isWrapped(StubRequest stub) throws Exception {
+		final ServletRequest[] passed = new ServletRequest[1];
+		filter.doFilter(stub.toRequest(), null, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) {
+				passed[0] = request;
+			}
+		});
+		assertNotNull(passed[0]);
+		return passed[0] instanceof XssHttpServletRequestWrapper;
+	}
+
+	static FilterConfig config(final Map<String, String> params) {
+		return (FilterConfig) Proxy.newProxyInstance(XssFilterTest.class.getClassLoader(),
+				new Class<?>[] { FilterConfig.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ("getInitParameter".equals(method.getName())) {
+							return params.get(args[0]);
+						}
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+}
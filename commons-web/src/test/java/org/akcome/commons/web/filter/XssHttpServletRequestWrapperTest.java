@@ -0,0 +1,79 @@
+package org.akcome.commons.web.filter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+
+/**
+ * XssHttpServletRequestWrapper的参数过滤
+ * @author peng_wang
+ */
+public class XssHttpServletRequestWrapperTest extends TestCase {
+
+	private static HttpServletRequest wrap(StubRequest stub, XssEncodePolicy policy) {
+		return new XssHttpServletRequestWrapper(stub.toRequest(), policy);
+	}
+
+	public void testParameterValuesAreEncoded() {
+		HttpServletRequest request = wrap(StubRequest.of("/a", "", "/a", null)
+				.parameter("name", "<script>", "ok"), XssEncodePolicy.FULL_WIDTH);
+		assertEquals("＜script＞", request.getParameter("name"));
+		assertEquals("ok", request.getParameterValues("name")[1]);
+		assertEquals("＜script＞", ((String[]) request.getParameterMap().get("name"))[0]);
+	}
+
+	public void testEncodedNamesResolveThroughEveryAccessor() {
+		for (XssEncodePolicy policy : XssEncodePolicy.values()) {
+			HttpServletRequest request = wrap(StubRequest.of("/a", "", "/a", null)
+					.parameter("a<b", "1").parameter("plain", "2"), policy);
+			@SuppressWarnings("unchecked")
+			List<String> names = Collections.list(request.getParameterNames());
+			String encoded = policy.encode("a<b");
+			assertEquals(policy.name(), 2, names.size());
+			assertTrue(policy.name(), names.contains(encoded));
+			for (String name : names) {
+				assertNotNull(policy.name() + ":" + name, request.getParameter(name));
+				assertNotNull(policy.name() + ":" + name, request.getParameterValues(name));
+				assertNotNull(policy.name() + ":" + name, request.getParameterMap().get(name));
+			}
+			// 原始参数名同样可以取到
+			assertEquals(policy.name(), "1", request.getParameter("a<b"));
+			assertEquals(policy.name(), "1", request.getParameterValues("a<b")[0]);
+		}
+	}
+
+	public void testNamesEncodingToSameKeyAreMerged() {
+		HttpServletRequest request = wrap(StubRequest.of("/a", "", "/a", null)
+				.parameter("a<", "1").parameter("a＜", "2"), XssEncodePolicy.FULL_WIDTH);
+		@SuppressWarnings("unchecked")
+		Map<String, String[]> map = request.getParameterMap();
+		assertEquals(1, map.size());
+		String[] values = request.getParameterValues("a<");
+		assertEquals(2, values.length);
+		assertEquals("1", values[0]);
+		assertEquals("2", values[1]);
+	}
+
+	public void testMissingParameter() {
+		HttpServletRequest request = wrap(StubRequest.of("/a", "", "/a", null).parameter("x", "1"),
+				XssEncodePolicy.FULL_WIDTH);
+		assertNull(request.getParameter("y"));
+		assertNull(request.getParameterValues("y"));
+		assertNull(request.getParameterMap().get("y"));
+	}
+
+	public void testParameterMapIsUnmodifiable() {
+		HttpServletRequest request = wrap(StubRequest.of("/a", "", "/a", null).parameter("x", "1"),
+				XssEncodePolicy.FULL_WIDTH);
+		try {
+			request.getParameterMap().clear();
+			fail();
+		} catch (UnsupportedOperationException e) {
+			// 不可修改
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package org.akcome.commons.web.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+
+/**
+ * XssSanitizingReader的JSON状态机与文本模式,以及XssSanitizingInputStream的重新编码
+ * @author peng_wang
+ */
+public class XssSanitizingReaderTest extends TestCase {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	public void testJsonOnlyStringsAreEncoded() throws IOException {
+		assertEquals("{\"a＜\":\"x＜y＞\",\"n\":1,\"b\":[true,null]}",
+				json("{\"a<\":\"x<y>\",\"n\":1,\"b\":[true,null]}", XssEncodePolicy.FULL_WIDTH));
+		// 结构中的字符不替换
+		assertEquals(" { } [ ] : , ", json(" { } [ ] : , ", XssEncodePolicy.FULL_WIDTH));
+	}
+
+	public void testTextModeEncodesEverything() throws IOException {
+		assertEquals("{“a“:＜b＞＼＃}", sanitize("{\"a\":<b>\\#}", XssEncodePolicy.FULL_WIDTH, false));
+	}
+
+	public void testEscapedSpecialCharactersAreEncoded() throws IOException {
+		assertEquals("\"“＼\"", json("\"\\\"\\\\\"", XssEncodePolicy.FULL_WIDTH));
+		assertEquals("\"&quot;&#92;\"", json("\"\\\"\\\\\"", XssEncodePolicy.HTML_ENTITY));
+		assertEquals("\"＜＞\"", json("\"\\u003c\\u003E\"", XssEncodePolicy.FULL_WIDTH));
+	}
+
+	public void testOtherEscapesAreKept() throws IOException {
+		assertEquals("\"\\n\\t\\/\\u0041\\u4e2d\"", json("\"\\n\\t\\/\\u0041\\u4e2d\"", XssEncodePolicy.FULL_WIDTH));
+	}
+
+	public void testMalformedEscapesAreKept() throws IOException {
+		// 无效的十六进制字符之后按字符串内容处理
+		assertEquals("\"\\u00zz＜\"", json("\"\\u00zz<\"", XssEncodePolicy.FULL_WIDTH));
+		// 结束处不完整的转义原样输出
+		assertEquals("\"\\u00", json("\"\\u00", XssEncodePolicy.FULL_WIDTH));
+		assertEquals("\"\\", json("\"\\", XssEncodePolicy.FULL_WIDTH));
+	}
+
+	public void testStateSurvivesChunkBoundaries() throws IOException {
+		String input = "{\"k<\":\"\\u003c\\\"x\\\\\",\"v\":\"a\\nb\"}";
+		String expected = json(input, XssEncodePolicy.FULL_WIDTH);
+		assertEquals(expected, read(new XssSanitizingReader(new OneCharReader(input), XssEncodePolicy.FULL_WIDTH, true)));
+		StringBuilder large = new StringBuilder();
+		StringBuilder largeExpected = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			large.append("\"\\u003c\",");
+			largeExpected.append("\"＜\",");
+		}
+		assertEquals(largeExpected.toString(), json(large.toString(), XssEncodePolicy.FULL_WIDTH));
+	}
+
+	public void testInputStreamReencodesSupplementaryCharacters() throws IOException {
+		StringBuilder body = new StringBuilder("\"");
+		StringBuilder expected = new StringBuilder("\"");
+		for (int i = 0; i < 5000; i++) {
+			body.append("\uD83D\uDE00<");
+			expected.append("\uD83D\uDE00＜");
+		}
+		body.append('"');
+		expected.append('"');
+		InputStream in = new XssSanitizingInputStream(new XssSanitizingReader(new StringReader(body.toString()),
+				XssEncodePolicy.FULL_WIDTH, true), UTF_8);
+		assertEquals(expected.toString(), new String(readBytes(in), UTF_8));
+	}
+
+	public void testWrapperSanitizesJsonBody() throws IOException {
+		StubRequest stub = StubRequest.of("/a", "", "/a", null).body("application/json;charset=UTF-8",
+				"{\"name\":\"<b>中文</b>\"}");
+		stub.characterEncoding = "UTF-8";
+		HttpServletRequest request = new XssHttpServletRequestWrapper(stub.toRequest(), XssEncodePolicy.FULL_WIDTH, true);
+		assertEquals(-1, request.getContentLength());
+		assertEquals("{\"name\":\"＜b＞中文＜/b＞\"}", new String(readBytes(request.getInputStream()), UTF_8));
+	}
+
+	public void testWrapperLeavesBodyWhenDisabledOrOtherType() throws IOException {
+		String body = "{\"name\":\"<b>\"}";
+		HttpServletRequest disabled = new XssHttpServletRequestWrapper(StubRequest.of("/a", "", "/a", null)
+				.body("application/json", body).toRequest(), XssEncodePolicy.FULL_WIDTH, false);
+		assertEquals(body, new String(readBytes(disabled.getInputStream()), UTF_8));
+		HttpServletRequest other = new XssHttpServletRequestWrapper(StubRequest.of("/a", "", "/a", null)
+				.body("application/xml", body).toRequest(), XssEncodePolicy.FULL_WIDTH, true);
+		assertEquals(body, new String(readBytes(other.getInputStream()), UTF_8));
+	}
+
+	private static String json(String input, XssEncodePolicy policy) throws IOException {
+		return sanitize(input, policy, true);
+	}
+
+	private static String sanitize(String input, XssEncodePolicy policy, boolean json) throws IOException {
+		return read(new XssSanitizingReader(new StringReader(input), policy, json));
+	}
+
+	private static String read(Reader reader) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[100];
+		int n;
+		while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+			sb.append(buffer, 0, n);
+		}
+		return sb.toString();
+	}
+
+	private static byte[] readBytes(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[777];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * 每次只返回一个字符的Reader,使转义序列被拆到不同的块中
+	 */
+	private static final class OneCharReader extends Reader {
+		private final String s;
+		private int pos;
+
+		OneCharReader(String s) {
+			this.s = s;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) {
+			if (pos == s.length()) {
+				return -1;
+			}
+			cbuf[off] = s.charAt(pos++);
+			return 1;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package org.akcome.commons.web.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.akcome.commons.web.filter.StubRequest;
+
+/**
+ * RequestMetricsFilter的分组与指标路径
+ * @author peng_wang
+ */
+public class RequestMetricsFilterTest extends TestCase {
+
+	public void testRequestsGroupedByPatternAndMethod() throws Exception {
+		RequestMetricsFilter filter = filter(false);
+		serve(filter, StubRequest.of("/app/api/order/1", "/app", "/api/order/1", null));
+		serve(filter, StubRequest.of("/app/api/order/2", "/app", "/api/order/2", null));
+		StubRequest post = StubRequest.of("/app/save.do", "/app", "/save.do", null);
+		post.method = "POST";
+		serve(filter, post);
+		StubRequest custom = StubRequest.of("/app/home", "/app", "/home", null);
+		custom.method = "PROPFIND";
+		serve(filter, custom);
+
+		Map<String, Long> counts = new HashMap<String, Long>();
+		for (RequestMetricsSnapshot snapshot : filter.getMetrics().snapshot()) {
+			counts.put(snapshot.getPattern() + " " + snapshot.getMethod(), snapshot.getRequestCount());
+			assertEquals(0, snapshot.getInFlight());
+		}
+		assertEquals(3, counts.size());
+		assertEquals(Long.valueOf(2), counts.get("/api/order/* GET"));
+		assertEquals(Long.valueOf(1), counts.get("*.do POST"));
+		assertEquals(Long.valueOf(1), counts.get(RequestMetricsFilter.OTHER + " OTHER"));
+	}
+
+	public void testMetricsPathWritesText() throws Exception {
+		RequestMetricsFilter filter = filter(false);
+		serve(filter, StubRequest.of("/app/api/order/1", "/app", "/api/order/1", null));
+		Served served = serve(filter, StubRequest.of("/app/metrics", "/app", "/metrics", null));
+		assertFalse(served.chained);
+		String text = served.text.toString();
+		assertTrue(text, text.indexOf("http_server_requests{pattern=\"/api/order/*\",method=\"GET\"} 1") >= 0);
+		// 指标路径本身不计入统计
+		assertEquals(1, filter.getMetrics().snapshot().size());
+	}
+
+	public void testMetricsPathServedOnlyToLoopback() throws Exception {
+		RequestMetricsFilter filter = filter(false);
+		assertNotNull(serve(filter, StubRequest.of("/app/metrics", "/app", "/metrics", null)).text);
+
+		StubRequest remote = StubRequest.of("/app/metrics", "/app", "/metrics", null);
+		remote.remoteAddr = "10.0.0.8";
+		Served served = serve(filter, remote);
+		assertNull(served.text);
+		assertTrue(served.chained);
+	}
+
+	public void testMetricsPathServedToRemoteWhenAllowed() throws Exception {
+		StubRequest remote = StubRequest.of("/app/metrics", "/app", "/metrics", null);
+		remote.remoteAddr = "10.0.0.8";
+		assertNotNull(serve(filter(true), remote).text);
+	}
+
+	public void testPathParameterMatchesMetricsPathAndPattern() throws Exception {
+		RequestMetricsFilter filter = filter(false);
+		assertNotNull(serve(filter, StubRequest.of("/app/metrics;x", "/app", "/metrics", null)).text);
+		serve(filter, StubRequest.of("/app/api/order/1;jsessionid=abc", "/app", "/api/order/1", null));
+		RequestMetricsSnapshot snapshot = filter.getMetrics().snapshot().get(0);
+		assertEquals("/api/order/*", snapshot.getPattern());
+		assertEquals(1, snapshot.getRequestCount());
+	}
+
+	public void testIsLoopback() {
+		assertTrue(RequestMetricsFilter.isLoopback("127.0.0.1"));
+		assertTrue(RequestMetricsFilter.isLoopback("0:0:0:0:0:0:0:1"));
+		assertTrue(RequestMetricsFilter.isLoopback("::1"));
+		assertFalse(RequestMetricsFilter.isLoopback("10.0.0.1"));
+		assertFalse(RequestMetricsFilter.isLoopback("1270.0.0.1"));
+		assertFalse(RequestMetricsFilter.isLoopback(null));
+	}
+
+	private static RequestMetricsFilter filter(boolean allowRemote) throws Exception {
+		final Map<String, String> params = new HashMap<String, String>();
+		params.put("patterns", "/api/order/*,*.do");
+		params.put("metricsPath", "/metrics");
+		params.put("metricsAllowRemote", String.valueOf(allowRemote));
+		final ServletContext context = proxy(ServletContext.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if ("setAttribute".equals(method.getName())) {
+					return null;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		RequestMetricsFilter filter = new RequestMetricsFilter();
+		filter.init(proxy(FilterConfig.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if ("getInitParameter".equals(method.getName())) {
+					return params.get(args[0]);
+				}
+				if ("getServletContext".equals(method.getName())) {
+					return context;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}));
+		return filter;
+	}
+
+	private static Served serve(RequestMetricsFilter filter, StubRequest request) throws Exception {
+		final Served served = new Served();
+		final StringWriter body = new StringWriter();
+		HttpServletResponse response = proxy(HttpServletResponse.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if ("getWriter".equals(name)) {
+					served.text = body;
+					return new PrintWriter(body);
+				}
+				if (name.startsWith("set")) {
+					return null;
+				}
+				throw new UnsupportedOperationException(name);
+			}
+		});
+		filter.doFilter(request.toRequest(), response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				served.chained = true;
+			}
+		});
+		return served;
+	}
+
+	private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(RequestMetricsFilterTest.class.getClassLoader(),
+				new Class<?>[] { type }, handler));
+	}
+
+	private static final class Served {
+		StringWriter text;
+		boolean chained;
+	}
+}